@@ -24,6 +24,12 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // release-like build for the startup macrobenchmark, signed with the debug key
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
@@ -35,11 +41,10 @@ android {
 }
 
 dependencies {
-    implementation(libs.jakewharton.threetenabp)
+    implementation(project(":planner-core"))
 
     implementation(libs.osmdroid.android)
     implementation(libs.gson);
-    implementation("org.jgrapht:jgrapht-core:1.3.0")
 
 
     implementation(libs.appcompat)
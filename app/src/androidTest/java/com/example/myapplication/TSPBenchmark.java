@@ -6,6 +6,7 @@ import android.os.Environment;
 import androidx.test.core.app.ApplicationProvider;
 
 import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.util.DistanceMatrix;
 import com.example.myapplication.util.TSPPlanner;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -97,7 +98,7 @@ public class TSPBenchmark {
 
 
 
-                // Build the distance matrix replicating TSPPlanner’s logic (including DistanceEntry usage and Haversine fallback)
+                // Index the nodes for the distance matrix
                 int interCount = intermediateNodes.size();  // this equals n
                 int totalNodes = interCount + 2;
                 // Map from node ID to matrix index
@@ -119,50 +120,12 @@ public class TSPBenchmark {
                 nodeByIndex.set(startIndex, start);
                 nodeByIndex.set(endIndex, end);
 
-                // Initialize distance matrix
-                double INF = Double.POSITIVE_INFINITY;
+                // Distance matrix shared with TSPPlanner (DistanceEntry values, haversine rows for missing pairs)
+                DistanceMatrix matrix = new DistanceMatrix(nodeByIndex);
                 double[][] dist = new double[totalNodes][totalNodes];
                 for (int i = 0; i < totalNodes; i++) {
                     for (int j = 0; j < totalNodes; j++) {
-                        if (i == j) {
-                            dist[i][j] = 0.0;
-                        } else {
-                            dist[i][j] = INF;
-                        }
-                    }
-                }
-                // Fill in known distances from DistanceEntry lists
-                for (int i = 0; i < totalNodes; i++) {
-                    MowingPlace p = nodeByIndex.get(i);
-                    List<MowingPlace.DistanceEntry> distancesList = p.getDistancesToOthers();
-                    if (distancesList != null) {
-                        for (MowingPlace.DistanceEntry entry : distancesList) {
-                            Integer j = indexById.get(entry.getId());
-                            if (j != null) {
-                                dist[i][j] = entry.getDistance();
-                            }
-                        }
-                    }
-                }
-                // Enforce symmetry and use Haversine for missing distances
-                for (int i = 0; i < totalNodes; i++) {
-                    for (int j = i + 1; j < totalNodes; j++) {
-                        if (dist[i][j] == INF && dist[j][i] == INF) {
-                            // Both directions missing: use Haversine formula
-                            double d = haversineDistance(nodeByIndex.get(i), nodeByIndex.get(j));
-                            dist[i][j] = d;
-                            dist[j][i] = d;
-                        } else if (dist[i][j] == INF) {
-                            // One direction known, make symmetric
-                            dist[i][j] = dist[j][i];
-                        } else if (dist[j][i] == INF) {
-                            dist[j][i] = dist[i][j];
-                        } else {
-                            // Both directions have values (possibly different); use the smaller to ensure symmetry
-                            double d = (dist[i][j] < dist[j][i] ? dist[i][j] : dist[j][i]);
-                            dist[i][j] = d;
-                            dist[j][i] = d;
-                        }
+                        dist[i][j] = matrix.distance(i, j);
                     }
                 }
 
@@ -217,26 +180,6 @@ public class TSPBenchmark {
         out.close();
     }
 
-    /**
-     * Compute the great-circle distance between two points (Haversine formula).
-     */
-    private static double haversineDistance(MowingPlace p1, MowingPlace p2) {
-        double lat1 = p1.getLatitude();
-        double lon1 = p1.getLongitude();
-        double lat2 = p2.getLatitude();
-        double lon2 = p2.getLongitude();
-        double R = 6371000.0;  // Earth’s radius in meters
-        double phi1 = Math.toRadians(lat1);
-        double phi2 = Math.toRadians(lat2);
-        double deltaPhi = Math.toRadians(lat2 - lat1);
-        double deltaLambda = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(deltaPhi / 2) * Math.sin(deltaPhi / 2) +
-                Math.cos(phi1) * Math.cos(phi2) *
-                        Math.sin(deltaLambda / 2) * Math.sin(deltaLambda / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
-
     /**
      * Compute the optimal path length using brute-force permutation (exhaustive search).
      * This considers all permutations of the intermediate nodes.
@@ -2,16 +2,38 @@ package com.example.myapplication;
 
 import android.app.Application;
 
-import com.jakewharton.threetenabp.AndroidThreeTen;
+import com.example.myapplication.data.PlacesStore;
+import com.example.myapplication.util.PlanCache;
+import com.example.myapplication.util.RouteGeometryCache;
+import com.example.myapplication.util.TilePrefetchHelper;
 
 import org.osmdroid.config.Configuration;
 import org.osmdroid.library.BuildConfig;
 
+import java.io.File;
+
 /**
  * Custom Application class for initializing global settings.
- * This class is used to set the user agent for osmdroid and initialize the Android ThreeTen library.
+ * This class is used to set the user agent and tile cache size of osmdroid and to start loading
+ * the mowing places in the background, so the first screen can be shown before they are parsed.
+ * Once loaded, the map tiles of their area are prefetched for use without coverage.
  */
 public class MyApplication extends Application {
+
+    /**
+     * Number of planned routes kept in the plan cache.
+     */
+    private static final int PLAN_CACHE_CAPACITY = 50;
+
+    /**
+     * Number of route legs whose road geometry is kept.
+     */
+    private static final int ROUTE_GEOMETRY_CAPACITY = 500;
+
+    private PlacesStore placesStore;
+    private PlanCache planCache;
+    private RouteGeometryCache routeGeometryCache;
+
     /**
      * Called when the application is starting, before any activity, service, or receiver objects have been created.
      * This method is used to perform one-time initialization of the application.
@@ -21,7 +43,41 @@ public class MyApplication extends Application {
         super.onCreate();
         // Set user agent for osmdroid
         Configuration.getInstance().setUserAgentValue(BuildConfig.LIBRARY_PACKAGE_NAME);
-        AndroidThreeTen.init(this);
+        TilePrefetchHelper.configureCache();
+        // Start loading the places off the main thread; screens observe them when ready
+        placesStore = new PlacesStore(this);
+        placesStore.refresh();
+        placesStore.getPlaces().observeForever(places -> TilePrefetchHelper.prefetchServiceArea(this, places));
+        // The plan cache reads its file on first use
+        planCache = new PlanCache(new File(getFilesDir(), "plan_cache.json"), PLAN_CACHE_CAPACITY);
+        routeGeometryCache = new RouteGeometryCache(new File(getFilesDir(), "route_geometry.json"),
+                ROUTE_GEOMETRY_CAPACITY);
+    }
 
+    /**
+     * Returns the application-wide store of mowing places.
+     *
+     * @return The places store.
+     */
+    public PlacesStore getPlacesStore() {
+        return placesStore;
+    }
+
+    /**
+     * Returns the application-wide cache of planned routes.
+     *
+     * @return The plan cache.
+     */
+    public PlanCache getPlanCache() {
+        return planCache;
+    }
+
+    /**
+     * Returns the application-wide cache of the road geometry of route legs.
+     *
+     * @return The route geometry cache.
+     */
+    public RouteGeometryCache getRouteGeometryCache() {
+        return routeGeometryCache;
     }
 }
@@ -1,117 +1,547 @@
 package com.example.myapplication.data;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
-import java.util.Collections;
+import com.example.myapplication.util.PlannerDates;
+
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Repository class for managing MowingPlace data.
- * This class handles loading and saving mowing places from/to JSON files.
+ * The places, their visits and their road distances are stored in {@link PlannerDatabase};
+ * changing one place or one visit writes only its own rows.
  */
 public class MowingPlacesRepository {
 
 
     private static final String TAG = "MowingPlacesRepository";
-    private static final String JSON_FILE_NAME = "mowing_places.json";
+
+    private static final String[] PLACE_COLUMNS = {
+            "id", "name", "time_requirement", "mowing_count_per_year", "work_cost", "description",
+            "latitude", "longitude", "caretaker", "centre", "area", "locked"
+    };
 
     /**
-     * Loads a list of MowingPlace objects from a JSON file.
-     * The method first checks internal storage; if the file is not found, it loads from assets.
+     * Loads all mowing places with their visits and road distances, in the order they were added.
      *
-     * @param context The application context used to access files and assets.
+     * @param context The application context used to open the database.
      * @return A list of MowingPlace objects, or an empty list if an error occurs.
      */
     public List<MowingPlace> loadMowingPlaces(Context context) {
+        return loadMowingPlaces(context, true);
+    }
+
+    /**
+     * Loads all mowing places with their visits, optionally without their road distances, which
+     * make up most of the data. Places loaded without distances are meant for display and for
+     * the single-place methods of this class.
+     *
+     * @param context       The application context used to open the database.
+     * @param withDistances Whether the distance entries of the places are read.
+     * @return A list of MowingPlace objects, or an empty list if an error occurs.
+     */
+    public List<MowingPlace> loadMowingPlaces(Context context, boolean withDistances) {
+        List<MowingPlace> places = new ArrayList<>();
         try {
-            File file = new File(context.getFilesDir(), JSON_FILE_NAME);
-            InputStream is;
-            if (file.exists()) {
-                // Load from internal storage
-                is = new FileInputStream(file);
-                Log.d(TAG, "Loading JSON from internal storage");
-            } else {
-                // Load from assets if file does not exist in internal storage
-                is = context.getAssets().open(JSON_FILE_NAME);
-                Log.d(TAG, "Loading JSON from assets");
+            SQLiteDatabase db = PlannerDatabase.getInstance(context).getReadableDatabase();
+            // 1) places in the order they were added
+            Map<String, MowingPlace> byId = new HashMap<>();
+            try (Cursor c = db.query(PlannerDatabase.PLACES, PLACE_COLUMNS, null, null, null, null, "rowid")) {
+                while (c.moveToNext()) {
+                    MowingPlace place = readPlace(c);
+                    places.add(place);
+                    byId.put(place.getId(), place);
+                }
             }
-            int size = is.available();
-            byte[] buffer = new byte[size];
-            is.read(buffer);
-            is.close();
-            String jsonString = new String(buffer, StandardCharsets.UTF_8);
-
-            Gson gson = new Gson();
-            Type listType = new TypeToken<List<MowingPlace>>() {}.getType();
+            // 2) visits, oldest first for every place
+            try (Cursor c = db.rawQuery("SELECT place_id, epoch_day FROM " + PlannerDatabase.VISITS
+                    + " ORDER BY place_id, epoch_day", null)) {
+                while (c.moveToNext()) {
+                    MowingPlace place = byId.get(c.getString(0));
+                    if (place != null) {
+                        place.getVisitDates().add(PlannerDates.format(c.getLong(1)));
+                    }
+                }
+            }
+            // 3) distances, grouped by origin in primary key order
+            if (withDistances) {
+                for (MowingPlace place : places) {
+                    place.setDistanceRow(new DistanceRow());
+                }
+                try (Cursor c = db.rawQuery("SELECT from_id, to_id, distance, duration FROM "
+                        + PlannerDatabase.DISTANCES, null)) {
+                    String fromId = null;
+                    DistanceRow row = null;
+                    while (c.moveToNext()) {
+                        if (!c.getString(0).equals(fromId)) {
+                            fromId = c.getString(0);
+                            MowingPlace place = byId.get(fromId);
+                            row = place != null ? place.getDistanceRow() : null;
+                        }
+                        if (row != null) {
+                            row.add(c.getString(1), c.getInt(2), c.getInt(3));
+                        }
+                    }
+                }
+                for (MowingPlace place : places) {
+                    place.getDistanceRow().trimToSize();
+                }
+            }
+            return places;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error loading places", e);
+            return new ArrayList<>();
+        }
+    }
 
-            return gson.fromJson(jsonString, listType);
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading JSON file", e);
-            return Collections.emptyList();
+    /**
+     * Loads a single place with its visits by its primary key, without its road distances.
+     *
+     * @param context The application context used to open the database.
+     * @param placeId The ID of the place.
+     * @return The place, or null if there is no such place or an error occurs.
+     */
+    public MowingPlace loadPlace(Context context, String placeId) {
+        try {
+            SQLiteDatabase db = PlannerDatabase.getInstance(context).getReadableDatabase();
+            // 1) the place row
+            MowingPlace place;
+            try (Cursor c = db.query(PlannerDatabase.PLACES, PLACE_COLUMNS, "id = ?", new String[]{placeId},
+                    null, null, null)) {
+                if (!c.moveToFirst()) {
+                    return null;
+                }
+                place = readPlace(c);
+            }
+            // 2) its visits, oldest first
+            try (Cursor c = db.rawQuery("SELECT epoch_day FROM " + PlannerDatabase.VISITS
+                    + " WHERE place_id = ? ORDER BY epoch_day", new String[]{placeId})) {
+                while (c.moveToNext()) {
+                    place.getVisitDates().add(PlannerDates.format(c.getLong(0)));
+                }
+            }
+            return place;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error loading place " + placeId, e);
+            return null;
         }
     }
 
     /**
-     * Saves a list of MowingPlace objects to a JSON file.
-     * The method saves the file in internal storage.
+     * Replaces all saved places, their visits and their distances with the given places.
      *
-     * @param context The application context used to access files.
-     * @param places  The list of MowingPlace objects to save.
+     * @param context The application context used to open the database.
+     * @param places  The list of MowingPlace objects to save, with their distances.
      * @return true if the save operation was successful, false otherwise.
      */
     public boolean saveMowingPlaces(Context context, List<MowingPlace> places) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(PlannerDatabase.PLACES, null, null);
+            db.delete(PlannerDatabase.DISTANCES, null, null);
+            insertPlaces(db, places);
+            touch(db);
+            db.setTransactionSuccessful();
+            Log.d(TAG, "Saved " + places.size() + " places");
+            return true;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error saving places", e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Saves the attributes and visits of one place, adding it if it is new.
+     * Its road distances are not changed.
+     *
+     * @param context The application context used to open the database.
+     * @param place   The place.
+     * @return true if the save operation was successful, false otherwise.
+     */
+    public boolean savePlace(Context context, MowingPlace place) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
         try {
-            Gson gson = new Gson();
-            String jsonString = gson.toJson(places);
-            //log the JSON string
-            Log.d(TAG, "Saving JSON: \n" + jsonString);
-            File file = new File(context.getFilesDir(), JSON_FILE_NAME);
-            FileOutputStream fos = new FileOutputStream(file);
-            fos.write(jsonString.getBytes(StandardCharsets.UTF_8));
-            fos.close();
-            Log.d(TAG, "Mowing places saved to " + file.getAbsolutePath());
-            loadMowingPlaces(context); // Reload the data after saving
+            writePlace(db, place);
+            touch(db);
+            db.setTransactionSuccessful();
             return true;
-        } catch (IOException e) {
-            Log.e(TAG, "Error saving JSON file", e);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error saving place " + place.getId(), e);
             return false;
+        } finally {
+            db.endTransaction();
         }
     }
 
+    /**
+     * Saves one place like {@link #savePlace(Context, MowingPlace)} together with its road
+     * distances in both directions: the entries of its own row and the entries leading to it in
+     * the rows of the other places, as filled in by the matrix API.
+     *
+     * @param context The application context used to open the database.
+     * @param place   The place.
+     * @param places  All places, holding the distances to the place.
+     * @return true if the save operation was successful, false otherwise.
+     */
+    public boolean savePlaceWithDistances(Context context, MowingPlace place, List<MowingPlace> places) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
+        try {
+            writePlace(db, place);
+            db.delete(PlannerDatabase.DISTANCES, "from_id = ? OR to_id = ?", new String[]{place.getId(), place.getId()});
+            try (SQLiteStatement insert = compileDistanceInsert(db)) {
+                DistanceRow own = place.getDistanceRow();
+                if (own != null) {
+                    for (int i = 0; i < own.size(); i++) {
+                        bindDistance(insert, place.getId(), own.id(i), own.distance(i), own.duration(i));
+                    }
+                }
+                int target = PlaceIds.intern(place.getId());
+                for (MowingPlace other : places) {
+                    DistanceRow row = other.getDistanceRow();
+                    if (other == place || row == null) {
+                        continue;
+                    }
+                    // entries may repeat, the last one is current and replaces the earlier ones
+                    for (int i = 0; i < row.size(); i++) {
+                        if (row.idIndex(i) == target) {
+                            bindDistance(insert, other.getId(), place.getId(), row.distance(i), row.duration(i));
+                        }
+                    }
+                }
+            }
+            touch(db);
+            db.setTransactionSuccessful();
+            return true;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error saving place " + place.getId(), e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes a place with its visits and all road distances from and to it.
+     *
+     * @param context The application context used to open the database.
+     * @param placeId The ID of the place.
+     * @return true if the delete operation was successful, false otherwise.
+     */
+    public boolean deletePlace(Context context, String placeId) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // the visits are deleted by the foreign key
+            db.delete(PlannerDatabase.PLACES, "id = ?", new String[]{placeId});
+            db.delete(PlannerDatabase.DISTANCES, "from_id = ? OR to_id = ?", new String[]{placeId, placeId});
+            touch(db);
+            db.setTransactionSuccessful();
+            return true;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error deleting place " + placeId, e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Records a visit of a place. A place is visited at most once a day, so recording the same
+     * visit again changes nothing.
+     *
+     * @param context The application context used to open the database.
+     * @param placeId The ID of the place.
+     * @param date    The date of the visit in the format "yyyy-MM-dd".
+     * @return true if the place exists, false otherwise.
+     */
+    public boolean addVisit(Context context, String placeId, String date) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (DatabaseUtils.queryNumEntries(db, PlannerDatabase.PLACES, "id = ?", new String[]{placeId}) == 0) {
+                return false;
+            }
+            db.execSQL("INSERT OR IGNORE INTO " + PlannerDatabase.VISITS + " (place_id, epoch_day) VALUES (?, ?)",
+                    new Object[]{placeId, PlannerDates.parse(date)});
+            touch(db);
+            db.setTransactionSuccessful();
+            return true;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error adding visit of " + placeId, e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Removes a visit of a place.
+     *
+     * @param context The application context used to open the database.
+     * @param placeId The ID of the place.
+     * @param date    The date of the visit in the format "yyyy-MM-dd".
+     * @return true if the visit was removed, false otherwise.
+     */
+    public boolean removeVisit(Context context, String placeId, String date) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
+        try {
+            int removed = db.delete(PlannerDatabase.VISITS, "place_id = ? AND epoch_day = ?",
+                    new String[]{placeId, String.valueOf(PlannerDates.parse(date))});
+            touch(db);
+            db.setTransactionSuccessful();
+            return removed > 0;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error removing visit of " + placeId, e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Finds a place by its name.
+     *
+     * @param context The application context used to open the database.
+     * @param name    The name of the place.
+     * @return The ID of the first place added with that name, or null if there is none.
+     */
+    public String findPlaceId(Context context, String name) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getReadableDatabase();
+        try (Cursor c = db.query(PlannerDatabase.PLACES, new String[]{"id"}, "name = ?", new String[]{name},
+                null, null, "rowid", "1")) {
+            return c.moveToFirst() ? c.getString(0) : null;
+        }
+    }
+
+    /**
+     * Counts the visits of every place in a year.
+     *
+     * @param context The application context used to open the database.
+     * @param year    The year.
+     * @return The number of visits by place ID; places without visits in the year are missing.
+     */
+    public Map<String, Integer> countVisitsInYear(Context context, int year) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getReadableDatabase();
+        Map<String, Integer> counts = new HashMap<>();
+        try (Cursor c = db.rawQuery("SELECT place_id, COUNT(*) FROM " + PlannerDatabase.VISITS
+                        + " WHERE epoch_day >= ? AND epoch_day < ? GROUP BY place_id",
+                new String[]{String.valueOf(PlannerDates.toEpochDay(year, 1, 1)),
+                        String.valueOf(PlannerDates.toEpochDay(year + 1, 1, 1))})) {
+            while (c.moveToNext()) {
+                counts.put(c.getString(0), c.getInt(1));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the last visit of every place.
+     *
+     * @param context The application context used to open the database.
+     * @return The day of the last visit (days since 1970-01-01) by place ID; places never
+     *         visited are missing.
+     */
+    public Map<String, Long> lastVisits(Context context) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getReadableDatabase();
+        Map<String, Long> last = new HashMap<>();
+        try (Cursor c = db.rawQuery("SELECT place_id, MAX(epoch_day) FROM " + PlannerDatabase.VISITS
+                + " GROUP BY place_id", null)) {
+            while (c.moveToNext()) {
+                last.put(c.getString(0), c.getLong(1));
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Returns the version of the saved places, changed by every write.
+     *
+     * @param context The application context used to open the database.
+     * @return The version stamp, 0 if the places have not changed since they were imported.
+     */
+    public long lastModified(Context context) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getReadableDatabase();
+        return DatabaseUtils.longForQuery(db, "SELECT value FROM " + PlannerDatabase.META + " WHERE key = ?",
+                new String[]{PlannerDatabase.PLACES_VERSION});
+    }
+
     /**
      * Generates the next ID for a new MowingPlace.
      * The method checks the existing IDs and returns the next available ID.
      *
-     * @param context The application context used to access files.
+     * @param context The application context used to open the database.
      * @return The next available ID as an integer.
      */
     public int getNextId(Context context) {
-        // Reload places (or use cached highestId if available)
-        List<MowingPlace> places = loadMowingPlaces(context);
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getReadableDatabase();
         int maxId = 0;
-        for (MowingPlace place : places) {
-            int idInt = 0;
-            try {
-                idInt = Integer.parseInt(place.getId());
-            } catch (NumberFormatException e) {
-                // Ignore non-integer IDs
-            }
-            if (idInt > maxId) {
-                maxId = idInt;
+        try (Cursor c = db.query(PlannerDatabase.PLACES, new String[]{"id"}, null, null, null, null, null)) {
+            while (c.moveToNext()) {
+                int idInt = 0;
+                try {
+                    idInt = Integer.parseInt(c.getString(0));
+                } catch (NumberFormatException e) {
+                    // Ignore non-integer IDs
+                }
+                if (idInt > maxId) {
+                    maxId = idInt;
+                }
             }
         }
         return maxId + 1;
     }
 
+    /**
+     * Inserts places with their visits and distances in batches of compiled statements.
+     * Used for the import from older versions and for {@link #saveMowingPlaces}; the caller
+     * holds the transaction.
+     *
+     * @param db     The database.
+     * @param places The places.
+     */
+    static void insertPlaces(SQLiteDatabase db, List<MowingPlace> places) {
+        try (SQLiteStatement placeInsert = db.compileStatement("INSERT OR REPLACE INTO " + PlannerDatabase.PLACES
+                + " (" + String.join(", ", PLACE_COLUMNS) + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             SQLiteStatement visitInsert = compileVisitInsert(db);
+             SQLiteStatement distanceInsert = compileDistanceInsert(db)) {
+            for (MowingPlace place : places) {
+                placeInsert.clearBindings();
+                bindPlace(placeInsert, place);
+                placeInsert.executeInsert();
+                insertVisits(visitInsert, place);
+                DistanceRow row = place.getDistanceRow();
+                if (row != null) {
+                    for (int i = 0; i < row.size(); i++) {
+                        bindDistance(distanceInsert, place.getId(), row.id(i), row.distance(i), row.duration(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the row of a place, or inserts it if the place is new, and replaces its visits.
+     * An update keeps the place at its position in the order of the places.
+     */
+    private static void writePlace(SQLiteDatabase db, MowingPlace place) {
+        ContentValues values = new ContentValues();
+        values.put("name", place.getName());
+        values.put("time_requirement", place.getTimeRequirement());
+        values.put("mowing_count_per_year", place.getMowingCountPerYear());
+        values.put("work_cost", place.getWorkCost());
+        values.put("description", place.getDescription());
+        values.put("latitude", place.getLatitude());
+        values.put("longitude", place.getLongitude());
+        values.put("caretaker", place.getCaretaker());
+        values.put("centre", place.getCentre());
+        values.put("area", place.getArea());
+        values.put("locked", place.getLocked());
+        if (db.update(PlannerDatabase.PLACES, values, "id = ?", new String[]{place.getId()}) == 0) {
+            values.put("id", place.getId());
+            db.insertOrThrow(PlannerDatabase.PLACES, null, values);
+        }
+        db.delete(PlannerDatabase.VISITS, "place_id = ?", new String[]{place.getId()});
+        try (SQLiteStatement visitInsert = compileVisitInsert(db)) {
+            insertVisits(visitInsert, place);
+        }
+    }
+
+    private static void bindPlace(SQLiteStatement s, MowingPlace place) {
+        s.bindString(1, place.getId());
+        bindText(s, 2, place.getName());
+        s.bindDouble(3, place.getTimeRequirement());
+        s.bindLong(4, place.getMowingCountPerYear());
+        s.bindLong(5, place.getWorkCost());
+        bindText(s, 6, place.getDescription());
+        s.bindDouble(7, place.getLatitude());
+        s.bindDouble(8, place.getLongitude());
+        bindText(s, 9, place.getCaretaker());
+        bindText(s, 10, place.getCentre());
+        s.bindLong(11, place.getArea());
+        s.bindLong(12, place.getLocked());
+    }
+
+    private static void bindText(SQLiteStatement s, int index, String value) {
+        if (value == null) {
+            s.bindNull(index);
+        } else {
+            s.bindString(index, value);
+        }
+    }
+
+    private static SQLiteStatement compileVisitInsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT OR IGNORE INTO " + PlannerDatabase.VISITS + " (place_id, epoch_day) VALUES (?, ?)");
+    }
+
+    private static SQLiteStatement compileDistanceInsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT OR REPLACE INTO " + PlannerDatabase.DISTANCES
+                + " (from_id, to_id, distance, duration) VALUES (?, ?, ?, ?)");
+    }
+
+    private static void insertVisits(SQLiteStatement visitInsert, MowingPlace place) {
+        if (place.getVisitDates() == null) {
+            return;
+        }
+        for (String date : place.getVisitDates()) {
+            long day;
+            try {
+                day = PlannerDates.parse(date.trim());
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Skipping invalid visit date '" + date + "' of place " + place.getId());
+                continue;
+            }
+            visitInsert.bindString(1, place.getId());
+            visitInsert.bindLong(2, day);
+            visitInsert.executeInsert();
+        }
+    }
+
+    private static void bindDistance(SQLiteStatement s, String fromId, String toId, int distance, int duration) {
+        s.bindString(1, fromId);
+        s.bindString(2, toId);
+        s.bindLong(3, distance);
+        s.bindLong(4, duration);
+        s.executeInsert();
+    }
+
+    /**
+     * Changes the version stamp of the places; it stays increasing even if the clock goes back.
+     */
+    private static void touch(SQLiteDatabase db) {
+        db.execSQL("UPDATE " + PlannerDatabase.META + " SET value = MAX(value + 1, ?) WHERE key = ?",
+                new Object[]{System.currentTimeMillis(), PlannerDatabase.PLACES_VERSION});
+    }
+
+    private static MowingPlace readPlace(Cursor c) {
+        MowingPlace place = new MowingPlace();
+        place.setId(c.getString(0));
+        place.setName(c.getString(1));
+        place.setTimeRequirement(c.getDouble(2));
+        place.setMowingCountPerYear(c.getInt(3));
+        place.setWorkCost(c.getInt(4));
+        place.setDescription(c.getString(5));
+        place.setLatitude(c.getDouble(6));
+        place.setLongitude(c.getDouble(7));
+        place.setCaretaker(c.getString(8));
+        place.setCentre(c.getString(9));
+        place.setArea(c.getInt(10));
+        place.setLocked(c.getInt(11));
+        place.setVisitDates(new ArrayList<>());
+        return place;
+    }
 }
@@ -0,0 +1,295 @@
+package com.example.myapplication.data;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.myapplication.platform.PlannerClock;
+import com.example.myapplication.util.MowingSchedule;
+import com.example.myapplication.util.NameSearchIndex;
+import com.example.myapplication.util.PlannerDates;
+import com.example.myapplication.util.SpatialIndex;
+import com.example.myapplication.util.VisitStatusIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Application-wide holder of the mowing places, loaded off the main thread.
+ *
+ * The places for display (map markers, name suggestions) are loaded without their road distances
+ * as soon as the application starts and are delivered through LiveData. The full places with
+ * distances, which make up most of the data, are loaded only the first time route planning
+ * needs them and are kept until the saved places change.
+ *
+ * With every load of the places for display the store computes their {@link VisitStatusIndex}
+ * from the visit counts and last visits the database aggregates, so the screens read the mowing
+ * status of a place instead of parsing its visit dates, and the
+ * {@link NameSearchIndex} of their names shared by all auto-complete fields, and a
+ * {@link SpatialIndex} of their coordinates for nearest-place lookups on the map.
+ */
+public class PlacesStore {
+
+    private static final String TAG = "PlacesStore";
+
+    private final Context context;
+    private final MowingPlacesRepository repository = new MowingPlacesRepository();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<List<MowingPlace>> places = new MutableLiveData<>();
+
+    // accessed on the executor thread only
+    private long placesStamp = -1;
+    private List<MowingPlace> placesWithDistances;
+    private long distancesStamp = -1;
+
+    // guarded by this
+    private final MowingSchedule schedule = MowingSchedule.defaults();
+    private List<MowingPlace> statusPlaces;
+    private VisitStatusIndex visitStatus;
+    private NameSearchIndex nameIndex = new NameSearchIndex(new ArrayList<>());
+    private SpatialIndex spatialIndex = new SpatialIndex(new ArrayList<>());
+
+    /**
+     * Creates the store.
+     *
+     * @param context The context; only its application context is kept.
+     */
+    public PlacesStore(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Returns the places for display, without road distances. The value is set once the first
+     * load has finished and again whenever the saved places change.
+     *
+     * @return LiveData with the list of places.
+     */
+    public LiveData<List<MowingPlace>> getPlaces() {
+        return places;
+    }
+
+    /**
+     * Returns the mowing status of the places for display, computed with every load of the places
+     * and updated when the day changed since then.
+     *
+     * @return The status index, or null if the places were not loaded yet.
+     */
+    public synchronized VisitStatusIndex getVisitStatus() {
+        if (visitStatus == null) {
+            return null;
+        }
+        long today = PlannerClock.SYSTEM.today();
+        if (visitStatus.today() != today) {
+            visitStatus = visitStatus.onDay(today, statusPlaces, schedule);
+        }
+        return visitStatus;
+    }
+
+    /**
+     * Returns the search index of the names of the places for display, built with every load of
+     * the places. It is ready when the observers of {@link #getPlaces()} are notified.
+     *
+     * @return The index; empty if the places were not loaded yet.
+     */
+    public synchronized NameSearchIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    /**
+     * Returns the spatial index of the places for display, built with every load of the places.
+     *
+     * @return The index; empty if the places were not loaded yet.
+     */
+    public synchronized SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Loads the places for display on a background thread if they were not loaded yet or the
+     * saved places changed since the last load.
+     */
+    public void refresh() {
+        executor.execute(() -> {
+            long stamp = repository.lastModified(context);
+            if (stamp == placesStamp) {
+                return;
+            }
+            long start = System.nanoTime();
+            List<MowingPlace> loaded = repository.loadMowingPlaces(context, false);
+            placesStamp = stamp;
+            Log.d(TAG, "Loaded " + loaded.size() + " places in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            List<String> names = new ArrayList<>(loaded.size());
+            for (MowingPlace place : loaded) {
+                names.add(place.getName());
+            }
+            NameSearchIndex index = new NameSearchIndex(names);
+            SpatialIndex spatial = new SpatialIndex(loaded);
+            long today = PlannerClock.SYSTEM.today();
+            VisitStatusIndex status = VisitStatusIndex.fromVisits(loaded,
+                    repository.countVisitsInYear(context, PlannerDates.yearOf(today)),
+                    repository.lastVisits(context), today, schedule);
+            // the status and names are ready before the observers of the places ask for them
+            synchronized (this) {
+                statusPlaces = loaded;
+                visitStatus = status;
+                nameIndex = index;
+                spatialIndex = spatial;
+            }
+            places.postValue(loaded);
+        });
+    }
+
+    /**
+     * Delivers the places with their road distances on the main thread, loading them on a
+     * background thread the first time and after the saved places changed. The loaded places stay
+     * on the store's thread; every call receives its own copy of them, made there, so the distance
+     * entries a plan adds for its "start" and "end" places never reach the loaded places and a plan
+     * never sees visits recorded while it runs.
+     *
+     * @param callback Receives the copy of the places; it may be modified by the planning.
+     */
+    public void withDistances(Consumer<List<MowingPlace>> callback) {
+        executor.execute(() -> {
+            long stamp = repository.lastModified(context);
+            if (placesWithDistances == null || stamp != distancesStamp) {
+                long start = System.nanoTime();
+                placesWithDistances = repository.loadMowingPlaces(context, true);
+                distancesStamp = stamp;
+                Log.d(TAG, "Loaded distances in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+            List<MowingPlace> result = new ArrayList<>(placesWithDistances.size());
+            for (MowingPlace place : placesWithDistances) {
+                result.add(copyOf(place));
+            }
+            mainHandler.post(() -> callback.accept(result));
+        });
+    }
+
+    /**
+     * Records a visit of a place on the background thread and reports on the main thread whether
+     * the place exists. Recording a visit is a single row insert, whose commit is appended to the
+     * database's write-ahead log; the places are not written again. The visit is applied to the
+     * loaded places with distances, so planning does not reload them because of it, and the places
+     * for display are loaded again with their new status.
+     *
+     * @param placeId   The ID of the place, or null to find the place by its name.
+     * @param placeName The name of the place, used only if the ID is null.
+     * @param date      The date of the visit in the format "yyyy-MM-dd".
+     * @param callback  Receives true if the visit was recorded.
+     */
+    public void addVisit(String placeId, String placeName, String date, Consumer<Boolean> callback) {
+        executor.execute(() -> {
+            long before = repository.lastModified(context);
+            String id = placeId != null ? placeId : repository.findPlaceId(context, placeName);
+            boolean added = id != null && repository.addVisit(context, id, date);
+            // only the visits changed, so loaded distances that were current stay valid
+            if (added && placesWithDistances != null && distancesStamp == before) {
+                for (MowingPlace place : placesWithDistances) {
+                    if (id.equals(place.getId())) {
+                        if (!place.getVisitDates().contains(date)) {
+                            place.getVisitDates().add(date);
+                        }
+                        break;
+                    }
+                }
+                distancesStamp = repository.lastModified(context);
+            }
+            mainHandler.post(() -> callback.accept(added));
+        });
+        refresh();
+    }
+
+    /**
+     * Removes a visit of a place on the background thread and delivers the mowing status without
+     * it on the main thread. Only the status of that one place is computed again, from its
+     * remaining visits: the visit is removed from the loaded places, with and without distances,
+     * and neither is loaded again because of it. If the loaded places were already out of date,
+     * they are loaded again instead and the status is delivered as null.
+     *
+     * @param placeId  The ID of the place.
+     * @param date     The date of the visit in the format "yyyy-MM-dd".
+     * @param callback Receives the status index with the visit removed, or null.
+     */
+    public void removeVisit(String placeId, String date, Consumer<VisitStatusIndex> callback) {
+        executor.execute(() -> {
+            long before = repository.lastModified(context);
+            repository.removeVisit(context, placeId, date);
+            long after = repository.lastModified(context);
+            // 1) only the visits changed, so loaded distances that were current stay valid
+            if (placesWithDistances != null && distancesStamp == before) {
+                MowingPlace place = find(placesWithDistances, placeId);
+                if (place != null) {
+                    place.getVisitDates().remove(date);
+                }
+                distancesStamp = after;
+            }
+            // 2) the status of the one place from its remaining visits
+            VisitStatusIndex status = null;
+            if (placesStamp == before) {
+                synchronized (this) {
+                    MowingPlace place = visitStatus == null ? null : find(statusPlaces, placeId);
+                    if (place != null) {
+                        // the list is shared with the observers of the places, so it is replaced
+                        List<String> dates = new ArrayList<>(place.getVisitDates());
+                        dates.remove(date);
+                        place.setVisitDates(dates);
+                        int year = PlannerDates.yearOf(visitStatus.today());
+                        int count = 0;
+                        int last = VisitStatusIndex.NEVER_VISITED;
+                        for (String d : dates) {
+                            long day = PlannerDates.parse(d);
+                            count += PlannerDates.yearOf(day) == year ? 1 : 0;
+                            last = Math.max(last, (int) day);
+                        }
+                        visitStatus = visitStatus.withVisits(place, count, last, schedule);
+                    }
+                    status = visitStatus;
+                }
+                placesStamp = after;
+            } else {
+                refresh();
+            }
+            VisitStatusIndex result = status;
+            mainHandler.post(() -> callback.accept(result));
+        });
+    }
+
+    private static MowingPlace find(List<MowingPlace> places, String placeId) {
+        for (MowingPlace place : places) {
+            if (placeId.equals(place.getId())) {
+                return place;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies a place with its own list of visits and its own distance row.
+     */
+    private static MowingPlace copyOf(MowingPlace place) {
+        MowingPlace copy = new MowingPlace();
+        copy.setId(place.getId());
+        copy.setName(place.getName());
+        copy.setTimeRequirement(place.getTimeRequirement());
+        copy.setMowingCountPerYear(place.getMowingCountPerYear());
+        copy.setWorkCost(place.getWorkCost());
+        copy.setVisitDates(place.getVisitDates() == null ? null : new ArrayList<>(place.getVisitDates()));
+        copy.setDescription(place.getDescription());
+        copy.setDistanceRow(place.getDistanceRow() == null ? null : place.getDistanceRow().copy());
+        copy.setLatitude(place.getLatitude());
+        copy.setLongitude(place.getLongitude());
+        copy.setCaretaker(place.getCaretaker());
+        copy.setCentre(place.getCentre());
+        copy.setArea(place.getArea());
+        copy.setLocked(place.getLocked());
+        return copy;
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.myapplication.data;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite database holding the mowing places, their visits and road distances, and the route
+ * plan history.
+ *
+ *   places     one row per place, in the order they were added
+ *   visits     (place_id, epoch_day); its primary key serves "last visit per place", the
+ *              index by day serves "visits in a date range per place"
+ *   distances  (from_id, to_id) pairs of the distance matrix
+ *   route_plans, route_stops
+ *              one row per plan and one per stop of a plan with the leg to the next stop
+ *   meta       version stamp of the places, changed by every write
+ *
+ * The database runs in write-ahead logging mode, so reads on one thread do not wait for a write
+ * on another. A commit appends only the changed pages to the log, e.g. one page for a recorded
+ * visit, and is synced to storage before it returns; SQLite copies the log into the main file at
+ * checkpoints, every 1000 pages by default.
+ *
+ * When it is created, the JSON files of older versions (mowing_places.json and the route plan
+ * history) are imported in the same transaction that creates the tables, and deleted once it
+ * has committed.
+ */
+public class PlannerDatabase extends SQLiteOpenHelper {
+
+    private static final String TAG = "PlannerDatabase";
+    private static final String DATABASE_NAME = "planner.db";
+    private static final int DATABASE_VERSION = 1;
+
+    static final String PLACES = "places";
+    static final String VISITS = "visits";
+    static final String DISTANCES = "distances";
+    static final String ROUTE_PLANS = "route_plans";
+    static final String ROUTE_STOPS = "route_stops";
+    static final String META = "meta";
+
+    /**
+     * Key of the version stamp of the places in the meta table.
+     */
+    static final String PLACES_VERSION = "places_version";
+
+    private static final String PLACES_FILE_NAME = "mowing_places.json";
+    private static final String PLANS_FILE_NAME = "route_plans.json";
+
+    private static PlannerDatabase instance;
+
+    private final Context context;
+    // legacy files imported by onCreate, deleted by onOpen after the import has committed
+    private final List<File> imported = new ArrayList<>();
+
+    /**
+     * Returns the application-wide database.
+     *
+     * @param context Any context; only its application context is kept.
+     * @return The database helper.
+     */
+    public static synchronized PlannerDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new PlannerDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private PlannerDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.context = context;
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.setForeignKeyConstraintsEnabled(true);
+        // sync every commit, not only checkpoints, so a recorded visit survives a power loss
+        db.execSQL("PRAGMA synchronous = FULL");
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + PLACES + " ("
+                + "id TEXT PRIMARY KEY NOT NULL, "
+                + "name TEXT, "
+                + "time_requirement REAL NOT NULL, "
+                + "mowing_count_per_year INTEGER NOT NULL, "
+                + "work_cost INTEGER NOT NULL, "
+                + "description TEXT, "
+                + "latitude REAL NOT NULL, "
+                + "longitude REAL NOT NULL, "
+                + "caretaker TEXT, "
+                + "centre TEXT, "
+                + "area INTEGER NOT NULL, "
+                + "locked INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE " + VISITS + " ("
+                + "place_id TEXT NOT NULL REFERENCES " + PLACES + "(id) ON DELETE CASCADE, "
+                + "epoch_day INTEGER NOT NULL, "
+                + "PRIMARY KEY (place_id, epoch_day)) WITHOUT ROWID");
+        db.execSQL("CREATE INDEX visits_by_day ON " + VISITS + " (epoch_day, place_id)");
+        // no foreign keys: older files also hold distances to the temporary start and end places
+        db.execSQL("CREATE TABLE " + DISTANCES + " ("
+                + "from_id TEXT NOT NULL, "
+                + "to_id TEXT NOT NULL, "
+                + "distance INTEGER NOT NULL, "
+                + "duration INTEGER NOT NULL, "
+                + "PRIMARY KEY (from_id, to_id)) WITHOUT ROWID");
+        db.execSQL("CREATE INDEX distances_by_destination ON " + DISTANCES + " (to_id)");
+        // the history is read newest first in the order of _id
+        db.execSQL("CREATE TABLE " + ROUTE_PLANS + " ("
+                + "_id INTEGER PRIMARY KEY, "
+                + "id TEXT NOT NULL UNIQUE, "
+                + "date_time TEXT, "
+                + "length REAL NOT NULL, "
+                + "duration REAL NOT NULL, "
+                + "mapy_cz_url TEXT, "
+                + "google_maps_url TEXT, "
+                + "metrics TEXT)");
+        db.execSQL("CREATE TABLE " + ROUTE_STOPS + " ("
+                + "plan_id TEXT NOT NULL REFERENCES " + ROUTE_PLANS + "(id) ON DELETE CASCADE, "
+                + "seq INTEGER NOT NULL, "
+                + "place_id TEXT, "
+                + "place_name TEXT, "
+                + "leg_distance INTEGER, "
+                + "leg_duration INTEGER, "
+                + "PRIMARY KEY (plan_id, seq)) WITHOUT ROWID");
+        db.execSQL("CREATE TABLE " + META + " (key TEXT PRIMARY KEY NOT NULL, value INTEGER NOT NULL)");
+        db.execSQL("INSERT INTO " + META + " VALUES ('" + PLACES_VERSION + "', 0)");
+
+        // onCreate runs in a transaction, so the import is committed together with the tables
+        importPlaces(db);
+        importRoutePlans(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // first version of the schema
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        for (File file : imported) {
+            if (file.delete()) {
+                Log.d(TAG, "Deleted imported file " + file.getName());
+            }
+        }
+        imported.clear();
+    }
+
+    /**
+     * Imports the places of mowing_places.json from internal storage, or else from assets.
+     * A file that cannot be read or imported is logged and kept, and the database starts without
+     * its places instead of failing to be created.
+     */
+    private void importPlaces(SQLiteDatabase db) {
+        File file = new File(context.getFilesDir(), PLACES_FILE_NAME);
+        long start = System.nanoTime();
+        try (InputStream is = file.exists() ? new FileInputStream(file) : context.getAssets().open(PLACES_FILE_NAME)) {
+            Type listType = new TypeToken<List<MowingPlace>>() {}.getType();
+            List<MowingPlace> places = new Gson().fromJson(readText(is), listType);
+            if (places == null) {
+                return;
+            }
+            MowingPlacesRepository.insertPlaces(db, places);
+            if (file.exists()) {
+                imported.add(file);
+            }
+            Log.d(TAG, "Imported " + places.size() + " places in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException | RuntimeException e) {
+            // a damaged file or row: drop the part already imported, the tables were empty
+            Log.e(TAG, "Error importing places", e);
+            imported.remove(file);
+            db.delete(DISTANCES, null, null);
+            db.delete(VISITS, null, null);
+            db.delete(PLACES, null, null);
+        }
+    }
+
+    /**
+     * Imports the route plan history from the JSON array of older versions in internal storage,
+     * or else from assets. Like the places, a history that cannot be imported is logged and kept,
+     * and the database starts with an empty history.
+     */
+    private void importRoutePlans(SQLiteDatabase db) {
+        File jsonFile = new File(context.getFilesDir(), PLANS_FILE_NAME);
+        try {
+            List<RoutePlan> plans;
+            try (InputStream is = jsonFile.exists() ? new FileInputStream(jsonFile) : context.getAssets().open(PLANS_FILE_NAME)) {
+                Type listType = new TypeToken<List<RoutePlan>>() {}.getType();
+                plans = new Gson().fromJson(readText(is), listType);
+            }
+            if (plans == null) {
+                plans = new ArrayList<>();
+            }
+            // the history is read newest first by insertion order, so it starts sorted by creation time
+            plans.sort((a, b) -> String.valueOf(a.getDateTime()).compareTo(String.valueOf(b.getDateTime())));
+            for (RoutePlan plan : plans) {
+                RoutePlanRepository.insertRoutePlan(db, plan);
+            }
+            if (jsonFile.exists()) {
+                imported.add(jsonFile);
+            }
+            Log.d(TAG, "Imported " + plans.size() + " route plans");
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Error importing route plans", e);
+            imported.remove(jsonFile);
+            db.delete(ROUTE_STOPS, null, null);
+            db.delete(ROUTE_PLANS, null, null);
+        }
+    }
+
+    private static String readText(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = is.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
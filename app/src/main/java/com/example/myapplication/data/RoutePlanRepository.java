@@ -1,80 +1,212 @@
 package com.example.myapplication.data;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
+import com.example.myapplication.util.PlannerMetrics;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
  * Repository for saving and loading route plans.
+ *
+ * Plans are stored in {@link PlannerDatabase}, one row per plan and one per stop, so saving or
+ * deleting a plan writes only its own rows and the history can be read in pages.
  */
 public class RoutePlanRepository {
 
     private static final String TAG = "RoutePlanRepository";
-    private static final String JSON_FILE_NAME = "route_plans.json";
+
+    private static final Gson GSON = new Gson();
+
+    private static final String[] PLAN_COLUMNS = {
+            "id", "date_time", "length", "duration", "mapy_cz_url", "google_maps_url", "metrics"
+    };
 
     /**
-     * Loads route plans from a JSON file.
-     * If the file is not found in internal storage, it loads from assets.
+     * Loads a page of route plans, newest first.
      *
-     * @param context The application context used to access files and assets.
-     * @return A list of RoutePlan objects, or an empty list if an error occurs.
+     * @param context The application context used to open the database.
+     * @param from    Number of newer plans to skip.
+     * @param count   Maximal number of plans to load.
+     * @return The plans, fewer than count at the end of the history, or an empty list if an error occurs.
      */
-    public List<RoutePlan> loadRoutePlans(Context context) {
+    public List<RoutePlan> loadRoutePlans(Context context, int from, int count) {
         try {
-            File file = new File(context.getFilesDir(), JSON_FILE_NAME);
-            InputStream is;
-            if (file.exists() && file.length() > 0) {
-                // Load from internal storage if the file exists and is not empty
-                is = new FileInputStream(file);
-                Log.d(TAG, "Loading route plans from internal storage");
-            } else {
-                // Otherwise, load from assets
-                is = context.getAssets().open(JSON_FILE_NAME);
-                Log.d(TAG, "Loading route plans from assets");
-            }
-            int size = is.available();
-            byte[] buffer = new byte[size];
-            is.read(buffer);
-            is.close();
-            String jsonString = new String(buffer, StandardCharsets.UTF_8);
-            Gson gson = new Gson();
-            Type listType = new TypeToken<List<RoutePlan>>() {}.getType();
-            return gson.fromJson(jsonString, listType);
-        } catch (Exception e) {
+            return queryPlans(PlannerDatabase.getInstance(context).getReadableDatabase(), "_id DESC", from + ", " + count);
+        } catch (RuntimeException e) {
             Log.e(TAG, "Error loading route plans", e);
             return Collections.emptyList();
         }
     }
 
     /**
-     * Saves route plans to a JSON file in internal storage.
+     * Adds a route plan to the history.
+     *
+     * @param context The application context used to open the database.
+     * @param plan    The plan; it gets an ID if it has none.
+     * @return true if the save operation was successful, false otherwise.
+     */
+    public boolean addRoutePlan(Context context, RoutePlan plan) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
+        try {
+            insertRoutePlan(db, plan);
+            db.setTransactionSuccessful();
+            Log.d(TAG, "Route plan saved.");
+            return true;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error saving route plan", e);
+            return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Deletes a route plan from the history.
+     *
+     * @param context The application context used to open the database.
+     * @param id      The ID of the plan.
+     * @return true if the delete operation was successful, false otherwise.
+     */
+    public boolean deleteRoutePlan(Context context, String id) {
+        try {
+            // the stops are deleted by the foreign key
+            PlannerDatabase.getInstance(context).getWritableDatabase()
+                    .delete(PlannerDatabase.ROUTE_PLANS, "id = ?", new String[]{id});
+            return true;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error deleting route plan", e);
+            return false;
+        }
+    }
+
+    /**
+     * Saves route plans to the history, replacing all plans saved before.
      *
-     * @param context The application context used to access files.
+     * @param context The application context used to open the database.
      * @param plans   The list of RoutePlan objects to save.
      * @return true if the save operation was successful, false otherwise.
      */
     public boolean saveRoutePlans(Context context, List<RoutePlan> plans) {
+        SQLiteDatabase db = PlannerDatabase.getInstance(context).getWritableDatabase();
+        db.beginTransaction();
         try {
-            Gson gson = new Gson();
-            String jsonString = gson.toJson(plans);
-            File file = new File(context.getFilesDir(), JSON_FILE_NAME);
-            FileOutputStream fos = new FileOutputStream(file);
-            fos.write(jsonString.getBytes(StandardCharsets.UTF_8));
-            fos.close();
+            db.delete(PlannerDatabase.ROUTE_PLANS, null, null);
+            for (RoutePlan plan : plans) {
+                insertRoutePlan(db, plan);
+            }
+            db.setTransactionSuccessful();
             Log.d(TAG, "Route plans saved.");
             return true;
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
             Log.e(TAG, "Error saving route plans", e);
             return false;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Inserts a plan with its stops, replacing a plan with the same ID. Also used for the import
+     * from older versions; the caller holds the transaction.
+     *
+     * @param db   The database.
+     * @param plan The plan; it gets an ID if it has none.
+     */
+    static void insertRoutePlan(SQLiteDatabase db, RoutePlan plan) {
+        plan.ensureId();
+        db.delete(PlannerDatabase.ROUTE_PLANS, "id = ?", new String[]{plan.getId()});
+        ContentValues values = new ContentValues();
+        values.put("id", plan.getId());
+        values.put("date_time", plan.getDateTime());
+        values.put("length", plan.getLength());
+        values.put("duration", plan.getDuration());
+        values.put("mapy_cz_url", plan.getMapyCzUrl());
+        values.put("google_maps_url", plan.getGoogleMapsUrl());
+        values.put("metrics", plan.getMetrics() != null ? GSON.toJson(plan.getMetrics()) : null);
+        db.insertOrThrow(PlannerDatabase.ROUTE_PLANS, null, values);
+
+        List<String> ids = plan.getPlaceIds();
+        List<String> names = plan.getRoutePlaces();
+        int[] legDistances = plan.getLegDistances();
+        int[] legDurations = plan.getLegDurations();
+        try (SQLiteStatement insert = db.compileStatement("INSERT INTO " + PlannerDatabase.ROUTE_STOPS
+                + " (plan_id, seq, place_id, place_name, leg_distance, leg_duration) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < names.size(); i++) {
+                insert.clearBindings();
+                insert.bindString(1, plan.getId());
+                insert.bindLong(2, i);
+                if (i < ids.size() && ids.get(i) != null) {
+                    insert.bindString(3, ids.get(i));
+                }
+                if (names.get(i) != null) {
+                    insert.bindString(4, names.get(i));
+                }
+                // leg i leads from stop i to stop i + 1, so the last stop has none
+                if (legDistances != null && legDurations != null && i < legDistances.length) {
+                    insert.bindLong(5, legDistances[i]);
+                    insert.bindLong(6, legDurations[i]);
+                }
+                insert.executeInsert();
+            }
+        }
+    }
+
+    private static List<RoutePlan> queryPlans(SQLiteDatabase db, String orderBy, String limit) {
+        List<RoutePlan> plans = new ArrayList<>();
+        try (Cursor c = db.query(PlannerDatabase.ROUTE_PLANS, PLAN_COLUMNS, null, null, null, null, orderBy, limit)) {
+            while (c.moveToNext()) {
+                RoutePlan plan = new RoutePlan();
+                plan.setId(c.getString(0));
+                plan.setDateTime(c.getString(1));
+                plan.setLength(c.getDouble(2));
+                plan.setDuration(c.getDouble(3));
+                plan.setMapyCzUrl(c.getString(4));
+                plan.setGoogleMapsUrl(c.getString(5));
+                if (!c.isNull(6)) {
+                    plan.setMetrics(GSON.fromJson(c.getString(6), PlannerMetrics.Snapshot.class));
+                }
+                readStops(db, plan);
+                plans.add(plan);
+            }
+        }
+        return plans;
+    }
+
+    /**
+     * Reads the stops of a plan by its primary key range.
+     */
+    private static void readStops(SQLiteDatabase db, RoutePlan plan) {
+        List<String> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<int[]> legs = new ArrayList<>();
+        try (Cursor c = db.rawQuery("SELECT place_id, place_name, leg_distance, leg_duration FROM "
+                + PlannerDatabase.ROUTE_STOPS + " WHERE plan_id = ? ORDER BY seq", new String[]{plan.getId()})) {
+            while (c.moveToNext()) {
+                ids.add(c.getString(0));
+                names.add(c.getString(1));
+                if (!c.isNull(2)) {
+                    legs.add(new int[]{c.getInt(2), c.getInt(3)});
+                }
+            }
+        }
+        plan.setPlaces(ids, names);
+        // plans of older versions were saved without legs
+        if (!legs.isEmpty()) {
+            int[] legDistances = new int[legs.size()];
+            int[] legDurations = new int[legs.size()];
+            for (int i = 0; i < legs.size(); i++) {
+                legDistances[i] = legs.get(i)[0];
+                legDurations[i] = legs.get(i)[1];
+            }
+            plan.setLegs(legDistances, legDurations);
         }
     }
 }
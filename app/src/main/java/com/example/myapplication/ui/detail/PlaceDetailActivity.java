@@ -14,9 +14,11 @@ import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.myapplication.MyApplication;
 import com.example.myapplication.R;
 import com.example.myapplication.data.MowingPlace;
 import com.example.myapplication.data.MowingPlacesRepository;
+import com.example.myapplication.data.PlacesStore;
 import com.example.myapplication.ui.planning.LocationPickerActivity;
 import com.example.myapplication.util.MatrixApiHelper;
 import com.example.myapplication.util.NetworkHelper;
@@ -26,10 +28,16 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Activity for displaying and editing details of a mowing place.
  * This activity allows users to view, edit, and save details of a specific mowing place.
+ *
+ * Only the edited place is read, by its ID on a background thread. The other places with their
+ * road distances are needed only when a place is created or moved, and are then taken from the
+ * application-wide store, which loads them in the background.
  */
 public class PlaceDetailActivity extends AppCompatActivity {
 
@@ -48,6 +56,10 @@ public class PlaceDetailActivity extends AppCompatActivity {
      */
     private static final int REQUEST_CODE_LOCATION = 1001;
 
+    /**
+     * Background thread for the database reads and writes of this screen.
+     */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     private EditText etPlaceName;
     private EditText etTimeRequirement;
@@ -62,8 +74,8 @@ public class PlaceDetailActivity extends AppCompatActivity {
     private SwitchMaterial swLocked;
     private Button btnSave; // New delete button
 
+    // null until the place is loaded
     private MowingPlace currentPlace;
-    private List<MowingPlace> allPlaces;
     private MowingPlacesRepository repository;
 
     @Override
@@ -76,9 +88,8 @@ public class PlaceDetailActivity extends AppCompatActivity {
             getSupportActionBar().setDisplayHomeAsUpEnabled(true);
         }
 
-        // Initialize repository and load all places
+        // Initialize repository
         repository = new MowingPlacesRepository();
-        allPlaces = repository.loadMowingPlaces(this);
 
         // Find views by ID
         etPlaceName = findViewById(R.id.etPlaceName);
@@ -96,38 +107,13 @@ public class PlaceDetailActivity extends AppCompatActivity {
 
 
         boolean isNewPlace = getIntent().getBooleanExtra(EXTRA_NEW_PLACE, false);
-        if (isNewPlace) {
-            // In creation mode, create a new MowingPlace
-            currentPlace = new MowingPlace();
-            // Assign a new ID: new ID = highestId + 1 from repository (see step 4)
-            currentPlace.setId(String.valueOf(repository.getNextId(this)));
-            // Optionally, clear fields or set defaults
-        } else {
-            // Get the place ID from the Intent extras
-            String placeId = getIntent().getStringExtra(EXTRA_PLACE_ID);
-            if (placeId == null) {
-                Toast.makeText(this, "Nebylo zadáno žádné ID místa", Toast.LENGTH_SHORT).show();
-                finish();
-                return;
-            }
-
-            // Find the place in the list
-            for (MowingPlace place : allPlaces) {
-                if (place.getId().equals(placeId)) {
-                    currentPlace = place;
-                    break;
-                }
-            }
-
-            if (currentPlace == null) {
-                Toast.makeText(this, "Místo nebylo nalezeno", Toast.LENGTH_SHORT).show();
-                finish();
-                return;
-            }
-
-            // Populate the fields with current place details
-            populateFields();
+        String placeId = getIntent().getStringExtra(EXTRA_PLACE_ID);
+        if (!isNewPlace && placeId == null) {
+            Toast.makeText(this, "Nebylo zadáno žádné ID místa", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
         }
+        loadPlace(isNewPlace, placeId);
 
         // Set up the delete button with a confirmation dialog
         btnSave.setOnClickListener(v -> saveChanges());
@@ -143,6 +129,43 @@ public class PlaceDetailActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Loads the place on the background thread and shows it once it is loaded. A new place only
+     * gets the next free ID; an existing one is read by its ID with its visits, without distances.
+     *
+     * @param isNewPlace Whether a new place is being created.
+     * @param placeId    The ID of the existing place, or null for a new place.
+     */
+    private void loadPlace(boolean isNewPlace, String placeId) {
+        btnSave.setEnabled(false);
+        executor.execute(() -> {
+            MowingPlace place;
+            if (isNewPlace) {
+                // In creation mode, create a new MowingPlace with ID = highestId + 1
+                place = new MowingPlace();
+                place.setId(String.valueOf(repository.getNextId(this)));
+            } else {
+                place = repository.loadPlace(this, placeId);
+            }
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                if (place == null) {
+                    Toast.makeText(this, "Místo nebylo nalezeno", Toast.LENGTH_SHORT).show();
+                    finish();
+                    return;
+                }
+                currentPlace = place;
+                if (!isNewPlace) {
+                    // Populate the fields with current place details
+                    populateFields();
+                }
+                btnSave.setEnabled(true);
+            });
+        });
+    }
+
     /**
      * Populates the UI fields with the details of the current place.
      */
@@ -183,6 +206,11 @@ public class PlaceDetailActivity extends AppCompatActivity {
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
 
+        if (currentPlace == null && (id == R.id.btnDelete || id == R.id.btnAddVisit)) {
+            // the place is still being loaded
+            return true;
+        }
+
         if (id == R.id.btnDelete) {
             new AlertDialog.Builder(this)
                     .setTitle("Potvrzení")
@@ -195,7 +223,7 @@ public class PlaceDetailActivity extends AppCompatActivity {
 
         else if (id == R.id.btnAddVisit) {
             Calendar c = Calendar.getInstance();
-            MowingPlacesRepository mowingRepo = new MowingPlacesRepository();
+            PlacesStore placesStore = ((MyApplication) getApplication()).getPlacesStore();
 
             DatePickerDialog dpd = new DatePickerDialog(
                     PlaceDetailActivity.this,
@@ -203,28 +231,22 @@ public class PlaceDetailActivity extends AppCompatActivity {
                         String sel = String.format(Locale.getDefault(),
                                 "%04d-%02d-%02d",
                                 year, month + 1, dayOfMonth);
-                        List<MowingPlace> places = mowingRepo.loadMowingPlaces(PlaceDetailActivity.this);
-                        boolean ok = false;
-                        for (MowingPlace p : places) {
-                            if (currentPlace.getId().equals(p.getId())) {
-                                p.getVisitDates().add(sel);
-                                mowingRepo.saveMowingPlaces(PlaceDetailActivity.this, places);
+                        // recorded in the background; the screen closes once it is stored
+                        placesStore.addVisit(currentPlace.getId(), null, sel, added -> {
+                            if (added) {
                                 Toast.makeText(PlaceDetailActivity.this,
                                                 "Místo označeno jako dokončené",
                                                 Toast.LENGTH_SHORT)
                                         .show();
-                                ok = true;
-                                break;
+                            } else {
+                                Toast.makeText(PlaceDetailActivity.this,
+                                                "Místo neexistuje",
+                                                Toast.LENGTH_SHORT)
+                                        .show();
                             }
-                        }
-                        if (!ok) {
-                            Toast.makeText(PlaceDetailActivity.this,
-                                            "Místo neexistuje",
-                                            Toast.LENGTH_SHORT)
-                                    .show();
-                        }
-                        setResult(RESULT_OK, new Intent().putExtra("updatedPlaceId", currentPlace.getId()));
-                        finish();
+                            setResult(RESULT_OK, new Intent().putExtra("updatedPlaceId", currentPlace.getId()));
+                            finish();
+                        });
                     },
                     c.get(Calendar.YEAR),
                     c.get(Calendar.MONTH),
@@ -347,29 +369,7 @@ public class PlaceDetailActivity extends AppCompatActivity {
                         .show();
                 return;
             }
-            // Call MatrixApiHelper to update distances
-            MatrixApiHelper.updateDistances(this, currentPlace, allPlaces, new MatrixApiHelper.MatrixApiCallback() {
-                @Override
-                public void onSuccess() {
-                    // Add the new place to the list (allPlaces) and save repository
-                    allPlaces.add(currentPlace);
-                    boolean success = repository.saveMowingPlaces(PlaceDetailActivity.this, allPlaces);
-                    if (success) {
-                        Toast.makeText(PlaceDetailActivity.this, "Nové místo bylo uloženo", Toast.LENGTH_SHORT).show();
-                        setResult(RESULT_OK, new Intent().putExtra("updatedPlaceId", currentPlace.getId()));
-                        finish();
-                    } else {
-                        Toast.makeText(PlaceDetailActivity.this, "Chyba při ukládání nového místa", Toast.LENGTH_SHORT).show();
-                    }
-                }
-
-                @Override
-                public void onFailure(String errorMessage) {
-                    runOnUiThread(() -> {
-                        Toast.makeText(PlaceDetailActivity.this, "Error: " + errorMessage, Toast.LENGTH_LONG).show();
-                    });
-                }
-            });
+            updateDistancesAndSave("Nové místo bylo uloženo", "Chyba při ukládání nového místa");
         } else {
             // If the location has changed, update distances for all places
             if (changedLocation) {
@@ -382,31 +382,10 @@ public class PlaceDetailActivity extends AppCompatActivity {
                             .show();
                     return;
                 }
-                // Call MatrixApiHelper to update distances
-                MatrixApiHelper.updateDistances(this, currentPlace, allPlaces, new MatrixApiHelper.MatrixApiCallback() {
-                    @Override
-                    public void onSuccess() {
-                        // Save updated list to JSON via repository
-                        boolean success = repository.saveMowingPlaces(PlaceDetailActivity.this, allPlaces);
-                        if (success) {
-                            Toast.makeText(PlaceDetailActivity.this, "Změny byly uloženy", Toast.LENGTH_SHORT).show();
-                            setResult(RESULT_OK, new Intent().putExtra("updatedPlaceId", currentPlace.getId()));
-                            finish();
-                        } else {
-                            Toast.makeText(PlaceDetailActivity.this, "Chyba při ukládání změn", Toast.LENGTH_SHORT).show();
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(String errorMessage) {
-                        runOnUiThread(() -> {
-                            Toast.makeText(PlaceDetailActivity.this, "Error: " + errorMessage, Toast.LENGTH_LONG).show();
-                        });
-                    }
-                });
+                updateDistancesAndSave("Změny byly uloženy", "Chyba při ukládání změn");
             } else {
-                // Existing edit mode: update currentPlace and save
-                boolean success = repository.saveMowingPlaces(this, allPlaces);
+                // Existing edit mode: update currentPlace and save its row
+                boolean success = repository.savePlace(this, currentPlace);
                 if (success) {
                     Toast.makeText(this, "Změny byly uloženy", Toast.LENGTH_SHORT).show();
                     setResult(RESULT_OK, new Intent().putExtra("updatedPlaceId", currentPlace.getId()));
@@ -419,24 +398,62 @@ public class PlaceDetailActivity extends AppCompatActivity {
     }
 
     /**
-     * Deletes the current place from the list and updates the repository.
+     * Updates the road distances between the current place and all other places and saves the
+     * place with its distances in both directions. The other places with their distances are
+     * loaded by the places store and the place is written on the background thread.
+     *
+     * @param savedMessage  The message shown when the place was saved.
+     * @param failedMessage The message shown when saving failed.
      */
-    private void deleteCurrentPlace() {
-        // Remove the current place from the list
-        allPlaces.remove(currentPlace);
-
-        // Iterate through all remaining places and remove any distance entry referencing the deleted place
-        for (MowingPlace place : allPlaces) {
-            if (place.getDistancesToOthers() != null) {
-                // Using removeIf (available on API level 24+); alternatively use an iterator
-                place.getDistancesToOthers().removeIf(distanceEntry ->
-                        distanceEntry.getId().equals(currentPlace.getId())
-                );
+    private void updateDistancesAndSave(String savedMessage, String failedMessage) {
+        btnSave.setEnabled(false);
+        PlacesStore placesStore = ((MyApplication) getApplication()).getPlacesStore();
+        placesStore.withDistances(places -> {
+            // 1) every other place; a moved place is replaced by its edited copy
+            List<MowingPlace> others = new ArrayList<>(places.size());
+            for (MowingPlace place : places) {
+                if (!place.getId().equals(currentPlace.getId())) {
+                    others.add(place);
+                }
             }
-        }
+            // 2) distances in both directions from the Matrix API
+            MatrixApiHelper.updateDistances(this, currentPlace, others, new MatrixApiHelper.MatrixApiCallback() {
+                @Override
+                public void onSuccess() {
+                    // 3) the place and the distances from and to it
+                    executor.execute(() -> {
+                        boolean success = repository.savePlaceWithDistances(PlaceDetailActivity.this, currentPlace, others);
+                        runOnUiThread(() -> {
+                            if (success) {
+                                Toast.makeText(PlaceDetailActivity.this, savedMessage, Toast.LENGTH_SHORT).show();
+                                setResult(RESULT_OK, new Intent().putExtra("updatedPlaceId", currentPlace.getId()));
+                                finish();
+                            } else {
+                                Toast.makeText(PlaceDetailActivity.this, failedMessage, Toast.LENGTH_SHORT).show();
+                                btnSave.setEnabled(true);
+                            }
+                        });
+                    });
+                }
 
-        // Save updated list to JSON via repository
-        boolean success = repository.saveMowingPlaces(this, allPlaces);
+                @Override
+                public void onFailure(String errorMessage) {
+                    runOnUiThread(() -> {
+                        Toast.makeText(PlaceDetailActivity.this, "Error: " + errorMessage, Toast.LENGTH_LONG).show();
+                        btnSave.setEnabled(true);
+                    });
+                }
+            });
+        });
+    }
+
+    /**
+     * Deletes the current place from the repository, together with its visits and the
+     * distances from and to it.
+     */
+    private void deleteCurrentPlace() {
+        // Delete the place with its visits and distances from the repository
+        boolean success = repository.deletePlace(this, currentPlace.getId());
         if (success) {
             Toast.makeText(this, "Místo bylo odstraněno", Toast.LENGTH_SHORT).show();
             setResult(RESULT_OK, new Intent().putExtra("deletedPlaceId", currentPlace.getId()));
@@ -8,50 +8,66 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.appcompat.app.AlertDialog;
 
 
 import com.example.myapplication.R;
+import com.example.myapplication.util.VisitStatusIndex;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Adapter for displaying a list of completed visits in a RecyclerView.
- * Each item shows the place name and visit date, with an option to delete the visit.
+ * Each item shows the place name, visit date and when the place is due next, with an option to delete the visit.
+ *
+ * New lists are compared with the shown one on a background thread by an AsyncListDiffer, so
+ * removing a visit removes just its row, with the removal animation, and a reload rebinds only
+ * the rows whose place status changed.
  */
 public class DoneAdapter extends RecyclerView.Adapter<DoneAdapter.ViewHolder> {
 
     private final Context context;
     private final DoneViewModel viewModel;
-    private List<VisitEntry> entries;
-    private final SimpleDateFormat srcFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-    private final SimpleDateFormat dstFormat = new SimpleDateFormat("dd.MM.yyyy", Locale.getDefault());
+    private final AsyncListDiffer<VisitEntry> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    /**
+     * A visit is the same item if it is the same place on the same day.
+     */
+    private static final DiffUtil.ItemCallback<VisitEntry> DIFF_CALLBACK = new DiffUtil.ItemCallback<VisitEntry>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull VisitEntry a, @NonNull VisitEntry b) {
+            return a.getVisitDay() == b.getVisitDay() && a.getPlaceId().equals(b.getPlaceId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull VisitEntry a, @NonNull VisitEntry b) {
+            return a.getPlaceName().equals(b.getPlaceName()) && a.getPlaceStatus() == b.getPlaceStatus()
+                    && a.getDaysUntilDue() == b.getDaysUntilDue();
+        }
+    };
 
     /**
      * Constructor for DoneAdapter.
      *
      * @param context  The context in which the adapter is used.
      * @param viewModel The ViewModel associated with this adapter.
-     * @param entries   The list of VisitEntry objects to display.
      */
-    public DoneAdapter(Context context, DoneViewModel viewModel, List<VisitEntry> entries) {
+    public DoneAdapter(Context context, DoneViewModel viewModel) {
         this.context = context;
         this.viewModel = viewModel;
-        this.entries = entries;
     }
 
     /**
-     * Sets the list of VisitEntry objects to display.
+     * Sets the list of VisitEntry objects to display; the rows are updated once the list was
+     * compared with the shown one.
      *
-     * @param entries The new list of VisitEntry objects.
+     * @param entries The new list of VisitEntry objects; it must not be modified afterwards.
      */
     public void setEntries(List<VisitEntry> entries) {
-        this.entries = entries;
-        notifyDataSetChanged();
+        differ.submitList(entries);
     }
 
     /**
@@ -73,19 +89,15 @@ public class DoneAdapter extends RecyclerView.Adapter<DoneAdapter.ViewHolder> {
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder h, int pos) {
-        VisitEntry e = entries.get(pos);
-        // date format
-        String formattedDate;
-        try {
-            Date d = srcFormat.parse(e.getVisitDate());
-            formattedDate = dstFormat.format(d);
-        } catch (Exception ex) {
-            formattedDate = e.getVisitDate();
-        }
+        VisitEntry e = differ.getCurrentList().get(pos);
+        // date format: yyyy-MM-dd to dd.MM.yyyy
+        String iso = e.getVisitDate();
+        String formattedDate = iso.substring(8, 10) + "." + iso.substring(5, 7) + "." + iso.substring(0, 4);
 
         // set text
         h.tvPlaceName.setText(e.getPlaceName());
         h.tvVisitDate.setText(formattedDate);
+        h.tvPlaceStatus.setText(statusText(e));
 
         // confirm delete
         h.btnDelete.setOnClickListener(v -> {
@@ -93,30 +105,55 @@ public class DoneAdapter extends RecyclerView.Adapter<DoneAdapter.ViewHolder> {
                     .setTitle("Potvrzení")
                     .setMessage("Opravdu chcete odstranit návštěvu?")
                     .setPositiveButton("Ano", (dialog, which) ->
-                            viewModel.removeVisit(context, e)
+                            viewModel.removeVisit(e)
                     )
                     .setNegativeButton("Ne", null)
                     .show();
         });
     }
 
+    /**
+     * Describes when the place of an entry is due next.
+     */
+    private static String statusText(VisitEntry e) {
+        int days = e.getDaysUntilDue();
+        if (e.getPlaceStatus() == VisitStatusIndex.UNKNOWN || days == VisitStatusIndex.NO_DUE) {
+            return "Hotovo pro letošek";
+        }
+        if (e.getPlaceStatus() != VisitStatusIndex.OVERDUE) {
+            return "Termín další seče za " + days + " " + dayWord(days);
+        }
+        if (days == 0) {
+            return "Po termínu od dneška";
+        }
+        return "Po termínu " + -days + " " + dayWord(-days);
+    }
+
+    private static String dayWord(int days) {
+        if (days == 1) {
+            return "den";
+        }
+        return days >= 2 && days <= 4 ? "dny" : "dní";
+    }
+
     /**
      * Returns the number of items in the list.
      *
      * @return The number of VisitEntry objects.
      */
-    @Override public int getItemCount() { return entries.size(); }
+    @Override public int getItemCount() { return differ.getCurrentList().size(); }
 
     /**
      * ViewHolder class for holding the views for each item in the RecyclerView.
      */
     static class ViewHolder extends RecyclerView.ViewHolder {
-        TextView tvPlaceName, tvVisitDate;
+        TextView tvPlaceName, tvVisitDate, tvPlaceStatus;
         ImageButton btnDelete;
         ViewHolder(@NonNull View v) {
             super(v);
             tvPlaceName = v.findViewById(R.id.tvPlaceName);
             tvVisitDate = v.findViewById(R.id.tvVisitDate);
+            tvPlaceStatus = v.findViewById(R.id.tvPlaceStatus);
             btnDelete   = v.findViewById(R.id.btnDeleteVisit);
         }
     }
@@ -12,8 +12,6 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.myapplication.databinding.FragmentDoneBinding;
 
-import java.util.List;
-
 /**
  * Fragment that displays a list of completed visits.
  * It uses a RecyclerView to show the list of VisitEntry objects.
@@ -42,18 +40,20 @@ public class DoneFragment extends Fragment {
         // Recycler setup
         binding.recyclerDone.setLayoutManager(new LinearLayoutManager(getContext()));
         viewModel = new ViewModelProvider(this).get(DoneViewModel.class);
-        adapter = new DoneAdapter(getContext(), viewModel, List.of());
+        adapter = new DoneAdapter(getContext(), viewModel);
         binding.recyclerDone.setAdapter(adapter);
 
-        // Load data and update UI
-        viewModel.getVisitEntries(getContext()).observe(getViewLifecycleOwner(), entries -> {
+        // Visits come from the places loaded in the background; reload them if they changed
+        viewModel.loadData();
+        viewModel.getVisitEntries().observe(getViewLifecycleOwner(), entries -> {
+            // the adapter always gets the list, so it is diffed against the rows actually shown
+            adapter.setEntries(entries);
             if (entries.isEmpty()) {
                 binding.recyclerDone.setVisibility(View.GONE);
                 binding.tvEmptyDone.setVisibility(View.VISIBLE);
             } else {
                 binding.tvEmptyDone.setVisibility(View.GONE);
                 binding.recyclerDone.setVisibility(View.VISIBLE);
-                adapter.setEntries(entries);
             }
         });
 
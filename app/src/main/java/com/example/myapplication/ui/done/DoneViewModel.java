@@ -1,90 +1,149 @@
 package com.example.myapplication.ui.done;
 
-import android.content.Context;
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
 
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.Observer;
 
+import com.example.myapplication.MyApplication;
 import com.example.myapplication.data.MowingPlace;
-import com.example.myapplication.data.MowingPlacesRepository;
+import com.example.myapplication.data.PlaceIds;
+import com.example.myapplication.data.PlacesStore;
+import com.example.myapplication.util.VisitIndex;
+import com.example.myapplication.util.VisitStatusIndex;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * ViewModel class for managing the data and logic of the DoneFragment.
  * This class handles loading and removing visit entries.
+ *
+ * The visits come from the places of the application-wide store, which loads them in the
+ * background. Every load is turned into a {@link VisitIndex}, sorted newest first, and its list of
+ * entries on a background thread. Removing a visit finds it in the index by binary search and
+ * publishes the list without that one entry at once; the store updates the database and the
+ * status of that place in the background, and only the entries of that place are replaced.
  */
-public class DoneViewModel extends ViewModel {
+public class DoneViewModel extends AndroidViewModel {
 
-    private final MutableLiveData<List<VisitEntry>> visitEntriesLiveData;
-    private final MowingPlacesRepository repo;
-    private final SimpleDateFormat srcFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+    private final PlacesStore store;
+    private final Observer<List<MowingPlace>> placesObserver = this::setPlaces;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<List<VisitEntry>> visitEntriesLiveData = new MutableLiveData<>();
+
+    // accessed on the main thread only; the index always matches the published entries
+    private VisitIndex index;
 
     /**
      * Constructor for DoneViewModel.
-     * Initializes the MutableLiveData object and the repository.
+     * The places are already being loaded since the application started, so nothing is parsed here.
+     *
+     * @param application The application holding the places store.
      */
-    public DoneViewModel() {
-        visitEntriesLiveData = new MutableLiveData<>();
-        repo = new MowingPlacesRepository();
+    public DoneViewModel(@NonNull Application application) {
+        super(application);
+        store = ((MyApplication) application).getPlacesStore();
+        store.getPlaces().observeForever(placesObserver);
     }
 
+    /**
+     * Reloads the mowing places in the background if the saved places changed, e.g. after a visit
+     * was recorded on another screen. The entries are updated when the load finishes.
+     */
+    public void loadData() {
+        store.refresh();
+    }
 
     /**
-     * Loads the visit entries from the repository and returns them as LiveData.
-     * The entries are sorted by date in descending order.
+     * Returns the visit entries, sorted by date in descending order, each with the current mowing
+     * status of its place. A value is set once the places are loaded and again after they change.
      *
-     * @param context The application context used to access files and assets.
      * @return A LiveData object containing a list of VisitEntry objects.
      */
-    public LiveData<List<VisitEntry>> getVisitEntries(Context context) {
-        List<MowingPlace> places = repo.loadMowingPlaces(context);
-        List<VisitEntry> entries = new ArrayList<>();
-        for (MowingPlace p : places) {
-            for (String date : p.getVisitDates()) {
-                entries.add(new VisitEntry(p.getId(), p.getName(), date));
+    public LiveData<List<VisitEntry>> getVisitEntries() {
+        return visitEntriesLiveData;
+    }
+
+    private void setPlaces(List<MowingPlace> places) {
+        executor.execute(() -> {
+            VisitStatusIndex status = store.getVisitStatus();
+            VisitIndex built = VisitIndex.build(places);
+            Map<Integer, MowingPlace> byIndex = new HashMap<>();
+            for (MowingPlace p : places) {
+                byIndex.put(PlaceIds.intern(p.getId()), p);
             }
-        }
-        // sort by date descending
-        Collections.sort(entries, new Comparator<VisitEntry>() {
-            @Override
-            public int compare(VisitEntry e1, VisitEntry e2) {
-                try {
-                    Date d1 = srcFormat.parse(e1.getVisitDate());
-                    Date d2 = srcFormat.parse(e2.getVisitDate());
-                    return d2.compareTo(d1);
-                } catch (Exception ex) {
-                    return 0;
-                }
+            List<VisitEntry> entries = new ArrayList<>(built.size());
+            for (int i = 0; i < built.size(); i++) {
+                int placeIndex = built.placeIndex(i);
+                MowingPlace p = byIndex.get(placeIndex);
+                entries.add(new VisitEntry(p.getId(), p.getName(), built.epochDay(i),
+                        status == null ? VisitStatusIndex.UNKNOWN : status.status(placeIndex),
+                        status == null ? VisitStatusIndex.NO_DUE : status.daysUntilDue(placeIndex)));
             }
+            mainHandler.post(() -> {
+                index = built;
+                visitEntriesLiveData.setValue(entries);
+            });
         });
-        visitEntriesLiveData.setValue(entries);
-        return visitEntriesLiveData;
     }
 
     /**
-     * Removes a visit entry from the list and updates the repository.
+     * Removes a visit entry from the list and deletes its row from the repository.
+     * The other entries of the same place get its new mowing status once the store computed it;
+     * the places are not loaded again.
      *
-     * @param context The application context used to access files and assets.
-     * @param entry   The VisitEntry object to be removed.
+     * @param entry The VisitEntry object to be removed.
      */
-    public void removeVisit(Context context, VisitEntry entry) {
-        List<MowingPlace> places = repo.loadMowingPlaces(context);
-        for (MowingPlace p : places) {
-            if (p.getId().equals(entry.getPlaceId())) {
-                p.getVisitDates().remove(entry.getVisitDate());
-                break;
+    public void removeVisit(VisitEntry entry) {
+        List<VisitEntry> current = visitEntriesLiveData.getValue();
+        int position = index == null ? -1 : index.remove(PlaceIds.intern(entry.getPlaceId()), entry.getVisitDay());
+        if (current != null && position >= 0) {
+            List<VisitEntry> entries = new ArrayList<>(current);
+            entries.remove(position);
+            visitEntriesLiveData.setValue(entries);
+        }
+        store.removeVisit(entry.getPlaceId(), entry.getVisitDate(), status -> {
+            if (status != null) {
+                updateStatus(entry.getPlaceId(), status);
             }
+        });
+    }
+
+    /**
+     * Replaces the entries of one place with copies holding its status from the given index.
+     * Called on the main thread, like every change of the published entries.
+     */
+    private void updateStatus(String placeId, VisitStatusIndex status) {
+        List<VisitEntry> current = visitEntriesLiveData.getValue();
+        if (current == null) {
+            return;
         }
-        repo.saveMowingPlaces(context, places);
-        // refresh the list
-        getVisitEntries(context);
+        int placeIndex = PlaceIds.intern(placeId);
+        List<VisitEntry> entries = new ArrayList<>(current);
+        for (int i = 0; i < entries.size(); i++) {
+            VisitEntry e = entries.get(i);
+            if (placeId.equals(e.getPlaceId())) {
+                entries.set(i, new VisitEntry(e.getPlaceId(), e.getPlaceName(), e.getVisitDay(),
+                        status.status(placeIndex), status.daysUntilDue(placeIndex)));
+            }
+        }
+        visitEntriesLiveData.setValue(entries);
+    }
+
+    @Override
+    protected void onCleared() {
+        store.getPlaces().removeObserver(placesObserver);
+        executor.shutdown();
     }
 }
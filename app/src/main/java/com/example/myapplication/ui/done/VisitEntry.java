@@ -1,5 +1,7 @@
 package com.example.myapplication.ui.done;
 
+import com.example.myapplication.util.PlannerDates;
+
 /**
  * Represents a visit entry with details about the place visited and the date of the visit.
  * This class is used to display completed visits in the DoneFragment.
@@ -7,19 +9,25 @@ package com.example.myapplication.ui.done;
 public class VisitEntry {
     private final String placeId;
     private final String placeName;
-    private final String visitDate; // formatted as "yyyy-MM-dd"
+    private final int visitDay; // days since 1970-01-01
+    private final byte placeStatus;
+    private final int daysUntilDue;
 
     /**
      * Constructor for VisitEntry.
      *
-     * @param placeId   The ID of the place visited.
-     * @param placeName The name of the place visited.
-     * @param visitDate The date of the visit in "yyyy-MM-dd" format.
+     * @param placeId      The ID of the place visited.
+     * @param placeName    The name of the place visited.
+     * @param visitDay     The day of the visit, days since 1970-01-01.
+     * @param placeStatus  The current mowing status of the place, see VisitStatusIndex.
+     * @param daysUntilDue Days until the next mowing of the place is overdue, see VisitStatusIndex.
      */
-    public VisitEntry(String placeId, String placeName, String visitDate) {
+    public VisitEntry(String placeId, String placeName, int visitDay, byte placeStatus, int daysUntilDue) {
         this.placeId = placeId;
         this.placeName = placeName;
-        this.visitDate = visitDate;
+        this.visitDay = visitDay;
+        this.placeStatus = placeStatus;
+        this.daysUntilDue = daysUntilDue;
     }
 
     /**
@@ -40,12 +48,39 @@ public class VisitEntry {
         return placeName;
     }
 
+    /**
+     * Gets the day of the visit.
+     *
+     * @return The day of the visit, days since 1970-01-01.
+     */
+    public int getVisitDay() {
+        return visitDay;
+    }
+
     /**
      * Gets the date of the visit.
      *
      * @return The date of the visit in "yyyy-MM-dd" format.
      */
     public String getVisitDate() {
-        return visitDate;
+        return PlannerDates.format(visitDay);
+    }
+
+    /**
+     * Gets the current mowing status of the place.
+     *
+     * @return One of the statuses of VisitStatusIndex.
+     */
+    public byte getPlaceStatus() {
+        return placeStatus;
+    }
+
+    /**
+     * Gets the number of days until the next mowing of the place is overdue.
+     *
+     * @return The days, negative if overdue, or VisitStatusIndex.NO_DUE if the place is done for the year.
+     */
+    public int getDaysUntilDue() {
+        return daysUntilDue;
     }
 }
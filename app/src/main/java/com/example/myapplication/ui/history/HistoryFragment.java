@@ -7,7 +7,6 @@ import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -17,41 +16,51 @@ import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.DatePicker;
 import android.widget.ImageButton;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.myapplication.MyApplication;
 import com.example.myapplication.R;
-import com.example.myapplication.data.MowingPlace;
-import com.example.myapplication.data.MowingPlacesRepository;
+import com.example.myapplication.data.PlacesStore;
 import com.example.myapplication.data.RoutePlan;
-import com.example.myapplication.data.RoutePlanRepository;
 import com.example.myapplication.databinding.FragmentHistoryBinding;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Fragment that displays a list of route plans.
- * It uses a RecyclerView to show the list of RoutePlan objects.
+ * It uses a RecyclerView to show the list of RoutePlan objects, loaded newest first in pages by
+ * the HistoryViewModel. List changes are diffed, and the stop rows of all cards are recycled
+ * through one shared pool instead of being inflated on every bind.
  */
 public class HistoryFragment extends Fragment {
 
     private static final String STATS_FORMAT = "Vzdálenost: %.1f km, Trvání: %.1f h";
 
+    /**
+     * Number of cards before the end of the list at which the next page is requested.
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
     private FragmentHistoryBinding binding;
-    private RoutePlanRepository routePlanRepository;
-    private List<RoutePlan> routePlans;
+    private HistoryViewModel viewModel;
     private HistoryAdapter historyAdapter;
 
     /**
      * Called when the fragment is created.
-     * It initializes the RecyclerView and loads the route plans.
+     * It initializes the RecyclerView and starts loading the route plans.
      *
      * @param inflater           The LayoutInflater used to inflate the fragment's view.
      * @param container          The parent view that this fragment's UI should be attached to.
@@ -66,34 +75,36 @@ public class HistoryFragment extends Fragment {
 
         setHasOptionsMenu(true);
 
-        binding.recyclerHistory.setLayoutManager(new LinearLayoutManager(getContext()));
-
-        routePlanRepository = new RoutePlanRepository();
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        binding.recyclerHistory.setLayoutManager(layoutManager);
 
-        // Load & sort routes
-        routePlans = routePlanRepository.loadRoutePlans(getContext());
-        routePlans.sort((a, b) -> b.getDateTime().compareTo(a.getDateTime()));
-        Log.d("HistoryFragment", "Loaded route plans: " + routePlans.size());
+        viewModel = new ViewModelProvider(this).get(HistoryViewModel.class);
+        historyAdapter = new HistoryAdapter(requireContext(), viewModel);
+        binding.recyclerHistory.setAdapter(historyAdapter);
 
-        // Initial empty-state toggle
-        if (routePlans.isEmpty()) {
-            binding.recyclerHistory.setVisibility(View.GONE);
-            binding.tvEmptyHistory.setVisibility(View.VISIBLE);
-        } else {
-            binding.recyclerHistory.setVisibility(View.VISIBLE);
-            binding.tvEmptyHistory.setVisibility(View.GONE);
-        }
+        // request the next page when the user scrolls near the end of the loaded plans
+        binding.recyclerHistory.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                loadMoreIfNearEnd();
+            }
+        });
 
-        // Attach adapter with empty-state callback
-        historyAdapter = new HistoryAdapter(getContext(), routePlans, this::updateEmptyView);
-        binding.recyclerHistory.setAdapter(historyAdapter);
+        viewModel.getRoutePlansLiveData(requireContext()).observe(getViewLifecycleOwner(), plans -> {
+            // a page that does not fill the screen cannot be scrolled, so check after the layout
+            historyAdapter.submitList(plans, () -> {
+                if (binding != null) {
+                    binding.recyclerHistory.post(this::loadMoreIfNearEnd);
+                }
+            });
+            updateEmptyView(plans);
+        });
 
         return root;
     }
 
     /**
-     * Called when the view is destroyed.
-     * It sets the binding to null to avoid memory leaks.
+     * Inflates the options menu with the "Delete All" action.
      */
     @Override
     public void onCreateOptionsMenu(@NonNull Menu menu, @NonNull MenuInflater inflater) {
@@ -114,13 +125,7 @@ public class HistoryFragment extends Fragment {
             new AlertDialog.Builder(getContext())
                     .setTitle("Potvrzení")
                     .setMessage("Opravdu chcete smazat všechny trasy?")
-                    .setPositiveButton("Ano", (d, w) -> {
-                        routePlans.clear();
-                        routePlanRepository.saveRoutePlans(getContext(), routePlans);
-                        historyAdapter.notifyDataSetChanged();
-                        binding.recyclerHistory.setVisibility(View.GONE);
-                        binding.tvEmptyHistory.setVisibility(View.VISIBLE);
-                    })
+                    .setPositiveButton("Ano", (d, w) -> viewModel.deleteAll())
                     .setNegativeButton("Ne", null)
                     .show();
             return true;
@@ -128,42 +133,81 @@ public class HistoryFragment extends Fragment {
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Called when the view is destroyed.
+     * It sets the binding to null to avoid memory leaks.
+     */
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        binding = null;
+    }
+
+    /**
+     * Requests the next page if the end of the loaded plans is (nearly) visible.
+     */
+    private void loadMoreIfNearEnd() {
+        if (binding == null) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) binding.recyclerHistory.getLayoutManager();
+        if (layoutManager != null && layoutManager.findLastVisibleItemPosition()
+                >= historyAdapter.getItemCount() - PREFETCH_DISTANCE) {
+            viewModel.loadNextPage();
+        }
+    }
+
     /**
      * Shows empty-state message when list is empty.
      */
-    private void updateEmptyView() {
-        if (routePlans.isEmpty()) {
+    private void updateEmptyView(List<RoutePlan> plans) {
+        if (plans.isEmpty()) {
             binding.recyclerHistory.setVisibility(View.GONE);
             binding.tvEmptyHistory.setVisibility(View.VISIBLE);
+        } else {
+            binding.recyclerHistory.setVisibility(View.VISIBLE);
+            binding.tvEmptyHistory.setVisibility(View.GONE);
         }
     }
 
+    /**
+     * Saved plans never change, so two plans with the same ID are the same item with the same content.
+     */
+    private static final DiffUtil.ItemCallback<RoutePlan> PLAN_DIFF = new DiffUtil.ItemCallback<RoutePlan>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull RoutePlan a, @NonNull RoutePlan b) {
+            return Objects.equals(a.getId(), b.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull RoutePlan a, @NonNull RoutePlan b) {
+            return Objects.equals(a.getId(), b.getId());
+        }
+    };
+
     /**
      * Adapter for displaying route plans in a RecyclerView.
      */
-    private static class HistoryAdapter extends androidx.recyclerview.widget.RecyclerView.Adapter<HistoryAdapter.ViewHolder> {
+    private static class HistoryAdapter extends ListAdapter<RoutePlan, HistoryAdapter.ViewHolder> {
 
         private final Context context;
-        private final List<RoutePlan> plans;
-        private final RoutePlanRepository routeRepo;
-        private final MowingPlacesRepository mowingRepo;
+        private final HistoryViewModel viewModel;
+        private final PlacesStore placesStore;
         private final LayoutInflater inflater;
-        private final Runnable onEmpty;
+        private final RecyclerView.RecycledViewPool stopPool = new RecyclerView.RecycledViewPool();
 
         /**
          * Constructor for the HistoryAdapter.
          *
-         * @param ctx    The context used to inflate views and access resources.
-         * @param plans  The list of RoutePlan objects to display.
-         * @param onEmpty A callback to run when the list becomes empty.
+         * @param ctx       The context used to inflate views and access resources.
+         * @param viewModel The view model that deletes plans.
          */
-        HistoryAdapter(Context ctx, List<RoutePlan> plans, Runnable onEmpty) {
+        HistoryAdapter(Context ctx, HistoryViewModel viewModel) {
+            super(PLAN_DIFF);
             this.context = ctx;
-            this.plans = plans;
-            this.routeRepo = new RoutePlanRepository();
-            this.mowingRepo = new MowingPlacesRepository();
+            this.viewModel = viewModel;
+            this.placesStore = ((MyApplication) ctx.getApplicationContext()).getPlacesStore();
             this.inflater = LayoutInflater.from(ctx);
-            this.onEmpty = onEmpty;
         }
 
         /**
@@ -173,12 +217,19 @@ public class HistoryFragment extends Fragment {
          * @param parent   The parent view that this ViewHolder will be attached to.
          * @param viewType The type of the view to create.
          */
-
         @NonNull
         @Override
         public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
             View view = inflater.inflate(R.layout.route_plan_item, parent, false);
-            return new ViewHolder(view);
+            ViewHolder h = new ViewHolder(view);
+            LinearLayoutManager stopsLayout = new LinearLayoutManager(context);
+            // give the stop rows back to the shared pool when the card is recycled
+            stopsLayout.setRecycleChildrenOnDetach(true);
+            h.rvStops.setLayoutManager(stopsLayout);
+            h.rvStops.setRecycledViewPool(stopPool);
+            h.stopAdapter = new StopAdapter(context, inflater, placesStore);
+            h.rvStops.setAdapter(h.stopAdapter);
+            return h;
         }
 
         /**
@@ -190,7 +241,7 @@ public class HistoryFragment extends Fragment {
          */
         @Override
         public void onBindViewHolder(@NonNull ViewHolder h, int pos) {
-            RoutePlan plan = plans.get(pos);
+            RoutePlan plan = getItem(pos);
             h.tvCreationDate.setText("Vytvořeno: " + plan.getDateTime());
             String stats = String.format(
                     Locale.getDefault(),
@@ -200,57 +251,20 @@ public class HistoryFragment extends Fragment {
             );
             h.tvStats.setText(stats);
 
-            // Build stops list
-            h.llStopsContainer.removeAllViews();
-            for (String name : plan.getRoutePlaces()) {
-                if ("Start".equals(name) || "End".equals(name)) continue;
-                View stopRow = inflater.inflate(R.layout.item_stop, h.llStopsContainer, false);
-                TextView tv = stopRow.findViewById(R.id.tvStopName);
-                ImageButton btn = stopRow.findViewById(R.id.btnCheckStop);
-                tv.setText(name);
-                btn.setOnClickListener(v -> {
-                    Calendar c = Calendar.getInstance();
-                    new DatePickerDialog(context,
-                            (DatePicker dp, int y, int m, int d) -> {
-                                String sel = String.format(Locale.getDefault(),
-                                        "%04d-%02d-%02d", y, m + 1, d);
-                                List<MowingPlace> places = mowingRepo.loadMowingPlaces(context);
-                                boolean ok = false;
-                                for (MowingPlace p : places) {
-                                    if (name.equals(p.getName())) {
-                                        p.getVisitDates().add(sel);
-                                        mowingRepo.saveMowingPlaces(context, places);
-                                        Toast.makeText(context,
-                                                "Místo označeno jako dokončené",
-                                                Toast.LENGTH_SHORT).show();
-                                        ok = true;
-                                        break;
-                                    }
-                                }
-                                if (!ok) {
-                                    Toast.makeText(context,
-                                            "Místo neexistuje",
-                                            Toast.LENGTH_SHORT).show();
-                                }
-                            },
-                            c.get(Calendar.YEAR),
-                            c.get(Calendar.MONTH),
-                            c.get(Calendar.DAY_OF_MONTH)
-                    ).show();
-                });
-                h.llStopsContainer.addView(stopRow);
+            // Stops without the start and end; plans of older versions may lack the IDs
+            List<Stop> stops = new ArrayList<>();
+            List<String> names = plan.getRoutePlaces();
+            List<String> ids = plan.getPlaceIds();
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                if (!"Start".equals(name) && !"End".equals(name)) {
+                    stops.add(new Stop(ids.size() == names.size() ? ids.get(i) : null, name));
+                }
             }
+            h.stopAdapter.submitList(stops);
 
             // Delete single route
-            h.btnDelete.setOnClickListener(v -> {
-                int idx = h.getAdapterPosition();
-                plans.remove(idx);
-                routeRepo.saveRoutePlans(context, plans);
-                notifyItemRemoved(idx);
-                if (onEmpty != null && plans.isEmpty()) {
-                    onEmpty.run();
-                }
-            });
+            h.btnDelete.setOnClickListener(v -> viewModel.delete(plan));
 
             // External map buttons
             h.btnOpenMapy.setOnClickListener(v -> {
@@ -267,23 +281,14 @@ public class HistoryFragment extends Fragment {
             });
         }
 
-        /**
-         * Returns the number of items in the list.
-         *
-         * @return The size of the plans list.
-         */
-        @Override
-        public int getItemCount() {
-            return plans.size();
-        }
-
         /**
          * ViewHolder class for holding the views for each item in the RecyclerView.
-         * It contains references to the TextViews, LinearLayout, and Buttons.
+         * It contains references to the TextViews, the stops list, and Buttons.
          */
-        static class ViewHolder extends androidx.recyclerview.widget.RecyclerView.ViewHolder {
+        static class ViewHolder extends RecyclerView.ViewHolder {
             TextView tvCreationDate, tvStats;
-            LinearLayout llStopsContainer;
+            RecyclerView rvStops;
+            StopAdapter stopAdapter;
             Button btnOpenMapy, btnOpenGoogle, btnDelete;
 
             /**
@@ -296,11 +301,98 @@ public class HistoryFragment extends Fragment {
                 super(v);
                 tvCreationDate = v.findViewById(R.id.tvCreationDate);
                 tvStats = v.findViewById(R.id.tvStats);
-                llStopsContainer = v.findViewById(R.id.llStopsContainer);
+                rvStops = v.findViewById(R.id.rvStops);
                 btnOpenMapy = v.findViewById(R.id.btnOpenMapyCzRoute);
                 btnOpenGoogle = v.findViewById(R.id.btnOpenGoogleMapsRoute);
                 btnDelete = v.findViewById(R.id.btnDeleteRoutePlan);
             }
         }
     }
+
+    /**
+     * Stop of a route plan.
+     */
+    private static final class Stop {
+        final String placeId; // null for plans saved without IDs
+        final String name;
+
+        Stop(String placeId, String name) {
+            this.placeId = placeId;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Adapter for the stops of one route plan, with a button to mark a stop as done.
+     */
+    private static class StopAdapter extends ListAdapter<Stop, StopAdapter.ViewHolder> {
+
+        private final Context context;
+        private final LayoutInflater inflater;
+        private final PlacesStore placesStore;
+
+        StopAdapter(Context context, LayoutInflater inflater, PlacesStore placesStore) {
+            super(new DiffUtil.ItemCallback<Stop>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Stop a, @NonNull Stop b) {
+                    return Objects.equals(a.placeId, b.placeId) && a.name.equals(b.name);
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Stop a, @NonNull Stop b) {
+                    return areItemsTheSame(a, b);
+                }
+            });
+            this.context = context;
+            this.inflater = inflater;
+            this.placesStore = placesStore;
+        }
+
+        @NonNull
+        @Override
+        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            return new ViewHolder(inflater.inflate(R.layout.item_stop, parent, false));
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull ViewHolder h, int pos) {
+            Stop stop = getItem(pos);
+            h.tvStopName.setText(stop.name);
+            h.btnCheckStop.setOnClickListener(v -> {
+                Calendar c = Calendar.getInstance();
+                new DatePickerDialog(context,
+                        (DatePicker dp, int y, int m, int d) -> {
+                            String sel = String.format(Locale.getDefault(),
+                                    "%04d-%02d-%02d", y, m + 1, d);
+                            // recorded in the background; older plans find the place by name
+                            placesStore.addVisit(stop.placeId, stop.name, sel, added -> {
+                                if (added) {
+                                    Toast.makeText(context,
+                                            "Místo označeno jako dokončené",
+                                            Toast.LENGTH_SHORT).show();
+                                } else {
+                                    Toast.makeText(context,
+                                            "Místo neexistuje",
+                                            Toast.LENGTH_SHORT).show();
+                                }
+                            });
+                        },
+                        c.get(Calendar.YEAR),
+                        c.get(Calendar.MONTH),
+                        c.get(Calendar.DAY_OF_MONTH)
+                ).show();
+            });
+        }
+
+        static class ViewHolder extends RecyclerView.ViewHolder {
+            TextView tvStopName;
+            ImageButton btnCheckStop;
+
+            ViewHolder(@NonNull View v) {
+                super(v);
+                tvStopName = v.findViewById(R.id.tvStopName);
+                btnCheckStop = v.findViewById(R.id.btnCheckStop);
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.myapplication.ui.history;
 
 import android.content.Context;
+import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
@@ -9,34 +10,107 @@ import androidx.lifecycle.ViewModel;
 import com.example.myapplication.data.RoutePlan;
 import com.example.myapplication.data.RoutePlanRepository;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * ViewModel class for managing the data and logic of the HistoryFragment.
- * This class handles loading route plans from the repository.
+ * Route plans are read newest first in pages on a background thread, so opening the history
+ * does not depend on its length; the next page is loaded when the list is scrolled near its end.
  */
 public class HistoryViewModel extends ViewModel {
-    private MutableLiveData<List<RoutePlan>> routePlansLiveData;
-    private RoutePlanRepository routePlanRepository;
+
+    private static final String TAG = "HistoryViewModel";
 
     /**
-     * Constructor for HistoryViewModel.
-     * Initializes the MutableLiveData object and the repository.
+     * Number of plans read at once.
      */
-    public HistoryViewModel() {
-        routePlansLiveData = new MutableLiveData<>();
-        routePlanRepository = new RoutePlanRepository();
-    }
+    static final int PAGE_SIZE = 20;
+
+    private final MutableLiveData<List<RoutePlan>> routePlansLiveData = new MutableLiveData<>();
+    private final RoutePlanRepository routePlanRepository = new RoutePlanRepository();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // set while a page load is queued, so scrolling does not queue the same page several times
+    private final AtomicBoolean pageQueued = new AtomicBoolean();
+    private Context appContext;
+
+    // accessed on the executor thread only
+    private final List<RoutePlan> loaded = new ArrayList<>();
+    private boolean endReached;
 
     /**
-     * Loads the route plans from the repository and returns them as LiveData.
+     * Returns the plans loaded so far, newest first, and starts loading the first page.
+     * Every change is delivered as a new list, so it can be diffed against the previous one.
      *
-     * @param context The application context used to access files and assets.
-     * @return A LiveData object containing a list of RoutePlan objects.
+     * @param context The context used to open the database.
+     * @return LiveData with the loaded plans.
      */
     public LiveData<List<RoutePlan>> getRoutePlansLiveData(Context context) {
-        List<RoutePlan> plans = routePlanRepository.loadRoutePlans(context);
-        routePlansLiveData.setValue(plans);
+        if (appContext == null) {
+            appContext = context.getApplicationContext();
+            loadNextPage();
+        }
         return routePlansLiveData;
     }
+
+    /**
+     * Loads the next page unless it is being loaded or the history was read to its end.
+     */
+    public void loadNextPage() {
+        if (!pageQueued.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            pageQueued.set(false);
+            if (endReached) {
+                return;
+            }
+            List<RoutePlan> page = routePlanRepository.loadRoutePlans(appContext, loaded.size(), PAGE_SIZE);
+            endReached = page.size() < PAGE_SIZE;
+            loaded.addAll(page);
+            publish();
+        });
+    }
+
+    /**
+     * Deletes a plan from the history.
+     *
+     * @param plan The plan.
+     */
+    public void delete(RoutePlan plan) {
+        executor.execute(() -> {
+            if (routePlanRepository.deleteRoutePlan(appContext, plan.getId())) {
+                loaded.remove(plan);
+            }
+            publish();
+        });
+    }
+
+    /**
+     * Deletes all plans from the history.
+     */
+    public void deleteAll() {
+        executor.execute(() -> {
+            if (routePlanRepository.saveRoutePlans(appContext, Collections.emptyList())) {
+                loaded.clear();
+                endReached = true;
+            } else {
+                Log.e(TAG, "Error deleting route plans");
+            }
+            publish();
+        });
+    }
+
+    private void publish() {
+        routePlansLiveData.postValue(new ArrayList<>(loaded));
+    }
+
+    @Override
+    protected void onCleared() {
+        executor.shutdown();
+    }
 }
@@ -1,7 +1,11 @@
 package com.example.myapplication.ui.map;
 
 import android.content.Intent;
-import android.icu.util.Calendar;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -19,24 +23,57 @@ import com.example.myapplication.R;
 import com.example.myapplication.data.MowingPlace;
 import com.example.myapplication.databinding.FragmentMapBinding;
 import com.example.myapplication.ui.detail.PlaceDetailActivity;
-
+import com.example.myapplication.util.MarkerClusterer;
+import com.example.myapplication.util.TilePrefetchHelper;
+
+import org.osmdroid.events.DelayedMapListener;
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
+import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
 
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 
 /**
  * Fragment that displays a map with markers for mowing places.
  * It uses the osmdroid library for map rendering and interaction.
  * This fragment allows users to view and interact with mowing places on the map.
+ *
+ * Only the markers inside the visible part of the map are created, and places close to each
+ * other at the current zoom level are shown as one cluster marker with their count (see
+ * {@link MarkerClusterer}). When the map moves, the markers still visible are kept and only the
+ * difference is added and removed. All markers of a state share one icon.
  */
 public class MapFragment extends Fragment {
 
+    /**
+     * Time the map has to stand still before the markers of the new viewport are computed.
+     */
+    private static final long VIEWPORT_DELAY_MS = 150;
+
+    /**
+     * Zoom levels added when a cluster is tapped.
+     */
+    private static final double CLUSTER_ZOOM_STEP = 2;
+
+    // fill colors of the green, yellow and red marker drawables
+    private static final int[] STATE_COLORS = {0xFF3AB21E, 0xFFE5C026, 0xFFD80E0E};
+
     private FragmentMapBinding binding;
     private MapViewModel mapViewModel;
     private MapView mapView;
+    private boolean fullyDrawnReported;
+
+    // shared icons of the single places by state, and of the clusters by state and count
+    private Drawable[] stateIcons;
+    private final Map<String, Drawable> clusterIcons = new HashMap<>();
+    // markers on the map by place ID or cluster cell
+    private Map<String, Marker> shownMarkers = new HashMap<>();
 
     /**
      * ActivityResultLauncher for handling the result from PlaceDetailActivity.
@@ -78,12 +115,34 @@ public class MapFragment extends Fragment {
 
         // Link MapView from layout
         mapView = binding.osmMapView;
+        mapView.setTileSource(TilePrefetchHelper.getTileSource(requireContext()));
         mapView.setMultiTouchControls(true);
         mapView.getController().setZoom(7.8);
         mapView.getController().setCenter(new GeoPoint(49.8175, 15.0));
 
-        // Observe places and update markers
-        mapViewModel.getPlaces().observe(getViewLifecycleOwner(), this::updateMapMarkers);
+        stateIcons = new Drawable[]{
+                ContextCompat.getDrawable(requireContext(), R.drawable.marker_green),
+                ContextCompat.getDrawable(requireContext(), R.drawable.marker_yellow),
+                ContextCompat.getDrawable(requireContext(), R.drawable.marker_red)
+        };
+        shownMarkers.clear();
+
+        // Markers follow the viewport once the map stands still; the map shell is shown before they are loaded
+        mapView.addMapListener(new DelayedMapListener(new MapListener() {
+            @Override
+            public boolean onScroll(ScrollEvent event) {
+                onViewportChanged();
+                return false;
+            }
+
+            @Override
+            public boolean onZoom(ZoomEvent event) {
+                onViewportChanged();
+                return false;
+            }
+        }, VIEWPORT_DELAY_MS));
+        mapView.addOnFirstLayoutListener((v, left, top, right, bottom) -> onViewportChanged());
+        mapViewModel.getMarkers().observe(getViewLifecycleOwner(), this::updateMapMarkers);
 
         // Set up FloatingActionButton for adding a new place
         binding.fabAddPlace.setOnClickListener(v -> {
@@ -97,147 +156,111 @@ public class MapFragment extends Fragment {
     }
 
     /**
-     * Update the map markers based on the list of mowing places.
-     * This method clears existing markers and adds new ones based on the provided list.
-     *
-     * @param places The list of MowingPlace objects to display on the map.
+     * Passes the visible part of the map to the ViewModel, which computes its markers.
      */
-    private void updateMapMarkers(List<MowingPlace> places) {
-        mapView.getOverlays().clear();
-
-        int currentYear = Calendar.getInstance().get(Calendar.YEAR);
-        int currentMonth = Calendar.getInstance().get(Calendar.MONTH) + 1; // 1=Jan, … ,12=Dec
-
-        for (MowingPlace place : places) {
-            GeoPoint point = new GeoPoint(place.getLatitude(), place.getLongitude());
-            Marker marker = new Marker(mapView);
-            marker.setPosition(point);
-            marker.setTitle(place.getName());
-
-            // pick correct icon based on visit dates vs. mowing schedule
-            int iconRes = pickMarkerIcon(place, currentYear, currentMonth);
-            marker.setIcon(ContextCompat.getDrawable(requireContext(), iconRes));
-
-            marker.setOnMarkerClickListener((m, map) -> {
-                showPlaceDetail(place);
-                return true;
-            });
-
-            mapView.getOverlays().add(marker);
+    private void onViewportChanged() {
+        if (mapView == null) {
+            return;
         }
-
-        mapView.invalidate();
+        BoundingBox box = mapView.getBoundingBox();
+        mapViewModel.setViewport((int) Math.floor(mapView.getZoomLevelDouble()),
+                box.getLatSouth(), box.getLonWest(), box.getLatNorth(), box.getLonEast());
     }
 
     /**
-     * Decide which marker color to use:
-     * - GREEN if visitsThisYear >= mowingCountPerYear
-     * - otherwise RED or YELLOW depending on how many visits are missing in each mowing window
+     * Update the map markers to the clusters of the current viewport.
+     * Markers of places and clusters that stay visible are kept and updated in place, the others
+     * are removed, and markers are only created for the newly visible ones.
+     *
+     * @param markerSet The clusters of the viewport.
      */
-    private int pickMarkerIcon(MowingPlace place, int year, int month) {
-        // count how many visits happened THIS YEAR
-        int visitsThisYear = 0;
-        for (String date : place.getVisitDates()) {
-            // date format is "YYYY-MM-DD"
-            if (date.startsWith(String.valueOf(year))) {
-                visitsThisYear++;
+    private void updateMapMarkers(MapViewModel.MarkerSet markerSet) {
+        Map<String, Marker> next = new HashMap<>(markerSet.clusters.size() * 2);
+        for (MarkerClusterer.Cluster cluster : markerSet.clusters) {
+            boolean single = cluster.count == 1;
+            MowingPlace place = single ? markerSet.places.get(cluster.item) : null;
+            String key = single ? "p:" + place.getId() : "c:" + markerSet.zoom + ":" + cluster.key;
+            Marker marker = shownMarkers.remove(key);
+            if (marker == null) {
+                marker = createMarker(single);
+                mapView.getOverlays().add(marker);
             }
+            marker.setPosition(new GeoPoint(cluster.latitude, cluster.longitude));
+            if (single) {
+                marker.setTitle(place.getName());
+                marker.setIcon(stateIcons[cluster.severity]);
+                marker.setRelatedObject(place);
+            } else {
+                marker.setTitle(null);
+                marker.setIcon(clusterIcon(cluster.severity, cluster.count));
+                marker.setRelatedObject(null);
+            }
+            next.put(key, marker);
         }
-
-        int mowCount = place.getMowingCountPerYear();
-        // green if done or overdone
-        if (visitsThisYear >= mowCount) {
-            return R.drawable.marker_green;
+        // whatever was not reused left the viewport or was merged into another cluster
+        for (Marker stale : shownMarkers.values()) {
+            mapView.getOverlays().remove(stale);
         }
+        shownMarkers = next;
 
-        // Helper: we define mow‑windows as:
-        // Window1 = May–June (months 5–6)
-        // Window2 = July–August (7–8)
-        // Window3 = September–December (9–12)
+        mapView.invalidate();
 
-        // If place needs only 1 mow per year → mow in Window2
-        if (mowCount == 1) {
-            //if before june green
-            if (month < 7) {
-                return R.drawable.marker_green;
-            }
-            // not yet reached the window → yellow
-            if (month < 9) {
-                return R.drawable.marker_yellow;
-            }
-            // mow time or passed → red
-            else {
-                return R.drawable.marker_red;
-            }
+        // the first markers complete the start of the app (time to full display in startup benchmarks)
+        if (!fullyDrawnReported) {
+            fullyDrawnReported = true;
+            requireActivity().reportFullyDrawn();
         }
+    }
 
-        // If place needs 2 mows → mow in Window1 and Window3
-        if (mowCount == 2) {
-            if (visitsThisYear == 0) {
-                // first mow in Window1
-                //if before may green
-                if (month < 5) {
-                    return R.drawable.marker_green;
-                }
-                if (month < 7) {
-                    return R.drawable.marker_yellow;
-                } else {
-                    return R.drawable.marker_red;
-                }
-            } else { // visitsThisYear == 1
-                // second mow in Window3
-                //if before september green
-                if (month < 7) {
-                    return R.drawable.marker_green;
-                }
-                if (month < 10) {
-                    return R.drawable.marker_yellow;
-                } else {
-                    return R.drawable.marker_red;
-                }
-            }
+    /**
+     * Creates a marker; a tap shows the details of its place or zooms into its cluster.
+     */
+    private Marker createMarker(boolean single) {
+        Marker marker = new Marker(mapView);
+        if (!single) {
+            marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_CENTER);
         }
-
-        // If place needs 3 mows → mow in Window1, Window2, Window3
-        if (mowCount == 3) {
-            if (visitsThisYear == 0) {
-                // first mow in Window1
-                //if before may green
-                if (month < 5) {
-                    return R.drawable.marker_green;
-                }
-                if (month < 7) {
-                    return R.drawable.marker_yellow;
-                } else {
-                    return R.drawable.marker_red;
-                }
-            } else if (visitsThisYear == 1) {
-                // second mow in Window2
-                //if before july green
-                if (month < 7) {
-                    return R.drawable.marker_green;
-                }
-                if (month < 9) {
-                    return R.drawable.marker_yellow;
-                } else {
-                    return R.drawable.marker_red;
-                }
-            } else { // visitsThisYear == 2
-                // third mow in Window3
-                //if before september green
-                if (month < 8) {
-                    return R.drawable.marker_green;
-                }
-                if (month < 9) {
-                    return R.drawable.marker_yellow;
-                } else {
-                    return R.drawable.marker_red;
-                }
+        marker.setOnMarkerClickListener((m, map) -> {
+            if (m.getRelatedObject() instanceof MowingPlace) {
+                showPlaceDetail((MowingPlace) m.getRelatedObject());
+            } else {
+                map.getController().animateTo(m.getPosition(), map.getZoomLevelDouble() + CLUSTER_ZOOM_STEP, null);
             }
-        }
+            return true;
+        });
+        return marker;
+    }
 
-        // fallback to yellow if mowingCountPerYear is outside 1–3
-        return R.drawable.marker_yellow;
+    /**
+     * Returns the icon of a cluster: a circle in the color of its state with the number of its
+     * places. Icons are shared by all clusters with the same state and count.
+     */
+    private Drawable clusterIcon(int state, int count) {
+        String label = count > 999 ? "999+" : String.valueOf(count);
+        String key = state + "/" + label;
+        Drawable icon = clusterIcons.get(key);
+        if (icon == null) {
+            float density = getResources().getDisplayMetrics().density;
+            int size = Math.round((label.length() > 2 ? 44 : 36) * density);
+            Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            paint.setColor(STATE_COLORS[state]);
+            canvas.drawCircle(size / 2f, size / 2f, size / 2f - density, paint);
+            paint.setStyle(Paint.Style.STROKE);
+            paint.setStrokeWidth(density);
+            paint.setColor(0xFF000000);
+            canvas.drawCircle(size / 2f, size / 2f, size / 2f - density, paint);
+            paint.setStyle(Paint.Style.FILL);
+            paint.setColor(0xFFFFFFFF);
+            paint.setTextSize(14 * density);
+            paint.setFakeBoldText(true);
+            paint.setTextAlign(Paint.Align.CENTER);
+            canvas.drawText(label, size / 2f, size / 2f - (paint.descent() + paint.ascent()) / 2, paint);
+            icon = new BitmapDrawable(getResources(), bitmap);
+            clusterIcons.put(key, icon);
+        }
+        return icon;
     }
 
     /**
@@ -280,6 +303,8 @@ public class MapFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        shownMarkers.clear();
+        mapView = null;
         binding = null;
     }
 }
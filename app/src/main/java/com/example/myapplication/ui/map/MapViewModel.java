@@ -5,58 +5,197 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 
+import com.example.myapplication.MyApplication;
 import com.example.myapplication.data.MowingPlace;
-import com.example.myapplication.data.MowingPlacesRepository;
+import com.example.myapplication.data.PlaceIds;
+import com.example.myapplication.data.PlacesStore;
+import com.example.myapplication.util.MarkerClusterer;
+import com.example.myapplication.util.VisitStatusIndex;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * ViewModel class for managing the data and logic of the MapFragment.
- * This class handles loading mowing places from the repository.
+ * This class exposes the mowing places of the application-wide store, which loads them
+ * in the background, and turns them into the clustered markers of the visible part of the map.
+ *
+ * The marker state of every place is read from the store's visit status index, and the clusters
+ * of every zoom level are computed on a background thread; the clusters of a level are kept until
+ * the places or their status change, so panning and zooming back only picks the clusters inside
+ * the new viewport.
  */
 public class MapViewModel extends AndroidViewModel {
 
+    // marker states are the statuses of the VisitStatusIndex
+    static final int STATE_GREEN = VisitStatusIndex.DONE;
+    static final int STATE_YELLOW = VisitStatusIndex.UPCOMING;
+    static final int STATE_RED = VisitStatusIndex.OVERDUE;
+
+    /**
+     * Edge length of a cluster cell in density-independent pixels, about one marker icon.
+     */
+    private static final float CLUSTER_CELL_DP = 48;
+
     /**
-     * LiveData object containing a list of MowingPlace objects.
-     * This data is observed by the MapFragment to update the UI.
+     * Part of the viewport size added on every side, so short pans do not uncover missing markers.
      */
-    private final MutableLiveData<List<MowingPlace>> placesLiveData = new MutableLiveData<>();
+    private static final double VIEWPORT_MARGIN = 0.25;
 
     /**
-     * Repository object used to load mowing places.
-     * This repository handles data operations and provides access to the data source.
+     * Clustered markers of a viewport.
      */
-    private final MowingPlacesRepository repository;
+    static final class MarkerSet {
+        final int zoom;
+        final List<MowingPlace> places;
+        final List<MarkerClusterer.Cluster> clusters;
+
+        MarkerSet(int zoom, List<MowingPlace> places, List<MarkerClusterer.Cluster> clusters) {
+            this.zoom = zoom;
+            this.places = places;
+            this.clusters = clusters;
+        }
+    }
+
+    /**
+     * Zoom level and bounding box of the map.
+     */
+    private static final class Viewport {
+        final int zoom;
+        final double south, west, north, east;
+
+        Viewport(int zoom, double south, double west, double north, double east) {
+            this.zoom = zoom;
+            this.south = south;
+            this.west = west;
+            this.north = north;
+            this.east = east;
+        }
+    }
+
+    /**
+     * Store providing the mowing places.
+     * The places are loaded off the main thread and delivered through LiveData.
+     */
+    private final PlacesStore store;
+    private final Observer<List<MowingPlace>> placesObserver = this::setPlaces;
+    private final float cellPixels;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final MutableLiveData<MarkerSet> markers = new MutableLiveData<>();
+    private final AtomicReference<Viewport> viewport = new AtomicReference<>();
+    // set while a marker update is queued, so a burst of viewport changes is handled once
+    private final AtomicBoolean updateQueued = new AtomicBoolean();
+
+    // accessed on the executor thread only
+    private List<MowingPlace> places;
+    private MarkerClusterer clusterer;
+    private VisitStatusIndex clusterStatus;
 
     /**
      * Constructor for MapViewModel.
-     * Initializes the MutableLiveData object and the repository.
+     * The places are already being loaded since the application started, so nothing is parsed here.
      *
-     * @param application The application context used to access files and assets.
+     * @param application The application holding the places store.
      */
     public MapViewModel(@NonNull Application application) {
         super(application);
-        repository = new MowingPlacesRepository();
-        loadData();
+        store = ((MyApplication) application).getPlacesStore();
+        cellPixels = CLUSTER_CELL_DP * application.getResources().getDisplayMetrics().density;
+        store.getPlaces().observeForever(placesObserver);
     }
 
     /**
-     * Loads the mowing places from the repository and sets them to the LiveData object.
-     * This method is called in the constructor to initialize the data.
+     * Reloads the mowing places in the background if the saved places changed.
+     * The markers are updated when the load finishes.
      */
     void loadData() {
-        List<MowingPlace> places = repository.loadMowingPlaces(getApplication());
-        placesLiveData.setValue(places);
+        store.refresh();
     }
 
     /**
-     * Returns the LiveData object containing the list of MowingPlace objects.
-     * This method is used by the MapFragment to observe changes in the data.
+     * Returns the clustered markers of the current viewport. A value is set once both the places
+     * and the viewport are known and again after either changes.
      *
-     * @return A LiveData object containing a list of MowingPlace objects.
+     * @return LiveData with the markers.
      */
-    public LiveData<List<MowingPlace>> getPlaces() {
-        return placesLiveData;
+    LiveData<MarkerSet> getMarkers() {
+        return markers;
+    }
+
+    /**
+     * Sets the visible part of the map; the markers are updated on a background thread.
+     *
+     * @param zoom  The zoom level, rounded down.
+     * @param south Southern edge of the visible box.
+     * @param west  Western edge of the visible box.
+     * @param north Northern edge of the visible box.
+     * @param east  Eastern edge of the visible box.
+     */
+    void setViewport(int zoom, double south, double west, double north, double east) {
+        double latMargin = (north - south) * VIEWPORT_MARGIN;
+        double lonMargin = (east - west) * VIEWPORT_MARGIN;
+        viewport.set(new Viewport(zoom, south - latMargin, west - lonMargin, north + latMargin, east + lonMargin));
+        queueUpdate();
+    }
+
+    private void setPlaces(List<MowingPlace> loaded) {
+        executor.execute(() -> {
+            // the clusters are built again with the status of the new places
+            places = loaded;
+            clusterer = null;
+            publishMarkers();
+        });
+    }
+
+    private void queueUpdate() {
+        if (!updateQueued.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            updateQueued.set(false);
+            publishMarkers();
+        });
+    }
+
+    private void publishMarkers() {
+        Viewport v = viewport.get();
+        VisitStatusIndex status = store.getVisitStatus();
+        if (places == null || v == null || status == null) {
+            return;
+        }
+        // a new status index means new places, a new visit or a new day
+        if (clusterer == null || status != clusterStatus) {
+            buildClusterer(status);
+        }
+        markers.postValue(new MarkerSet(v.zoom, places, clusterer.visible(v.zoom, v.south, v.west, v.north, v.east)));
+    }
+
+    private void buildClusterer(VisitStatusIndex status) {
+        // 1) marker state of every place, read from the status index
+        int n = places.size();
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        int[] states = new int[n];
+        for (int i = 0; i < n; i++) {
+            MowingPlace place = places.get(i);
+            latitudes[i] = place.getLatitude();
+            longitudes[i] = place.getLongitude();
+            byte state = status.status(PlaceIds.intern(place.getId()));
+            states[i] = state == VisitStatusIndex.UNKNOWN ? STATE_YELLOW : state;
+        }
+        // 2) clusters are computed per zoom level when first shown
+        clusterer = new MarkerClusterer(latitudes, longitudes, states, cellPixels);
+        clusterStatus = status;
+    }
+
+    @Override
+    protected void onCleared() {
+        store.getPlaces().removeObserver(placesObserver);
+        executor.shutdown();
     }
 }
@@ -2,13 +2,18 @@ package com.example.myapplication.ui.planning;
 
 import android.app.Activity;
 import android.content.Intent;
+import android.graphics.Point;
 import android.os.Bundle;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
+import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import com.example.myapplication.MyApplication;
 import com.example.myapplication.R;
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.util.TilePrefetchHelper;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
@@ -16,6 +21,9 @@ import org.osmdroid.views.overlay.Marker;
 /**
  * Activity for selecting a location on a map.
  * The user can tap on the map to place a marker and confirm the selected location.
+ * When the caller asks for it, a tap close to a mowing place puts the marker exactly on that place,
+ * found with the spatial index of the places store instead of scanning all places. The places are
+ * not drawn on this map, so the marker then shows the name of the place and a toast names it.
  */
 public class LocationPickerActivity extends AppCompatActivity {
 
@@ -29,6 +37,16 @@ public class LocationPickerActivity extends AppCompatActivity {
      */
     public static final String EXTRA_SELECTED_LON = "extra_selected_lon";
 
+    /**
+     * Boolean extra asking to snap taps close to a mowing place onto that place.
+     */
+    public static final String EXTRA_SNAP_TO_PLACES = "extra_snap_to_places";
+
+    /**
+     * Distance of a tap from a place in density-independent pixels up to which it snaps onto the place.
+     */
+    private static final float SNAP_RADIUS_DP = 24f;
+
     private MapView mapView;
     private Marker marker;
     private Button btnConfirm;
@@ -52,6 +70,7 @@ public class LocationPickerActivity extends AppCompatActivity {
         mapView = findViewById(R.id.locationMapView);
         btnConfirm = findViewById(R.id.btnConfirmLocation);
 
+        mapView.setTileSource(TilePrefetchHelper.getTileSource(this));
         mapView.setMultiTouchControls(true);
         // Set initial position – center of Czech Republic
         GeoPoint initialPoint = new GeoPoint(49.8175, 15.4730);
@@ -64,13 +83,27 @@ public class LocationPickerActivity extends AppCompatActivity {
         marker.setAnchor(Marker.ANCHOR_CENTER, Marker.ANCHOR_BOTTOM);
         mapView.getOverlays().add(marker);
 
+        boolean snapToPlaces = getIntent().getBooleanExtra(EXTRA_SNAP_TO_PLACES, false);
+        float snapRadiusPx = SNAP_RADIUS_DP * getResources().getDisplayMetrics().density;
+
         // Add an overlay to update marker position on single tap
         mapView.getOverlays().add(new Marker(mapView) {
             @Override
             public boolean onSingleTapConfirmed(@NonNull android.view.MotionEvent event, MapView mapView) {
                 // Convert touch point to GeoPoint and update marker
                 GeoPoint tappedPoint = (GeoPoint) mapView.getProjection().fromPixels((int) event.getX(), (int) event.getY());
-                marker.setPosition(tappedPoint);
+                MowingPlace nearest = snapToPlaces ? nearestPlace(tappedPoint, event, snapRadiusPx) : null;
+                if (nearest != null) {
+                    marker.setPosition(new GeoPoint(nearest.getLatitude(), nearest.getLongitude()));
+                    marker.setTitle(nearest.getName());
+                    marker.showInfoWindow();
+                    Toast.makeText(LocationPickerActivity.this,
+                            "Poloha umístěna na místo " + nearest.getName(), Toast.LENGTH_SHORT).show();
+                } else {
+                    marker.setPosition(tappedPoint);
+                    marker.setTitle(null);
+                    marker.closeInfoWindow();
+                }
                 mapView.invalidate();
                 return true;
             }
@@ -90,6 +123,26 @@ public class LocationPickerActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Finds the mowing place nearest to a tap if its position on the screen is within the snap
+     * radius of the tap.
+     *
+     * @param tappedPoint The tapped location.
+     * @param event       The tap event, for its screen position.
+     * @param radiusPx    The snap radius in pixels.
+     * @return The place, or null if no place is close enough.
+     */
+    private MowingPlace nearestPlace(GeoPoint tappedPoint, android.view.MotionEvent event, float radiusPx) {
+        MowingPlace nearest = ((MyApplication) getApplication()).getPlacesStore().getSpatialIndex()
+                .nearest(tappedPoint.getLatitude(), tappedPoint.getLongitude());
+        if (nearest == null) {
+            return null;
+        }
+        Point pixel = mapView.getProjection().toPixels(new GeoPoint(nearest.getLatitude(), nearest.getLongitude()), null);
+        double dx = pixel.x - event.getX(), dy = pixel.y - event.getY();
+        return dx * dx + dy * dy <= radiusPx * radiusPx ? nearest : null;
+    }
+
     /**
      *  Called when the options menu item is selected.
      *  Handles the back navigation when the home button is pressed.
@@ -4,6 +4,8 @@ import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.TextUtils;
 import android.text.method.DigitsKeyListener;
 import android.util.ArrayMap;
@@ -18,23 +20,40 @@ import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.SeekBar;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.core.widget.NestedScrollView;
 import androidx.fragment.app.Fragment;
 
+import com.example.myapplication.MyApplication;
 import com.example.myapplication.R;
 import com.example.myapplication.data.MowingPlace;
 import com.example.myapplication.data.MowingPlacesRepository;
+import com.example.myapplication.data.PlanRequest;
+import com.example.myapplication.data.PlacesStore;
 import com.example.myapplication.data.RoutePlan;
 import com.example.myapplication.data.RoutePlanRepository;
 import com.example.myapplication.databinding.FragmentPlanningBinding;
+import com.example.myapplication.util.CostModel;
 import com.example.myapplication.util.DiacriticInsensitiveAdapter;
+import com.example.myapplication.util.TilePrefetchHelper;
+import com.example.myapplication.util.DistanceMatrix;
+import com.example.myapplication.platform.PlannerClock;
 import com.example.myapplication.util.MatrixApiHelper;
+import com.example.myapplication.util.PlanCache;
+import com.example.myapplication.util.PlannerMetrics;
+import com.example.myapplication.util.RouteGeometryCache;
+import com.example.myapplication.util.RouteGeometryHelper;
 import com.example.myapplication.util.TSPPlanner;
 
+import org.osmdroid.events.DelayedMapListener;
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Polyline;
@@ -42,6 +61,9 @@ import org.osmdroid.views.overlay.Polyline;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -53,6 +75,10 @@ public class PlanningFragment extends Fragment {
 
     private FragmentPlanningBinding binding;
     private MapView planningMapView;
+    private Polyline routeOverlay;
+    private List<MowingPlace> previewRoute;
+    private String[][] previewLegs;
+    private int previewLevel;
     private NestedScrollView nestedScrollView;
 
     // UI elements for location and time inputs
@@ -60,6 +86,7 @@ public class PlanningFragment extends Fragment {
     private TextView tvStartTime, tvEndTime;
     private SeekBar sbSpeedMultiplier;
     private CheckBox cbAddExtra;
+    private Spinner spinnerObjective;
     private Button btnGenerateRoute, btnOpenMapycZ, btnOpenGoogleMaps, btnAddWaypoint;
 
     // Containers for dynamic entries: waypoints and extra options
@@ -70,8 +97,9 @@ public class PlanningFragment extends Fragment {
     private EditText etLastMowingTime;
     private CheckBox cbIncludeVisited;
 
-    // Repository for available cemeteries and mapping from name to MowingPlace
-    private MowingPlacesRepository placesRepository;
+    // Store of available cemeteries and mapping from name to MowingPlace
+    private PlacesStore placesStore;
+    private PlanCache planCache;
     private List<MowingPlace> availablePlaces;
     private Map<String, MowingPlace> nameToPlace;
 
@@ -82,12 +110,30 @@ public class PlanningFragment extends Fragment {
     // Route plan variables
     private List<MowingPlace> finalRoute;
     private double totalMowingTime; // computed total time (driving + mowing)
+    // route of the mandatory stops (before auto-fill) and the start, end and objective it was
+    // planned for; a later plan with the same ones only adds or removes stops in it
+    private List<MowingPlace> lastBaseRoute;
+    private String lastBaseKey;
     private String mapyCzRouteUrl = "";
     private String googleMapsUrl = "";
+    // timings and counters of the last generated route, shown in the diagnostics dialog
+    private PlannerMetrics.Snapshot lastPlanMetrics;
+
+    /**
+     * Runs the plan cache lookups and updates, which read the dataset version from the database
+     * and the cache file on first use, and its flushes one at a time off the main thread.
+     */
+    private static final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private static final int REQUEST_CODE_START = 101;
     private static final int REQUEST_CODE_END = 102;
 
+    /**
+     * Delay after zooming before the route preview changes its level of detail, in milliseconds.
+     */
+    private static final long ZOOM_DELAY_MS = 200;
+
     /**
      * Called when the fragment is created.
      * It initializes the UI components and sets up listeners for user interactions.
@@ -112,11 +158,16 @@ public class PlanningFragment extends Fragment {
         tvEndTime = binding.tvEndTime;
         sbSpeedMultiplier = binding.seekBarSpeedMultiplier;
         cbAddExtra = binding.cbAddExtra;
+        spinnerObjective = binding.spinnerObjective;
         btnGenerateRoute = binding.btnGenerateRoute;
         btnOpenMapycZ = binding.btnOpenMapycZ;
         btnOpenGoogleMaps = binding.btnOpenGoogleMaps;
         btnAddWaypoint = binding.btnAddWaypoint;
         planningMapView = binding.planningMapView;
+        // a new view starts without a route preview
+        routeOverlay = null;
+        previewRoute = null;
+        previewLegs = null;
         // Get the waypoint container (llWaypoints) and extra options container (llExtraOptions)
         llWaypoints = binding.llWaypoints;
         llExtraOptions = binding.llExtraOptions;
@@ -131,25 +182,39 @@ public class PlanningFragment extends Fragment {
         btnOpenGoogleMaps.setVisibility(View.GONE);
 
         // Initialize map view
+        planningMapView.setTileSource(TilePrefetchHelper.getTileSource(requireContext()));
         planningMapView.setMultiTouchControls(true);
         planningMapView.getController().setZoom(7.5);
         planningMapView.getController().setCenter(new GeoPoint(49.8175, 15.4730));
+        // The route preview switches to the level of detail of the new zoom
+        planningMapView.addMapListener(new DelayedMapListener(new MapListener() {
+            @Override
+            public boolean onScroll(ScrollEvent event) {
+                return false;
+            }
+
+            @Override
+            public boolean onZoom(ZoomEvent event) {
+                if (previewLegs != null
+                        && RouteGeometryCache.levelIndex(planningMapView.getZoomLevelDouble()) != previewLevel) {
+                    drawRoutePreview();
+                }
+                return false;
+            }
+        }, ZOOM_DELAY_MS));
         // Prevent parent from intercepting touch events
         planningMapView.setOnTouchListener((v, event) -> {
             v.getParent().requestDisallowInterceptTouchEvent(true);
             return false;
         });
 
-        // Initialize repository and load available places
-        placesRepository = new MowingPlacesRepository();
-        availablePlaces = placesRepository.loadMowingPlaces(getContext());
-        // Build mapping for auto-complete suggestions (diacritics will be ignored by adapter)
+        // Places come from the application-wide store, loaded in the background;
+        // road distances are loaded only when a route is generated
+        MyApplication application = (MyApplication) requireActivity().getApplication();
+        placesStore = application.getPlacesStore();
+        planCache = application.getPlanCache();
         nameToPlace = new ArrayMap<>();
-        List<String> placeNames = new ArrayList<>();
-        for (MowingPlace mp : availablePlaces) {
-            nameToPlace.put(mp.getName(), mp);
-            placeNames.add(mp.getName());
-        }
+        placesStore.getPlaces().observe(getViewLifecycleOwner(), this::updatePlaceNames);
 
         // Set default times and update TextViews
         tvStartTime.setText(formatTime(startTimeInMinutes));
@@ -184,13 +249,22 @@ public class PlanningFragment extends Fragment {
             @Override public void onStopTrackingTouch(SeekBar seekBar) { }
         });
 
+        // Route objective, order matches R.array.route_objectives and CostModel.Objective
+        ArrayAdapter<CharSequence> objectiveAdapter = ArrayAdapter.createFromResource(requireContext(),
+                R.array.route_objectives, android.R.layout.simple_spinner_item);
+        objectiveAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        spinnerObjective.setAdapter(objectiveAdapter);
+        spinnerObjective.setSelection(CostModel.Objective.DURATION.ordinal());
+
         // Location picker listeners
         etStartLocation.setOnClickListener(v -> {
             Intent intent = new Intent(getContext(), LocationPickerActivity.class);
+            intent.putExtra(LocationPickerActivity.EXTRA_SNAP_TO_PLACES, true);
             startActivityForResult(intent, REQUEST_CODE_START);
         });
         etEndLocation.setOnClickListener(v -> {
             Intent intent = new Intent(getContext(), LocationPickerActivity.class);
+            intent.putExtra(LocationPickerActivity.EXTRA_SNAP_TO_PLACES, true);
             startActivityForResult(intent, REQUEST_CODE_END);
         });
 
@@ -218,6 +292,11 @@ public class PlanningFragment extends Fragment {
             generateRoute();
             scrollToBottom();
         });
+        // Long press shows the planning diagnostics
+        btnGenerateRoute.setOnLongClickListener(v -> {
+            showMetricsDialog();
+            return true;
+        });
 
         // Open Mapy.cz button listener
         btnOpenMapycZ.setOnClickListener(v -> openMapyCz());
@@ -227,6 +306,16 @@ public class PlanningFragment extends Fragment {
         return root;
     }
 
+    /**
+     * Called when the fragment is no longer visible.
+     * Writes the recency of the cached plans used on this screen in the background.
+     */
+    @Override
+    public void onStop() {
+        super.onStop();
+        cacheExecutor.execute(planCache::flush);
+    }
+
     /**
      * Hides the keyboard if it is open.
      */
@@ -283,9 +372,8 @@ public class PlanningFragment extends Fragment {
         actvWaypoint.requestFocus();
 
         // Use custom adapter ignoring diacritics
-        ArrayAdapter<String> adapter = new DiacriticInsensitiveAdapter<>(getContext(), android.R.layout.simple_dropdown_item_1line, new ArrayList<>(nameToPlace.keySet()));
         actvWaypoint.setThreshold(1);
-        actvWaypoint.setAdapter(adapter);
+        actvWaypoint.setAdapter(createPlaceNameAdapter());
 
         // On item click, set tag with corresponding MowingPlace object
         actvWaypoint.setOnItemClickListener((parent, view, position, id) -> {
@@ -301,11 +389,256 @@ public class PlanningFragment extends Fragment {
         llWaypoints.addView(waypointView);
     }
 
+    /**
+     * Rebuilds the name mapping for auto-complete suggestions when the places are loaded or
+     * changed, and refreshes the suggestions of waypoint entries that already exist.
+     *
+     * @param places The places for display (without road distances).
+     */
+    private void updatePlaceNames(List<MowingPlace> places) {
+        nameToPlace.clear();
+        for (MowingPlace mp : places) {
+            nameToPlace.put(mp.getName(), mp);
+        }
+        for (int i = 0; i < llWaypoints.getChildCount(); i++) {
+            AutoCompleteTextView actv = llWaypoints.getChildAt(i).findViewById(R.id.actvWaypoint);
+            if (actv != null) {
+                actv.setAdapter(createPlaceNameAdapter());
+            }
+        }
+    }
+
+    /**
+     * Creates an auto-complete adapter over the known place names (diacritics are ignored).
+     * All adapters search the same name index of the places store.
+     *
+     * @return The adapter.
+     */
+    private ArrayAdapter<String> createPlaceNameAdapter() {
+        return new DiacriticInsensitiveAdapter(getContext(), android.R.layout.simple_dropdown_item_1line, placesStore.getNameIndex());
+    }
+
+    /**
+     * Shows the cached route if the same request was planned before; otherwise loads the places
+     * with their road distances (only the first time planning needs them) and generates the route.
+     * The cache is looked up in the background, as the key includes the dataset version.
+     */
+    private void generateRoute() {
+        PlanRequest request = buildPlanRequest();
+        if (request == null) {
+            generateRouteWithDistances(null);
+            return;
+        }
+        Context appContext = requireContext().getApplicationContext();
+        cacheExecutor.execute(() -> {
+            request.setDatasetVersion(new MowingPlacesRepository().lastModified(appContext));
+            PlanCache.Entry entry = planCache.get(request.cacheKey());
+            mainHandler.post(() -> {
+                if (getView() == null) {
+                    return;
+                }
+                if (entry == null || !showCachedRoute(request, entry)) {
+                    generateRouteWithDistances(request);
+                }
+            });
+        });
+    }
+
+    /**
+     * Loads the places with their road distances and generates the route.
+     *
+     * @param request The cache key inputs, or null if the route is not cached.
+     */
+    private void generateRouteWithDistances(PlanRequest request) {
+        placesStore.withDistances(places -> {
+            if (getView() == null) {
+                // the view was destroyed while the distances were loading
+                return;
+            }
+            availablePlaces = places;
+            generateRoute(places, request);
+        });
+    }
+
+    /**
+     * Builds the cache key inputs from the form. The dataset version is set by the caller.
+     *
+     * @return The request, or null if the inputs are incomplete or invalid
+     *         (route generation then reports the problem).
+     */
+    private PlanRequest buildPlanRequest() {
+        String[] startParts = etStartLocation.getText().toString().trim().split(",");
+        String[] endParts = etEndLocation.getText().toString().trim().split(",");
+        if (startParts.length != 2 || endParts.length != 2) {
+            return null;
+        }
+        List<String> waypointIds = new ArrayList<>();
+        for (int i = 0; i < llWaypoints.getChildCount(); i++) {
+            AutoCompleteTextView actv = llWaypoints.getChildAt(i).findViewById(R.id.actvWaypoint);
+            if (actv != null && !TextUtils.isEmpty(actv.getText().toString().trim())
+                    && actv.getTag() instanceof MowingPlace) {
+                String id = ((MowingPlace) actv.getTag()).getId();
+                if (!waypointIds.contains(id)) {
+                    waypointIds.add(id);
+                }
+            }
+        }
+        if (waypointIds.isEmpty() && !cbAddExtra.isChecked()) {
+            return null;
+        }
+        try {
+            int lastMowingTime = 0;
+            if (!TextUtils.isEmpty(etLastMowingTime.getText())) {
+                lastMowingTime = Integer.parseInt(etLastMowingTime.getText().toString());
+            }
+            return new PlanRequest()
+                    .setStart(Double.parseDouble(startParts[0].trim()), Double.parseDouble(startParts[1].trim()))
+                    .setEnd(Double.parseDouble(endParts[0].trim()), Double.parseDouble(endParts[1].trim()))
+                    .setWaypointIds(waypointIds)
+                    .setTimeWindow(startTimeInMinutes, endTimeInMinutes)
+                    .setSpeedMultiplier(0.5 + (sbSpeedMultiplier.getProgress() * 0.5))
+                    .setObjective(CostModel.Objective.values()[spinnerObjective.getSelectedItemPosition()].name())
+                    .setAutoFill(cbAddExtra.isChecked(), cbIncludeVisited.isChecked(), lastMowingTime, PlannerClock.SYSTEM.today());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Shows the cached route of the request, without fetching distances or planning.
+     * The plan is not added to the history again. Its mandatory stops become the base route of
+     * the next incremental plan, as if the route had just been planned.
+     *
+     * @param request The request.
+     * @param entry   The cached plan of the request.
+     * @return true if the cached route was shown, false if the route has to be planned.
+     */
+    private boolean showCachedRoute(PlanRequest request, PlanCache.Entry entry) {
+        String key = request.cacheKey();
+        Map<String, MowingPlace> idToPlace = new ArrayMap<>(nameToPlace.size());
+        for (MowingPlace mp : nameToPlace.values()) {
+            idToPlace.put(mp.getId(), mp);
+        }
+        idToPlace.put("start", createEndpoint("start", "Start", request.getStartLatitude(), request.getStartLongitude()));
+        idToPlace.put("end", createEndpoint("end", "End", request.getEndLatitude(), request.getEndLongitude()));
+        List<MowingPlace> route = new ArrayList<>(entry.getRouteIds().size());
+        for (String id : entry.getRouteIds()) {
+            MowingPlace place = idToPlace.get(id);
+            if (place == null) {
+                // a place of the cached route no longer exists
+                cacheExecutor.execute(() -> planCache.remove(key));
+                return false;
+            }
+            route.add(place);
+        }
+        List<MowingPlace> baseRoute = new ArrayList<>(request.getWaypointIds().size() + 2);
+        for (MowingPlace mp : route) {
+            if ("start".equals(mp.getId()) || "end".equals(mp.getId()) || request.getWaypointIds().contains(mp.getId())) {
+                baseRoute.add(mp);
+            }
+        }
+        lastBaseRoute = baseRoute;
+        lastBaseKey = baseKey(etStartLocation.getText().toString().trim(), etEndLocation.getText().toString().trim(),
+                CostModel.Objective.values()[spinnerObjective.getSelectedItemPosition()]);
+        finalRoute = route;
+        totalMowingTime = entry.getDuration();
+        showRoute(finalRoute);
+        Toast.makeText(getContext(), "Trasa načtena z dřívějšího plánu. Přibližný čas: "
+                + String.format("%.1f", entry.getDuration()) + " h, přibližná vzdálenost: "
+                + String.format("%.1f", entry.getLength() / 1000) + " km", Toast.LENGTH_LONG).show();
+        scrollToBottom();
+        return true;
+    }
+
+    /**
+     * Creates the start or end node of a route.
+     */
+    private static MowingPlace createEndpoint(String id, String name, double latitude, double longitude) {
+        MowingPlace place = new MowingPlace();
+        place.setId(id);
+        place.setName(name);
+        place.setLatitude(latitude);
+        place.setLongitude(longitude);
+        place.setTimeRequirement(0);
+        return place;
+    }
+
+    /**
+     * Returns the key of the base route: start, end and objective of the plan.
+     */
+    private static String baseKey(String startLocation, String endLocation, CostModel.Objective objective) {
+        return startLocation + "|" + endLocation + "|" + objective;
+    }
+
+    /**
+     * Plans the route of the mandatory stops. When only waypoints were added or removed since
+     * the last plan, the last route is updated incrementally, so the crew's order stays the same
+     * apart from the changed stops. Otherwise, or when most stops changed, it is planned anew.
+     *
+     * @param nodes     Start, mandatory waypoints and end, with their distances.
+     * @param costModel The objective.
+     * @param baseKey   Start, end and objective of the plan.
+     * @return The route from start to end.
+     */
+    private List<MowingPlace> planBaseRoute(List<MowingPlace> nodes, CostModel costModel, String baseKey) {
+        List<MowingPlace> route = null;
+        if (lastBaseRoute != null && baseKey.equals(lastBaseKey)) {
+            Map<String, MowingPlace> current = new ArrayMap<>(nodes.size());
+            for (MowingPlace mp : nodes) {
+                current.put(mp.getId(), mp);
+            }
+            // the previous route with its stops replaced by the current ones, which carry
+            // fresh distances; removed stops stay in it only to be cut out
+            List<MowingPlace> previous = new ArrayList<>(lastBaseRoute.size());
+            List<String> removedIds = new ArrayList<>();
+            for (MowingPlace mp : lastBaseRoute) {
+                MowingPlace currentPlace = current.remove(mp.getId());
+                if (currentPlace != null) {
+                    previous.add(currentPlace);
+                } else {
+                    previous.add(mp);
+                    removedIds.add(mp.getId());
+                }
+            }
+            List<MowingPlace> added = new ArrayList<>(current.values());
+            if (added.size() + removedIds.size() <= (previous.size() - 2) / 2) {
+                route = TSPPlanner.replanRoute(previous, added, removedIds, costModel);
+            }
+        }
+        if (route == null) {
+            route = TSPPlanner.generateRoute(nodes, costModel);
+        }
+        lastBaseRoute = new ArrayList<>(route);
+        lastBaseKey = baseKey;
+        return route;
+    }
+
+    /**
+     * Shows a planned route: links to the map applications and the map preview.
+     *
+     * @param route The route from start to end.
+     */
+    private void showRoute(List<MowingPlace> route) {
+        mapyCzRouteUrl = generateMapyUrl(route);
+        googleMapsUrl = generateGoogleMapsUrl(route);
+        updateMapPreview(route);
+        // tiles along the route, for the map on the way
+        TilePrefetchHelper.prefetchRoute(requireContext(), route);
+        btnOpenMapycZ.setVisibility(View.VISIBLE);
+        btnOpenGoogleMaps.setVisibility(View.VISIBLE);
+        planningMapView.getController().setZoom(7.5);
+        planningMapView.getController().setCenter(new GeoPoint(49.8175, 15.4730));
+    }
+
     /**
      * Generates the route based on user inputs and available places.
      * Validates inputs, retrieves distances, and computes the route using TSP algorithm.
+     * The result is cached under the request unless fetching distances failed.
+     *
+     * @param places  All places with their road distances.
+     * @param request The cache key inputs, or null if the route is not cached.
      */
-    private void generateRoute() {
+    private void generateRoute(List<MowingPlace> places, PlanRequest request) {
         // Parse start and end location (format "lat,lon")
         String startLocStr = etStartLocation.getText().toString().trim();
         String endLocStr = etEndLocation.getText().toString().trim();
@@ -329,21 +662,15 @@ public class PlanningFragment extends Fragment {
         double speedMultiplier = 0.5 + (sbSpeedMultiplier.getProgress() * 0.5);
 
         // Create start and end nodes
-        MowingPlace startPlace = new MowingPlace();
-        startPlace.setId("start");
-        startPlace.setName("Start");
-        startPlace.setLatitude(startLat);
-        startPlace.setLongitude(startLon);
-        startPlace.setTimeRequirement(0);
-
-        MowingPlace endPlace = new MowingPlace();
-        endPlace.setId("end");
-        endPlace.setName("End");
-        endPlace.setLatitude(endLat);
-        endPlace.setLongitude(endLon);
-        endPlace.setTimeRequirement(0);
-
-        // Retrieve mandatory waypoints
+        MowingPlace startPlace = createEndpoint("start", "Start", startLat, startLon);
+        MowingPlace endPlace = createEndpoint("end", "End", endLat, endLon);
+
+        // Retrieve mandatory waypoints; the suggestions hold places without distances,
+        // so they are matched to the full places by ID
+        Map<String, MowingPlace> idToPlace = new ArrayMap<>(places.size());
+        for (MowingPlace mp : places) {
+            idToPlace.put(mp.getId(), mp);
+        }
         List<MowingPlace> mandatoryWaypoints = new ArrayList<>();
         int count = llWaypoints.getChildCount();
         for (int i = 0; i < count; i++) {
@@ -352,7 +679,10 @@ public class PlanningFragment extends Fragment {
             if (actv != null && !TextUtils.isEmpty(actv.getText().toString().trim())) {
                 Object tag = actv.getTag();
                 if (tag instanceof MowingPlace) {
-                    mandatoryWaypoints.add((MowingPlace) tag);
+                    MowingPlace place = idToPlace.get(((MowingPlace) tag).getId());
+                    if (place != null) {
+                        mandatoryWaypoints.add(place);
+                    }
                 }
             }
         }
@@ -380,15 +710,26 @@ public class PlanningFragment extends Fragment {
         // Prepare allPlaces list for distance updates
         List<MowingPlace> allPlaces = new ArrayList<>(availablePlaces);
 
+        // One objective for both route construction and auto-fill
+        CostModel costModel = CostModel.of(CostModel.Objective.values()[spinnerObjective.getSelectedItemPosition()]);
+
         // Use an AtomicInteger to count completed update attempts (for start and end)
         final AtomicInteger updatesCompleted = new AtomicInteger(0);
+        // a route planned without fresh start and end distances is not cached
+        final AtomicBoolean fetchFailed = new AtomicBoolean(false);
+
+        // metrics of this plan are the difference to the state before the distance updates
+        final PlannerMetrics.Snapshot metricsBefore = PlannerMetrics.snapshot();
+        final long fetchStart = PlannerMetrics.start();
 
         // Helper method to check if both updates are done
         Runnable checkAndGenerateRoute = () -> {
             if (updatesCompleted.get() >= 2) {
                 // Both start and end updates have finished (successfully or not)
                 // Now proceed with route generation:
-                finalRoute = new ArrayList<>(TSPPlanner.generateRoute(nodes));
+                PlannerMetrics.stop(PlannerMetrics.Stage.MATRIX_FETCH, fetchStart);
+                finalRoute = new ArrayList<>(planBaseRoute(nodes, costModel,
+                        baseKey(startLocStr, endLocStr, costModel.getObjective())));
                 if (cbAddExtra.isChecked()) {
                     // Add extra cemeteries if checkbox is checked
                     //try to parse last mowing time to int
@@ -401,7 +742,9 @@ public class PlanningFragment extends Fragment {
                             return;
                         }
                     }
-                    finalRoute = TSPPlanner.addExtraCemeteries(finalRoute, availablePlaces, endTime - startTime, speedMultiplier, cbIncludeVisited.isChecked(), lastMowingTime);
+                    // visit counts and last visits come from the status index the store already computed
+                    finalRoute = TSPPlanner.addExtraCemeteries(finalRoute, availablePlaces, endTime - startTime, speedMultiplier,
+                            cbIncludeVisited.isChecked(), lastMowingTime, costModel, placesStore.getVisitStatus());
                 }
                 totalMowingTime = 0;
                 for (MowingPlace mp : finalRoute) {
@@ -409,72 +752,52 @@ public class PlanningFragment extends Fragment {
                 }
                 totalMowingTime /= speedMultiplier;
 
-                //go through finalRoute and add the driving time to each place using distance entry duration
-                for (int i = 0; i < finalRoute.size(); i++) {
-                    MowingPlace mp = finalRoute.get(i);
-                    if (i > 0) {
-                        MowingPlace previousMp = finalRoute.get(i - 1);
-                        //avoid null pointer exception
-                        if (previousMp.getDistancesToOthers() == null) {
-                            continue;
-                        }
-                        for (MowingPlace.DistanceEntry entry : previousMp.getDistancesToOthers()) {
-                            if (entry.getId().equals(mp.getId())) {
-                                totalMowingTime += entry.getDuration() / 3600.0; // convert seconds to hours
-                                break;
-                            }
-                        }
-                    }
+                // driving time and distance from the same matrix the planner used, including its fallbacks
+                DistanceMatrix routeMatrix = new DistanceMatrix(finalRoute);
+                double totalDistance = 0;
+                int[] legDistances = new int[finalRoute.size() - 1];
+                int[] legDurations = new int[finalRoute.size() - 1];
+                for (int i = 0; i < finalRoute.size() - 1; i++) {
+                    totalMowingTime += routeMatrix.duration(i, i + 1) / 3600.0; // convert seconds to hours
+                    totalDistance += routeMatrix.distance(i, i + 1);
+                    legDistances[i] = (int) Math.round(routeMatrix.distance(i, i + 1));
+                    legDurations[i] = (int) Math.round(routeMatrix.duration(i, i + 1));
                 }
                 String formattedMowingTime = String.format("%.1f", totalMowingTime);
 
-                //find out total distance
-                double totalDistance = 0;
-                for (int i = 0; i < finalRoute.size() - 1; i++) {
-                    MowingPlace mp = finalRoute.get(i);
-                    MowingPlace nextMp = finalRoute.get(i + 1);
-                    if (mp.getDistancesToOthers() == null) {
-                        continue;
-                    }
-                    for (MowingPlace.DistanceEntry entry : mp.getDistancesToOthers()) {
-                        if (entry.getId().equals(nextMp.getId())) {
-                            totalDistance += entry.getDistance();
-                            break;
-                        }
+                showRoute(finalRoute);
+                if (request != null && !fetchFailed.get()) {
+                    List<String> routeIds = new ArrayList<>(finalRoute.size());
+                    for (MowingPlace mp : finalRoute) {
+                        routeIds.add(mp.getId());
                     }
+                    PlanCache.Entry entry = new PlanCache.Entry(routeIds, totalDistance, totalMowingTime);
+                    cacheExecutor.execute(() -> {
+                        planCache.put(request.cacheKey(), entry);
+                        planCache.flush();
+                    });
                 }
 
-
-                mapyCzRouteUrl = generateMapyUrl(finalRoute);
-                googleMapsUrl = generateGoogleMapsUrl(finalRoute);
-                updateMapPreview(finalRoute);
-                btnOpenMapycZ.setVisibility(View.VISIBLE);
-                btnOpenGoogleMaps.setVisibility(View.VISIBLE);
-
                 // Save route plan to repository
                 RoutePlan routePlan = new RoutePlan();
                 routePlan.setRoutePlaces(finalRoute);
+                routePlan.setLegs(legDistances, legDurations);
                 routePlan.setMapyCzUrl(mapyCzRouteUrl);
                 routePlan.setGoogleMapsUrl(googleMapsUrl);
                 routePlan.setDuration(totalMowingTime);
                 routePlan.setLength(totalDistance);
                 routePlan.setDateTime(String.format("%tF %tT", System.currentTimeMillis(), System.currentTimeMillis()));
-                RoutePlanRepository routePlanRepository = new RoutePlanRepository();
-                List<RoutePlan> routePlans = routePlanRepository.loadRoutePlans(getContext());
-                if (routePlans == null) {
-                    routePlans = new ArrayList<>();
-                }
-                routePlans.add(routePlan);
-                routePlanRepository.saveRoutePlans(getContext(), routePlans);
+                lastPlanMetrics = PlannerMetrics.snapshot().since(metricsBefore);
+                routePlan.setMetrics(lastPlanMetrics);
+                long saveStart = PlannerMetrics.start();
+                new RoutePlanRepository().addRoutePlan(getContext(), routePlan);
+                PlannerMetrics.stop(PlannerMetrics.Stage.SAVE_PLAN, saveStart);
 
                 //format distance to km
                 String formattedDistance = String.format("%.1f", totalDistance / 1000);
                 Toast.makeText(getContext(), "Trasa vytvořena. Přibližný čas: " +
                         formattedMowingTime + " h" + ", přibližná vzdálenost: " + formattedDistance
                         + " km", Toast.LENGTH_LONG).show();
-
-                planningMapView.getController().setZoom(7.5);
-                planningMapView.getController().setCenter(new GeoPoint(49.8175, 15.4730));
                 scrollToBottom();
             }
         };
@@ -489,6 +812,7 @@ public class PlanningFragment extends Fragment {
             @Override
             public void onFailure(String errorMessage) {
                 Toast.makeText(getContext(), "Zjišťování vzdálenosti startu a cíle se nezdařilo, výsledek může být nepřesný.", Toast.LENGTH_SHORT).show();
+                fetchFailed.set(true);
                 updatesCompleted.incrementAndGet();
                 checkAndGenerateRoute.run();
             }
@@ -503,27 +827,88 @@ public class PlanningFragment extends Fragment {
             }
             @Override
             public void onFailure(String errorMessage) {
+                fetchFailed.set(true);
                 updatesCompleted.incrementAndGet();
                 checkAndGenerateRoute.run();
             }
         });
     }
 
+    /**
+     * Shows the timings and counters of the last generated route and the totals since the start
+     * of the app. The JSON of both can be shared, e.g. to attach it to a bug report.
+     */
+    private void showMetricsDialog() {
+        PlannerMetrics.Snapshot total = PlannerMetrics.snapshot();
+        StringBuilder message = new StringBuilder();
+        if (lastPlanMetrics != null) {
+            message.append("Poslední trasa:\n").append(lastPlanMetrics.toText()).append('\n');
+        }
+        message.append("Celkem:\n").append(total.toText());
+        String json = "{\"lastPlan\": " + (lastPlanMetrics == null ? "null" : lastPlanMetrics.toJson())
+                + ",\n\"total\": " + total.toJson() + "}";
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Diagnostika plánování")
+                .setMessage(message.toString())
+                .setPositiveButton("Zavřít", null)
+                .setNeutralButton("Sdílet JSON", (d, w) -> {
+                    Intent intent = new Intent(Intent.ACTION_SEND);
+                    intent.setType("application/json");
+                    intent.putExtra(Intent.EXTRA_TEXT, json);
+                    startActivity(Intent.createChooser(intent, "Sdílet diagnostiku"));
+                })
+                .setNegativeButton("Vynulovat", (d, w) -> PlannerMetrics.reset())
+                .show();
+    }
+
     /**
      * Updates the map preview with the generated route.
-     * Clears previous overlays and adds a new polyline for the route.
+     * The route is drawn at once with straight lines between the stops in a single polyline
+     * overlay that is reused for every route; the legs are redrawn along the roads once their
+     * cached or fetched geometry is loaded.
      *
      * @param route The list of MowingPlace objects representing the route.
      */
     private void updateMapPreview(List<MowingPlace> route) {
-        planningMapView.getOverlays().clear();
-        Polyline polyline = new Polyline();
+        previewRoute = route;
+        previewLegs = null;
+        drawRoutePreview();
+        RouteGeometryHelper.loadRoute(requireContext(), route, legs -> {
+            // a newer route or a new view replaced the one the geometry was loaded for
+            if (previewRoute != route || getView() == null) {
+                return;
+            }
+            previewLegs = legs;
+            drawRoutePreview();
+        });
+    }
+
+    /**
+     * Draws the previewed route at the level of detail of the current zoom; legs without
+     * geometry are straight lines.
+     */
+    private void drawRoutePreview() {
+        if (previewRoute == null) {
+            return;
+        }
+        if (routeOverlay == null) {
+            routeOverlay = new Polyline();
+            planningMapView.getOverlays().add(routeOverlay);
+        }
+        previewLevel = RouteGeometryCache.levelIndex(planningMapView.getZoomLevelDouble());
         List<GeoPoint> geoPoints = new ArrayList<>();
-        for (MowingPlace mp : route) {
+        for (int i = 0; i < previewRoute.size(); i++) {
+            MowingPlace mp = previewRoute.get(i);
             geoPoints.add(new GeoPoint(mp.getLatitude(), mp.getLongitude()));
+            if (previewLegs != null && i < previewLegs.length && previewLegs[i] != null) {
+                // the stops are drawn from the places, so only the inner points of a leg are added
+                double[][] leg = RouteGeometryCache.decode(previewLegs[i], previewLevel);
+                for (int k = 1; k < leg[0].length - 1; k++) {
+                    geoPoints.add(new GeoPoint(leg[0][k], leg[1][k]));
+                }
+            }
         }
-        polyline.setPoints(geoPoints);
-        planningMapView.getOverlays().add(polyline);
+        routeOverlay.setPoints(geoPoints);
         planningMapView.invalidate();
     }
 
@@ -1,34 +1,37 @@
 package com.example.myapplication.util;
 
 import android.content.Context;
-import java.text.Normalizer;
 import android.widget.ArrayAdapter;
 import android.widget.Filter;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Custom ArrayAdapter that performs diacritic-insensitive filtering on a list of items.
- * This adapter is used to display suggestions in a ListView or Spinner.
+ * Custom ArrayAdapter that performs diacritic-insensitive filtering of names.
+ * This adapter is used to display suggestions in an AutoCompleteTextView.
  *
- * @param <T> The type of the items in the list.
+ * The names are searched in a prebuilt {@link NameSearchIndex}, which can be shared by many
+ * adapters, so creating an adapter copies nothing and filtering does not fold every name again.
  */
-public class DiacriticInsensitiveAdapter<T> extends ArrayAdapter<T> {
+public class DiacriticInsensitiveAdapter extends ArrayAdapter<String> {
 
-    private final List<T> itemsAll;
-    private final List<T> suggestions;
+    /**
+     * Maximal number of suggestions shown, best matches first.
+     */
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private final NameSearchIndex index;
 
     /**
      * Constructor for DiacriticInsensitiveAdapter.
      *
      * @param context  The context in which the adapter is used.
      * @param resource The resource ID for a layout file containing a TextView to use when instantiating views.
-     * @param objects  The list of items to be displayed.
+     * @param index    The index of the names to suggest.
      */
-    public DiacriticInsensitiveAdapter(Context context, int resource, List<T> objects) {
-        super(context, resource, objects);
-        this.itemsAll = new ArrayList<>(objects);
-        this.suggestions = new ArrayList<>();
+    public DiacriticInsensitiveAdapter(Context context, int resource, NameSearchIndex index) {
+        super(context, resource, new ArrayList<>());
+        this.index = index;
     }
 
     /**
@@ -42,7 +45,7 @@ public class DiacriticInsensitiveAdapter<T> extends ArrayAdapter<T> {
     }
 
     /**
-     * Custom filter that performs diacritic-insensitive filtering on the list of items.
+     * Custom filter that searches the index; it runs on the filter's background thread.
      */
     private final Filter nameFilter = new Filter() {
         /**
@@ -55,14 +58,7 @@ public class DiacriticInsensitiveAdapter<T> extends ArrayAdapter<T> {
         protected FilterResults performFiltering(CharSequence constraint) {
             FilterResults results = new FilterResults();
             if (constraint != null) {
-                suggestions.clear();
-                String normalizedConstraint = removeDiacritics(constraint.toString().toLowerCase().trim());
-                for (T item : itemsAll) {
-                    String itemText = removeDiacritics(item.toString().toLowerCase());
-                    if (itemText.contains(normalizedConstraint)) {
-                        suggestions.add(item);
-                    }
-                }
+                List<String> suggestions = index.search(constraint, MAX_SUGGESTIONS);
                 results.values = suggestions;
                 results.count = suggestions.size();
             }
@@ -76,26 +72,16 @@ public class DiacriticInsensitiveAdapter<T> extends ArrayAdapter<T> {
          * @param results    The FilterResults object containing the filtered results.
          */
         @Override
+        @SuppressWarnings("unchecked")
         protected void publishResults(CharSequence constraint, FilterResults results) {
+            setNotifyOnChange(false);
             clear();
             if (results != null && results.count > 0) {
-                addAll((List<T>) results.values);
+                addAll((List<String>) results.values);
                 notifyDataSetChanged();
             } else {
-//                addAll(itemsAll);
                 notifyDataSetInvalidated();
             }
         }
     };
-
-    /**
-     * Removes diacritics from the input string.
-     *
-     * @param input The input string from which diacritics will be removed.
-     * @return The input string without diacritics.
-     */
-    private String removeDiacritics(String input) {
-        return Normalizer.normalize(input, Normalizer.Form.NFD)
-                .replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-    }
 }
@@ -6,171 +6,58 @@ import android.os.Looper;
 import android.util.Log;
 
 import com.example.myapplication.data.MowingPlace;
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.example.myapplication.platform.HttpTransport;
+import com.example.myapplication.platform.PlannerLogger;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLEncoder;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Utility class for making API calls to the Matrix API for distance calculations.
- * This class handles the logic for batching requests and processing responses.
+ * Android entry point for the Matrix API client of the planner core.
+ * It logs through android.util.Log and delivers callbacks on the main thread.
  */
 public class MatrixApiHelper {
 
-    private static final String TAG = "MatrixApiHelper";
-    private static final String API_MATRIX_PLANNING = "https://api.mapy.cz/v1/routing/matrix-m";
-    private static final String API_KEY = "R7tjOhH_zFXWvRg7_hJvsv1y2qYueI-p8WW5dVLJc_o";
-    private static final int MAX_BATCH_SIZE = 100;
-    private static final int MAX_CALLS = 10;
+    /**
+     * Mapy.cz API key, also used by the route geometry helper.
+     */
+    static final String API_KEY = "R7tjOhH_zFXWvRg7_hJvsv1y2qYueI-p8WW5dVLJc_o";
+
+    /**
+     * Logger forwarding to android.util.Log, also used by the other helpers of the planner core.
+     */
+    static final PlannerLogger ANDROID_LOGGER = new PlannerLogger() {
+        @Override
+        public void debug(String tag, String message) {
+            Log.d(tag, message);
+        }
+
+        @Override
+        public void error(String tag, String message, Throwable error) {
+            Log.e(tag, message, error);
+        }
+    };
 
     /**
      * Callback interface for handling API responses.
      * This interface defines methods for success and failure scenarios.
      */
-    public interface MatrixApiCallback {
-        /**
-         * Called when the API call is successful.
-         * This method should be implemented to handle the success scenario.
-         */
-        void onSuccess();
-        /**
-         * Called when the API call fails.
-         * This method should be implemented to handle the failure scenario.
-         *
-         * @param errorMessage The error message describing the failure.
-         */
-        void onFailure(String errorMessage);
+    public interface MatrixApiCallback extends MatrixApiClient.Callback {
     }
 
     /**
      * Updates distances for a new place against all other places.
-     * This method will call the API in batches of MAX_BATCH_SIZE.
-     * It will also limit the number of API calls to MAX_CALLS.
+     * The API is called in batches, once for each direction because road distances and
+     * durations differ between a→b and b→a, with a limit on the number of calls.
      *
      * @param context the context of the calling activity
      * @param newPlace the new place to update distances for
      * @param allPlaces the list of all places to compare against
-     * @param callback the callback to handle success or failure
+     * @param callback the callback to handle success or failure, called on the main thread
      */
     public static void updateDistances(Context context, MowingPlace newPlace, List<MowingPlace> allPlaces, MatrixApiCallback callback) {
         Handler mainHandler = new Handler(Looper.getMainLooper());
-
-        new Thread(() -> {
-            try {
-                List<MowingPlace> destinationPlaces = new ArrayList<>();
-                for (MowingPlace place : allPlaces) {
-                    if (!place.getId().equals(newPlace.getId())) {
-                        destinationPlaces.add(place);
-                    }
-                }
-
-                int totalDestinations = destinationPlaces.size();
-                int callsMade = 0;
-                List<MowingPlace.DistanceEntry> newPlaceDistances = new ArrayList<>();
-
-                for (int start = 0; start < totalDestinations; start += MAX_BATCH_SIZE) {
-                    if (callsMade >= MAX_CALLS) {
-                        mainHandler.post(() -> callback.onFailure("Maximum number of API calls reached."));
-                        return;
-                    }
-                    int end = Math.min(start + MAX_BATCH_SIZE, totalDestinations);
-                    List<MowingPlace> batch = destinationPlaces.subList(start, end);
-                    List<String> ends = new ArrayList<>();
-                    for (MowingPlace dest : batch) {
-                        ends.add(dest.getLongitude() + "," + dest.getLatitude());
-                    }
-
-                    String startParam = URLEncoder.encode(newPlace.getLongitude() + "," + newPlace.getLatitude(), "UTF-8");
-                    StringBuilder endsParamBuilder = new StringBuilder();
-                    for (String s : ends) {
-                        if (endsParamBuilder.length() > 0) {
-                            endsParamBuilder.append(";");
-                        }
-                        endsParamBuilder.append(URLEncoder.encode(s, "UTF-8"));
-                    }
-                    String endsParam = endsParamBuilder.toString();
-
-                    String urlString = API_MATRIX_PLANNING + "?apikey=" + URLEncoder.encode(API_KEY, "UTF-8")
-                            + "&routeType=" + URLEncoder.encode("car_fast", "UTF-8")
-                            + "&lang=" + URLEncoder.encode("cs", "UTF-8")
-                            + "&starts=" + startParam
-                            + "&ends=" + endsParam;
-                    Log.d(TAG, "URL: " + urlString);
-
-                    URL url = new URL(urlString);
-                    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                    conn.setRequestMethod("GET");
-                    conn.setConnectTimeout(5000);
-                    conn.setReadTimeout(5000);
-
-                    int responseCode = conn.getResponseCode();
-                    if (responseCode == HttpURLConnection.HTTP_OK) {
-                        BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                        StringBuilder response = new StringBuilder();
-                        String line;
-                        while ((line = in.readLine()) != null) {
-                            response.append(line);
-                        }
-                        in.close();
-
-                        Gson gson = new Gson();
-                        JsonObject jsonResponse = gson.fromJson(response.toString(), JsonObject.class);
-                        JsonArray matrixArray = jsonResponse.getAsJsonArray("matrix");
-                        if (matrixArray != null && !matrixArray.isEmpty()) {
-                            JsonArray results = matrixArray.get(0).getAsJsonArray();
-                            for (int i = 0; i < results.size(); i++) {
-                                JsonObject resObj = results.get(i).getAsJsonObject();
-                                int distance = -1;
-                                if (resObj.has("length") && resObj.get("length").getAsInt() >= 0) {
-                                    distance = resObj.get("length").getAsInt();
-                                }
-                                int duration = -1;
-                                if (resObj.has("duration") && resObj.get("duration").getAsInt() >= 0) {
-                                    duration = resObj.get("duration").getAsInt();
-                                    Log.d(TAG, "Duration: " + duration + " seconds");
-                                }
-
-                                // update the distances for the new place
-                                MowingPlace.DistanceEntry entry = new MowingPlace.DistanceEntry();
-                                entry.setId(batch.get(i).getId());
-                                entry.setDistance(distance);
-                                entry.setDuration(duration);
-                                newPlaceDistances.add(entry);
-
-                                // update the distances for the batch
-                                if (batch.get(i).getDistancesToOthers() == null) {
-                                    batch.get(i).setDistancesToOthers(new ArrayList<>());
-                                }
-                                MowingPlace.DistanceEntry reverseEntry = new MowingPlace.DistanceEntry();
-                                reverseEntry.setId(newPlace.getId());
-                                reverseEntry.setDistance(distance);
-                                reverseEntry.setDuration(duration);
-                                batch.get(i).getDistancesToOthers().add(reverseEntry);
-                            }
-                        } else {
-                            mainHandler.post(() -> callback.onFailure("Žádné výsledky v odpovědi API."));
-                            return;
-                        }
-                    } else {
-                        mainHandler.post(() -> callback.onFailure("Chyba při volání API: " + responseCode));
-                        return;
-                    }
-                    callsMade++;
-                    Thread.sleep(100);
-                }
-                newPlace.setDistancesToOthers(newPlaceDistances);
-                mainHandler.post(callback::onSuccess);
-            } catch (Exception e) {
-                Log.e(TAG, "Chyba při volání API: ", e);
-                mainHandler.post(() -> callback.onFailure(e.getMessage()));
-            }
-        }).start();
+        MatrixApiClient client = new MatrixApiClient(API_KEY, HttpTransport.URL_CONNECTION,
+                ANDROID_LOGGER, mainHandler::post);
+        client.updateDistances(newPlace, allPlaces, callback);
     }
 }
@@ -25,4 +25,17 @@ public class NetworkHelper {
         }
         return false;
     }
+
+    /**
+     * Checks if the device is connected to a network that is not metered, e.g. Wi-Fi, so larger
+     * downloads do not use mobile data.
+     *
+     * @param context The context of the calling activity or application.
+     * @return true if the device is connected and the network is not metered, false otherwise.
+     */
+    public static boolean isUnmetered(Context context) {
+        ConnectivityManager cm = (ConnectivityManager)
+                context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        return cm != null && isConnected(context) && !cm.isActiveNetworkMetered();
+    }
 }
@@ -0,0 +1,75 @@
+package com.example.myapplication.util;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.myapplication.MyApplication;
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.platform.HttpTransport;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Android entry point for the route geometry client of the planner core.
+ * It loads the road geometry of the legs of a route from the application-wide
+ * {@link RouteGeometryCache}, fetching the missing legs first while there is a connection, and
+ * delivers it on the main thread.
+ */
+public class RouteGeometryHelper {
+
+    /**
+     * Callback receiving the geometry of a route.
+     */
+    public interface Callback {
+        /**
+         * Called on the main thread with the cached geometry of the legs.
+         *
+         * @param legs The encoded levels of leg i (from stop i to stop i + 1), see
+         *             {@link RouteGeometryCache#get}; null for a leg without geometry.
+         */
+        void onGeometry(String[][] legs);
+    }
+
+    /**
+     * Loads run one at a time, so a route shown twice fetches its legs once.
+     */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Loads the geometry of the legs of a route in the background.
+     *
+     * @param context  The context.
+     * @param route    The route from start to end.
+     * @param callback The callback, called on the main thread.
+     */
+    public static void loadRoute(Context context, List<MowingPlace> route, Callback callback) {
+        RouteGeometryCache cache = ((MyApplication) context.getApplicationContext()).getRouteGeometryCache();
+        boolean online = NetworkHelper.isConnected(context);
+        double[] latitudes = new double[route.size()];
+        double[] longitudes = new double[route.size()];
+        for (int i = 0; i < route.size(); i++) {
+            latitudes[i] = route.get(i).getLatitude();
+            longitudes[i] = route.get(i).getLongitude();
+        }
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        executor.execute(() -> {
+            if (online) {
+                try {
+                    new RouteGeometryClient(RouteGeometryClient.DEFAULT_ENDPOINT, MatrixApiHelper.API_KEY,
+                            HttpTransport.URL_CONNECTION, MatrixApiHelper.ANDROID_LOGGER)
+                            .fetchMissing(latitudes, longitudes, cache);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String[][] legs = new String[Math.max(0, route.size() - 1)][];
+            for (int i = 0; i < legs.length; i++) {
+                legs[i] = cache.get(RouteGeometryCache.key(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]));
+            }
+            mainHandler.post(() -> callback.onGeometry(legs));
+        });
+    }
+}
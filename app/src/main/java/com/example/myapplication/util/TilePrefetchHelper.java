@@ -0,0 +1,197 @@
+package com.example.myapplication.util;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.myapplication.R;
+import com.example.myapplication.data.MowingPlace;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.tileprovider.modules.SqlTileWriter;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.tileprovider.tilesource.OnlineTileSourceBase;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+import org.osmdroid.tileprovider.tilesource.XYTileSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Android entry point for the tile prefetcher of the planner core.
+ * It defines the tile source of all maps and prefetches its tiles into osmdroid's SQLite tile
+ * cache, the cache the map views read, so the service area and the planned route are shown
+ * without coverage in the field.
+ *
+ * The cache is bounded by {@link #CACHE_MAX_BYTES}; above it osmdroid trims the cache to
+ * {@link #CACHE_TRIM_BYTES}, dropping the tiles that expire first, i.e. the tiles stored longest ago.
+ *
+ * Tiles are prefetched only from a tile source whose usage policy allows bulk downloads. The
+ * OpenStreetMap servers used by default do not allow them, so prefetching works once
+ * R.string.tile_server_url points to a server that does, e.g. an own tile server.
+ */
+public class TilePrefetchHelper {
+
+    private static final String TAG = "TilePrefetchHelper";
+
+    private static final long CACHE_MAX_BYTES = 600L * 1024 * 1024;
+    private static final long CACHE_TRIM_BYTES = 500L * 1024 * 1024;
+
+    /**
+     * Expiry of a prefetched tile; osmdroid still shows expired tiles when it cannot download them.
+     */
+    private static final long TILE_LIFETIME_MS = 30L * 24 * 60 * 60 * 1000;
+
+    // service area: bounding box of all places, overview to street level
+    private static final int AREA_MIN_ZOOM = 8;
+    private static final int AREA_MAX_ZOOM = 14;
+    private static final int MAX_AREA_TILES = 8000;
+    private static final long AREA_REFRESH_MS = 24L * 60 * 60 * 1000;
+
+    // route: corridor along the legs between the stops, detailed levels
+    private static final int ROUTE_MIN_ZOOM = 13;
+    private static final int ROUTE_MAX_ZOOM = 16;
+    private static final double ROUTE_BUFFER_METERS = 1500;
+    private static final int MAX_ROUTE_TILES = 4000;
+
+    private static final int DOWNLOAD_THREADS = 2;
+
+    /**
+     * One prefetch at a time; at most one more waits and a newer request replaces it.
+     */
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.DiscardOldestPolicy());
+
+    private static ITileSource tileSource;
+    private static SqlTileWriter tileWriter;
+    private static String lastArea;
+    private static long lastAreaTime;
+
+    /**
+     * Sets the size bound of the tile cache; call before the first map view is created.
+     */
+    public static void configureCache() {
+        Configuration.getInstance().setTileFileSystemCacheMaxBytes(CACHE_MAX_BYTES);
+        Configuration.getInstance().setTileFileSystemCacheTrimBytes(CACHE_TRIM_BYTES);
+    }
+
+    /**
+     * Returns the tile source of all maps: the server of R.string.tile_server_url, or osmdroid's
+     * default source if it is empty. Prefetched tiles are cached under this source.
+     *
+     * @param context The context used to read the resource.
+     * @return The tile source.
+     */
+    public static synchronized ITileSource getTileSource(Context context) {
+        if (tileSource == null) {
+            String url = context.getString(R.string.tile_server_url);
+            tileSource = url.isEmpty()
+                    ? TileSourceFactory.DEFAULT_TILE_SOURCE
+                    : new XYTileSource("ServiceTiles", 0, 19, 256, ".png", new String[]{url});
+        }
+        return tileSource;
+    }
+
+    /**
+     * Prefetches the tiles of the bounding box of the places on an unmetered network, at most
+     * once a day unless the box changes.
+     *
+     * @param context The context.
+     * @param places  The places.
+     */
+    public static void prefetchServiceArea(Context context, List<MowingPlace> places) {
+        if (places.isEmpty() || !NetworkHelper.isUnmetered(context)) {
+            return;
+        }
+        double south = 90, west = 180, north = -90, east = -180;
+        for (MowingPlace p : places) {
+            south = Math.min(south, p.getLatitude());
+            north = Math.max(north, p.getLatitude());
+            west = Math.min(west, p.getLongitude());
+            east = Math.max(east, p.getLongitude());
+        }
+        String area = south + "," + west + "," + north + "," + east;
+        synchronized (TilePrefetchHelper.class) {
+            if (area.equals(lastArea) && System.currentTimeMillis() - lastAreaTime < AREA_REFRESH_MS) {
+                return;
+            }
+            lastArea = area;
+            lastAreaTime = System.currentTimeMillis();
+        }
+        TileSet tiles = new TileSet(MAX_AREA_TILES);
+        for (int zoom = AREA_MIN_ZOOM; zoom <= AREA_MAX_ZOOM; zoom++) {
+            if (!tiles.addBox(zoom, south, west, north, east)) {
+                break;
+            }
+        }
+        submit(context, tiles);
+    }
+
+    /**
+     * Prefetches the tiles along a planned route, while there is a connection.
+     *
+     * @param context The context.
+     * @param route   The route from start to end.
+     */
+    public static void prefetchRoute(Context context, List<MowingPlace> route) {
+        if (route.isEmpty() || !NetworkHelper.isConnected(context)) {
+            return;
+        }
+        double[] latitudes = new double[route.size()];
+        double[] longitudes = new double[route.size()];
+        for (int i = 0; i < route.size(); i++) {
+            latitudes[i] = route.get(i).getLatitude();
+            longitudes[i] = route.get(i).getLongitude();
+        }
+        TileSet tiles = new TileSet(MAX_ROUTE_TILES);
+        for (int zoom = ROUTE_MIN_ZOOM; zoom <= ROUTE_MAX_ZOOM; zoom++) {
+            if (!tiles.addCorridor(zoom, latitudes, longitudes, ROUTE_BUFFER_METERS)) {
+                break;
+            }
+        }
+        submit(context, tiles);
+    }
+
+    private static void submit(Context context, TileSet tiles) {
+        ITileSource source = getTileSource(context);
+        if (!(source instanceof OnlineTileSourceBase)
+                || !((OnlineTileSourceBase) source).getTileSourcePolicy().acceptsBulkDownload()) {
+            Log.d(TAG, "Tile source " + source.name() + " does not allow prefetching");
+            return;
+        }
+        OnlineTileSourceBase online = (OnlineTileSourceBase) source;
+        String userAgent = Configuration.getInstance().getUserAgentValue();
+        executor.execute(() -> {
+            SqlTileWriter writer = getTileWriter();
+            TilePrefetcher.TileStore store = new TilePrefetcher.TileStore() {
+                @Override
+                public boolean contains(long tile) {
+                    return writer.exists(online, tile);
+                }
+
+                @Override
+                public void save(long tile, byte[] data) throws IOException {
+                    if (!writer.saveFile(online, tile, new ByteArrayInputStream(data),
+                            System.currentTimeMillis() + TILE_LIFETIME_MS)) {
+                        throw new IOException("Tile not saved");
+                    }
+                }
+            };
+            new TilePrefetcher(tile -> TilePrefetcher.download(online.getTileURLString(tile), userAgent),
+                    store, DOWNLOAD_THREADS, MatrixApiHelper.ANDROID_LOGGER).prefetch(tiles.toArray());
+        });
+    }
+
+    /**
+     * The writer is kept open: detaching it would close the database the map views share.
+     */
+    private static synchronized SqlTileWriter getTileWriter() {
+        if (tileWriter == null) {
+            tileWriter = new SqlTileWriter();
+        }
+        return tileWriter;
+    }
+}
@@ -0,0 +1,31 @@
+// Pure-JVM JMH benchmarks of the planning core, runnable without a device:
+//   ./gradlew :benchmark:jmh
+// Results (ops/s and the gc profiler's allocation rate) go to build/results/jmh/results.json.
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":planner-core"))
+
+    jmh(libs.jmh.core)
+    jmh(libs.jmh.generator.annprocess)
+}
+
+jmh {
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    timeOnIteration.set("2s")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    jvmArgsAppend.add("-Dbenchmark.assets=" + rootProject.file("app/src/main/assets").absolutePath)
+    // the largest synthetic datasets hold a million distance entries
+    jvmArgsAppend.add("-Xmx2g")
+}
@@ -0,0 +1,166 @@
+package com.example.myapplication.benchmark;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.SyntheticPlacesGenerator;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Datasets shared by the benchmarks. Every benchmark draws its instances with a fixed seed,
+ * so runs on different machines measure the same work.
+ *
+ * Datasets:
+ *   "assets"      – the bundled mowing_places.json with road distances from the Matrix API.
+ *   "coordinates" – the same places without distance entries, so every matrix cell takes the
+ *                   haversine fallback path.
+ *   "synthetic"   – clustered places from SyntheticPlacesGenerator with derived road data,
+ *                   {@link #SYNTHETIC_SIZE} places.
+ */
+final class BenchmarkData {
+
+    static final String ASSETS = "assets";
+    static final String COORDINATES = "coordinates";
+    static final String SYNTHETIC = "synthetic";
+
+    /**
+     * Number of places of the "synthetic" dataset.
+     */
+    static final int SYNTHETIC_SIZE = 200;
+
+    static final long SEED = 42L;
+
+    private static final String JSON_FILE_NAME = "mowing_places.json";
+    private static final Type LIST_TYPE = new TypeToken<List<MowingPlace>>() {}.getType();
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Reads the bundled places JSON, located through the benchmark.assets system property
+     * set by the Gradle build.
+     *
+     * @return The JSON text.
+     * @throws IOException if the file cannot be read.
+     */
+    static String assetsJson() throws IOException {
+        File dir = new File(System.getProperty("benchmark.assets", "app/src/main/assets"));
+        return new String(Files.readAllBytes(new File(dir, JSON_FILE_NAME).toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a places JSON document the same way MowingPlacesRepository does.
+     *
+     * @param json The JSON text.
+     * @return The places.
+     */
+    static List<MowingPlace> parse(String json) {
+        return new Gson().fromJson(json, LIST_TYPE);
+    }
+
+    /**
+     * Returns the type token of the places list.
+     *
+     * @return The list type.
+     */
+    static Type listType() {
+        return LIST_TYPE;
+    }
+
+    /**
+     * Loads the places of a dataset.
+     *
+     * @param dataset One of {@link #ASSETS}, {@link #COORDINATES} and {@link #SYNTHETIC}.
+     * @return The places.
+     * @throws IOException if the asset file cannot be read.
+     */
+    static List<MowingPlace> load(String dataset) throws IOException {
+        switch (dataset) {
+            case ASSETS:
+                return parse(assetsJson());
+            case COORDINATES:
+                List<MowingPlace> places = parse(assetsJson());
+                for (MowingPlace p : places) {
+                    p.setDistancesToOthers(new ArrayList<>());
+                }
+                return places;
+            case SYNTHETIC:
+                return synthetic(SYNTHETIC_SIZE);
+            default:
+                throw new IllegalArgumentException("Unknown dataset: " + dataset);
+        }
+    }
+
+    /**
+     * Generates a synthetic dataset with the shared seed.
+     *
+     * @param size Number of places.
+     * @return The places with road data.
+     */
+    static List<MowingPlace> synthetic(int size) {
+        return new SyntheticPlacesGenerator(SEED).generate(size);
+    }
+
+    /**
+     * Picks a seeded random subset of the places.
+     *
+     * @param places The places to pick from.
+     * @param count  Number of places to pick, capped at the number of places.
+     * @param seed   Random seed.
+     * @return The picked places.
+     */
+    static List<MowingPlace> sample(List<MowingPlace> places, int count, long seed) {
+        List<MowingPlace> shuffled = new ArrayList<>(places);
+        Collections.shuffle(shuffled, new Random(seed));
+        return new ArrayList<>(shuffled.subList(0, Math.min(count, shuffled.size())));
+    }
+
+    /**
+     * Builds the node list passed to the planner: "start", the given stops and "end".
+     * Start and end share a location inside the bounding box of the stops, as in a round trip
+     * from the depot.
+     *
+     * @param stops The stops to visit.
+     * @param seed  Random seed for the depot location.
+     * @return The node list.
+     */
+    static List<MowingPlace> routeNodes(List<MowingPlace> stops, long seed) {
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (MowingPlace p : stops) {
+            minLat = Math.min(minLat, p.getLatitude());
+            maxLat = Math.max(maxLat, p.getLatitude());
+            minLon = Math.min(minLon, p.getLongitude());
+            maxLon = Math.max(maxLon, p.getLongitude());
+        }
+        Random random = new Random(seed);
+        double lat = minLat + random.nextDouble() * (maxLat - minLat);
+        double lon = minLon + random.nextDouble() * (maxLon - minLon);
+
+        List<MowingPlace> nodes = new ArrayList<>(stops.size() + 2);
+        nodes.add(endpoint("start", "Start", lat, lon));
+        nodes.addAll(stops);
+        nodes.add(endpoint("end", "End", lat, lon));
+        return nodes;
+    }
+
+    private static MowingPlace endpoint(String id, String name, double lat, double lon) {
+        MowingPlace p = new MowingPlace();
+        p.setId(id);
+        p.setName(name);
+        p.setLatitude(lat);
+        p.setLongitude(lon);
+        p.setTimeRequirement(0);
+        p.setDistancesToOthers(new ArrayList<>());
+        return p;
+    }
+}
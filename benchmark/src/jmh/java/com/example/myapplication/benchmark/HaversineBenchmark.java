@@ -0,0 +1,82 @@
+package com.example.myapplication.benchmark;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.util.GeoMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Straight-line distance kernels: the stand-alone haversine on degrees and the row kernels over
+ * precomputed coordinates used to fill the distance matrix. Every benchmark computes the full
+ * nodeCount × nodeCount table, so scores are comparable per distance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HaversineBenchmark {
+
+    @Param({"10", "40", "80"})
+    public int nodeCount;
+
+    @Param({BenchmarkData.ASSETS})
+    public String dataset;
+
+    private double[] lat;
+    private double[] lon;
+    private GeoMath.Points points;
+    private double[] row;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<MowingPlace> places = BenchmarkData.sample(BenchmarkData.load(dataset), nodeCount, BenchmarkData.SEED);
+        int n = places.size();
+        lat = new double[n];
+        lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = places.get(i).getLatitude();
+            lon[i] = places.get(i).getLongitude();
+        }
+        points = new GeoMath.Points(places);
+        row = new double[n];
+    }
+
+    @Benchmark
+    public void pairwise(Blackhole bh) {
+        int n = lat.length;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                bh.consume(GeoMath.haversine(lat[i], lon[i], lat[j], lon[j]));
+            }
+        }
+    }
+
+    @Benchmark
+    public double[] haversineRows() {
+        int n = points.size();
+        for (int i = 0; i < n; i++) {
+            points.haversineRow(i, row, 0);
+        }
+        return row;
+    }
+
+    @Benchmark
+    public double[] equirectangularRows() {
+        int n = points.size();
+        for (int i = 0; i < n; i++) {
+            points.equirectangularRow(i, row, 0);
+        }
+        return row;
+    }
+}
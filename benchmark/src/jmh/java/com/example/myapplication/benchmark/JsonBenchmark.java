@@ -0,0 +1,48 @@
+package com.example.myapplication.benchmark;
+
+import com.example.myapplication.data.MowingPlace;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving the places JSON the way MowingPlacesRepository does, without the file I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonBenchmark {
+
+    @Param({BenchmarkData.ASSETS, BenchmarkData.COORDINATES, BenchmarkData.SYNTHETIC})
+    public String dataset;
+
+    private String json;
+    private List<MowingPlace> places;
+
+    @Setup
+    public void setUp() throws IOException {
+        places = BenchmarkData.load(dataset);
+        json = new Gson().toJson(places);
+    }
+
+    @Benchmark
+    public List<MowingPlace> load() {
+        return new Gson().fromJson(json, BenchmarkData.listType());
+    }
+
+    @Benchmark
+    public String save() {
+        return new Gson().toJson(places);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.myapplication.benchmark;
+
+import com.example.myapplication.data.DistanceRow;
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.PlaceIds;
+import com.example.myapplication.util.DistanceMatrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of the distance matrix and the cost of a single lookup, compared with the
+ * linear scan over distance entries that the planner used before the dense matrix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatrixBenchmark {
+
+    /**
+     * Number of random place pairs looked up per invocation of the lookup benchmarks.
+     */
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10", "20", "40", "80"})
+    public int nodeCount;
+
+    @Param({BenchmarkData.ASSETS, BenchmarkData.COORDINATES, BenchmarkData.SYNTHETIC})
+    public String dataset;
+
+    private List<MowingPlace> places;
+    private DistanceMatrix matrix;
+    private int[] from;
+    private int[] to;
+
+    @Setup
+    public void setUp() throws IOException {
+        places = BenchmarkData.sample(BenchmarkData.load(dataset), nodeCount, BenchmarkData.SEED);
+        matrix = new DistanceMatrix(places);
+        Random random = new Random(BenchmarkData.SEED);
+        from = new int[LOOKUPS];
+        to = new int[LOOKUPS];
+        for (int k = 0; k < LOOKUPS; k++) {
+            from[k] = random.nextInt(places.size());
+            to[k] = random.nextInt(places.size());
+        }
+    }
+
+    @Benchmark
+    public DistanceMatrix build() {
+        return new DistanceMatrix(places);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public double lookup() {
+        double sum = 0;
+        for (int k = 0; k < LOOKUPS; k++) {
+            sum += matrix.duration(from[k], to[k]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public double entryScan() {
+        double sum = 0;
+        for (int k = 0; k < LOOKUPS; k++) {
+            DistanceRow row = places.get(from[k]).getDistanceRow();
+            int target = PlaceIds.intern(places.get(to[k]).getId());
+            for (int i = 0, size = row.size(); i < size; i++) {
+                if (row.idIndex(i) == target) {
+                    sum += row.duration(i);
+                    break;
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.myapplication.benchmark;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.util.CostModel;
+import com.example.myapplication.util.TSPPlanner;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end planner calls as the planning screen makes them, including the construction of
+ * the distance matrix inside each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PlannerBenchmark {
+
+    /**
+     * Working day offered to auto-fill, in minutes.
+     */
+    private static final int TIME_BUDGET_MIN = 12 * 60;
+
+    /**
+     * Number of stops between start and end for generateRoute, and number of candidate
+     * places offered to addExtraCemeteries.
+     */
+    @Param({"5", "10", "20", "40", "80"})
+    public int nodeCount;
+
+    @Param({BenchmarkData.ASSETS, BenchmarkData.COORDINATES, BenchmarkData.SYNTHETIC})
+    public String dataset;
+
+    private final CostModel costModel = CostModel.duration();
+    private List<MowingPlace> nodes;
+    private List<MowingPlace> baseRoute;
+    private List<MowingPlace> candidates;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<MowingPlace> places = BenchmarkData.load(dataset);
+        nodes = BenchmarkData.routeNodes(BenchmarkData.sample(places, nodeCount, BenchmarkData.SEED), BenchmarkData.SEED);
+
+        // auto-fill starts from a single mandatory stop and may pick from nodeCount other places
+        List<MowingPlace> shuffled = BenchmarkData.sample(places, places.size(), BenchmarkData.SEED + 1);
+        baseRoute = TSPPlanner.generateRoute(BenchmarkData.routeNodes(shuffled.subList(0, 1), BenchmarkData.SEED), costModel);
+        candidates = new ArrayList<>(shuffled.subList(1, Math.min(1 + nodeCount, shuffled.size())));
+    }
+
+    @Benchmark
+    public List<MowingPlace> generateRoute() {
+        return TSPPlanner.generateRoute(nodes, costModel);
+    }
+
+    @Benchmark
+    public List<MowingPlace> generateRouteFastMatching() {
+        return TSPPlanner.generateRoute(nodes, costModel, TSPPlanner.MatchingMode.FAST);
+    }
+
+    @Benchmark
+    public List<MowingPlace> addExtraCemeteries() {
+        // the planner extends the route in place, so every invocation gets a fresh copy
+        List<MowingPlace> route = new ArrayList<>(baseRoute);
+        return TSPPlanner.addExtraCemeteries(route, candidates, TIME_BUDGET_MIN, 1.0, true, 0, costModel);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.myapplication.benchmark;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.SyntheticPlacesGenerator;
+import com.example.myapplication.util.CostModel;
+import com.example.myapplication.util.DistanceMatrix;
+import com.example.myapplication.util.TSPPlanner;
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling curves over synthetic datasets of growing size: load time of the JSON format, matrix
+ * construction, auto-fill over the whole dataset and route construction for a tenth of it.
+ * With the gc profiler, gc.alloc.rate.norm gives the bytes allocated per operation, which for
+ * load and matrix construction is the memory the dataset needs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScalingBenchmark {
+
+    /**
+     * Working day offered to auto-fill, in minutes.
+     */
+    private static final int TIME_BUDGET_MIN = 12 * 60;
+
+    @Param({"100", "250", "500", "1000"})
+    public int size;
+
+    private final CostModel costModel = CostModel.duration();
+    private String json;
+    private List<MowingPlace> places;
+    private List<MowingPlace> nodes;
+    private List<MowingPlace> baseRoute;
+
+    @Setup
+    public void setUp() throws Exception {
+        SyntheticPlacesGenerator generator = new SyntheticPlacesGenerator(BenchmarkData.SEED);
+        StringWriter writer = new StringWriter();
+        generator.writeJson(size, writer);
+        json = writer.toString();
+        places = BenchmarkData.parse(json);
+
+        nodes = BenchmarkData.routeNodes(BenchmarkData.sample(places, size / 10, BenchmarkData.SEED), BenchmarkData.SEED);
+        List<MowingPlace> first = BenchmarkData.sample(places, 1, BenchmarkData.SEED + 1);
+        baseRoute = TSPPlanner.generateRoute(BenchmarkData.routeNodes(first, BenchmarkData.SEED), costModel);
+    }
+
+    @Benchmark
+    public List<MowingPlace> loadJson() {
+        return new Gson().fromJson(json, BenchmarkData.listType());
+    }
+
+    @Benchmark
+    public DistanceMatrix buildMatrix() {
+        return new DistanceMatrix(places);
+    }
+
+    @Benchmark
+    public List<MowingPlace> generateRoute() {
+        return TSPPlanner.generateRoute(nodes, costModel);
+    }
+
+    @Benchmark
+    public List<MowingPlace> addExtraCemeteries() {
+        List<MowingPlace> route = new ArrayList<>(baseRoute);
+        return TSPPlanner.addExtraCemeteries(route, places, TIME_BUDGET_MIN, 1.0, true, 0, costModel);
+    }
+}
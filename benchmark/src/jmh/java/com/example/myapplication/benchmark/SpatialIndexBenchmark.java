@@ -0,0 +1,111 @@
+package com.example.myapplication.benchmark;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.util.GeoMath;
+import com.example.myapplication.util.SpatialIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearest-place queries over the catalogue: the grid of {@link SpatialIndex} against a linear
+ * haversine scan of all places, as LocationPickerActivity and the auto-fill prefilter would do
+ * without it. Every benchmark answers the same {@link #QUERIES} seeded query points, so scores
+ * are comparable per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialIndexBenchmark {
+
+    private static final int QUERIES = 100;
+
+    /**
+     * Radius of the radius queries in meters, about the detour of a short auto-fill budget.
+     */
+    private static final double RADIUS_METERS = 15_000.0;
+
+    @Param({"250", "1000"})
+    public int size;
+
+    private List<MowingPlace> places;
+    private SpatialIndex index;
+    private double[] queryLat;
+    private double[] queryLon;
+
+    @Setup
+    public void setUp() {
+        places = BenchmarkData.synthetic(size);
+        index = new SpatialIndex(places);
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (MowingPlace p : places) {
+            minLat = Math.min(minLat, p.getLatitude());
+            maxLat = Math.max(maxLat, p.getLatitude());
+            minLon = Math.min(minLon, p.getLongitude());
+            maxLon = Math.max(maxLon, p.getLongitude());
+        }
+        Random random = new Random(BenchmarkData.SEED);
+        queryLat = new double[QUERIES];
+        queryLon = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            queryLat[q] = minLat + random.nextDouble() * (maxLat - minLat);
+            queryLon[q] = minLon + random.nextDouble() * (maxLon - minLon);
+        }
+    }
+
+    @Benchmark
+    public SpatialIndex build() {
+        return new SpatialIndex(places);
+    }
+
+    @Benchmark
+    public void nearestIndex(Blackhole bh) {
+        for (int q = 0; q < QUERIES; q++) {
+            bh.consume(index.nearestIndices(queryLat[q], queryLon[q], 5, -1));
+        }
+    }
+
+    @Benchmark
+    public void nearestLinearScan(Blackhole bh) {
+        for (int q = 0; q < QUERIES; q++) {
+            int best = -1;
+            double bestDistance = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < places.size(); i++) {
+                MowingPlace p = places.get(i);
+                double d = GeoMath.haversine(queryLat[q], queryLon[q], p.getLatitude(), p.getLongitude());
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = i;
+                }
+            }
+            bh.consume(best);
+        }
+    }
+
+    @Benchmark
+    public void withinRadiusIndex(Blackhole bh) {
+        for (int q = 0; q < QUERIES; q++) {
+            bh.consume(index.withinRadiusIndices(queryLat[q], queryLon[q], RADIUS_METERS));
+        }
+    }
+
+    @Benchmark
+    public void markWithinRadiusIndex(Blackhole bh) {
+        boolean[] marks = new boolean[size];
+        for (int q = 0; q < QUERIES; q++) {
+            bh.consume(index.markWithinRadius(queryLat[q], queryLon[q], RADIUS_METERS, marks));
+        }
+    }
+}
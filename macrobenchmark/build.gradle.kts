@@ -0,0 +1,47 @@
+// Startup macrobenchmark of the app, run on a connected device or emulator:
+//   ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+// Reports timeToInitialDisplayMs (cold start to first frame) and timeToFullDisplayMs
+// (first map markers drawn, see MapFragment.reportFullyDrawn).
+plugins {
+    alias(libs.plugins.android.test)
+}
+
+android {
+    namespace = "com.example.myapplication.macrobenchmark"
+    compileSdk = 35
+
+    defaultConfig {
+        minSdk = 24
+        targetSdk = 35
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    buildTypes {
+        // matches the benchmark build type of the app
+        create("benchmark") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+}
+
+androidComponents {
+    beforeVariants(selector().all()) {
+        it.enable = it.buildType == "benchmark"
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.myapplication.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Measures the start of the app from a killed process to its first frame (timeToInitialDisplay)
+ * and to the first drawn map markers (timeToFullDisplay).
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String PACKAGE_NAME = "com.example.myapplication";
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    /**
+     * Cold start with the ahead-of-time compilation the app gets after installation.
+     */
+    @Test
+    public void coldStart() {
+        measureStartup(new CompilationMode.Partial());
+    }
+
+    /**
+     * Cold start without any ahead-of-time compilation, the worst case right after installation.
+     */
+    @Test
+    public void coldStartNotCompiled() {
+        measureStartup(new CompilationMode.None());
+    }
+
+    private void measureStartup(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,61 @@
+// Android-free planning core: data model, distance matrix, solvers and the Matrix API client.
+// Platform services (clock, logging, HTTP, callback thread) are passed in through the
+// interfaces in com.example.myapplication.platform.
+//   ./gradlew :planner-core:run --args="--random 20 --fill 600"
+plugins {
+    `java-library`
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    api(libs.gson)
+    implementation(libs.jgrapht.core)
+
+    testImplementation(libs.junit)
+}
+
+application {
+    mainClass.set("com.example.myapplication.cli.PlanRouteCli")
+}
+
+tasks.named<JavaExec>("run") {
+    // resolve relative paths such as the default places file against the repository root
+    workingDir = rootProject.projectDir
+}
+
+tasks.test {
+    // PlannerRegressionTest reads the bundled places and the committed baseline from the repository root
+    workingDir = rootProject.projectDir
+}
+
+// Seeded quality/latency regression suite (src/test/.../regression/PlannerRegressionSuite.java).
+// regressionRecord refreshes the committed baseline, regressionCompare fails on quality or
+// allocation regressions and reports latency; PlannerRegressionTest checks the costs in `test`.
+val regressionBaseline = file("regression/baseline.json")
+
+tasks.register<JavaExec>("regressionRecord") {
+    group = "verification"
+    description = "Runs the planner regression suite and records a new baseline."
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("com.example.myapplication.regression.PlannerRegressionSuite")
+    workingDir = rootProject.projectDir
+    // allocations are reproducible only without escape analysis, see PlannerRegressionSuite
+    jvmArgs("-XX:-DoEscapeAnalysis")
+    args("record", regressionBaseline.absolutePath)
+}
+
+tasks.register<JavaExec>("regressionCompare") {
+    group = "verification"
+    description = "Runs the planner regression suite and compares it with the baseline."
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("com.example.myapplication.regression.PlannerRegressionSuite")
+    workingDir = rootProject.projectDir
+    jvmArgs("-XX:-DoEscapeAnalysis")
+    args("compare", regressionBaseline.absolutePath,
+        layout.buildDirectory.file("regression/results.json").get().asFile.absolutePath)
+}
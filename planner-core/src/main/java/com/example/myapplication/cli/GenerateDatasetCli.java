@@ -0,0 +1,45 @@
+package com.example.myapplication.cli;
+
+import com.example.myapplication.data.SyntheticPlacesGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Writes a synthetic dataset in the format of mowing_places.json:
+ *
+ *   java -cp planner-core.jar:gson.jar com.example.myapplication.cli.GenerateDatasetCli 1000 42 places-1000.json
+ *
+ * Arguments: number of places, seed, output file, and optionally "--no-road-data" to write
+ * coordinates only.
+ */
+public final class GenerateDatasetCli {
+
+    private GenerateDatasetCli() {
+    }
+
+    /**
+     * Generates the dataset.
+     *
+     * @param args Count, seed, output file and optional flags.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: GenerateDatasetCli COUNT SEED FILE [--no-road-data]");
+            System.exit(2);
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        long seed = Long.parseLong(args[1]);
+        boolean roadData = !(args.length > 3 && "--no-road-data".equals(args[3]));
+
+        SyntheticPlacesGenerator generator = new SyntheticPlacesGenerator(seed).setRoadData(roadData);
+        try (Writer writer = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+            generator.writeJson(count, writer);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.myapplication.cli;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.SyntheticPlacesGenerator;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reports the retained heap of a loaded places dataset, i.e. what the app keeps in memory after
+ * parsing mowing_places.json:
+ *
+ *   java -Xmx2g -cp planner-core.jar:gson.jar com.example.myapplication.cli.HeapFootprintCli 500 1000 2000
+ *
+ * Every argument is a number of synthetic places (SyntheticPlacesGenerator, seed 42, with road
+ * data). The dataset is written to a temporary file and parsed with Gson as the app does, then
+ * the used heap after garbage collection is compared with the heap before parsing.
+ */
+public final class HeapFootprintCli {
+
+    private static final long SEED = 42;
+
+    private HeapFootprintCli() {
+    }
+
+    /**
+     * Measures the footprint for every given dataset size.
+     *
+     * @param args Dataset sizes.
+     * @throws IOException if the temporary dataset cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: HeapFootprintCli COUNT...");
+            System.exit(2);
+            return;
+        }
+        Type listType = new TypeToken<List<MowingPlace>>() {}.getType();
+        for (String arg : args) {
+            int count = Integer.parseInt(arg);
+            Path file = Files.createTempFile("places-" + count, ".json");
+            try {
+                try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    new SyntheticPlacesGenerator(SEED).writeJson(count, writer);
+                }
+                long before = usedHeap();
+                List<MowingPlace> places;
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    places = new Gson().fromJson(reader, listType);
+                }
+                long after = usedHeap();
+                long entries = 0;
+                for (MowingPlace p : places) {
+                    entries += p.getDistancesToOthers() == null ? 0 : p.getDistancesToOthers().size();
+                }
+                System.out.printf(Locale.ROOT, "places: %5d, distance entries: %9d, file: %7.1f MB, retained heap: %7.1f MB (%.1f B/entry)%n",
+                        places.size(), entries, Files.size(file) / 1e6, (after - before) / 1e6,
+                        entries == 0 ? 0.0 : (double) (after - before) / entries);
+                places = null;
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Returns the used heap after the garbage collector had a few chances to run.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
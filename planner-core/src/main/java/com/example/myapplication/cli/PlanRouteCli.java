@@ -0,0 +1,259 @@
+package com.example.myapplication.cli;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.SyntheticPlacesGenerator;
+import com.example.myapplication.platform.HttpTransport;
+import com.example.myapplication.platform.PlannerLogger;
+import com.example.myapplication.util.CostModel;
+import com.example.myapplication.util.DistanceMatrix;
+import com.example.myapplication.util.RouteGeometryCache;
+import com.example.myapplication.util.RouteGeometryClient;
+import com.example.myapplication.util.TSPPlanner;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Command line planner working on a places JSON file in the app's format, so the routing core
+ * can be run and profiled (e.g. with async-profiler) on a server:
+ *
+ *   ./gradlew :planner-core:run --args="--places app/src/main/assets/mowing_places.json --random 20 --fill 600 --repeat 100"
+ *
+ * Options:
+ *   --places FILE      places JSON (default: app/src/main/assets/mowing_places.json)
+ *   --synthetic N      N generated places (SyntheticPlacesGenerator, --seed) instead of --places
+ *   --stops ID,ID,...  mandatory stops by ID
+ *   --random N         N random mandatory stops instead of --stops
+ *   --seed N           seed for --random and --synthetic (default 1)
+ *   --start LAT,LON    start location (default: centre of the stops)
+ *   --end LAT,LON      end location (default: the start location)
+ *   --objective NAME   distance, duration or weighted (default duration)
+ *   --matching MODE    exact or fast matching of Christofides (default exact)
+ *   --fill MINUTES     add extra places within this total route time
+ *   --speed X          mowing speed multiplier for --fill (default 1.0)
+ *   --repeat N         plan N times and report the mean time (default 1)
+ *   --geometry URL     fetch the road geometry of the legs from this routing endpoint, e.g. a
+ *                      local stand-in of the Mapy.cz routing API, and report its size per zoom level
+ *   --geometry-cache FILE  geometry cache file; legs already in it are not fetched again
+ *   --apikey KEY       API key sent to the routing endpoint
+ */
+public final class PlanRouteCli {
+
+    private static final String DEFAULT_PLACES = "app/src/main/assets/mowing_places.json";
+
+    private PlanRouteCli() {
+    }
+
+    /**
+     * Runs the planner with the given options.
+     *
+     * @param args The command line arguments.
+     * @throws IOException if the places file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options;
+        try {
+            options = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            System.exit(2);
+            return;
+        }
+
+        List<MowingPlace> places = options.containsKey("synthetic")
+                ? new SyntheticPlacesGenerator(Long.parseLong(options.getOrDefault("seed", "1")))
+                        .generate(Integer.parseInt(options.get("synthetic")))
+                : loadPlaces(options.getOrDefault("places", DEFAULT_PLACES));
+        List<MowingPlace> stops = selectStops(places, options);
+        CostModel costModel = CostModel.of(CostModel.Objective.valueOf(
+                options.getOrDefault("objective", "duration").toUpperCase(Locale.ROOT)));
+        TSPPlanner.MatchingMode matchingMode = TSPPlanner.MatchingMode.valueOf(
+                options.getOrDefault("matching", "exact").toUpperCase(Locale.ROOT));
+        int repeat = Integer.parseInt(options.getOrDefault("repeat", "1"));
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1.0"));
+
+        double[] start = options.containsKey("start") ? parseLatLon(options.get("start")) : centre(stops);
+        double[] end = options.containsKey("end") ? parseLatLon(options.get("end")) : start;
+
+        List<MowingPlace> route = null;
+        long totalNanos = 0;
+        for (int run = 0; run < repeat; run++) {
+            // every run starts from the same input, since auto-fill extends the route in place
+            List<MowingPlace> nodes = new ArrayList<>(stops.size() + 2);
+            nodes.add(endpoint("start", "Start", start));
+            nodes.addAll(stops);
+            nodes.add(endpoint("end", "End", end));
+
+            long t0 = System.nanoTime();
+            route = new ArrayList<>(TSPPlanner.generateRoute(nodes, costModel, matchingMode));
+            if (options.containsKey("fill")) {
+                route = TSPPlanner.addExtraCemeteries(route, places, Integer.parseInt(options.get("fill")),
+                        speed, true, 0, costModel);
+            }
+            totalNanos += System.nanoTime() - t0;
+        }
+        printRoute(route, speed);
+        System.out.printf(Locale.ROOT, "planning time: %.3f ms (mean of %d runs)%n",
+                totalNanos / 1e6 / repeat, repeat);
+        if (options.containsKey("geometry")) {
+            printGeometry(route, options);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Invalid argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        if (!options.containsKey("stops") && !options.containsKey("random")) {
+            throw new IllegalArgumentException("Either --stops or --random is required");
+        }
+        return options;
+    }
+
+    private static void usage() {
+        System.err.println("usage: PlanRouteCli [--places FILE | --synthetic N] (--stops ID,ID,... | --random N [--seed N])");
+        System.err.println("                    [--start LAT,LON] [--end LAT,LON] [--objective distance|duration|weighted]");
+        System.err.println("                    [--matching exact|fast]");
+        System.err.println("                    [--fill MINUTES] [--speed X] [--repeat N]");
+        System.err.println("                    [--geometry URL [--geometry-cache FILE] [--apikey KEY]]");
+    }
+
+    private static List<MowingPlace> loadPlaces(String file) throws IOException {
+        Type listType = new TypeToken<List<MowingPlace>>() {}.getType();
+        try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            return new Gson().fromJson(reader, listType);
+        }
+    }
+
+    private static List<MowingPlace> selectStops(List<MowingPlace> places, Map<String, String> options) {
+        if (options.containsKey("random")) {
+            List<MowingPlace> shuffled = new ArrayList<>(places);
+            Collections.shuffle(shuffled, new Random(Long.parseLong(options.getOrDefault("seed", "1"))));
+            int count = Math.min(Integer.parseInt(options.get("random")), shuffled.size());
+            return new ArrayList<>(shuffled.subList(0, count));
+        }
+        Map<String, MowingPlace> byId = new HashMap<>();
+        for (MowingPlace p : places) {
+            byId.put(p.getId(), p);
+        }
+        List<MowingPlace> stops = new ArrayList<>();
+        for (String id : options.get("stops").split(",")) {
+            MowingPlace p = byId.get(id.trim());
+            if (p == null) {
+                throw new IllegalArgumentException("Unknown place ID: " + id);
+            }
+            stops.add(p);
+        }
+        return stops;
+    }
+
+    private static double[] parseLatLon(String value) {
+        String[] parts = value.split(",");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected LAT,LON: " + value);
+        }
+        return new double[]{Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())};
+    }
+
+    private static double[] centre(List<MowingPlace> stops) {
+        double lat = 0, lon = 0;
+        for (MowingPlace p : stops) {
+            lat += p.getLatitude();
+            lon += p.getLongitude();
+        }
+        return new double[]{lat / stops.size(), lon / stops.size()};
+    }
+
+    private static MowingPlace endpoint(String id, String name, double[] latLon) {
+        MowingPlace p = new MowingPlace();
+        p.setId(id);
+        p.setName(name);
+        p.setLatitude(latLon[0]);
+        p.setLongitude(latLon[1]);
+        p.setTimeRequirement(0);
+        return p;
+    }
+
+    private static void printRoute(List<MowingPlace> route, double speed) {
+        DistanceMatrix matrix = new DistanceMatrix(route);
+        double distance = 0, hours = 0;
+        for (int i = 0; i < route.size(); i++) {
+            MowingPlace p = route.get(i);
+            hours += p.getTimeRequirement() / speed;
+            if (i > 0) {
+                distance += matrix.distance(i - 1, i);
+                hours += matrix.duration(i - 1, i) / 3600.0;
+            }
+            System.out.printf(Locale.ROOT, "%3d  %-12s %s%n", i, p.getId(), p.getName());
+        }
+        System.out.printf(Locale.ROOT, "stops: %d, distance: %.1f km, time: %.1f h%n",
+                route.size() - 2, distance / 1000, hours);
+    }
+
+    /**
+     * Fetches the legs of the route missing from the geometry cache and prints the number of
+     * points and encoded characters of the route at every cached level.
+     */
+    private static void printGeometry(List<MowingPlace> route, Map<String, String> options) {
+        RouteGeometryCache cache = new RouteGeometryCache(options.containsKey("geometry-cache")
+                ? new File(options.get("geometry-cache")) : null, 1000);
+        RouteGeometryClient client = new RouteGeometryClient(options.get("geometry"),
+                options.getOrDefault("apikey", ""), HttpTransport.URL_CONNECTION, PlannerLogger.STDERR);
+        double[] latitudes = new double[route.size()];
+        double[] longitudes = new double[route.size()];
+        for (int i = 0; i < route.size(); i++) {
+            latitudes[i] = route.get(i).getLatitude();
+            longitudes[i] = route.get(i).getLongitude();
+        }
+        long t0 = System.nanoTime();
+        int fetched;
+        try {
+            fetched = client.fetchMissing(latitudes, longitudes, cache);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        System.out.printf(Locale.ROOT, "geometry: %d legs fetched in %.1f s, %d cached%n",
+                fetched, (System.nanoTime() - t0) / 1e9, cache.size());
+        int[] points = new int[RouteGeometryCache.LEVEL_ZOOMS.length];
+        int[] chars = new int[points.length];
+        int missing = 0;
+        for (int i = 0; i + 1 < route.size(); i++) {
+            String[] levels = cache.get(RouteGeometryCache.key(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]));
+            if (levels == null) {
+                missing++;
+                continue;
+            }
+            for (int k = 0; k < levels.length; k++) {
+                points[k] += RouteGeometryCache.decode(levels, k)[0].length;
+                chars[k] += levels[k].length();
+            }
+        }
+        for (int k = 0; k < points.length; k++) {
+            System.out.printf(Locale.ROOT, "  zoom %2d: %6d points, %7d chars%n",
+                    RouteGeometryCache.LEVEL_ZOOMS[k], points[k], chars[k]);
+        }
+        if (missing > 0) {
+            System.out.println("  " + missing + " legs without geometry, drawn as straight lines");
+        }
+    }
+}
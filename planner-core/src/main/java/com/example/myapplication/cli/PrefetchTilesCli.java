@@ -0,0 +1,121 @@
+package com.example.myapplication.cli;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.platform.PlannerLogger;
+import com.example.myapplication.util.TilePrefetcher;
+import com.example.myapplication.util.TileSet;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prefetches the map tiles of the bounding box of a places file into a directory (z/x/y.png),
+ * the same tile set the app prefetches into its tile cache. With a local stand-in tile server
+ * the prefetcher can be tried out and measured without loading a public server:
+ *
+ *   python3 -m http.server 8080 --directory tiles-src
+ *   java -cp planner-core.jar:gson.jar com.example.myapplication.cli.PrefetchTilesCli \
+ *       --url "http://localhost:8080/{z}/{x}/{y}.png" --out tiles --zooms 8-12
+ *
+ * Options:
+ *   --url TEMPLATE   tile URL with {z}, {x} and {y} (required)
+ *   --out DIR        directory to store the tiles in (required); tiles already there are skipped
+ *   --places FILE    places JSON (default: app/src/main/assets/mowing_places.json)
+ *   --zooms MIN-MAX  zoom levels (default 8-13); levels above the tile limit are left out
+ *   --max-tiles N    maximal number of tiles (default 5000)
+ *   --threads N      parallel downloads (default 2)
+ */
+public final class PrefetchTilesCli {
+
+    private static final String DEFAULT_PLACES = "app/src/main/assets/mowing_places.json";
+
+    private PrefetchTilesCli() {
+    }
+
+    /**
+     * Runs the prefetch with the given options.
+     *
+     * @param args The command line arguments.
+     * @throws IOException if the places file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                break;
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        if (!options.containsKey("url") || !options.containsKey("out")) {
+            System.err.println("usage: PrefetchTilesCli --url TEMPLATE --out DIR [--places FILE] [--zooms MIN-MAX]");
+            System.err.println("                        [--max-tiles N] [--threads N]");
+            System.exit(2);
+            return;
+        }
+
+        List<MowingPlace> places = loadPlaces(options.getOrDefault("places", DEFAULT_PLACES));
+        if (places.isEmpty()) {
+            System.err.println("No places, nothing to prefetch");
+            System.exit(1);
+            return;
+        }
+        String[] zooms = options.getOrDefault("zooms", "8-13").split("-");
+        TileSet set = new TileSet(Integer.parseInt(options.getOrDefault("max-tiles", "5000")));
+        double south = 90, west = 180, north = -90, east = -180;
+        for (MowingPlace p : places) {
+            south = Math.min(south, p.getLatitude());
+            north = Math.max(north, p.getLatitude());
+            west = Math.min(west, p.getLongitude());
+            east = Math.max(east, p.getLongitude());
+        }
+        for (int z = Integer.parseInt(zooms[0]); z <= Integer.parseInt(zooms[zooms.length - 1]); z++) {
+            if (!set.addBox(z, south, west, north, east)) {
+                System.err.println("Zoom " + z + " and above left out, over the tile limit");
+                break;
+            }
+        }
+
+        Path out = Paths.get(options.get("out"));
+        TilePrefetcher.TileStore store = new TilePrefetcher.TileStore() {
+            @Override
+            public boolean contains(long tile) {
+                return Files.exists(path(out, tile));
+            }
+
+            @Override
+            public void save(long tile, byte[] data) throws IOException {
+                Path file = path(out, tile);
+                Files.createDirectories(file.getParent());
+                Files.write(file, data);
+            }
+        };
+        TilePrefetcher prefetcher = new TilePrefetcher(
+                TilePrefetcher.urlTemplate(options.get("url"), "PrefetchTilesCli"), store,
+                Integer.parseInt(options.getOrDefault("threads", "2")), PlannerLogger.STDERR);
+        long t0 = System.nanoTime();
+        long[] tiles = set.toArray();
+        TilePrefetcher.Result result = prefetcher.prefetch(tiles);
+        System.out.printf("%d tiles: %s in %.1f s%n", tiles.length, result, (System.nanoTime() - t0) / 1e9);
+    }
+
+    private static Path path(Path dir, long tile) {
+        return dir.resolve(TileSet.zoom(tile) + "/" + TileSet.x(tile) + "/" + TileSet.y(tile) + ".png");
+    }
+
+    private static List<MowingPlace> loadPlaces(String file) throws IOException {
+        Type listType = new TypeToken<List<MowingPlace>>() {}.getType();
+        try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            return new Gson().fromJson(reader, listType);
+        }
+    }
+}
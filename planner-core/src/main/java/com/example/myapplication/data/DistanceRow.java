@@ -0,0 +1,259 @@
+package com.example.myapplication.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Road distances and durations from one place to others, held in parallel primitive arrays:
+ * entry i leads to the place with ID index {@link #idIndex(int)} (see {@link PlaceIds}).
+ * An entry takes 12 bytes, compared to a DistanceEntry object with its own ID string.
+ *
+ * In JSON a row is written as the list of distance entries of mowing_places.json
+ * (see {@link DistanceRowAdapter}), so the file format does not change.
+ */
+public final class DistanceRow {
+
+    private int[] ids;
+    private int[] distances;
+    private int[] durations;
+    private int size;
+
+    /**
+     * Creates an empty row.
+     */
+    public DistanceRow() {
+        this(8);
+    }
+
+    /**
+     * Creates an empty row with room for the given number of entries.
+     *
+     * @param capacity The expected number of entries.
+     */
+    public DistanceRow(int capacity) {
+        ids = new int[Math.max(capacity, 1)];
+        distances = new int[ids.length];
+        durations = new int[ids.length];
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ID index of the destination of an entry.
+     *
+     * @param i The entry.
+     * @return The destination's index in {@link PlaceIds}.
+     */
+    public int idIndex(int i) {
+        return ids[i];
+    }
+
+    /**
+     * Returns the ID of the destination of an entry.
+     *
+     * @param i The entry.
+     * @return The destination's ID.
+     */
+    public String id(int i) {
+        return PlaceIds.id(ids[i]);
+    }
+
+    /**
+     * Returns the road distance of an entry.
+     *
+     * @param i The entry.
+     * @return The distance in meters, negative if unknown.
+     */
+    public int distance(int i) {
+        return distances[i];
+    }
+
+    /**
+     * Returns the travel time of an entry.
+     *
+     * @param i The entry.
+     * @return The duration in seconds, negative if unknown.
+     */
+    public int duration(int i) {
+        return durations[i];
+    }
+
+    /**
+     * Appends an entry. Entries to the same destination may repeat; the last one is current.
+     *
+     * @param idIndex  The destination's index in {@link PlaceIds}.
+     * @param distance The distance in meters, negative if unknown.
+     * @param duration The duration in seconds, negative if unknown.
+     */
+    public void add(int idIndex, int distance, int duration) {
+        if (size == ids.length) {
+            int capacity = size + (size >> 1) + 1;
+            ids = Arrays.copyOf(ids, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+        }
+        ids[size] = idIndex;
+        distances[size] = distance;
+        durations[size] = duration;
+        size++;
+    }
+
+    /**
+     * Appends an entry.
+     *
+     * @param id       The destination's ID.
+     * @param distance The distance in meters, negative if unknown.
+     * @param duration The duration in seconds, negative if unknown.
+     */
+    public void add(String id, int distance, int duration) {
+        add(PlaceIds.intern(id), distance, duration);
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param i The entry.
+     */
+    public void remove(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+        }
+        int tail = size - i - 1;
+        System.arraycopy(ids, i + 1, ids, i, tail);
+        System.arraycopy(distances, i + 1, distances, i, tail);
+        System.arraycopy(durations, i + 1, durations, i, tail);
+        size--;
+    }
+
+    /**
+     * Removes all entries to the given destination.
+     *
+     * @param idIndex The destination's index in {@link PlaceIds}.
+     * @return The number of removed entries.
+     */
+    public int removeIdIndex(int idIndex) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] != idIndex) {
+                ids[kept] = ids[i];
+                distances[kept] = distances[i];
+                durations[kept] = durations[i];
+                kept++;
+            }
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    /**
+     * Releases unused capacity, e.g. after the row was read from JSON.
+     */
+    public void trimToSize() {
+        if (size < ids.length) {
+            int capacity = Math.max(size, 1);
+            ids = Arrays.copyOf(ids, capacity);
+            distances = Arrays.copyOf(distances, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+        }
+    }
+
+    /**
+     * Returns an independent copy of the row, trimmed to its entries.
+     *
+     * @return The copy.
+     */
+    public DistanceRow copy() {
+        DistanceRow copy = new DistanceRow(size);
+        System.arraycopy(ids, 0, copy.ids, 0, size);
+        System.arraycopy(distances, 0, copy.distances, 0, size);
+        System.arraycopy(durations, 0, copy.durations, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Returns a live list view of the row for code written against DistanceEntry lists.
+     * Entries are created on access; adding and removing writes through to the row,
+     * modifying a returned entry does not.
+     *
+     * @return The list view.
+     */
+    public List<MowingPlace.DistanceEntry> asList() {
+        return new AbstractList<MowingPlace.DistanceEntry>() {
+            @Override
+            public MowingPlace.DistanceEntry get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+                }
+                MowingPlace.DistanceEntry e = new MowingPlace.DistanceEntry();
+                e.setId(id(index));
+                e.setDistance(distances[index]);
+                e.setDuration(durations[index]);
+                return e;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public void add(int index, MowingPlace.DistanceEntry e) {
+                if (index != size) {
+                    throw new UnsupportedOperationException("Entries can only be appended");
+                }
+                DistanceRow.this.add(e.getId(), e.getDistance(), e.getDuration());
+                modCount++;
+            }
+
+            @Override
+            public MowingPlace.DistanceEntry remove(int index) {
+                MowingPlace.DistanceEntry e = get(index);
+                DistanceRow.this.remove(index);
+                modCount++;
+                return e;
+            }
+
+            @Override
+            public boolean removeIf(Predicate<? super MowingPlace.DistanceEntry> filter) {
+                int kept = 0;
+                for (int i = 0; i < size; i++) {
+                    if (!filter.test(get(i))) {
+                        ids[kept] = ids[i];
+                        distances[kept] = distances[i];
+                        durations[kept] = durations[i];
+                        kept++;
+                    }
+                }
+                boolean removed = kept != size;
+                size = kept;
+                modCount++;
+                return removed;
+            }
+        };
+    }
+
+    /**
+     * Creates a row from distance entries.
+     *
+     * @param entries The entries.
+     * @return The row.
+     */
+    public static DistanceRow of(List<MowingPlace.DistanceEntry> entries) {
+        DistanceRow row = new DistanceRow(entries.size());
+        for (MowingPlace.DistanceEntry e : entries) {
+            row.add(e.getId(), e.getDistance(), e.getDuration());
+        }
+        return row;
+    }
+}
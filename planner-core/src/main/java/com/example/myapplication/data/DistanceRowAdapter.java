@@ -0,0 +1,73 @@
+package com.example.myapplication.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes a {@link DistanceRow} as the list of distance entries of mowing_places.json,
+ * e.g. [{"id":"12","distance":5400,"duration":420}, ...]. Entries are streamed straight into the
+ * primitive arrays of the row, without DistanceEntry objects or per-entry ID strings.
+ */
+public class DistanceRowAdapter extends TypeAdapter<DistanceRow> {
+
+    @Override
+    public void write(JsonWriter out, DistanceRow row) throws IOException {
+        out.beginArray();
+        for (int i = 0; i < row.size(); i++) {
+            out.beginObject();
+            out.name("id").value(row.id(i));
+            out.name("distance").value(row.distance(i));
+            out.name("duration").value(row.duration(i));
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    @Override
+    public DistanceRow read(JsonReader in) throws IOException {
+        DistanceRow row = new DistanceRow();
+        in.beginArray();
+        while (in.hasNext()) {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            // missing values default to 0 as with the DistanceEntry fields
+            String id = null;
+            int distance = 0;
+            int duration = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id":
+                        id = in.nextString();
+                        break;
+                    case "distance":
+                        distance = in.nextInt();
+                        break;
+                    case "duration":
+                        duration = in.nextInt();
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            if (id != null) {
+                row.add(id, distance, duration);
+            }
+        }
+        in.endArray();
+        row.trimToSize();
+        return row;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.myapplication.data;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.List;
 
 /**
@@ -15,7 +17,8 @@ public class MowingPlace {
     private int workCost;
     private List<String> visitDates;
     private String description;
-    private List<DistanceEntry> distancesToOthers;
+    @JsonAdapter(DistanceRowAdapter.class)
+    private DistanceRow distancesToOthers;
     private double latitude;
     private double longitude;
     private String caretaker;
@@ -263,18 +266,36 @@ public class MowingPlace {
 
     /**
      * Gets the list of distances to other mowing places.
-     * @return The list of distance entries.
+     * The list is a view of the distance row: adding and removing entries changes the row,
+     * changing a returned entry does not. Planning code reads {@link #getDistanceRow()} instead.
+     * @return The list of distance entries, or null if the place has no distances.
      */
     public List<DistanceEntry> getDistancesToOthers() {
-        return distancesToOthers;
+        return distancesToOthers == null ? null : distancesToOthers.asList();
     }
 
     /**
-     * Sets the list of distances to other mowing places.
-     * @param distancesToOthers The list of distance entries to set.
+     * Sets the list of distances to other mowing places; the entries are copied into a distance row.
+     * @param distancesToOthers The list of distance entries to set, or null.
      */
     public void setDistancesToOthers(List<DistanceEntry> distancesToOthers) {
-        this.distancesToOthers = distancesToOthers;
+        this.distancesToOthers = distancesToOthers == null ? null : DistanceRow.of(distancesToOthers);
+    }
+
+    /**
+     * Gets the distances to other mowing places in primitive form.
+     * @return The distance row, or null if the place has no distances.
+     */
+    public DistanceRow getDistanceRow() {
+        return distancesToOthers;
+    }
+
+    /**
+     * Sets the distances to other mowing places.
+     * @param distanceRow The distance row to set, or null.
+     */
+    public void setDistanceRow(DistanceRow distanceRow) {
+        this.distancesToOthers = distanceRow;
     }
 
     /**
@@ -0,0 +1,64 @@
+package com.example.myapplication.data;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide table of place IDs. Every distinct ID gets a small integer index once, so distance
+ * rows store an int per entry instead of their own copy of the ID string, and the matrix can map
+ * entries to its indices through an array instead of hashing strings.
+ *
+ * Indices are never reused; the table grows with the number of distinct IDs seen, which is the
+ * number of places plus the temporary "start" and "end".
+ */
+public final class PlaceIds {
+
+    private static final Map<String, Integer> indexById = new HashMap<>();
+    private static String[] ids = new String[256];
+    private static int size;
+
+    private PlaceIds() {
+    }
+
+    /**
+     * Returns the index of an ID, assigning the next free index to an unknown ID.
+     *
+     * @param id The place ID.
+     * @return The index.
+     */
+    public static synchronized int intern(String id) {
+        Integer index = indexById.get(id);
+        if (index != null) {
+            return index;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size] = id;
+        indexById.put(id, size);
+        return size++;
+    }
+
+    /**
+     * Returns the ID with the given index.
+     *
+     * @param index An index returned by {@link #intern(String)}.
+     * @return The shared ID string.
+     */
+    public static synchronized String id(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Unknown place ID index: " + index);
+        }
+        return ids[index];
+    }
+
+    /**
+     * Returns the number of known IDs; all indices are below this value.
+     *
+     * @return The number of IDs.
+     */
+    public static synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.myapplication.data;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Inputs of one route planning run, reduced to what decides its result, so equal requests can
+ * share a cached plan. Coordinates are snapped to 4 decimal places (about 10 m), the order of
+ * the waypoints is ignored since the planner reorders them anyway, and the dataset version
+ * invalidates plans computed on other data.
+ */
+public class PlanRequest {
+
+    /**
+     * Decimal places kept of the coordinates.
+     */
+    private static final String COORDINATE_FORMAT = "%.4f";
+
+    private double startLatitude;
+    private double startLongitude;
+    private double endLatitude;
+    private double endLongitude;
+    private List<String> waypointIds = new ArrayList<>();
+    private int startTime;
+    private int endTime;
+    private double speedMultiplier;
+    private String objective;
+    private boolean autoFill;
+    private boolean includeVisited;
+    private int weeksFromLastVisit;
+    private long today;
+    private long datasetVersion;
+
+    /**
+     * Sets the start location.
+     * @param latitude  The latitude.
+     * @param longitude The longitude.
+     * @return This request.
+     */
+    public PlanRequest setStart(double latitude, double longitude) {
+        this.startLatitude = latitude;
+        this.startLongitude = longitude;
+        return this;
+    }
+
+    /**
+     * Sets the end location.
+     * @param latitude  The latitude.
+     * @param longitude The longitude.
+     * @return This request.
+     */
+    public PlanRequest setEnd(double latitude, double longitude) {
+        this.endLatitude = latitude;
+        this.endLongitude = longitude;
+        return this;
+    }
+
+    /**
+     * Gets the latitude of the start location.
+     * @return The latitude.
+     */
+    public double getStartLatitude() {
+        return startLatitude;
+    }
+
+    /**
+     * Gets the longitude of the start location.
+     * @return The longitude.
+     */
+    public double getStartLongitude() {
+        return startLongitude;
+    }
+
+    /**
+     * Gets the latitude of the end location.
+     * @return The latitude.
+     */
+    public double getEndLatitude() {
+        return endLatitude;
+    }
+
+    /**
+     * Gets the longitude of the end location.
+     * @return The longitude.
+     */
+    public double getEndLongitude() {
+        return endLongitude;
+    }
+
+    /**
+     * Sets the IDs of the mandatory waypoints.
+     * @param waypointIds The IDs, in any order.
+     * @return This request.
+     */
+    public PlanRequest setWaypointIds(List<String> waypointIds) {
+        this.waypointIds = new ArrayList<>(waypointIds);
+        return this;
+    }
+
+    /**
+     * Gets the IDs of the mandatory waypoints.
+     * @return The IDs.
+     */
+    public List<String> getWaypointIds() {
+        return waypointIds;
+    }
+
+    /**
+     * Sets the working time window.
+     * @param startTime Start in minutes from midnight.
+     * @param endTime   End in minutes from midnight.
+     * @return This request.
+     */
+    public PlanRequest setTimeWindow(int startTime, int endTime) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        return this;
+    }
+
+    /**
+     * Sets the mowing speed multiplier.
+     * @param speedMultiplier The multiplier.
+     * @return This request.
+     */
+    public PlanRequest setSpeedMultiplier(double speedMultiplier) {
+        this.speedMultiplier = speedMultiplier;
+        return this;
+    }
+
+    /**
+     * Sets the optimized objective.
+     * @param objective The name of the objective.
+     * @return This request.
+     */
+    public PlanRequest setObjective(String objective) {
+        this.objective = objective;
+        return this;
+    }
+
+    /**
+     * Sets the auto-fill parameters. Auto-fill filters places by their visit dates,
+     * so its result also depends on the current day.
+     * @param autoFill           Whether extra places are added.
+     * @param includeVisited     Whether places visited enough times this year are added.
+     * @param weeksFromLastVisit Minimal number of weeks since the last visit.
+     * @param today              Today as days since 1970-01-01.
+     * @return This request.
+     */
+    public PlanRequest setAutoFill(boolean autoFill, boolean includeVisited, int weeksFromLastVisit, long today) {
+        this.autoFill = autoFill;
+        this.includeVisited = includeVisited;
+        this.weeksFromLastVisit = weeksFromLastVisit;
+        this.today = today;
+        return this;
+    }
+
+    /**
+     * Sets the version of the places dataset, e.g. the version stamp of the saved places.
+     * @param datasetVersion The version stamp.
+     * @return This request.
+     */
+    public PlanRequest setDatasetVersion(long datasetVersion) {
+        this.datasetVersion = datasetVersion;
+        return this;
+    }
+
+    /**
+     * Returns the canonical text form of the request; equal texts give equal plans.
+     * Auto-fill parameters are only part of it when auto-fill is on.
+     * @return The canonical form.
+     */
+    public String canonical() {
+        List<String> ids = new ArrayList<>(waypointIds);
+        Collections.sort(ids);
+        StringBuilder sb = new StringBuilder();
+        sb.append("v1|");
+        sb.append(String.format(Locale.ROOT, COORDINATE_FORMAT + "," + COORDINATE_FORMAT, startLatitude, startLongitude)).append('|');
+        sb.append(String.format(Locale.ROOT, COORDINATE_FORMAT + "," + COORDINATE_FORMAT, endLatitude, endLongitude)).append('|');
+        sb.append(String.join(",", ids)).append('|');
+        sb.append(startTime).append('-').append(endTime).append('|');
+        sb.append(String.format(Locale.ROOT, "%.2f", speedMultiplier)).append('|');
+        sb.append(objective).append('|');
+        if (autoFill) {
+            sb.append("fill,").append(includeVisited).append(',').append(weeksFromLastVisit).append(',').append(today);
+        } else {
+            sb.append("nofill");
+        }
+        sb.append('|').append(datasetVersion);
+        return sb.toString();
+    }
+
+    /**
+     * Returns the cache key of the request, a SHA-256 hash of {@link #canonical()}.
+     * @return The key as a hexadecimal string.
+     */
+    public String cacheKey() {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
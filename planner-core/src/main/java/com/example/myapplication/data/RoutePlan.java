@@ -0,0 +1,278 @@
+package com.example.myapplication.data;
+
+import com.example.myapplication.util.PlannerMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Model class representing a route plan.
+ *
+ * Places are referenced by ID and name only, and the legs are stored as primitive arrays,
+ * so a saved plan does not carry the distance lists of its places.
+ */
+public class RoutePlan {
+    /**
+     * Unique ID of the plan in the history.
+     */
+    private String id;
+
+    /**
+     * IDs of the places of the route in order, including "start" and "end".
+     */
+    private List<String> placeIds;
+
+    /**
+     * Names of the places of the route in order.
+     */
+    private List<String> placeNames;
+
+    /**
+     * Road distance of each leg in meters; leg i goes from place i to place i + 1.
+     */
+    private int[] legDistances;
+
+    /**
+     * Driving time of each leg in seconds.
+     */
+    private int[] legDurations;
+
+    /**
+     * Full places as written by older versions, including their distance lists.
+     * Only read from old files; see {@link #compactLegacyPlaces()}.
+     */
+    private List<MowingPlace> routePlaces;
+
+    /**
+     * URL for the route on Mapy.cz
+     */
+    private String mapyCzUrl;
+
+    /**
+     * URL for the route on Google Maps
+     */
+    private String googleMapsUrl;
+
+    /**
+     * Date and time of the route in the format "yyyy-MM-dd HH:mm:ss"
+     */
+    private String dateTime;
+
+    /**
+     * Length of the route in meters.
+     */
+    private double length;
+
+    /**
+     * Duration of the route in seconds.
+     */
+    private double duration;
+
+    /**
+     * Timings and counters recorded while the route was planned, or null for older plans.
+     */
+    private PlannerMetrics.Snapshot metrics;
+
+    /**
+     * Getter for id
+     * @return The ID of the plan, or null if it was not saved yet
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Setter for id
+     * @param id The ID of the plan
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Assigns a new unique ID to the plan if it has none.
+     */
+    public void ensureId() {
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+        }
+    }
+
+    /**
+     * geter for routePlaces
+     * @return Names of the route places in order
+     */
+    public List<String> getRoutePlaces() {
+        compactLegacyPlaces();
+        return placeNames != null ? placeNames : new ArrayList<>();
+    }
+
+    /**
+     * Getter for placeIds
+     * @return IDs of the route places in order
+     */
+    public List<String> getPlaceIds() {
+        compactLegacyPlaces();
+        return placeIds != null ? placeIds : new ArrayList<>();
+    }
+
+    /**
+     * Setter for routePlaces; only the IDs and names of the places are kept.
+     * @param routePlaces List of MowingPlace objects to set as the route places
+     */
+    public void setRoutePlaces(List<MowingPlace> routePlaces) {
+        this.placeIds = new ArrayList<>(routePlaces.size());
+        this.placeNames = new ArrayList<>(routePlaces.size());
+        for (MowingPlace place : routePlaces) {
+            placeIds.add(place.getId());
+            placeNames.add(place.getName());
+        }
+        this.routePlaces = null;
+    }
+
+    /**
+     * Setter for the places of the route by their IDs and names.
+     * @param placeIds   IDs of the route places in order
+     * @param placeNames Names of the route places in order
+     */
+    public void setPlaces(List<String> placeIds, List<String> placeNames) {
+        this.placeIds = placeIds;
+        this.placeNames = placeNames;
+        this.routePlaces = null;
+    }
+
+    /**
+     * Replaces the full places read from an older file by their IDs and names.
+     * @return true if the plan was in the old format
+     */
+    public boolean compactLegacyPlaces() {
+        if (routePlaces == null) {
+            return false;
+        }
+        setRoutePlaces(routePlaces);
+        return true;
+    }
+
+    /**
+     * Getter for legDistances
+     * @return Road distance of each leg in meters, or null for older plans
+     */
+    public int[] getLegDistances() {
+        return legDistances;
+    }
+
+    /**
+     * Getter for legDurations
+     * @return Driving time of each leg in seconds, or null for older plans
+     */
+    public int[] getLegDurations() {
+        return legDurations;
+    }
+
+    /**
+     * Setter for the legs
+     * @param legDistances Road distance of each leg in meters
+     * @param legDurations Driving time of each leg in seconds
+     */
+    public void setLegs(int[] legDistances, int[] legDurations) {
+        this.legDistances = legDistances;
+        this.legDurations = legDurations;
+    }
+
+    /**
+     * Getter for mapyCzUrl
+     * @return String representing the URL for the route on Mapy.cz
+     */
+    public String getMapyCzUrl() {
+        return mapyCzUrl;
+    }
+
+    /**
+     * Setter for mapyCzUrl
+     * @param mapyCzUrl String representing the URL to set for the route on Mapy.cz
+     */
+    public void setMapyCzUrl(String mapyCzUrl) {
+        this.mapyCzUrl = mapyCzUrl;
+    }
+
+    /**
+     * Getter for googleMapsUrl
+     * @return String representing the URL for the route on Google Maps
+     */
+    public String getGoogleMapsUrl() {
+        return googleMapsUrl;
+    }
+
+    /**
+     * Setter for googleMapsUrl
+     * @param googleMapsUrl String representing the URL to set for the route on Google Maps
+     */
+    public void setGoogleMapsUrl(String googleMapsUrl) {
+        this.googleMapsUrl = googleMapsUrl;
+    }
+
+    /**
+     * Getter for dateTime
+     * @return String representing the date and time of the route
+     */
+    public String getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Setter for dateTime
+     * @param dateTime String representing the date and time to set for the route
+     */
+    public void setDateTime(String dateTime) {
+        this.dateTime = dateTime;
+    }
+
+    /**
+     * Getter for length
+     * @return double representing the length of the route in meters
+     */
+    public double getLength() {
+        return length;
+    }
+
+    /**
+     * Setter for length
+     * @param length double representing the length to set for the route in meters
+     */
+    public void setLength(double length) {
+        this.length = length;
+    }
+
+    /**
+     * Getter for duration
+     * @return double representing the duration of the route in seconds
+     */
+    public double getDuration() {
+        return duration;
+    }
+
+    /**
+     * Setter for duration
+     * @param duration double representing the duration to set for the route in seconds
+     */
+    public void setDuration(double duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Getter for metrics
+     * @return Planning metrics of the route, or null if none were recorded
+     */
+    public PlannerMetrics.Snapshot getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Setter for metrics
+     * @param metrics Planning metrics recorded while the route was planned
+     */
+    public void setMetrics(PlannerMetrics.Snapshot metrics) {
+        this.metrics = metrics;
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.myapplication.data;
+
+import com.example.myapplication.util.GeoMath;
+import com.example.myapplication.util.PlannerDates;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of realistic mowing-place datasets for scaling tests.
+ *
+ * Places are grouped in clusters (municipalities with several cemeteries) spread over the
+ * Czech Republic, with a share of isolated places. Road data is derived from the haversine
+ * distance: the distance is multiplied by a detour factor and the duration follows from an
+ * average speed that grows with the leg length (village roads for short legs, highways for long
+ * ones). Both get configurable noise. The noise of a pair depends only on the seed and the pair,
+ * so values are identical whether the dataset is materialized or streamed. The defaults are
+ * calibrated on the bundled asset (median detour 1.37, median speed 56 km/h under 10 km and
+ * 86 km/h over 60 km).
+ *
+ * The same seed and settings always produce the same dataset.
+ */
+public class SyntheticPlacesGenerator {
+
+    // approximate bounding box of the Czech Republic
+    private static final double MIN_LAT = 48.6;
+    private static final double MAX_LAT = 51.0;
+    private static final double MIN_LON = 12.2;
+    private static final double MAX_LON = 18.8;
+
+    private static final double[] TIME_REQUIREMENTS = {0.5, 0.5, 1.0, 1.0, 1.0, 1.5, 2.0, 2.0, 2.5, 3.0, 4.0, 5.0};
+
+    private final long seed;
+    private int placesPerCluster = 25;
+    private double isolatedShare = 0.1;
+    private double clusterRadiusMeters = 8_000;
+    private double detour = 1.37;
+    private double detourNoise = 0.2;
+    private double nearSpeedKmh = 55;
+    private double farSpeedKmh = 90;
+    private double speedNoise = 0.1;
+    private double directionNoise = 0.02;
+    private boolean roadData = true;
+    private long referenceDay = PlannerDates.toEpochDay(2025, 6, 1);
+
+    /**
+     * Creates a generator with the default settings.
+     *
+     * @param seed Seed of all random choices.
+     */
+    public SyntheticPlacesGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the average number of places per cluster.
+     *
+     * @param placesPerCluster Places per cluster, at least 1.
+     * @return This generator.
+     */
+    public SyntheticPlacesGenerator setPlacesPerCluster(int placesPerCluster) {
+        this.placesPerCluster = Math.max(1, placesPerCluster);
+        return this;
+    }
+
+    /**
+     * Sets the share of places placed uniformly outside of clusters.
+     *
+     * @param isolatedShare Share between 0 and 1.
+     * @return This generator.
+     */
+    public SyntheticPlacesGenerator setIsolatedShare(double isolatedShare) {
+        this.isolatedShare = isolatedShare;
+        return this;
+    }
+
+    /**
+     * Sets the standard deviation of the distance of a place from its cluster centre.
+     *
+     * @param clusterRadiusMeters The radius in meters.
+     * @return This generator.
+     */
+    public SyntheticPlacesGenerator setClusterRadiusMeters(double clusterRadiusMeters) {
+        this.clusterRadiusMeters = clusterRadiusMeters;
+        return this;
+    }
+
+    /**
+     * Sets the ratio of road distance to straight-line distance and its relative noise.
+     *
+     * @param detour      Mean detour factor, at least 1.
+     * @param detourNoise Relative noise, the factor varies uniformly by ± this share.
+     * @return This generator.
+     */
+    public SyntheticPlacesGenerator setDetour(double detour, double detourNoise) {
+        this.detour = detour;
+        this.detourNoise = detourNoise;
+        return this;
+    }
+
+    /**
+     * Sets the average speeds on short and long legs and the relative speed noise.
+     *
+     * @param nearSpeedKmh Average speed of very short legs in km/h.
+     * @param farSpeedKmh  Average speed that long legs approach in km/h.
+     * @param speedNoise   Relative noise, the speed varies uniformly by ± this share.
+     * @return This generator.
+     */
+    public SyntheticPlacesGenerator setSpeed(double nearSpeedKmh, double farSpeedKmh, double speedNoise) {
+        this.nearSpeedKmh = nearSpeedKmh;
+        this.farSpeedKmh = farSpeedKmh;
+        this.speedNoise = speedNoise;
+        return this;
+    }
+
+    /**
+     * Sets the relative difference between the two directions of a pair.
+     *
+     * @param directionNoise Relative noise, each direction varies uniformly by ± this share.
+     * @return This generator.
+     */
+    public SyntheticPlacesGenerator setDirectionNoise(double directionNoise) {
+        this.directionNoise = directionNoise;
+        return this;
+    }
+
+    /**
+     * Sets whether distance entries are generated. Without them the dataset holds only
+     * coordinates and the planner falls back to straight-line estimates.
+     *
+     * @param roadData true to generate distance entries.
+     * @return This generator.
+     */
+    public SyntheticPlacesGenerator setRoadData(boolean roadData) {
+        this.roadData = roadData;
+        return this;
+    }
+
+    /**
+     * Sets the day the generated visit dates are relative to, so datasets do not change
+     * with the current date.
+     *
+     * @param epochDay Days since 1970-01-01.
+     * @return This generator.
+     */
+    public SyntheticPlacesGenerator setReferenceDay(long epochDay) {
+        this.referenceDay = epochDay;
+        return this;
+    }
+
+    /**
+     * Generates a dataset.
+     *
+     * @param count Number of places.
+     * @return The places, with distance entries to all other places if road data is enabled.
+     */
+    public List<MowingPlace> generate(int count) {
+        List<MowingPlace> places = generateLocations(count);
+        if (roadData) {
+            GeoMath.Points points = new GeoMath.Points(places);
+            double[] row = new double[count];
+            int[] idIndex = new int[count];
+            for (int j = 0; j < count; j++) {
+                idIndex[j] = PlaceIds.intern(places.get(j).getId());
+            }
+            for (int i = 0; i < count; i++) {
+                points.haversineRow(i, row, 0);
+                DistanceRow entries = new DistanceRow(count - 1);
+                for (int j = 0; j < count; j++) {
+                    if (j == i) continue;
+                    entries.add(idIndex[j], roadDistance(i, j, row[j]), roadDuration(i, j, row[j]));
+                }
+                places.get(i).setDistanceRow(entries);
+            }
+        }
+        return places;
+    }
+
+    /**
+     * Writes a dataset in the JSON format of mowing_places.json without materializing the
+     * distance entries, so datasets with millions of entries can be produced in little memory.
+     * The output is identical to serializing {@link #generate(int)} with Gson.
+     *
+     * @param count  Number of places.
+     * @param writer Destination; it is flushed but not closed.
+     * @throws IOException if writing fails.
+     */
+    public void writeJson(int count, Writer writer) throws IOException {
+        List<MowingPlace> places = generateLocations(count);
+        GeoMath.Points points = new GeoMath.Points(places);
+        double[] row = new double[count];
+        JsonWriter json = new JsonWriter(writer);
+        json.beginArray();
+        for (int i = 0; i < count; i++) {
+            MowingPlace p = places.get(i);
+            json.beginObject();
+            json.name("id").value(p.getId());
+            json.name("name").value(p.getName());
+            json.name("timeRequirement").value(p.getTimeRequirement());
+            json.name("mowingCountPerYear").value(p.getMowingCountPerYear());
+            json.name("workCost").value(p.getWorkCost());
+            json.name("visitDates").beginArray();
+            for (String date : p.getVisitDates()) {
+                json.value(date);
+            }
+            json.endArray();
+            json.name("description").value(p.getDescription());
+            json.name("distancesToOthers").beginArray();
+            if (roadData) {
+                points.haversineRow(i, row, 0);
+                for (int j = 0; j < count; j++) {
+                    if (j == i) continue;
+                    json.beginObject();
+                    json.name("id").value(places.get(j).getId());
+                    json.name("distance").value(roadDistance(i, j, row[j]));
+                    json.name("duration").value(roadDuration(i, j, row[j]));
+                    json.endObject();
+                }
+            }
+            json.endArray();
+            json.name("latitude").value(p.getLatitude());
+            json.name("longitude").value(p.getLongitude());
+            json.name("caretaker").value(p.getCaretaker());
+            json.name("centre").value(p.getCentre());
+            json.name("area").value(p.getArea());
+            json.name("locked").value(p.getLocked());
+            json.endObject();
+        }
+        json.endArray();
+        json.flush();
+    }
+
+    /**
+     * Generates the places without distance entries.
+     */
+    private List<MowingPlace> generateLocations(int count) {
+        Random random = new Random(seed);
+        int clusters = Math.max(1, count / placesPerCluster);
+        double[] clusterLat = new double[clusters];
+        double[] clusterLon = new double[clusters];
+        for (int c = 0; c < clusters; c++) {
+            clusterLat[c] = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+            clusterLon[c] = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+        }
+
+        List<MowingPlace> places = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double lat, lon;
+            int cluster = random.nextInt(clusters);
+            if (random.nextDouble() < isolatedShare) {
+                lat = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+                lon = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+            } else {
+                double dLat = random.nextGaussian() * clusterRadiusMeters / GeoMath.EARTH_RADIUS;
+                double dLon = random.nextGaussian() * clusterRadiusMeters
+                        / (GeoMath.EARTH_RADIUS * Math.cos(Math.toRadians(clusterLat[cluster])));
+                lat = Math.max(MIN_LAT, Math.min(MAX_LAT, clusterLat[cluster] + Math.toDegrees(dLat)));
+                lon = Math.max(MIN_LON, Math.min(MAX_LON, clusterLon[cluster] + Math.toDegrees(dLon)));
+            }
+
+            MowingPlace p = new MowingPlace();
+            String id = String.valueOf(i + 1);
+            p.setId(id);
+            p.setName("Místo " + id);
+            p.setDescription("Syntetické místo " + id);
+            p.setLatitude(lat);
+            p.setLongitude(lon);
+            double hours = TIME_REQUIREMENTS[random.nextInt(TIME_REQUIREMENTS.length)];
+            p.setTimeRequirement(hours);
+            p.setMowingCountPerYear(1 + random.nextInt(3));
+            p.setWorkCost((int) Math.round(hours * 2500 * (0.8 + 0.4 * random.nextDouble())));
+            p.setArea((int) Math.round(hours * 1600 * (0.7 + 0.6 * random.nextDouble())));
+            p.setCaretaker("C" + (cluster + 1));
+            p.setCentre(String.valueOf(700 + cluster));
+            p.setLocked(0);
+            List<String> visits = new ArrayList<>();
+            int visitCount = random.nextInt(p.getMowingCountPerYear() + 1);
+            for (int v = 0; v < visitCount; v++) {
+                visits.add(PlannerDates.format(referenceDay - random.nextInt(150)));
+            }
+            p.setVisitDates(visits);
+            p.setDistancesToOthers(new ArrayList<>());
+            places.add(p);
+        }
+        return places;
+    }
+
+    /**
+     * Road distance from i to j in meters.
+     */
+    private int roadDistance(int i, int j, double straightMeters) {
+        double factor = detour * (1 + detourNoise * pairNoise(i, j, 1))
+                * (1 + directionNoise * directedNoise(i, j, 2));
+        return (int) Math.round(straightMeters * Math.max(1.0, factor));
+    }
+
+    /**
+     * Road duration from i to j in seconds.
+     */
+    private int roadDuration(int i, int j, double straightMeters) {
+        double meters = roadDistance(i, j, straightMeters);
+        // speed approaches farSpeed on long legs, 60 km scale calibrated on the asset
+        double speedKmh = farSpeedKmh - (farSpeedKmh - nearSpeedKmh) * Math.exp(-meters / 60_000.0);
+        speedKmh *= (1 + speedNoise * pairNoise(i, j, 3)) * (1 + directionNoise * directedNoise(i, j, 4));
+        return (int) Math.round(meters / (speedKmh / 3.6));
+    }
+
+    /**
+     * Noise in [-1, 1) shared by both directions of a pair.
+     */
+    private double pairNoise(int i, int j, int stream) {
+        return directedNoise(Math.min(i, j), Math.max(i, j), stream);
+    }
+
+    /**
+     * Noise in [-1, 1) of the ordered pair (i, j), a pure function of the seed and the arguments.
+     */
+    private double directedNoise(int i, int j, int stream) {
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) i << 32 | j) * 4 + stream + 1);
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-52 - 1.0;
+    }
+}
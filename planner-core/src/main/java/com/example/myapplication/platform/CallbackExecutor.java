@@ -0,0 +1,20 @@
+package com.example.myapplication.platform;
+
+/**
+ * Delivers callbacks of background work to the thread that expects them,
+ * on Android the main thread.
+ */
+public interface CallbackExecutor {
+
+    /**
+     * Executor running the callback immediately on the calling thread.
+     */
+    CallbackExecutor DIRECT = Runnable::run;
+
+    /**
+     * Schedules the callback.
+     *
+     * @param callback The callback to run.
+     */
+    void post(Runnable callback);
+}
@@ -0,0 +1,51 @@
+package com.example.myapplication.platform;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP access used by the matrix client, replaceable by a local stub in tests and load tests.
+ */
+public interface HttpTransport {
+
+    /**
+     * Transport based on HttpURLConnection, available both on the JVM and on Android.
+     */
+    HttpTransport URL_CONNECTION = url -> {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setRequestMethod("GET");
+            conn.setConnectTimeout(5000);
+            conn.setReadTimeout(5000);
+
+            int responseCode = conn.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Chyba při volání API: " + responseCode);
+            }
+            StringBuilder response = new StringBuilder();
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    response.append(line);
+                }
+            }
+            return response.toString();
+        } finally {
+            conn.disconnect();
+        }
+    };
+
+    /**
+     * Performs a GET request.
+     *
+     * @param url The full request URL.
+     * @return The response body.
+     * @throws IOException if the request fails or the server does not answer with HTTP 200.
+     */
+    String get(String url) throws IOException;
+}
@@ -0,0 +1,40 @@
+package com.example.myapplication.platform;
+
+import java.util.TimeZone;
+
+/**
+ * Source of the current date for the planner, so visit-date filters can run and be tested
+ * without a platform date library.
+ */
+public interface PlannerClock {
+
+    /**
+     * Milliseconds in one day.
+     */
+    long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * Clock reading the system time in the default time zone.
+     */
+    PlannerClock SYSTEM = () -> {
+        long now = System.currentTimeMillis();
+        return Math.floorDiv(now + TimeZone.getDefault().getOffset(now), MILLIS_PER_DAY);
+    };
+
+    /**
+     * Returns today's date in the local time zone.
+     *
+     * @return Days since 1970-01-01.
+     */
+    long today();
+
+    /**
+     * Returns a clock that is stopped at the given day.
+     *
+     * @param epochDay Days since 1970-01-01.
+     * @return The fixed clock.
+     */
+    static PlannerClock fixed(long epochDay) {
+        return () -> epochDay;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.myapplication.platform;
+
+/**
+ * Minimal logging interface of the planner core. The app forwards it to android.util.Log,
+ * JVM tools to standard error.
+ */
+public interface PlannerLogger {
+
+    /**
+     * Logger that drops every message.
+     */
+    PlannerLogger NONE = new PlannerLogger() {
+        @Override
+        public void debug(String tag, String message) {
+        }
+
+        @Override
+        public void error(String tag, String message, Throwable error) {
+        }
+    };
+
+    /**
+     * Logger printing to standard error.
+     */
+    PlannerLogger STDERR = new PlannerLogger() {
+        @Override
+        public void debug(String tag, String message) {
+            System.err.println(tag + ": " + message);
+        }
+
+        @Override
+        public void error(String tag, String message, Throwable error) {
+            System.err.println(tag + ": " + message);
+            if (error != null) {
+                error.printStackTrace();
+            }
+        }
+    };
+
+    /**
+     * Logs a debug message.
+     *
+     * @param tag     Source of the message.
+     * @param message The message.
+     */
+    void debug(String tag, String message);
+
+    /**
+     * Logs an error.
+     *
+     * @param tag     Source of the message.
+     * @param message The message.
+     * @param error   The cause, may be null.
+     */
+    void error(String tag, String message, Throwable error);
+}
@@ -0,0 +1,150 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+
+/**
+ * Objective minimized by the planner. A cost model is compiled once per plan into a dense
+ * row-major cost matrix, so route construction, local search and auto-fill all optimize the
+ * same value without branching on the objective for every lookup.
+ */
+public final class CostModel {
+
+    /**
+     * The quantity a route is optimized for.
+     */
+    public enum Objective {
+        /** Road distance in meters. */
+        DISTANCE,
+        /** Travel time in seconds. */
+        DURATION,
+        /** Money: fuel per kilometer plus labour per hour of driving plus the work cost of each visited place. */
+        WEIGHTED
+    }
+
+    /**
+     * Default fuel cost in currency units per kilometer used by {@link #weighted()}.
+     */
+    public static final double DEFAULT_FUEL_COST_PER_KM = 5.0;
+
+    /**
+     * Default crew labour cost in currency units per hour used by {@link #weighted()}.
+     */
+    public static final double DEFAULT_LABOUR_COST_PER_HOUR = 300.0;
+
+    private final Objective objective;
+    private final double fuelCostPerMeter;
+    private final double labourCostPerSecond;
+
+    private CostModel(Objective objective, double fuelCostPerKm, double labourCostPerHour) {
+        this.objective = objective;
+        this.fuelCostPerMeter = fuelCostPerKm / 1000.0;
+        this.labourCostPerSecond = labourCostPerHour / 3600.0;
+    }
+
+    /**
+     * Cost model minimizing the driven distance.
+     *
+     * @return The distance model.
+     */
+    public static CostModel distance() {
+        return new CostModel(Objective.DISTANCE, 0, 0);
+    }
+
+    /**
+     * Cost model minimizing the travel time.
+     *
+     * @return The duration model.
+     */
+    public static CostModel duration() {
+        return new CostModel(Objective.DURATION, 0, 0);
+    }
+
+    /**
+     * Money-based cost model with the default fuel and labour rates.
+     *
+     * @return The weighted model.
+     */
+    public static CostModel weighted() {
+        return weighted(DEFAULT_FUEL_COST_PER_KM, DEFAULT_LABOUR_COST_PER_HOUR);
+    }
+
+    /**
+     * Money-based cost model: fuel for the driven distance, labour for the driving time and the
+     * work cost of every place that is visited.
+     *
+     * @param fuelCostPerKm     Fuel cost in currency units per kilometer.
+     * @param labourCostPerHour Labour cost in currency units per hour of driving.
+     * @return The weighted model.
+     */
+    public static CostModel weighted(double fuelCostPerKm, double labourCostPerHour) {
+        return new CostModel(Objective.WEIGHTED, fuelCostPerKm, labourCostPerHour);
+    }
+
+    /**
+     * Returns a cost model for the given objective with default rates.
+     *
+     * @param objective The objective.
+     * @return The cost model.
+     */
+    public static CostModel of(Objective objective) {
+        switch (objective) {
+            case DISTANCE:
+                return distance();
+            case WEIGHTED:
+                return weighted();
+            default:
+                return duration();
+        }
+    }
+
+    /**
+     * Returns the objective of this model.
+     *
+     * @return The objective.
+     */
+    public Objective getObjective() {
+        return objective;
+    }
+
+    /**
+     * Compiles the model into a dense cost matrix, cost[i * n + j] being the cost of travelling
+     * from place i to place j. For distance and duration the backing array of the matrix is
+     * returned without copying, so the result must be treated as read-only.
+     *
+     * The work cost of a place is charged on arrival. Every stop of a route is arrived at exactly
+     * once, so this does not change the order of a fixed set of stops, but it makes auto-fill
+     * prefer places that are cheaper to serve.
+     *
+     * @param matrix The distance matrix of the places.
+     * @return The row-major cost matrix.
+     */
+    public double[] compile(DistanceMatrix matrix) {
+        switch (objective) {
+            case DISTANCE:
+                return matrix.distances();
+            case DURATION:
+                return matrix.durations();
+            default:
+                break;
+        }
+        int n = matrix.size();
+        double[] distance = matrix.distances();
+        double[] duration = matrix.durations();
+        double[] arrival = new double[n];
+        for (int j = 0; j < n; j++) {
+            MowingPlace p = matrix.place(j);
+            arrival[j] = p.getWorkCost();
+        }
+        double[] cost = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            int row = i * n;
+            for (int j = 0; j < n; j++) {
+                cost[row + j] = fuelCostPerMeter * distance[row + j]
+                        + labourCostPerSecond * duration[row + j]
+                        + arrival[j];
+            }
+            cost[row + i] = 0;
+        }
+        return cost;
+    }
+}
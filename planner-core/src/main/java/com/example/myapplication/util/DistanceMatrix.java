@@ -0,0 +1,232 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.DistanceRow;
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.PlaceIds;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense distance and duration matrix over a fixed list of places.
+ * Values are taken from the distance entries of the places (road data from the Matrix API);
+ * pairs without road data fall back to the haversine distance, computed a whole row at a time
+ * from coordinates precomputed in {@link GeoMath.Points}, and to a duration estimated from it.
+ *
+ * The matrix is directed: distance(i, j) and duration(i, j) describe travelling from i to j,
+ * road data is usually slightly asymmetric. When only one direction is known it is used for
+ * both directions.
+ */
+public class DistanceMatrix {
+
+    /**
+     * Average speed in m/s (50 km/h) used to estimate travel time when no road duration is known.
+     */
+    public static final double FALLBACK_SPEED = 50.0 / 3.6;
+
+    private final List<MowingPlace> places;
+    private final Map<String, Integer> indexById;
+    private final int n;
+    private final double[] distance;
+    private final double[] duration;
+    private final GeoMath.Points points;
+    private int fallbackPairs;
+
+    /**
+     * Builds the matrix for the given places.
+     *
+     * @param places The places; matrix index i corresponds to places.get(i).
+     */
+    public DistanceMatrix(List<MowingPlace> places) {
+        long t = PlannerMetrics.start();
+        this.places = places;
+        this.n = places.size();
+        this.indexById = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            indexById.put(places.get(i).getId(), i);
+        }
+        this.points = new GeoMath.Points(places);
+        this.distance = new double[n * n];
+        this.duration = new double[n * n];
+        fill();
+        PlannerMetrics.add(PlannerMetrics.Counter.FALLBACK_PAIRS, fallbackPairs);
+        PlannerMetrics.stop(PlannerMetrics.Stage.MATRIX_BUILD, t);
+    }
+
+    /**
+     * Copies the known road values into the matrix and fills the gaps.
+     */
+    private void fill() {
+        Arrays.fill(distance, Double.NaN);
+        Arrays.fill(duration, Double.NaN);
+
+        // 1) known values; later entries win, so refreshed start/end entries replace stale ones.
+        //    Entries refer to places by ID index, mapped to matrix indices through an array.
+        int[] matrixIndex = new int[PlaceIds.size() + n];
+        Arrays.fill(matrixIndex, -1);
+        for (int i = 0; i < n; i++) {
+            int idIndex = PlaceIds.intern(places.get(i).getId());
+            if (idIndex >= matrixIndex.length) {
+                matrixIndex = grow(matrixIndex, idIndex + n);
+            }
+            matrixIndex[idIndex] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            DistanceRow row = places.get(i).getDistanceRow();
+            if (row == null) {
+                continue;
+            }
+            for (int k = 0, size = row.size(); k < size; k++) {
+                int idIndex = row.idIndex(k);
+                int j = idIndex < matrixIndex.length ? matrixIndex[idIndex] : -1;
+                if (j < 0 || j == i) {
+                    continue;
+                }
+                int d = row.distance(k), t = row.duration(k);
+                if (d >= 0) {
+                    distance[i * n + j] = d;
+                }
+                if (t >= 0) {
+                    duration[i * n + j] = t;
+                }
+            }
+        }
+
+        // 2) fill gaps from the opposite direction or from a haversine row, computed only for rows that need it
+        double[] row = new double[n];
+        for (int i = 0; i < n; i++) {
+            distance[i * n + i] = 0;
+            duration[i * n + i] = 0;
+            boolean rowReady = false;
+            for (int j = i + 1; j < n; j++) {
+                int ij = i * n + j, ji = j * n + i;
+                double dij = distance[ij], dji = distance[ji];
+                double tij = duration[ij], tji = duration[ji];
+                if ((Double.isNaN(dij) && Double.isNaN(dji)) || (Double.isNaN(tij) && Double.isNaN(tji))) {
+                    if (!rowReady) {
+                        points.haversineRow(i, row, 0);
+                        rowReady = true;
+                    }
+                    fallbackPairs++;
+                }
+                if (Double.isNaN(dij) && Double.isNaN(dji)) {
+                    dij = dji = row[j];
+                } else if (Double.isNaN(dij)) {
+                    dij = dji;
+                } else if (Double.isNaN(dji)) {
+                    dji = dij;
+                }
+                distance[ij] = dij;
+                distance[ji] = dji;
+
+                if (Double.isNaN(tij) && Double.isNaN(tji)) {
+                    tij = tji = row[j] / FALLBACK_SPEED;
+                } else if (Double.isNaN(tij)) {
+                    tij = tji;
+                } else if (Double.isNaN(tji)) {
+                    tji = tij;
+                }
+                duration[ij] = tij;
+                duration[ji] = tji;
+            }
+        }
+    }
+
+    private static int[] grow(int[] array, int length) {
+        int[] grown = Arrays.copyOf(array, length);
+        Arrays.fill(grown, array.length, length, -1);
+        return grown;
+    }
+
+    /**
+     * Returns the number of places in the matrix.
+     *
+     * @return The matrix dimension.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the place with the given matrix index.
+     *
+     * @param index The matrix index.
+     * @return The place.
+     */
+    public MowingPlace place(int index) {
+        return places.get(index);
+    }
+
+    /**
+     * Returns the matrix index of the place with the given ID.
+     *
+     * @param id The place ID.
+     * @return The index, or -1 if the place is not part of the matrix.
+     */
+    public int indexOf(String id) {
+        Integer i = indexById.get(id);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Returns the road distance from one place to another.
+     *
+     * @param i Index of the origin.
+     * @param j Index of the destination.
+     * @return The distance in meters.
+     */
+    public double distance(int i, int j) {
+        return distance[i * n + j];
+    }
+
+    /**
+     * Returns the travel time from one place to another.
+     *
+     * @param i Index of the origin.
+     * @param j Index of the destination.
+     * @return The duration in seconds.
+     */
+    public double duration(int i, int j) {
+        return duration[i * n + j];
+    }
+
+    /**
+     * Returns the backing row-major distance array, distance from i to j at index i * size() + j.
+     * The array is shared with the matrix and must not be modified.
+     *
+     * @return The distance array in meters.
+     */
+    public double[] distances() {
+        return distance;
+    }
+
+    /**
+     * Returns the backing row-major duration array, duration from i to j at index i * size() + j.
+     * The array is shared with the matrix and must not be modified.
+     *
+     * @return The duration array in seconds.
+     */
+    public double[] durations() {
+        return duration;
+    }
+
+    /**
+     * Returns the precomputed coordinates of the places, indexed like the matrix.
+     *
+     * @return The coordinates.
+     */
+    public GeoMath.Points points() {
+        return points;
+    }
+
+    /**
+     * Returns how many place pairs had no road data and were filled from coordinates.
+     *
+     * @return The number of fallback pairs.
+     */
+    public int getFallbackPairs() {
+        return fallbackPairs;
+    }
+}
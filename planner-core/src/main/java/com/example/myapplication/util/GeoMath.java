@@ -0,0 +1,212 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+
+import java.util.List;
+
+/**
+ * Geographic helper functions used by the planner when road distances are not available.
+ * Trigonometry that depends on a single place only (radians, cosine of the latitude) is
+ * precomputed once per place in {@link Points}, so filling a distance matrix costs one
+ * sine pair and one square root per cell.
+ */
+public final class GeoMath {
+
+    /**
+     * Mean Earth radius in meters.
+     */
+    public static final double EARTH_RADIUS = 6_371_000.0;
+
+    /**
+     * Upper bound of the relative error of {@link Points#equirectangular(int, int)} compared to
+     * the haversine distance for points less than 500 km apart between 35° and 60° latitude
+     * (measured 0.04 % over the Czech Republic).
+     */
+    public static final double EQUIRECTANGULAR_MAX_RELATIVE_ERROR = 0.001;
+
+    /**
+     * Equatorial circumference of the Earth in meters, the width of the Web Mercator world.
+     */
+    public static final double EARTH_CIRCUMFERENCE = 40_075_016.686;
+
+    /**
+     * Latitude in degrees at which the Web Mercator world becomes square; the projection clamps
+     * latitudes beyond it.
+     */
+    public static final double MERCATOR_MAX_LATITUDE = 85.05112878;
+
+    private GeoMath() {
+    }
+
+    /**
+     * Projects a longitude to Web Mercator, the projection of the map tiles.
+     *
+     * @param longitude Longitude in degrees, -180 to 180.
+     * @return The x coordinate, 0 at the western and 1 at the eastern edge of the world.
+     */
+    public static double mercatorX(double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    /**
+     * Projects a latitude to Web Mercator, the projection of the map tiles.
+     *
+     * @param latitude Latitude in degrees; it is clamped to {@link #MERCATOR_MAX_LATITUDE}.
+     * @return The y coordinate, 0 at the northern and 1 at the southern edge of the world.
+     */
+    public static double mercatorY(double latitude) {
+        double lat = Math.toRadians(Math.max(-MERCATOR_MAX_LATITUDE, Math.min(MERCATOR_MAX_LATITUDE, latitude)));
+        return (1 - Math.log(Math.tan(lat) + 1 / Math.cos(lat)) / Math.PI) / 2;
+    }
+
+    /**
+     * Inverse of {@link #mercatorX(double)}.
+     *
+     * @param x The x coordinate, 0 to 1.
+     * @return The longitude in degrees.
+     */
+    public static double mercatorLongitude(double x) {
+        return x * 360 - 180;
+    }
+
+    /**
+     * Inverse of {@link #mercatorY(double)}.
+     *
+     * @param y The y coordinate, 0 to 1.
+     * @return The latitude in degrees.
+     */
+    public static double mercatorLatitude(double y) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y))));
+    }
+
+    /**
+     * Width in meters of a Web Mercator tile at a latitude; tiles get narrower away from the
+     * equator.
+     *
+     * @param latitude Latitude in degrees.
+     * @param zoom     The zoom level, 2^zoom tiles span the world.
+     * @return The width of a tile in meters.
+     */
+    public static double mercatorTileMeters(double latitude, int zoom) {
+        return EARTH_CIRCUMFERENCE * Math.cos(Math.toRadians(latitude)) / Math.scalb(1.0, zoom);
+    }
+
+    /**
+     * Calculates the haversine distance between two geographical points.
+     *
+     * @param lat1 Latitude of the first point in degrees.
+     * @param lon1 Longitude of the first point in degrees.
+     * @param lat2 Latitude of the second point in degrees.
+     * @param lon2 Longitude of the second point in degrees.
+     * @return The haversine distance in meters.
+     */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double φ1 = Math.toRadians(lat1);
+        double φ2 = Math.toRadians(lat2);
+        double sinDLat = Math.sin((φ2 - φ1) / 2);
+        double sinDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double h = sinDLat * sinDLat + Math.cos(φ1) * Math.cos(φ2) * sinDLon * sinDLon;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(h)));
+    }
+
+    /**
+     * Coordinates of a fixed list of places in radians, together with the cosine of each latitude.
+     */
+    public static final class Points {
+
+        private final double[] lat;
+        private final double[] lon;
+        private final double[] cosLat;
+
+        /**
+         * Precomputes the coordinates of the given places.
+         *
+         * @param places The places, indexed in list order.
+         */
+        public Points(List<MowingPlace> places) {
+            int n = places.size();
+            lat = new double[n];
+            lon = new double[n];
+            cosLat = new double[n];
+            for (int i = 0; i < n; i++) {
+                MowingPlace p = places.get(i);
+                lat[i] = Math.toRadians(p.getLatitude());
+                lon[i] = Math.toRadians(p.getLongitude());
+                cosLat[i] = Math.cos(lat[i]);
+            }
+        }
+
+        /**
+         * Returns the number of points.
+         *
+         * @return The number of points.
+         */
+        public int size() {
+            return lat.length;
+        }
+
+        /**
+         * Haversine distance between two points.
+         *
+         * @param i Index of the first point.
+         * @param j Index of the second point.
+         * @return The distance in meters.
+         */
+        public double haversine(int i, int j) {
+            double sinDLat = Math.sin((lat[j] - lat[i]) * 0.5);
+            double sinDLon = Math.sin((lon[j] - lon[i]) * 0.5);
+            double h = sinDLat * sinDLat + cosLat[i] * cosLat[j] * sinDLon * sinDLon;
+            return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(h)));
+        }
+
+        /**
+         * Equirectangular approximation of the distance between two points. It needs no
+         * trigonometry at query time; see {@link #EQUIRECTANGULAR_MAX_RELATIVE_ERROR} for its accuracy.
+         *
+         * @param i Index of the first point.
+         * @param j Index of the second point.
+         * @return The approximate distance in meters.
+         */
+        public double equirectangular(int i, int j) {
+            double x = (lon[j] - lon[i]) * 0.5 * (cosLat[i] + cosLat[j]);
+            double y = lat[j] - lat[i];
+            return EARTH_RADIUS * Math.sqrt(x * x + y * y);
+        }
+
+        /**
+         * Fills a whole row of haversine distances from point i to every point.
+         *
+         * @param i      Index of the source point.
+         * @param out    Destination array.
+         * @param offset Position in out where the distance to point 0 is written.
+         */
+        public void haversineRow(int i, double[] out, int offset) {
+            double lati = lat[i], loni = lon[i], cosi = cosLat[i];
+            int n = lat.length;
+            // straight loop over primitive arrays without branches, friendly to the JIT
+            for (int j = 0; j < n; j++) {
+                double sinDLat = Math.sin((lat[j] - lati) * 0.5);
+                double sinDLon = Math.sin((lon[j] - loni) * 0.5);
+                double h = sinDLat * sinDLat + cosi * cosLat[j] * sinDLon * sinDLon;
+                out[offset + j] = 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(h)));
+            }
+        }
+
+        /**
+         * Fills a whole row of equirectangular distances from point i to every point.
+         *
+         * @param i      Index of the source point.
+         * @param out    Destination array.
+         * @param offset Position in out where the distance to point 0 is written.
+         */
+        public void equirectangularRow(int i, double[] out, int offset) {
+            double lati = lat[i], loni = lon[i], cosi = cosLat[i];
+            int n = lat.length;
+            for (int j = 0; j < n; j++) {
+                double x = (lon[j] - loni) * 0.5 * (cosi + cosLat[j]);
+                double y = lat[j] - lati;
+                out[offset + j] = EARTH_RADIUS * Math.sqrt(x * x + y * y);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.myapplication.util;
+
+import java.util.Arrays;
+
+/**
+ * Fast approximate minimum-weight perfect matching on a primitive symmetric weight matrix,
+ * used for the odd vertices of Christofides instead of the exact blossom algorithm.
+ *
+ *   Greedy: all pairs are sorted by weight once (weight and pair index packed into a long, so
+ *   the sort is a primitive Arrays.sort) and taken cheapest first while both ends are free.
+ *   Improvement: for every two matched pairs (a, b), (c, d) the cheaper of the re-pairings
+ *   (a, c), (b, d) and (a, d), (b, c) replaces them, until no swap improves the matching.
+ *
+ * The result is not guaranteed to be minimal; on the planner's instances it is within a few
+ * percent of the exact matching and Christofides' local search absorbs most of the difference.
+ */
+public final class GreedyMatching {
+
+    /**
+     * Safety cap on the number of improvement passes over all pairs of matched pairs.
+     */
+    private static final int MAX_PASSES = 50;
+
+    private static final double EPSILON = 1e-9;
+
+    private GreedyMatching() {
+    }
+
+    /**
+     * Matches the given vertices in pairs.
+     *
+     * @param weight   Symmetric row-major weight matrix of dimension n, weights must not be negative.
+     * @param n        Matrix dimension.
+     * @param vertices Indices of the vertices to match; their number must be even.
+     * @return The pairs as a flat array of matrix indices: entries 2i and 2i + 1 are matched.
+     */
+    public static int[] match(double[] weight, int n, int[] vertices) {
+        int k = vertices.length;
+        if ((k & 1) == 1) {
+            throw new IllegalArgumentException("Odd number of vertices: " + k);
+        }
+        // 1) sort the pairs by weight; a float of a non-negative weight keeps its order as int bits
+        long[] pairs = new long[k * (k - 1) / 2];
+        int p = 0;
+        for (int i = 0; i < k; i++) {
+            for (int j = i + 1; j < k; j++) {
+                float w = (float) weight[vertices[i] * n + vertices[j]];
+                pairs[p] = ((long) Float.floatToIntBits(w) << 32) | (i * k + j);
+                p++;
+            }
+        }
+        Arrays.sort(pairs);
+
+        // 2) greedy: cheapest pair with both ends free
+        int[] mate = new int[k];
+        Arrays.fill(mate, -1);
+        int[] matching = new int[k];
+        int m = 0;
+        for (long pair : pairs) {
+            int index = (int) pair;
+            int i = index / k, j = index % k;
+            if (mate[i] < 0 && mate[j] < 0) {
+                mate[i] = j;
+                mate[j] = i;
+                matching[m++] = vertices[i];
+                matching[m++] = vertices[j];
+                if (m == k) {
+                    break;
+                }
+            }
+        }
+
+        // 3) 2-opt on pairs of matched pairs
+        int pairCount = k / 2;
+        boolean improved = true;
+        for (int pass = 0; improved && pass < MAX_PASSES; pass++) {
+            improved = false;
+            for (int x = 0; x < pairCount; x++) {
+                for (int y = x + 1; y < pairCount; y++) {
+                    int a = matching[2 * x], b = matching[2 * x + 1];
+                    int c = matching[2 * y], d = matching[2 * y + 1];
+                    double current = weight[a * n + b] + weight[c * n + d];
+                    double ac = weight[a * n + c] + weight[b * n + d];
+                    double ad = weight[a * n + d] + weight[b * n + c];
+                    if (ac < ad && ac < current - EPSILON) {
+                        matching[2 * x + 1] = c;
+                        matching[2 * y] = b;
+                        improved = true;
+                    } else if (ad < current - EPSILON) {
+                        matching[2 * x + 1] = d;
+                        matching[2 * y + 1] = b;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return matching;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.myapplication.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grid clustering of map markers per zoom level.
+ *
+ * Points are projected once to Web Mercator, the projection of the map tiles. At a zoom level
+ * the world is divided into square cells of a fixed size in screen pixels, and all points of a
+ * cell form one cluster at their mean position, so the number of markers drawn is bounded by
+ * the number of cells on the screen and not by the number of points. The clusters of a level
+ * are computed the first time the level is shown and kept; {@link #visible} then only picks the
+ * clusters inside the viewport.
+ *
+ * Above {@link #MAX_CLUSTER_ZOOM} every point is its own cluster. The clusterer is immutable
+ * apart from its cache of levels and is meant to be used from one thread; build a new one when
+ * the points change.
+ */
+public final class MarkerClusterer {
+
+    /**
+     * Highest zoom level at which points are clustered.
+     */
+    public static final int MAX_CLUSTER_ZOOM = 17;
+
+    private static final int TILE_SIZE = 256;
+    private static final int INDEX_BITS = 21;
+    // keeps the cell keys of the highest clustered level within 40 bits, so they pack with the index
+    private static final double MIN_CELL_PIXELS = 32;
+
+    /**
+     * A cluster of points, or a single point if its count is 1.
+     */
+    public static final class Cluster {
+        /**
+         * Grid cell of the cluster, unique among the clusters of its zoom level.
+         */
+        public final long key;
+        public final double latitude;
+        public final double longitude;
+        public final int count;
+        /**
+         * Highest severity of the points of the cluster.
+         */
+        public final int severity;
+        /**
+         * Index of a point of the cluster; the point itself if the count is 1.
+         */
+        public final int item;
+
+        Cluster(long key, double latitude, double longitude, int count, int severity, int item) {
+            this.key = key;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            this.severity = severity;
+            this.item = item;
+        }
+    }
+
+    /**
+     * Clusters of one zoom level in primitive arrays, indexed by cluster.
+     */
+    private static final class Level {
+        long[] keys;
+        double[] xs;
+        double[] ys;
+        int[] counts;
+        int[] severities;
+        int[] items;
+        int size;
+    }
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] severities;
+    private final double cellPixels;
+
+    // projected coordinates in [0, 1), indexed like the points
+    private final double[] xs;
+    private final double[] ys;
+
+    // index zoom (0 to MAX_CLUSTER_ZOOM + 1, the last one unclustered), built on demand
+    private final Level[] levels = new Level[MAX_CLUSTER_ZOOM + 2];
+
+    /**
+     * Creates a clusterer over the given points.
+     *
+     * @param latitudes  Latitudes of the points.
+     * @param longitudes Longitudes of the points.
+     * @param severities Severity of every point, e.g. how urgent it is; a cluster shows the highest.
+     * @param cellPixels Edge length of a grid cell in screen pixels at every zoom level, at least 32.
+     */
+    public MarkerClusterer(double[] latitudes, double[] longitudes, int[] severities, double cellPixels) {
+        if (latitudes.length >= 1 << INDEX_BITS) {
+            throw new IllegalArgumentException("Too many points: " + latitudes.length);
+        }
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.severities = severities;
+        this.cellPixels = Math.max(cellPixels, MIN_CELL_PIXELS);
+        int n = latitudes.length;
+        xs = new double[n];
+        ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = GeoMath.mercatorX(longitudes[i]);
+            ys[i] = GeoMath.mercatorY(latitudes[i]);
+        }
+    }
+
+    /**
+     * Returns the clusters of a zoom level whose position is inside a bounding box.
+     *
+     * @param zoom  The zoom level; fractional levels are rounded down by the caller.
+     * @param south Southern edge of the box.
+     * @param west  Western edge of the box.
+     * @param north Northern edge of the box.
+     * @param east  Eastern edge of the box.
+     * @return The visible clusters.
+     */
+    public List<Cluster> visible(int zoom, double south, double west, double north, double east) {
+        Level level = level(Math.max(0, Math.min(zoom, MAX_CLUSTER_ZOOM + 1)));
+        double minX = west <= east ? GeoMath.mercatorX(west) : 0;
+        double maxX = west <= east ? GeoMath.mercatorX(east) : 1;
+        double minY = GeoMath.mercatorY(north);
+        double maxY = GeoMath.mercatorY(south);
+        List<Cluster> result = new ArrayList<>();
+        for (int c = 0; c < level.size; c++) {
+            double x = level.xs[c], y = level.ys[c];
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                int item = level.items[c];
+                // a single point keeps its exact position
+                boolean single = level.counts[c] == 1;
+                result.add(new Cluster(level.keys[c],
+                        single ? latitudes[item] : GeoMath.mercatorLatitude(y),
+                        single ? longitudes[item] : GeoMath.mercatorLongitude(x),
+                        level.counts[c], level.severities[c], item));
+            }
+        }
+        return result;
+    }
+
+    private Level level(int zoom) {
+        if (levels[zoom] == null) {
+            levels[zoom] = build(zoom);
+        }
+        return levels[zoom];
+    }
+
+    /**
+     * Groups the points by grid cell: the cell key and point index are packed into a long, so
+     * one primitive sort brings the points of a cell together.
+     */
+    private Level build(int zoom) {
+        int n = xs.length;
+        long[] packed = new long[n];
+        if (zoom > MAX_CLUSTER_ZOOM) {
+            // every point alone, keyed by its index
+            for (int i = 0; i < n; i++) {
+                packed[i] = ((long) i << INDEX_BITS) | i;
+            }
+        } else {
+            double cellsPerSide = Math.ceil(Math.scalb((double) TILE_SIZE, zoom) / cellPixels);
+            for (int i = 0; i < n; i++) {
+                long cx = Math.min((long) (xs[i] * cellsPerSide), (long) cellsPerSide - 1);
+                long cy = Math.min((long) (ys[i] * cellsPerSide), (long) cellsPerSide - 1);
+                long cell = cx * (long) cellsPerSide + cy;
+                packed[i] = (cell << INDEX_BITS) | i;
+            }
+            Arrays.sort(packed);
+        }
+
+        Level level = new Level();
+        level.keys = new long[n];
+        level.xs = new double[n];
+        level.ys = new double[n];
+        level.counts = new int[n];
+        level.severities = new int[n];
+        level.items = new int[n];
+        int mask = (1 << INDEX_BITS) - 1;
+        int c = -1;
+        long currentCell = -1;
+        for (long p : packed) {
+            long cell = p >>> INDEX_BITS;
+            int i = (int) (p & mask);
+            if (cell != currentCell) {
+                currentCell = cell;
+                c++;
+                level.keys[c] = cell;
+                level.items[c] = i;
+                level.severities[c] = severities[i];
+            } else {
+                level.severities[c] = Math.max(level.severities[c], severities[i]);
+            }
+            level.xs[c] += xs[i];
+            level.ys[c] += ys[i];
+            level.counts[c]++;
+        }
+        level.size = c + 1;
+        for (c = 0; c < level.size; c++) {
+            level.xs[c] /= level.counts[c];
+            level.ys[c] /= level.counts[c];
+        }
+        return level;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.DistanceRow;
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.PlaceIds;
+import com.example.myapplication.platform.CallbackExecutor;
+import com.example.myapplication.platform.HttpTransport;
+import com.example.myapplication.platform.PlannerLogger;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Client of the Mapy.cz Matrix API filling the distance entries of a place.
+ * Requests are batched, both directions are requested because road distances are not symmetric,
+ * and the number of calls per update is limited. The platform specifics (HTTP, logging and the
+ * thread callbacks are delivered on) are supplied by the caller.
+ */
+public class MatrixApiClient {
+
+    private static final String TAG = "MatrixApiClient";
+    private static final String API_MATRIX_PLANNING = "https://api.mapy.cz/v1/routing/matrix-m";
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_CALLS = 20;
+
+    /**
+     * Pause between two API calls in milliseconds.
+     */
+    private static final long CALL_PAUSE_MS = 100;
+
+    /**
+     * Callback interface for handling API responses.
+     */
+    public interface Callback {
+        /**
+         * Called when the distances were updated.
+         */
+        void onSuccess();
+
+        /**
+         * Called when the update failed.
+         *
+         * @param errorMessage The error message describing the failure.
+         */
+        void onFailure(String errorMessage);
+    }
+
+    private final String apiKey;
+    private final HttpTransport transport;
+    private final PlannerLogger logger;
+    private final CallbackExecutor callbackExecutor;
+
+    /**
+     * Creates a client.
+     *
+     * @param apiKey           The Mapy.cz API key.
+     * @param transport        HTTP transport used for the requests.
+     * @param logger           Logger for requests and errors.
+     * @param callbackExecutor Executor the callbacks are delivered on.
+     */
+    public MatrixApiClient(String apiKey, HttpTransport transport, PlannerLogger logger,
+                           CallbackExecutor callbackExecutor) {
+        this.apiKey = apiKey;
+        this.transport = transport;
+        this.logger = logger;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Updates distances for a new place against all other places on a background thread
+     * and reports the result through the callback executor. The API is called on the background
+     * thread, but the entries are written to the places on the callback executor just before the
+     * callback, so two updates running at the same time over the same places never write the
+     * same rows concurrently.
+     *
+     * @param newPlace  The new place to update distances for.
+     * @param allPlaces The list of all places to compare against.
+     * @param callback  The callback to handle success or failure.
+     */
+    public void updateDistances(MowingPlace newPlace, List<MowingPlace> allPlaces, Callback callback) {
+        new Thread(() -> {
+            try {
+                FetchedDistances fetched = fetch(newPlace, allPlaces);
+                callbackExecutor.post(() -> {
+                    fetched.apply();
+                    callback.onSuccess();
+                });
+            } catch (Exception e) {
+                logger.error(TAG, "Chyba při volání API: ", e);
+                callbackExecutor.post(() -> callback.onFailure(e.getMessage()));
+            }
+        }).start();
+    }
+
+    /**
+     * Updates distances for a new place against all other places on the calling thread.
+     * The new place gets a fresh list of entries to every other place, and every other place
+     * gets an entry back to the new place appended (later entries win when the matrix is built).
+     * The API is called in batches of MAX_BATCH_SIZE, once for each direction, and at most
+     * MAX_CALLS times.
+     *
+     * @param newPlace  The new place to update distances for.
+     * @param allPlaces The list of all places to compare against.
+     * @throws IOException          if a request fails, the API returns no results or the call limit is reached.
+     * @throws InterruptedException if the thread is interrupted between calls.
+     */
+    public void fetchDistances(MowingPlace newPlace, List<MowingPlace> allPlaces)
+            throws IOException, InterruptedException {
+        fetch(newPlace, allPlaces).apply();
+    }
+
+    /**
+     * Requests the distances between a new place and all other places without modifying any
+     * of the places.
+     *
+     * @param newPlace  The new place to update distances for.
+     * @param allPlaces The list of all places to compare against.
+     * @return The distances, to be applied to the places.
+     * @throws IOException          if a request fails, the API returns no results or the call limit is reached.
+     * @throws InterruptedException if the thread is interrupted between calls.
+     */
+    private FetchedDistances fetch(MowingPlace newPlace, List<MowingPlace> allPlaces)
+            throws IOException, InterruptedException {
+        List<MowingPlace> destinationPlaces = new ArrayList<>();
+        for (MowingPlace place : allPlaces) {
+            if (!place.getId().equals(newPlace.getId())) {
+                destinationPlaces.add(place);
+            }
+        }
+
+        int totalDestinations = destinationPlaces.size();
+        int callsMade = 0;
+        FetchedDistances fetched = new FetchedDistances(newPlace, destinationPlaces);
+
+        for (int start = 0; start < totalDestinations; start += MAX_BATCH_SIZE) {
+            // every batch needs two calls: newPlace → batch and batch → newPlace
+            if (callsMade + 2 > MAX_CALLS) {
+                throw new IOException("Maximum number of API calls reached.");
+            }
+            int end = Math.min(start + MAX_BATCH_SIZE, totalDestinations);
+            List<MowingPlace> batch = destinationPlaces.subList(start, end);
+            StringBuilder batchParamBuilder = new StringBuilder();
+            for (MowingPlace dest : batch) {
+                if (batchParamBuilder.length() > 0) {
+                    batchParamBuilder.append(";");
+                }
+                batchParamBuilder.append(URLEncoder.encode(dest.getLongitude() + "," + dest.getLatitude(), "UTF-8"));
+            }
+            String batchParam = batchParamBuilder.toString();
+            String placeParam = URLEncoder.encode(newPlace.getLongitude() + "," + newPlace.getLatitude(), "UTF-8");
+
+            // road distances are not symmetric, so both directions are requested:
+            // outbound is a 1×k matrix, inbound a k×1 matrix
+            JsonArray outbound = requestMatrix(placeParam, batchParam);
+            callsMade++;
+            Thread.sleep(CALL_PAUSE_MS);
+            JsonArray inbound = requestMatrix(batchParam, placeParam);
+            callsMade++;
+            if (outbound == null || outbound.isEmpty() || inbound == null || inbound.size() < batch.size()) {
+                throw new IOException("Žádné výsledky v odpovědi API.");
+            }
+            JsonArray results = outbound.get(0).getAsJsonArray();
+            for (int i = 0; i < results.size(); i++) {
+                // the distances for the new place
+                JsonObject cell = results.get(i).getAsJsonObject();
+                fetched.newPlaceRow.add(batch.get(i).getId(), cellValue(cell, "length"), cellValue(cell, "duration"));
+
+                // the distances for the batch
+                JsonObject reverseObj = inbound.get(i).getAsJsonArray().get(0).getAsJsonObject();
+                fetched.reverseDistances[start + i] = cellValue(reverseObj, "length");
+                fetched.reverseDurations[start + i] = cellValue(reverseObj, "duration");
+            }
+            Thread.sleep(CALL_PAUSE_MS);
+        }
+        return fetched;
+    }
+
+    /**
+     * Calls the matrix endpoint for the given start and end coordinates.
+     *
+     * @param startsParam URL-encoded "lon,lat" start points separated by ";".
+     * @param endsParam   URL-encoded "lon,lat" end points separated by ";".
+     * @return The "matrix" array of the response (one row per start), or null if it is missing.
+     * @throws IOException if the request fails or the API answers with an error code.
+     */
+    private JsonArray requestMatrix(String startsParam, String endsParam) throws IOException {
+        String urlString = API_MATRIX_PLANNING + "?apikey=" + URLEncoder.encode(apiKey, "UTF-8")
+                + "&routeType=" + URLEncoder.encode("car_fast", "UTF-8")
+                + "&lang=" + URLEncoder.encode("cs", "UTF-8")
+                + "&starts=" + startsParam
+                + "&ends=" + endsParam;
+        logger.debug(TAG, "URL: " + urlString);
+
+        long t = PlannerMetrics.start();
+        String response;
+        try {
+            response = transport.get(urlString);
+        } catch (IOException e) {
+            PlannerMetrics.increment(PlannerMetrics.Counter.HTTP_ERRORS);
+            throw e;
+        } finally {
+            PlannerMetrics.stop(PlannerMetrics.Stage.HTTP_REQUEST, t);
+            PlannerMetrics.increment(PlannerMetrics.Counter.HTTP_REQUESTS);
+        }
+        // the API answers with ASCII JSON, so characters equal bytes
+        PlannerMetrics.add(PlannerMetrics.Counter.HTTP_BYTES, response.length());
+        JsonObject jsonResponse = new Gson().fromJson(response, JsonObject.class);
+        return jsonResponse.getAsJsonArray("matrix");
+    }
+
+    /**
+     * Reads the length or duration from one cell of the matrix response.
+     * Missing or negative values are returned as -1.
+     */
+    private static int cellValue(JsonObject cell, String name) {
+        if (cell.has(name) && cell.get(name).getAsInt() >= 0) {
+            return cell.get(name).getAsInt();
+        }
+        return -1;
+    }
+
+    /**
+     * Distances requested for a new place: its own row and, for every destination, the entry
+     * back to it. Destinations the response had no cell for get no entry back.
+     */
+    private static final class FetchedDistances {
+
+        private static final int NOT_FETCHED = -2;
+
+        private final MowingPlace newPlace;
+        private final List<MowingPlace> destinations;
+        private final DistanceRow newPlaceRow;
+        private final int[] reverseDistances;
+        private final int[] reverseDurations;
+
+        FetchedDistances(MowingPlace newPlace, List<MowingPlace> destinations) {
+            this.newPlace = newPlace;
+            this.destinations = destinations;
+            newPlaceRow = new DistanceRow(destinations.size());
+            reverseDistances = new int[destinations.size()];
+            reverseDurations = new int[destinations.size()];
+            Arrays.fill(reverseDistances, NOT_FETCHED);
+        }
+
+        /**
+         * Writes the distances to the places: the new place gets its row, every destination an
+         * entry back to the new place appended.
+         */
+        void apply() {
+            int newPlaceId = PlaceIds.intern(newPlace.getId());
+            for (int i = 0; i < destinations.size(); i++) {
+                if (reverseDistances[i] == NOT_FETCHED) {
+                    continue;
+                }
+                MowingPlace destination = destinations.get(i);
+                DistanceRow row = destination.getDistanceRow();
+                if (row == null) {
+                    row = new DistanceRow();
+                    destination.setDistanceRow(row);
+                }
+                row.add(newPlaceId, reverseDistances[i], reverseDurations[i]);
+            }
+            newPlace.setDistanceRow(newPlaceRow);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.myapplication.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mowing windows of a year by the number of mowings a place needs.
+ *
+ * The i-th mowing of the year (0-based) of a place mowed k times a year has a window: it becomes
+ * due at the start of the window and is overdue from the end of it. Windows are given as
+ * month-day pairs (MMDD, e.g. 701 for July 1st) per count; counts without configured windows
+ * split the season from {@link #SEASON_START} to the end of the year evenly.
+ */
+public final class MowingSchedule {
+
+    /**
+     * Start of the mowing season, May 1st.
+     */
+    public static final int SEASON_START = 501;
+
+    // windows by count: start and end (MMDD) of every mowing of the year in order
+    private final Map<Integer, int[]> windows = new HashMap<>();
+
+    /**
+     * Returns the schedule used by the map markers:
+     * one mowing in July–August; two in May–June and July–September; three in May–June,
+     * July–August and August.
+     *
+     * @return A new schedule with the default windows.
+     */
+    public static MowingSchedule defaults() {
+        return new MowingSchedule()
+                .setWindows(1, 701, 901)
+                .setWindows(2, 501, 701, 701, 1001)
+                .setWindows(3, 501, 701, 701, 901, 801, 901);
+    }
+
+    /**
+     * Sets the windows for places mowed the given number of times a year.
+     *
+     * @param count         Number of mowings a year.
+     * @param startsAndEnds Start and end (MMDD) of every mowing in order, 2 * count values; the
+     *                      end is the first day the mowing is overdue.
+     * @return This schedule.
+     * @throws IllegalArgumentException if the number of values does not match the count.
+     */
+    public MowingSchedule setWindows(int count, int... startsAndEnds) {
+        if (count < 1 || startsAndEnds.length != 2 * count) {
+            throw new IllegalArgumentException("Expected " + 2 * count + " values for count " + count);
+        }
+        windows.put(count, startsAndEnds.clone());
+        return this;
+    }
+
+    /**
+     * Returns the window of a mowing in a year.
+     *
+     * @param count Number of mowings a year, at least 1.
+     * @param index The mowing, 0 to count - 1.
+     * @param year  The year.
+     * @return Start day and first overdue day of the window, as days since 1970-01-01.
+     */
+    public long[] window(int count, int index, int year) {
+        int[] configured = windows.get(count);
+        if (configured != null) {
+            return new long[]{
+                    epochDay(year, configured[2 * index]),
+                    epochDay(year, configured[2 * index + 1])
+            };
+        }
+        long seasonStart = epochDay(year, SEASON_START);
+        long span = PlannerDates.toEpochDay(year + 1, 1, 1) - seasonStart;
+        return new long[]{
+                seasonStart + span * index / count,
+                seasonStart + span * (index + 1) / count
+        };
+    }
+
+    private static long epochDay(int year, int monthDay) {
+        return PlannerDates.toEpochDay(year, monthDay / 100, monthDay % 100);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.myapplication.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Diacritic- and case-insensitive substring search over a fixed set of names, for the
+ * auto-complete of place names.
+ *
+ * Every name is folded once when the index is built (lower case, diacritics removed) and all
+ * folded names are kept in one char array. Every character and every pair of adjacent
+ * characters of a folded name is a gram with a posting list of the names containing it, so a
+ * query only checks the names of its rarest gram instead of all names.
+ *
+ * Matches are ranked: names starting with the query first, then names with a word starting
+ * with the query, then the other names containing it; alphabetically within a rank. The index
+ * is immutable and may be shared between threads; build a new one when the names change.
+ */
+public final class NameSearchIndex {
+
+    private static final int GRAM_SHIFT = 16;
+
+    // distinct names in alphabetical order of their folded form
+    private final String[] names;
+
+    // folded name i is text[textStart[i] .. textStart[i + 1])
+    private final char[] text;
+    private final int[] textStart;
+
+    // posting lists in compressed form: names of gram gramKeys[g] are gramItems[gramStart[g] .. gramStart[g + 1])
+    private final int[] gramKeys;
+    private final int[] gramStart;
+    private final int[] gramItems;
+
+    /**
+     * Builds the index. Duplicate and null names are dropped.
+     *
+     * @param names The names.
+     */
+    public NameSearchIndex(Collection<String> names) {
+        // 1) fold and sort the distinct names
+        List<String[]> entries = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (name != null) {
+                entries.add(new String[]{fold(name), name});
+            }
+        }
+        entries.sort((a, b) -> {
+            int c = a[0].compareTo(b[0]);
+            return c != 0 ? c : a[1].compareTo(b[1]);
+        });
+        List<String[]> distinct = new ArrayList<>(entries.size());
+        for (String[] e : entries) {
+            if (distinct.isEmpty() || !distinct.get(distinct.size() - 1)[1].equals(e[1])) {
+                distinct.add(e);
+            }
+        }
+
+        // 2) folded names in one array
+        int n = distinct.size();
+        this.names = new String[n];
+        textStart = new int[n + 1];
+        StringBuilder all = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            this.names[i] = distinct.get(i)[1];
+            textStart[i] = all.length();
+            all.append(distinct.get(i)[0]);
+        }
+        textStart[n] = all.length();
+        text = all.toString().toCharArray();
+
+        // 3) gram and name index packed into a long, so one primitive sort groups the postings
+        long[] packed = new long[2 * text.length];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int k = textStart[i]; k < textStart[i + 1]; k++) {
+                packed[count++] = ((long) gram(text[k]) << 32) | i;
+                if (k + 1 < textStart[i + 1]) {
+                    packed[count++] = ((long) gram(text[k], text[k + 1]) << 32) | i;
+                }
+            }
+        }
+        Arrays.sort(packed, 0, count);
+        int[] keys = new int[count];
+        int[] starts = new int[count + 1];
+        int[] items = new int[count];
+        int grams = 0, postings = 0;
+        long previous = -1;
+        for (int p = 0; p < count; p++) {
+            if (packed[p] == previous) {
+                continue;
+            }
+            previous = packed[p];
+            int key = (int) (packed[p] >>> 32);
+            if (grams == 0 || keys[grams - 1] != key) {
+                keys[grams] = key;
+                starts[grams] = postings;
+                grams++;
+            }
+            items[postings++] = (int) packed[p];
+        }
+        starts[grams] = postings;
+        gramKeys = Arrays.copyOf(keys, grams);
+        gramStart = Arrays.copyOf(starts, grams + 1);
+        gramItems = Arrays.copyOf(items, postings);
+    }
+
+    /**
+     * Returns the number of distinct names.
+     *
+     * @return The size of the index.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Finds the names containing the query, ignoring case and diacritics.
+     *
+     * @param query The query; surrounding whitespace is ignored.
+     * @param limit Maximal number of results.
+     * @return The matching names, best first; empty for an empty query.
+     */
+    public List<String> search(CharSequence query, int limit) {
+        String q = fold(query.toString().trim());
+        List<String> result = new ArrayList<>();
+        if (q.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        // 1) the rarest gram of the query limits the candidates
+        int best = -1;
+        int queryGrams = Math.max(1, q.length() - 1);
+        for (int k = 0; k < queryGrams; k++) {
+            int g = q.length() == 1 ? gram(q.charAt(0)) : gram(q.charAt(k), q.charAt(k + 1));
+            int slot = Arrays.binarySearch(gramKeys, g);
+            if (slot < 0) {
+                return result;
+            }
+            if (best < 0 || postings(slot) < postings(best)) {
+                best = slot;
+            }
+        }
+
+        // 2) check the candidates and bucket them by rank; candidates are in alphabetical order
+        char[] qc = q.toCharArray();
+        int[] wordMatches = new int[postings(best)];
+        int[] otherMatches = new int[postings(best)];
+        int words = 0, others = 0;
+        for (int p = gramStart[best]; p < gramStart[best + 1] && result.size() < limit; p++) {
+            int i = gramItems[p];
+            int at = indexOf(i, qc, textStart[i]);
+            if (at < 0) {
+                continue;
+            }
+            if (at == textStart[i]) {
+                result.add(names[i]);
+            } else if (isWordStart(i, at) || wordStartMatch(i, qc, at)) {
+                wordMatches[words++] = i;
+            } else {
+                otherMatches[others++] = i;
+            }
+        }
+        for (int w = 0; w < words && result.size() < limit; w++) {
+            result.add(names[wordMatches[w]]);
+        }
+        for (int o = 0; o < others && result.size() < limit; o++) {
+            result.add(names[otherMatches[o]]);
+        }
+        return result;
+    }
+
+    /**
+     * Folds a string for comparison: lower case without diacritics.
+     *
+     * @param s The string.
+     * @return The folded string.
+     */
+    public static String fold(String s) {
+        String lower = s.toLowerCase(Locale.ROOT);
+        // plain ASCII needs no decomposition
+        boolean ascii = true;
+        for (int k = 0; k < lower.length() && ascii; k++) {
+            ascii = lower.charAt(k) < 0x80;
+        }
+        if (ascii) {
+            return lower;
+        }
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for (int k = 0; k < decomposed.length(); k++) {
+            char c = decomposed.charAt(k);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private int postings(int slot) {
+        return gramStart[slot + 1] - gramStart[slot];
+    }
+
+    /**
+     * Position of the query in folded name i at or after from, or -1.
+     */
+    private int indexOf(int i, char[] q, int from) {
+        int last = textStart[i + 1] - q.length;
+        for (int k = from; k <= last; k++) {
+            int m = 0;
+            while (m < q.length && text[k + m] == q[m]) {
+                m++;
+            }
+            if (m == q.length) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether a later occurrence of the query in name i, after the first one at at, starts a word.
+     */
+    private boolean wordStartMatch(int i, char[] q, int at) {
+        for (int k = indexOf(i, q, at + 1); k >= 0; k = indexOf(i, q, k + 1)) {
+            if (isWordStart(i, k)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isWordStart(int i, int k) {
+        return k == textStart[i] || !Character.isLetterOrDigit(text[k - 1]);
+    }
+
+    private static int gram(char c) {
+        // U+FFFF is not a character, so no pair of the text is keyed like a single character
+        return gram(c, '\uFFFF');
+    }
+
+    private static int gram(char c1, char c2) {
+        return (c1 << GRAM_SHIFT) | c2;
+    }
+}
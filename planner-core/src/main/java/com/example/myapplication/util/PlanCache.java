@@ -0,0 +1,233 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.PlanRequest;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of planned routes keyed by {@link PlanRequest#cacheKey()}, with least-recently-used
+ * eviction. Entries are kept in a JSON file (least recently used first, so the order survives
+ * a restart), read on first use and written only by {@link #flush()}, so lookups and updates
+ * never touch the disk and the caller decides when and on which thread the file is written.
+ *
+ * Only the route itself (place IDs in order) and its totals are stored; places are resolved by
+ * ID when a cached plan is used, and a plan whose places no longer exist is treated as a miss.
+ */
+public class PlanCache {
+
+    /**
+     * Cached result of one planning run.
+     */
+    public static class Entry {
+        private List<String> routeIds;
+        private double length;
+        private double duration;
+        private long createdAtMillis;
+
+        /**
+         * Creates an entry.
+         *
+         * @param routeIds IDs of the route from start to end, including "start" and "end".
+         * @param length   Length of the route in meters.
+         * @param duration Total time of the route (driving and mowing) in hours.
+         */
+        public Entry(List<String> routeIds, double length, double duration) {
+            this.routeIds = new ArrayList<>(routeIds);
+            this.length = length;
+            this.duration = duration;
+            this.createdAtMillis = System.currentTimeMillis();
+        }
+
+        /**
+         * Returns the route.
+         *
+         * @return IDs of the route from start to end.
+         */
+        public List<String> getRouteIds() {
+            return routeIds;
+        }
+
+        /**
+         * Returns the length of the route.
+         *
+         * @return Length of the route in meters.
+         */
+        public double getLength() {
+            return length;
+        }
+
+        /**
+         * Returns the total time of the route.
+         *
+         * @return Total time of the route in hours.
+         */
+        public double getDuration() {
+            return duration;
+        }
+
+        /**
+         * Returns when the route was planned.
+         *
+         * @return Milliseconds since the epoch.
+         */
+        public long getCreatedAtMillis() {
+            return createdAtMillis;
+        }
+    }
+
+    /**
+     * Record of the cache file.
+     */
+    private static class Record {
+        String key;
+        Entry entry;
+    }
+
+    private final File file;
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+    private boolean loaded;
+    private boolean dirty;
+
+    /**
+     * Creates a cache persisted in the given file.
+     *
+     * @param file     The cache file; it is created on the first flush.
+     * @param capacity Maximal number of cached plans.
+     */
+    public PlanCache(File file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PlanCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached plan of a request and marks it as recently used. The new order is
+     * written with the next flush, so eviction after a restart follows the actual use.
+     *
+     * @param key The key of the request.
+     * @return The cached plan, or null if there is none.
+     */
+    public synchronized Entry get(String key) {
+        ensureLoaded();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            PlannerMetrics.increment(PlannerMetrics.Counter.CACHE_MISSES);
+            return null;
+        }
+        PlannerMetrics.increment(PlannerMetrics.Counter.CACHE_HITS);
+        dirty = true;
+        return entry;
+    }
+
+    /**
+     * Stores the plan of a request, evicting the least recently used plan when the cache is full.
+     *
+     * @param key   The key of the request.
+     * @param entry The plan.
+     */
+    public synchronized void put(String key, Entry entry) {
+        ensureLoaded();
+        entries.put(key, entry);
+        dirty = true;
+    }
+
+    /**
+     * Removes the plan of a request, e.g. when its places no longer exist.
+     *
+     * @param key The key of the request.
+     */
+    public synchronized void remove(String key) {
+        ensureLoaded();
+        if (entries.remove(key) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Returns the number of cached plans.
+     *
+     * @return The number of plans.
+     */
+    public synchronized int size() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!file.exists()) {
+            return;
+        }
+        Type listType = new TypeToken<List<Record>>() {}.getType();
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            List<Record> records = new Gson().fromJson(reader, listType);
+            if (records != null) {
+                for (Record r : records) {
+                    if (r != null && r.key != null && r.entry != null && r.entry.routeIds != null) {
+                        entries.put(r.key, r.entry);
+                    }
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            // a damaged cache is dropped; it only costs recomputation
+            entries.clear();
+        }
+    }
+
+    /**
+     * Writes the cache file if plans were used, added or removed since the last flush. Entries
+     * are written to a temporary file first, so a crash never leaves a truncated cache.
+     */
+    public synchronized void flush() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        List<Record> records = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Record r = new Record();
+            r.key = e.getKey();
+            r.entry = e.getValue();
+            records.add(r);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+                new Gson().toJson(records, writer);
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        } catch (IOException e) {
+            // keep working from memory; the cache is rebuilt on demand
+            tmp.delete();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.myapplication.util;
+
+/**
+ * Calendar arithmetic on epoch days (days since 1970-01-01) in the proleptic Gregorian calendar.
+ * Visit dates are stored as "yyyy-MM-dd" strings; the planner only needs to parse, compare and
+ * format them and to know their year, which this class does without a date library.
+ */
+public final class PlannerDates {
+
+    private PlannerDates() {
+    }
+
+    /**
+     * Parses an ISO date in the form yyyy-MM-dd.
+     *
+     * @param date The date string.
+     * @return Days since 1970-01-01.
+     * @throws IllegalArgumentException if the string is not a valid date.
+     */
+    public static long parse(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Converts a calendar date to an epoch day.
+     *
+     * @param year  The year.
+     * @param month The month, 1-12.
+     * @param day   The day of the month.
+     * @return Days since 1970-01-01.
+     */
+    public static long toEpochDay(int year, int month, int day) {
+        // shift the year to start in March, so the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    /**
+     * Returns the year of an epoch day.
+     *
+     * @param epochDay Days since 1970-01-01.
+     * @return The year.
+     */
+    public static int yearOf(long epochDay) {
+        return (int) (civil(epochDay) >> 9);
+    }
+
+    /**
+     * Formats an epoch day as an ISO date yyyy-MM-dd.
+     *
+     * @param epochDay Days since 1970-01-01, within years 0 to 9999.
+     * @return The date string.
+     */
+    public static String format(long epochDay) {
+        long civil = civil(epochDay);
+        int year = (int) (civil >> 9), month = (int) (civil >> 5) & 15, day = (int) civil & 31;
+        char[] out = new char[10];
+        for (int i = 3; i >= 0; i--, year /= 10) out[i] = (char) ('0' + year % 10);
+        out[4] = '-';
+        out[5] = (char) ('0' + month / 10);
+        out[6] = (char) ('0' + month % 10);
+        out[7] = '-';
+        out[8] = (char) ('0' + day / 10);
+        out[9] = (char) ('0' + day % 10);
+        return new String(out);
+    }
+
+    /**
+     * Converts an epoch day to a calendar date packed as year << 9 | month << 5 | day.
+     */
+    private static long civil(long epochDay) {
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        // the computed year starts in March, so January and February belong to the next year
+        long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year << 9 | month << 5 | day;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Invalid date: " + s);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.myapplication.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on timers and counters of the planning pipeline.
+ *
+ * Recording is cheap enough for the hot paths: stage timings go into a preallocated ring buffer
+ * of primitive arrays plus per-stage totals, counters are atomic longs indexed by the enum
+ * ordinal, and nothing is boxed or allocated. Loops count locally and add their count once.
+ * Reading happens through {@link #snapshot()}, which copies the state into plain objects for
+ * the debug dialog or for JSON export alongside a saved route plan.
+ *
+ * Usage:
+ *   long t = PlannerMetrics.start();
+ *   ... work ...
+ *   PlannerMetrics.stop(PlannerMetrics.Stage.MATCHING, t);
+ *   PlannerMetrics.add(PlannerMetrics.Counter.MATRIX_LOOKUPS, lookups);
+ */
+public final class PlannerMetrics {
+
+    /**
+     * Timed stages of the pipeline.
+     */
+    public enum Stage {
+        /** One HTTP request to the Matrix API. */
+        HTTP_REQUEST,
+        /** Distance updates of start and end before planning (both directions, all batches). */
+        MATRIX_FETCH,
+        /** Construction of a DistanceMatrix. */
+        MATRIX_BUILD,
+        /** Compilation of the cost model into a cost matrix. */
+        COST_COMPILE,
+        /** Construction of the complete JGraphT graph. */
+        GRAPH_BUILD,
+        /** Minimum spanning tree. */
+        SPANNING_TREE,
+        /** Minimum-weight perfect matching of the odd vertices. */
+        MATCHING,
+        /** Eulerian cycle and shortcutting. */
+        EULER_TOUR,
+        /** Cheapest-insertion construction on directed costs. */
+        INSERTION_ROUTE,
+        /** 2-opt / Or-opt local search. */
+        IMPROVEMENT,
+        /** Whole generateRoute call. */
+        GENERATE_ROUTE,
+        /** Whole replanRoute call. */
+        REPLAN_ROUTE,
+        /** Corridor prefilter of auto-fill candidates. */
+        PRUNE,
+        /** Whole addExtraCemeteries call. */
+        AUTO_FILL,
+        /** Saving the route plan. */
+        SAVE_PLAN
+    }
+
+    /**
+     * Event counters.
+     */
+    public enum Counter {
+        /** Reads of cost, distance or duration matrices inside the solvers. */
+        MATRIX_LOOKUPS,
+        /** Matrix pairs filled from coordinates because road data was missing. */
+        FALLBACK_PAIRS,
+        /** Cache hits. */
+        CACHE_HITS,
+        /** Cache misses. */
+        CACHE_MISSES,
+        /** HTTP requests sent. */
+        HTTP_REQUESTS,
+        /** HTTP response bytes received (the API answers with ASCII JSON). */
+        HTTP_BYTES,
+        /** Failed HTTP requests. */
+        HTTP_ERRORS,
+        /** Auto-fill candidates that passed the filters and the prefilter. */
+        CANDIDATES_EVALUATED,
+        /** Auto-fill candidates dropped by the corridor prefilter. */
+        CANDIDATES_PRUNED,
+        /** Improving moves applied by the local search. */
+        IMPROVEMENT_MOVES
+    }
+
+    /**
+     * Number of recent stage events kept; a power of two.
+     */
+    static final int CAPACITY = 512;
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final Counter[] COUNTERS = Counter.values();
+
+    // ring buffer of recent events; a slot is claimed with one atomic increment
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final int[] eventStage = new int[CAPACITY];
+    private static final long[] eventEndNanos = new long[CAPACITY];
+    private static final long[] eventDurationNanos = new long[CAPACITY];
+
+    // totals per stage and counters, indexed by ordinal
+    private static final AtomicLongArray stageCount = new AtomicLongArray(STAGES.length);
+    private static final AtomicLongArray stageTotalNanos = new AtomicLongArray(STAGES.length);
+    private static final AtomicLongArray stageMaxNanos = new AtomicLongArray(STAGES.length);
+    private static final AtomicLongArray counters = new AtomicLongArray(COUNTERS.length);
+
+    private PlannerMetrics() {
+    }
+
+    /**
+     * Returns the start timestamp of a stage.
+     *
+     * @return The current value of System.nanoTime().
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a finished stage.
+     *
+     * @param stage      The stage.
+     * @param startNanos The value returned by {@link #start()} when the stage began.
+     * @return The end timestamp, usable as the start of the next stage.
+     */
+    public static long stop(Stage stage, long startNanos) {
+        long end = System.nanoTime();
+        long duration = end - startNanos;
+        int s = stage.ordinal();
+        int slot = (int) (sequence.getAndIncrement() & (CAPACITY - 1));
+        eventStage[slot] = s;
+        eventEndNanos[slot] = end;
+        eventDurationNanos[slot] = duration;
+        stageCount.incrementAndGet(s);
+        stageTotalNanos.addAndGet(s, duration);
+        long max;
+        while (duration > (max = stageMaxNanos.get(s)) && !stageMaxNanos.compareAndSet(s, max, duration)) {
+            // retry until the maximum is stored or a larger one is seen
+        }
+        return end;
+    }
+
+    /**
+     * Increments a counter by one.
+     *
+     * @param counter The counter.
+     */
+    public static void increment(Counter counter) {
+        counters.incrementAndGet(counter.ordinal());
+    }
+
+    /**
+     * Adds to a counter.
+     *
+     * @param counter The counter.
+     * @param delta   The amount to add.
+     */
+    public static void add(Counter counter, long delta) {
+        counters.addAndGet(counter.ordinal(), delta);
+    }
+
+    /**
+     * Returns the current value of a counter.
+     *
+     * @param counter The counter.
+     * @return The value.
+     */
+    public static long get(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    /**
+     * Clears all timings and counters.
+     */
+    public static void reset() {
+        for (int i = 0; i < STAGES.length; i++) {
+            stageCount.set(i, 0);
+            stageTotalNanos.set(i, 0);
+            stageMaxNanos.set(i, 0);
+        }
+        for (int i = 0; i < COUNTERS.length; i++) {
+            counters.set(i, 0);
+        }
+        sequence.set(0);
+    }
+
+    /**
+     * Copies the current state. Events recorded concurrently with the copy may be torn, which is
+     * acceptable for diagnostics.
+     *
+     * @return The snapshot.
+     */
+    public static Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.takenAtMillis = System.currentTimeMillis();
+        for (Stage stage : STAGES) {
+            int s = stage.ordinal();
+            long count = stageCount.get(s);
+            if (count > 0) {
+                snapshot.stages.put(stage.name(), new StageTotal(count, stageTotalNanos.get(s), stageMaxNanos.get(s)));
+            }
+        }
+        for (Counter counter : COUNTERS) {
+            snapshot.counters.put(counter.name(), counters.get(counter.ordinal()));
+        }
+        long last = sequence.get();
+        for (long seq = Math.max(0, last - CAPACITY); seq < last; seq++) {
+            int slot = (int) (seq & (CAPACITY - 1));
+            snapshot.recent.add(new Event(STAGES[eventStage[slot]].name(),
+                    eventEndNanos[slot], eventDurationNanos[slot] / 1e6));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Totals of one stage.
+     */
+    public static class StageTotal {
+        public final long count;
+        public final double totalMillis;
+        public final double maxMillis;
+
+        StageTotal(long count, long totalNanos, long maxNanos) {
+            this.count = count;
+            this.totalMillis = totalNanos / 1e6;
+            this.maxMillis = maxNanos / 1e6;
+        }
+    }
+
+    /**
+     * One recorded stage execution.
+     */
+    public static class Event {
+        public final String stage;
+        public final long endNanos;
+        public final double millis;
+
+        Event(String stage, long endNanos, double millis) {
+            this.stage = stage;
+            this.endNanos = endNanos;
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * Copy of the metrics at one moment.
+     */
+    public static class Snapshot {
+        public long takenAtMillis;
+        public final Map<String, StageTotal> stages = new LinkedHashMap<>();
+        public final Map<String, Long> counters = new LinkedHashMap<>();
+        public final List<Event> recent = new ArrayList<>();
+
+        /**
+         * Returns what happened between an earlier snapshot and this one: stage counts and
+         * totals and counter values are differences, maxima and recent events are those of
+         * this snapshot that ended after the earlier one was taken.
+         *
+         * @param earlier The earlier snapshot.
+         * @return The difference.
+         */
+        public Snapshot since(Snapshot earlier) {
+            Snapshot d = new Snapshot();
+            d.takenAtMillis = takenAtMillis;
+            for (Map.Entry<String, StageTotal> e : stages.entrySet()) {
+                StageTotal before = earlier.stages.get(e.getKey());
+                StageTotal now = e.getValue();
+                long count = now.count - (before == null ? 0 : before.count);
+                if (count > 0) {
+                    double total = now.totalMillis - (before == null ? 0 : before.totalMillis);
+                    d.stages.put(e.getKey(), new StageTotal(count, (long) (total * 1e6), (long) (now.maxMillis * 1e6)));
+                }
+            }
+            for (Map.Entry<String, Long> e : counters.entrySet()) {
+                Long before = earlier.counters.get(e.getKey());
+                d.counters.put(e.getKey(), e.getValue() - (before == null ? 0 : before));
+            }
+            long since = earlier.recent.isEmpty() ? Long.MIN_VALUE : earlier.recent.get(earlier.recent.size() - 1).endNanos;
+            for (Event event : recent) {
+                if (event.endNanos > since) {
+                    d.recent.add(event);
+                }
+            }
+            return d;
+        }
+
+        /**
+         * Serializes the snapshot.
+         *
+         * @return The snapshot as JSON.
+         */
+        public String toJson() {
+            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            return gson.toJson(this);
+        }
+
+        /**
+         * Formats stage totals and non-zero counters for display.
+         *
+         * @return One line per stage and counter.
+         */
+        public String toText() {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, StageTotal> e : stages.entrySet()) {
+                StageTotal t = e.getValue();
+                sb.append(String.format(Locale.ROOT, "%-16s %5dx %9.2f ms (max %.2f)%n",
+                        e.getKey(), t.count, t.totalMillis, t.maxMillis));
+            }
+            for (Map.Entry<String, Long> e : counters.entrySet()) {
+                if (e.getValue() != 0) {
+                    sb.append(String.format(Locale.ROOT, "%-20s %d%n", e.getKey(), e.getValue()));
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
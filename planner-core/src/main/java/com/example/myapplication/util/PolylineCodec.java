@@ -0,0 +1,175 @@
+package com.example.myapplication.util;
+
+import java.util.Arrays;
+
+/**
+ * Encoded polyline format (the format of Google's and OSRM's routing APIs) and Douglas–Peucker
+ * simplification of road geometry.
+ *
+ * A point is stored as the difference to the previous point in 1e-5 degrees (about a meter),
+ * written as base-64 characters of five bits each, so a point of a road usually takes four to
+ * six ASCII characters instead of two doubles.
+ */
+public final class PolylineCodec {
+
+    private static final double PRECISION = 1e5;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Encodes points as an encoded polyline.
+     *
+     * @param latitudes  Latitudes of the points.
+     * @param longitudes Longitudes of the points.
+     * @return The encoded polyline.
+     */
+    public static String encode(double[] latitudes, double[] longitudes) {
+        StringBuilder out = new StringBuilder(latitudes.length * 6);
+        long lastLat = 0, lastLon = 0;
+        for (int i = 0; i < latitudes.length; i++) {
+            long lat = Math.round(latitudes[i] * PRECISION);
+            long lon = Math.round(longitudes[i] * PRECISION);
+            encodeValue(lat - lastLat, out);
+            encodeValue(lon - lastLon, out);
+            lastLat = lat;
+            lastLon = lon;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Decodes an encoded polyline.
+     *
+     * @param encoded The encoded polyline.
+     * @return The latitudes in [0] and the longitudes in [1].
+     * @throws IllegalArgumentException if the polyline is truncated.
+     */
+    public static double[][] decode(String encoded) {
+        double[] latitudes = new double[encoded.length() / 2];
+        double[] longitudes = new double[latitudes.length];
+        int n = 0;
+        long lat = 0, lon = 0;
+        int[] pos = {0};
+        while (pos[0] < encoded.length()) {
+            lat += decodeValue(encoded, pos);
+            lon += decodeValue(encoded, pos);
+            latitudes[n] = lat / PRECISION;
+            longitudes[n] = lon / PRECISION;
+            n++;
+        }
+        return new double[][]{Arrays.copyOf(latitudes, n), Arrays.copyOf(longitudes, n)};
+    }
+
+    /**
+     * Simplifies a line with the Douglas–Peucker algorithm: the points kept are those needed to
+     * stay within the tolerance of the original line; the first and last point are always kept.
+     * The ranges still to split are kept on a stack instead of recursing, so long legs with
+     * thousands of points cannot overflow the thread stack.
+     *
+     * @param latitudes       Latitudes of the points.
+     * @param longitudes      Longitudes of the points.
+     * @param toleranceMeters Maximal distance of a dropped point from the simplified line.
+     * @return The kept points, latitudes in [0] and longitudes in [1].
+     */
+    public static double[][] simplify(double[] latitudes, double[] longitudes, double toleranceMeters) {
+        int n = latitudes.length;
+        if (n <= 2) {
+            return new double[][]{latitudes.clone(), longitudes.clone()};
+        }
+        // 1) local equirectangular projection in meters, accurate over the extent of a leg
+        double cosLat = Math.cos(Math.toRadians(latitudes[0]));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = Math.toRadians(longitudes[i] - longitudes[0]) * cosLat * GeoMath.EARTH_RADIUS;
+            y[i] = Math.toRadians(latitudes[i] - latitudes[0]) * GeoMath.EARTH_RADIUS;
+        }
+
+        // 2) split ranges at their farthest point while it is farther than the tolerance
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        double tolerance2 = toleranceMeters * toleranceMeters;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int farthest = -1;
+            double max = tolerance2;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistance2(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > max) {
+                    max = d;
+                    farthest = i;
+                }
+            }
+            if (farthest < 0) {
+                continue;
+            }
+            keep[farthest] = true;
+            if (top + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[top++] = first;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = last;
+        }
+
+        // 3) the kept points in order
+        int count = 0;
+        for (boolean k : keep) {
+            if (k) {
+                count++;
+            }
+        }
+        double[] outLat = new double[count];
+        double[] outLon = new double[count];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (keep[i]) {
+                outLat[j] = latitudes[i];
+                outLon[j++] = longitudes[i];
+            }
+        }
+        return new double[][]{outLat, outLon};
+    }
+
+    /**
+     * Squared distance of point p from the segment a–b.
+     */
+    private static double segmentDistance2(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / len2));
+        double ex = ax + t * dx - px, ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    private static void encodeValue(long value, StringBuilder out) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+
+    private static long decodeValue(String encoded, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (pos[0] >= encoded.length()) {
+                throw new IllegalArgumentException("Truncated polyline");
+            }
+            b = encoded.charAt(pos[0]++) - 63;
+            result |= (long) (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.myapplication.util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of the road geometry of route legs keyed by the pair of their end points, with
+ * least-recently-used eviction, so a leg is fetched from the routing API once and every later
+ * route or redraw using it costs no network.
+ *
+ * A leg is kept only as encoded polylines ({@link PolylineCodec}), one per level of
+ * {@link #LEVEL_ZOOMS}, each simplified with Douglas–Peucker to a pixel at its zoom level; the
+ * map decodes just the level of its current zoom. Entries are kept in a JSON file like
+ * {@link PlanCache}, but written only by {@link #flush()}, once after a batch of legs was fetched.
+ */
+public class RouteGeometryCache {
+
+    /**
+     * Zoom levels a leg is simplified for, coarse to fine. The finest level is close to the
+     * precision of the encoding, so deeper zoom levels use it as well.
+     */
+    public static final int[] LEVEL_ZOOMS = {8, 11, 14, 17};
+
+    /**
+     * Maximal distance of a dropped point from the simplified line, in pixels at the zoom level.
+     */
+    private static final double TOLERANCE_PIXELS = 1.0;
+
+    private static final int TILE_PIXELS = 256;
+
+    /**
+     * Record of the cache file.
+     */
+    private static class Record {
+        String key;
+        String[] levels;
+    }
+
+    private final File file;
+    private final int capacity;
+    private final LinkedHashMap<String, String[]> entries;
+    private boolean loaded;
+    private boolean dirty;
+
+    /**
+     * Creates a cache persisted in the given file.
+     *
+     * @param file     The cache file; it is created on the first flush. May be null to keep the
+     *                 cache in memory only.
+     * @param capacity Maximal number of cached legs.
+     */
+    public RouteGeometryCache(File file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+                return size() > RouteGeometryCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the key of the leg between two points. Coordinates are rounded to the precision of
+     * the encoding, so a moved place gets a new key while repeated requests of the same leg match.
+     *
+     * @param fromLat Latitude of the start of the leg.
+     * @param fromLon Longitude of the start of the leg.
+     * @param toLat   Latitude of the end of the leg.
+     * @param toLon   Longitude of the end of the leg.
+     * @return The key.
+     */
+    public static String key(double fromLat, double fromLon, double toLat, double toLon) {
+        return Math.round(fromLat * 1e5) + "," + Math.round(fromLon * 1e5) + ">"
+                + Math.round(toLat * 1e5) + "," + Math.round(toLon * 1e5);
+    }
+
+    /**
+     * Returns the encoded levels of a leg and marks it as recently used; the new order is
+     * written with the next flush.
+     *
+     * @param key The key of the leg.
+     * @return The encoded polylines per level of {@link #LEVEL_ZOOMS}, or null if the leg is not cached.
+     */
+    public synchronized String[] get(String key) {
+        ensureLoaded();
+        return entries.get(key);
+    }
+
+    /**
+     * Whether the geometry of a leg is cached, without changing the eviction order.
+     *
+     * @param key The key of the leg.
+     * @return true if the leg is cached.
+     */
+    public synchronized boolean contains(String key) {
+        ensureLoaded();
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Simplifies the geometry of a leg for every level and stores it, evicting the least
+     * recently used leg when the cache is full.
+     *
+     * @param key        The key of the leg.
+     * @param latitudes  Latitudes of the road geometry.
+     * @param longitudes Longitudes of the road geometry.
+     */
+    public void put(String key, double[] latitudes, double[] longitudes) {
+        // simplification runs outside the lock; it is the expensive part
+        String[] levels = new String[LEVEL_ZOOMS.length];
+        double lat = latitudes.length > 0 ? latitudes[0] : 0;
+        for (int k = 0; k < levels.length; k++) {
+            double[][] simplified = PolylineCodec.simplify(latitudes, longitudes,
+                    TOLERANCE_PIXELS * metersPerPixel(LEVEL_ZOOMS[k], lat));
+            levels[k] = PolylineCodec.encode(simplified[0], simplified[1]);
+        }
+        synchronized (this) {
+            ensureLoaded();
+            entries.put(key, levels);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Returns the number of cached legs.
+     *
+     * @return The number of legs.
+     */
+    public synchronized int size() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    /**
+     * Returns the level to draw at a zoom level: the coarsest level simplified for that zoom or
+     * a deeper one, so the error stays below a pixel.
+     *
+     * @param zoom The zoom level of the map.
+     * @return The index into {@link #LEVEL_ZOOMS}.
+     */
+    public static int levelIndex(double zoom) {
+        for (int k = 0; k < LEVEL_ZOOMS.length; k++) {
+            if (LEVEL_ZOOMS[k] >= zoom) {
+                return k;
+            }
+        }
+        return LEVEL_ZOOMS.length - 1;
+    }
+
+    /**
+     * Decodes one level of a cached leg.
+     *
+     * @param levels The encoded levels from {@link #get}.
+     * @param level  The index of the level, see {@link #levelIndex}.
+     * @return The latitudes in [0] and the longitudes in [1].
+     */
+    public static double[][] decode(String[] levels, int level) {
+        return PolylineCodec.decode(levels[Math.min(level, levels.length - 1)]);
+    }
+
+    /**
+     * Writes the cache file if legs were added since the last flush. Legs are written to a
+     * temporary file first, so a crash never leaves a truncated cache.
+     */
+    public synchronized void flush() {
+        if (!dirty || file == null) {
+            return;
+        }
+        dirty = false;
+        List<Record> records = new ArrayList<>(entries.size());
+        for (Map.Entry<String, String[]> e : entries.entrySet()) {
+            Record r = new Record();
+            r.key = e.getKey();
+            r.levels = e.getValue();
+            records.add(r);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+                new Gson().toJson(records, writer);
+            }
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        } catch (IOException e) {
+            // keep working from memory; the legs are fetched again after a restart
+            tmp.delete();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (file == null || !file.exists()) {
+            return;
+        }
+        Type listType = new TypeToken<List<Record>>() {}.getType();
+        try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            List<Record> records = new Gson().fromJson(reader, listType);
+            if (records != null) {
+                for (Record r : records) {
+                    if (r != null && r.key != null && r.levels != null && r.levels.length == LEVEL_ZOOMS.length) {
+                        entries.put(r.key, r.levels);
+                    }
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            // a damaged cache is dropped; it only costs fetching the legs again
+            entries.clear();
+        }
+    }
+
+    private static double metersPerPixel(int zoom, double latitude) {
+        return GeoMath.mercatorTileMeters(latitude, zoom) / TILE_PIXELS;
+    }
+}
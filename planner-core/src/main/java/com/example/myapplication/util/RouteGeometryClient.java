@@ -0,0 +1,161 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.platform.HttpTransport;
+import com.example.myapplication.platform.PlannerLogger;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+
+/**
+ * Client of the Mapy.cz routing API fetching the road geometry of route legs into a
+ * {@link RouteGeometryCache}. Only legs missing from the cache are requested, one call per leg
+ * and at most {@link #MAX_CALLS} per route; legs that could not be fetched are left out and drawn
+ * as straight lines by the caller. The endpoint can be replaced by a local stand-in server.
+ */
+public class RouteGeometryClient {
+
+    private static final String TAG = "RouteGeometryClient";
+
+    /**
+     * The Mapy.cz routing endpoint.
+     */
+    public static final String DEFAULT_ENDPOINT = "https://api.mapy.cz/v1/routing/route";
+
+    /**
+     * Maximal number of legs fetched for one route.
+     */
+    public static final int MAX_CALLS = 30;
+
+    /**
+     * Pause between two API calls in milliseconds.
+     */
+    private static final long CALL_PAUSE_MS = 100;
+
+    private final String endpoint;
+    private final String apiKey;
+    private final HttpTransport transport;
+    private final PlannerLogger logger;
+
+    /**
+     * Creates a client.
+     *
+     * @param endpoint  The routing endpoint, {@link #DEFAULT_ENDPOINT} or a stand-in.
+     * @param apiKey    The Mapy.cz API key.
+     * @param transport HTTP transport used for the requests.
+     * @param logger    Logger for requests and errors.
+     */
+    public RouteGeometryClient(String endpoint, String apiKey, HttpTransport transport, PlannerLogger logger) {
+        this.endpoint = endpoint;
+        this.apiKey = apiKey;
+        this.transport = transport;
+        this.logger = logger;
+    }
+
+    /**
+     * Fetches the legs of a route the cache does not hold, on the calling thread, and writes the
+     * cache once at the end. Fetching stops at the first failed request, as the next ones would
+     * most likely fail the same way.
+     *
+     * @param latitudes  Latitudes of the stops from start to end.
+     * @param longitudes Longitudes of the stops from start to end.
+     * @param cache      The cache to fill.
+     * @return The number of legs fetched.
+     * @throws InterruptedException if the thread is interrupted between calls.
+     */
+    public int fetchMissing(double[] latitudes, double[] longitudes, RouteGeometryCache cache)
+            throws InterruptedException {
+        int fetched = 0;
+        try {
+            for (int i = 0; i + 1 < latitudes.length && fetched < MAX_CALLS; i++) {
+                String key = RouteGeometryCache.key(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]);
+                if ((latitudes[i] == latitudes[i + 1] && longitudes[i] == longitudes[i + 1]) || cache.contains(key)) {
+                    continue;
+                }
+                if (fetched > 0) {
+                    Thread.sleep(CALL_PAUSE_MS);
+                }
+                double[][] geometry;
+                try {
+                    geometry = fetchLeg(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]);
+                } catch (IOException e) {
+                    logger.error(TAG, "Geometrie úseku " + key + " nenačtena: " + e.getMessage(), null);
+                    break;
+                }
+                cache.put(key, geometry[0], geometry[1]);
+                fetched++;
+            }
+        } finally {
+            cache.flush();
+        }
+        return fetched;
+    }
+
+    /**
+     * Requests the road geometry of one leg.
+     *
+     * @param fromLat Latitude of the start of the leg.
+     * @param fromLon Longitude of the start of the leg.
+     * @param toLat   Latitude of the end of the leg.
+     * @param toLon   Longitude of the end of the leg.
+     * @return The latitudes in [0] and the longitudes in [1] of the geometry.
+     * @throws IOException if the request fails or the response has no line geometry.
+     */
+    public double[][] fetchLeg(double fromLat, double fromLon, double toLat, double toLon) throws IOException {
+        String urlString = endpoint + "?apikey=" + URLEncoder.encode(apiKey, "UTF-8")
+                + "&routeType=" + URLEncoder.encode("car_fast", "UTF-8")
+                + "&lang=" + URLEncoder.encode("cs", "UTF-8")
+                + "&format=geojson"
+                + "&start=" + URLEncoder.encode(fromLon + "," + fromLat, "UTF-8")
+                + "&end=" + URLEncoder.encode(toLon + "," + toLat, "UTF-8");
+        logger.debug(TAG, "URL: " + urlString);
+
+        long t = PlannerMetrics.start();
+        String response;
+        try {
+            response = transport.get(urlString);
+        } catch (IOException e) {
+            PlannerMetrics.increment(PlannerMetrics.Counter.HTTP_ERRORS);
+            throw e;
+        } finally {
+            PlannerMetrics.stop(PlannerMetrics.Stage.HTTP_REQUEST, t);
+            PlannerMetrics.increment(PlannerMetrics.Counter.HTTP_REQUESTS);
+        }
+        PlannerMetrics.add(PlannerMetrics.Counter.HTTP_BYTES, response.length());
+        try {
+            return parseGeometry(new Gson().fromJson(response, JsonObject.class));
+        } catch (JsonParseException | IllegalStateException | ClassCastException e) {
+            throw new IOException("Neplatná odpověď API: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the [lon, lat] coordinates of the GeoJSON line of a response. The line is the
+     * "geometry" of the response, a Feature whose own "geometry" is the LineString.
+     */
+    private static double[][] parseGeometry(JsonObject response) throws IOException {
+        JsonObject geometry = response == null ? null : response.getAsJsonObject("geometry");
+        while (geometry != null && !geometry.has("coordinates") && geometry.has("geometry")) {
+            geometry = geometry.getAsJsonObject("geometry");
+        }
+        if (geometry == null || !geometry.has("coordinates")) {
+            throw new IOException("Žádná geometrie v odpovědi API.");
+        }
+        JsonArray coordinates = geometry.getAsJsonArray("coordinates");
+        if (coordinates.size() < 2) {
+            throw new IOException("Žádná geometrie v odpovědi API.");
+        }
+        double[] latitudes = new double[coordinates.size()];
+        double[] longitudes = new double[coordinates.size()];
+        for (int i = 0; i < coordinates.size(); i++) {
+            JsonElement point = coordinates.get(i);
+            longitudes[i] = point.getAsJsonArray().get(0).getAsDouble();
+            latitudes[i] = point.getAsJsonArray().get(1).getAsDouble();
+        }
+        return new double[][]{latitudes, longitudes};
+    }
+}
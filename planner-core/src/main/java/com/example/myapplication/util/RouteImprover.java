@@ -0,0 +1,238 @@
+package com.example.myapplication.util;
+
+import java.util.Arrays;
+
+/**
+ * Local search over an open route with fixed endpoints (start at index 0, end at the last index).
+ * Costs are read from a dense row-major matrix where cost[i * n + j] is the cost of travelling
+ * from node i to node j, so directed (asymmetric) costs are supported:
+ *
+ *   2-opt reverses a segment of the route. With directed costs the reversed segment is travelled
+ *   the other way round, so the cost change includes the difference between the backward and the
+ *   forward cost of the segment, evaluated in O(1) from prefix sums along the route.
+ *   Or-opt moves a segment of up to three stops to another position without reversing it.
+ *
+ * When the matrix is symmetric the reversal term is always zero and is skipped.
+ */
+public final class RouteImprover {
+
+    /**
+     * Longest segment moved by Or-opt.
+     */
+    private static final int MAX_SEGMENT = 3;
+
+    /**
+     * Safety cap on the number of improving moves for a single call.
+     */
+    private static final int MAX_MOVES = 10_000;
+
+    private static final double EPSILON = 1e-9;
+
+    private RouteImprover() {
+    }
+
+    /**
+     * Improves the route in place until neither 2-opt nor Or-opt finds an improving move.
+     *
+     * @param route     Node indices of the route; the first and the last entry stay in place.
+     * @param cost      Row-major cost matrix of dimension n.
+     * @param n         Matrix dimension.
+     * @param symmetric Whether cost[i][j] == cost[j][i] for all pairs, which enables the cheaper 2-opt evaluation.
+     * @return The number of improving moves applied.
+     */
+    public static int improve(int[] route, double[] cost, int n, boolean symmetric) {
+        long t = PlannerMetrics.start();
+        int moves = 0;
+        boolean improved = true;
+        while (improved && moves < MAX_MOVES) {
+            improved = false;
+            if (twoOpt(route, cost, n, symmetric, 0, route.length - 1)) {
+                improved = true;
+                moves++;
+                continue;
+            }
+            if (orOpt(route, cost, n, 0, route.length - 1)) {
+                improved = true;
+                moves++;
+            }
+        }
+        PlannerMetrics.add(PlannerMetrics.Counter.IMPROVEMENT_MOVES, moves);
+        PlannerMetrics.stop(PlannerMetrics.Stage.IMPROVEMENT, t);
+        return moves;
+    }
+
+    /**
+     * Improves the route in place, but only with moves that stay within `radius` positions of
+     * the given stops, e.g. the stops just inserted into a previously planned route. The rest of
+     * the route keeps its order. Apart from locating the changed stops once, which is linear in
+     * the length of the route, the work grows with the number of changed stops and the radius.
+     *
+     * @param route     Node indices of the route; the first and the last entry stay in place.
+     * @param cost      Row-major cost matrix of dimension n.
+     * @param n         Matrix dimension.
+     * @param symmetric Whether cost[i][j] == cost[j][i] for all pairs.
+     * @param changed   Node indices around which moves are allowed.
+     * @param radius    Maximal distance in positions from a changed stop.
+     * @param maxMoves  Maximal number of improving moves.
+     * @return The number of improving moves applied.
+     */
+    public static int repair(int[] route, double[] cost, int n, boolean symmetric,
+                             int[] changed, int radius, int maxMoves) {
+        long t = PlannerMetrics.start();
+        // position[node]: where the node is on the route; a move only shifts stops inside its
+        // window, so only the window is written again after one
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < route.length; i++) {
+            position[route[i]] = i;
+        }
+        int moves = 0;
+        boolean improved = true;
+        while (improved && moves < maxMoves) {
+            improved = false;
+            for (int node : changed) {
+                int pos = position[node];
+                if (pos < 0) {
+                    continue;
+                }
+                int lo = Math.max(0, pos - radius);
+                int hi = Math.min(route.length - 1, pos + radius);
+                if (twoOpt(route, cost, n, symmetric, lo, hi) || orOpt(route, cost, n, lo, hi)) {
+                    for (int i = lo; i <= hi; i++) {
+                        position[route[i]] = i;
+                    }
+                    improved = true;
+                    moves++;
+                    break;
+                }
+            }
+        }
+        PlannerMetrics.add(PlannerMetrics.Counter.IMPROVEMENT_MOVES, moves);
+        PlannerMetrics.stop(PlannerMetrics.Stage.IMPROVEMENT, t);
+        return moves;
+    }
+
+    /**
+     * Returns the cost of travelling along the route.
+     *
+     * @param route Node indices of the route.
+     * @param cost  Row-major cost matrix of dimension n.
+     * @param n     Matrix dimension.
+     * @return The sum of the leg costs.
+     */
+    public static double routeCost(int[] route, double[] cost, int n) {
+        double total = 0;
+        for (int i = 0; i + 1 < route.length; i++) {
+            total += cost[route[i] * n + route[i + 1]];
+        }
+        return total;
+    }
+
+    /**
+     * Checks whether a cost matrix is symmetric within a relative tolerance.
+     *
+     * @param cost      Row-major cost matrix of dimension n.
+     * @param n         Matrix dimension.
+     * @param tolerance Allowed relative difference between cost[i][j] and cost[j][i].
+     * @return true if every pair of opposite directions agrees within the tolerance.
+     */
+    public static boolean isSymmetric(double[] cost, int n, double tolerance) {
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double a = cost[i * n + j], b = cost[j * n + i];
+                if (Math.abs(a - b) > tolerance * Math.max(Math.abs(a), Math.abs(b))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies the first improving 2-opt move touching only positions lo..hi, if any.
+     * Reversing route[i+1..j] replaces the legs (route[i], route[i+1]) and (route[j], route[j+1]).
+     */
+    private static boolean twoOpt(int[] route, double[] cost, int n, boolean symmetric, int lo, int hi) {
+        // forward[k] / backward[k]: cost of the legs from position lo to lo + k travelled
+        // forwards / backwards, so only the window is summed
+        double[] forward = null, backward = null;
+        if (!symmetric) {
+            forward = new double[hi - lo + 1];
+            backward = new double[hi - lo + 1];
+            for (int k = 1; k <= hi - lo; k++) {
+                forward[k] = forward[k - 1] + cost[route[lo + k - 1] * n + route[lo + k]];
+                backward[k] = backward[k - 1] + cost[route[lo + k] * n + route[lo + k - 1]];
+            }
+        }
+        for (int i = lo; i < hi - 2; i++) {
+            int a = route[i], b = route[i + 1];
+            double ab = cost[a * n + b];
+            for (int j = i + 2; j < hi; j++) {
+                int c = route[j], d = route[j + 1];
+                double delta = cost[a * n + c] + cost[b * n + d] - ab - cost[c * n + d];
+                if (!symmetric) {
+                    // the legs inside b..c are now travelled in the opposite direction
+                    delta += (backward[j - lo] - backward[i + 1 - lo]) - (forward[j - lo] - forward[i + 1 - lo]);
+                }
+                if (delta < -EPSILON) {
+                    reverse(route, i + 1, j);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the first improving Or-opt move touching only positions lo..hi, if any: a segment
+     * of 1..MAX_SEGMENT stops is moved between two other consecutive stops, keeping its direction.
+     */
+    private static boolean orOpt(int[] route, double[] cost, int n, int lo, int hi) {
+        for (int len = 1; len <= MAX_SEGMENT; len++) {
+            for (int s = lo + 1; s + len - 1 <= hi - 1; s++) {
+                int e = s + len - 1;
+                int prev = route[s - 1], first = route[s], last = route[e], next = route[e + 1];
+                double removeGain = cost[prev * n + first] + cost[last * n + next] - cost[prev * n + next];
+                for (int p = lo; p < hi; p++) {
+                    // insert between route[p] and route[p + 1]; skip positions touching the segment
+                    if (p >= s - 1 && p <= e) {
+                        continue;
+                    }
+                    int x = route[p], y = route[p + 1];
+                    double insertCost = cost[x * n + first] + cost[last * n + y] - cost[x * n + y];
+                    if (insertCost - removeGain < -EPSILON) {
+                        moveSegment(route, s, e, p);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void reverse(int[] route, int from, int to) {
+        while (from < to) {
+            int tmp = route[from];
+            route[from++] = route[to];
+            route[to--] = tmp;
+        }
+    }
+
+    /**
+     * Moves route[s..e] so that it follows the stop currently at position p.
+     */
+    private static void moveSegment(int[] route, int s, int e, int p) {
+        int len = e - s + 1;
+        int[] segment = new int[len];
+        System.arraycopy(route, s, segment, 0, len);
+        if (p > e) {
+            // shift the stops between the segment and the target left
+            System.arraycopy(route, e + 1, route, s, p - e);
+            System.arraycopy(segment, 0, route, p - len + 1, len);
+        } else {
+            // p < s - 1: shift the stops after the target right
+            System.arraycopy(route, p + 1, route, p + 1 + len, s - p - 1);
+            System.arraycopy(segment, 0, route, p + 1, len);
+        }
+    }
+}
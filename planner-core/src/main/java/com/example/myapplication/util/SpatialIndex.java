@@ -0,0 +1,387 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory spatial index over the latitude/longitude of MowingPlace objects.
+ * Places are projected once with an equirectangular projection around the mean latitude
+ * of the dataset and bucketed into a uniform grid, so k-nearest and radius queries only
+ * visit the cells around the query point instead of the whole place list.
+ *
+ * The projection error grows with the distance from the mean latitude and stays within a few
+ * percent at the scale of a region (about 3 % at the edges of the Czech Republic), distances
+ * returned by the index are therefore approximate meters.
+ * The index is immutable; rebuild it when the place list changes.
+ */
+public class SpatialIndex {
+
+    private static final double MIN_CELL_SIZE = 500.0;
+    private static final int TARGET_PLACES_PER_CELL = 2;
+
+    private final List<MowingPlace> places;
+    private final double refLat;
+    private final double refLon;
+    private final double cosRefLat;
+
+    // projected coordinates in meters, indexed like places
+    private final double[] xs;
+    private final double[] ys;
+
+    // grid in compressed form: items of cell c are cellItems[cellStart[c] .. cellStart[c + 1])
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    /**
+     * Builds the index with a cell size derived from the extent and size of the dataset.
+     *
+     * @param places The places to index. The list is not copied and must not be modified afterwards.
+     */
+    public SpatialIndex(List<MowingPlace> places) {
+        this(places, 0);
+    }
+
+    /**
+     * Builds the index with the given grid cell size.
+     *
+     * @param places          The places to index. The list is not copied and must not be modified afterwards.
+     * @param cellSizeMeters  Edge length of one grid cell in meters, or 0 to derive it from the data.
+     */
+    public SpatialIndex(List<MowingPlace> places, double cellSizeMeters) {
+        this.places = places;
+        int n = places.size();
+
+        // 1) reference point for the projection: mean of all coordinates
+        double sumLat = 0, sumLon = 0;
+        for (MowingPlace p : places) {
+            sumLat += p.getLatitude();
+            sumLon += p.getLongitude();
+        }
+        refLat = n > 0 ? sumLat / n : 0;
+        refLon = n > 0 ? sumLon / n : 0;
+        cosRefLat = Math.cos(Math.toRadians(refLat));
+
+        // 2) project every place and find the extent
+        xs = new double[n];
+        ys = new double[n];
+        double loX = Double.POSITIVE_INFINITY, loY = Double.POSITIVE_INFINITY;
+        double hiX = Double.NEGATIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            MowingPlace p = places.get(i);
+            xs[i] = projectX(p.getLongitude());
+            ys[i] = projectY(p.getLatitude());
+            loX = Math.min(loX, xs[i]);
+            loY = Math.min(loY, ys[i]);
+            hiX = Math.max(hiX, xs[i]);
+            hiY = Math.max(hiY, ys[i]);
+        }
+        if (n == 0) {
+            loX = loY = hiX = hiY = 0;
+        }
+        minX = loX;
+        minY = loY;
+        maxX = hiX;
+        maxY = hiY;
+
+        // 3) size the grid so that a cell holds only a few places on average
+        double width = hiX - loX, height = hiY - loY;
+        if (cellSizeMeters <= 0) {
+            double cellCount = Math.max(1.0, (double) n / TARGET_PLACES_PER_CELL);
+            cellSizeMeters = Math.sqrt(Math.max(width * height, 1.0) / cellCount);
+        }
+        cellSize = Math.max(cellSizeMeters, MIN_CELL_SIZE);
+        cols = (int) (width / cellSize) + 1;
+        rows = (int) (height / cellSize) + 1;
+
+        // 4) counting sort of the places into their cells
+        cellStart = new int[cols * rows + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = cellRow(ys[i]) * cols + cellCol(xs[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellItems = new int[n];
+        int[] fill = Arrays.copyOf(cellStart, cols * rows);
+        for (int i = 0; i < n; i++) {
+            cellItems[fill[cellOf[i]]++] = i;
+        }
+    }
+
+    /**
+     * Returns the number of indexed places.
+     *
+     * @return The number of places.
+     */
+    public int size() {
+        return places.size();
+    }
+
+    /**
+     * Returns the place stored under the given index.
+     *
+     * @param index Index into the list the index was built from.
+     * @return The place at that position.
+     */
+    public MowingPlace get(int index) {
+        return places.get(index);
+    }
+
+    /**
+     * Returns the single place nearest to the given coordinates.
+     *
+     * @param lat Latitude in degrees.
+     * @param lon Longitude in degrees.
+     * @return The nearest place, or null if the index is empty.
+     */
+    public MowingPlace nearest(double lat, double lon) {
+        int[] found = nearestIndices(lat, lon, 1, -1);
+        return found.length == 0 ? null : places.get(found[0]);
+    }
+
+    /**
+     * Returns up to k places nearest to the given coordinates, closest first.
+     *
+     * @param lat Latitude in degrees.
+     * @param lon Longitude in degrees.
+     * @param k   Maximum number of places to return.
+     * @return The nearest places ordered by increasing distance.
+     */
+    public List<MowingPlace> nearest(double lat, double lon, int k) {
+        return toPlaces(nearestIndices(lat, lon, k, -1));
+    }
+
+    /**
+     * Returns all places within the given distance of the coordinates, closest first.
+     *
+     * @param lat          Latitude in degrees.
+     * @param lon          Longitude in degrees.
+     * @param radiusMeters Search radius in meters.
+     * @return The places inside the radius ordered by increasing distance.
+     */
+    public List<MowingPlace> withinRadius(double lat, double lon, double radiusMeters) {
+        return toPlaces(withinRadiusIndices(lat, lon, radiusMeters));
+    }
+
+    /**
+     * Returns the indices of up to k places nearest to the given coordinates, closest first.
+     *
+     * @param lat     Latitude in degrees.
+     * @param lon     Longitude in degrees.
+     * @param k       Maximum number of places to return.
+     * @param exclude Index of a place to leave out of the result (e.g. the query place itself), or -1.
+     * @return Indices of the nearest places ordered by increasing distance.
+     */
+    public int[] nearestIndices(double lat, double lon, int k, int exclude) {
+        int n = places.size();
+        k = Math.min(k, exclude >= 0 && exclude < n ? n - 1 : n);
+        if (k <= 0) {
+            return new int[0];
+        }
+        double qx = projectX(lon), qy = projectY(lat);
+        int qc = clamp(cellCol(qx), cols), qr = clamp(cellRow(qy), rows);
+
+        // sorted insertion buffer of the k best candidates found so far (squared distances)
+        int[] best = new int[k];
+        double[] bestD2 = new double[k];
+        int found = 0;
+
+        int maxRing = Math.max(Math.max(qc, cols - 1 - qc), Math.max(qr, rows - 1 - qr));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // every cell of this ring is at least (ring - 1) cells away from the query point
+            if (found == k) {
+                double ringMin = Math.max(0, ring - 1) * cellSize;
+                if (ringMin * ringMin > bestD2[k - 1]) {
+                    break;
+                }
+            }
+            for (int r = qr - ring; r <= qr + ring; r++) {
+                if (r < 0 || r >= rows) continue;
+                boolean edgeRow = r == qr - ring || r == qr + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int c = qc - ring; c <= qc + ring; c += Math.max(step, 1)) {
+                    if (c < 0 || c >= cols) continue;
+                    int cell = r * cols + c;
+                    for (int s = cellStart[cell]; s < cellStart[cell + 1]; s++) {
+                        int i = cellItems[s];
+                        if (i == exclude) continue;
+                        double dx = xs[i] - qx, dy = ys[i] - qy;
+                        double d2 = dx * dx + dy * dy;
+                        if (found < k) {
+                            found = insertSorted(best, bestD2, found, i, d2);
+                        } else if (d2 < bestD2[k - 1]) {
+                            insertSorted(best, bestD2, k - 1, i, d2);
+                        }
+                    }
+                }
+            }
+        }
+        return found == k ? best : Arrays.copyOf(best, found);
+    }
+
+    /**
+     * Returns the indices of all places within the given distance of the coordinates, closest first.
+     *
+     * @param lat          Latitude in degrees.
+     * @param lon          Longitude in degrees.
+     * @param radiusMeters Search radius in meters.
+     * @return Indices of the places inside the radius ordered by increasing distance.
+     */
+    public int[] withinRadiusIndices(double lat, double lon, double radiusMeters) {
+        if (places.isEmpty() || radiusMeters < 0) {
+            return new int[0];
+        }
+        double qx = projectX(lon), qy = projectY(lat);
+        double r2 = radiusMeters * radiusMeters;
+        int c0 = clamp(cellCol(qx - radiusMeters), cols), c1 = clamp(cellCol(qx + radiusMeters), cols);
+        int r0 = clamp(cellRow(qy - radiusMeters), rows), r1 = clamp(cellRow(qy + radiusMeters), rows);
+
+        // a hit is packed as its squared distance as float bits over its index, so one primitive
+        // sort orders the hits by distance; floats of non-negative values sort like their bits
+        long[] hits = new long[16];
+        int count = 0;
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int s = cellStart[cell]; s < cellStart[cell + 1]; s++) {
+                    int i = cellItems[s];
+                    double dx = xs[i] - qx, dy = ys[i] - qy;
+                    double d2 = dx * dx + dy * dy;
+                    if (d2 <= r2) {
+                        if (count == hits.length) {
+                            hits = Arrays.copyOf(hits, count * 2);
+                        }
+                        hits[count++] = ((long) Float.floatToIntBits((float) d2) << 32) | i;
+                    }
+                }
+            }
+        }
+        Arrays.sort(hits, 0, count);
+        int[] result = new int[count];
+        for (int h = 0; h < count; h++) {
+            result[h] = (int) hits[h];
+        }
+        return result;
+    }
+
+    /**
+     * Marks all places within the given distance of the coordinates, in no particular order and
+     * without allocating. Meant for filters that query many radii over the same places.
+     *
+     * @param lat          Latitude in degrees.
+     * @param lon          Longitude in degrees.
+     * @param radiusMeters Search radius in meters.
+     * @param marks        Array indexed like the place list; the places inside the radius are set to true.
+     * @return The number of places inside the radius.
+     */
+    public int markWithinRadius(double lat, double lon, double radiusMeters, boolean[] marks) {
+        if (places.isEmpty() || radiusMeters < 0) {
+            return 0;
+        }
+        double qx = projectX(lon), qy = projectY(lat);
+        double r2 = radiusMeters * radiusMeters;
+        int c0 = clamp(cellCol(qx - radiusMeters), cols), c1 = clamp(cellCol(qx + radiusMeters), cols);
+        int r0 = clamp(cellRow(qy - radiusMeters), rows), r1 = clamp(cellRow(qy + radiusMeters), rows);
+        int count = 0;
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int cell = r * cols + c;
+                for (int s = cellStart[cell]; s < cellStart[cell + 1]; s++) {
+                    int i = cellItems[s];
+                    double dx = xs[i] - qx, dy = ys[i] - qy;
+                    if (dx * dx + dy * dy <= r2) {
+                        marks[i] = true;
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether a circle contains the bounding box of all indexed places, so a radius query
+     * would return every place and can be skipped.
+     *
+     * @param lat          Latitude of the center in degrees.
+     * @param lon          Longitude of the center in degrees.
+     * @param radiusMeters Radius in meters.
+     * @return true if every place lies within the radius.
+     */
+    public boolean covers(double lat, double lon, double radiusMeters) {
+        double qx = projectX(lon), qy = projectY(lat);
+        double dx = Math.max(Math.abs(minX - qx), Math.abs(maxX - qx));
+        double dy = Math.max(Math.abs(minY - qy), Math.abs(maxY - qy));
+        return dx * dx + dy * dy <= radiusMeters * radiusMeters;
+    }
+
+    /**
+     * Returns the approximate distance between the coordinates and an indexed place.
+     *
+     * @param lat   Latitude in degrees.
+     * @param lon   Longitude in degrees.
+     * @param index Index of the place.
+     * @return The projected distance in meters.
+     */
+    public double distanceTo(double lat, double lon, int index) {
+        double dx = xs[index] - projectX(lon), dy = ys[index] - projectY(lat);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private double projectX(double lon) {
+        return Math.toRadians(lon - refLon) * cosRefLat * GeoMath.EARTH_RADIUS;
+    }
+
+    private double projectY(double lat) {
+        return Math.toRadians(lat - refLat) * GeoMath.EARTH_RADIUS;
+    }
+
+    private int cellCol(double x) {
+        return (int) Math.floor((x - minX) / cellSize);
+    }
+
+    private int cellRow(double y) {
+        return (int) Math.floor((y - minY) / cellSize);
+    }
+
+    private static int clamp(int v, int size) {
+        return v < 0 ? 0 : (v >= size ? size - 1 : v);
+    }
+
+    /**
+     * Inserts a candidate into the sorted buffer of length count and returns the new length.
+     */
+    private static int insertSorted(int[] idx, double[] d2s, int count, int i, double d2) {
+        int pos = count;
+        while (pos > 0 && d2s[pos - 1] > d2) {
+            if (pos < idx.length) {
+                idx[pos] = idx[pos - 1];
+                d2s[pos] = d2s[pos - 1];
+            }
+            pos--;
+        }
+        idx[pos] = i;
+        d2s[pos] = d2;
+        return Math.min(count + 1, idx.length);
+    }
+
+    private List<MowingPlace> toPlaces(int[] indices) {
+        List<MowingPlace> result = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            result.add(places.get(i));
+        }
+        return result;
+    }
+}
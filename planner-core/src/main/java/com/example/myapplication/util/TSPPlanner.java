@@ -0,0 +1,951 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.PlaceIds;
+import com.example.myapplication.platform.PlannerClock;
+
+import org.jgrapht.alg.cycle.HierholzerEulerianCycle;
+import org.jgrapht.alg.spanning.KruskalMinimumSpanningTree;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.Multigraph;
+
+import java.util.*;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.alg.matching.blossom.v5.KolmogorovMinimumWeightPerfectMatching;
+import org.jgrapht.alg.interfaces.MatchingAlgorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * TSPPlanner is a utility class for solving a variation of the Traveling Salesman Problem (TSP).
+ * It provides methods to generate an approximate route and augment it with additional stops
+ * while respecting constraints such as time limits and visit frequency.
+ */
+public class TSPPlanner {
+
+    /**
+     * Algorithm matching the odd vertices in Christofides.
+     */
+    public enum MatchingMode {
+        /** Exact minimum-weight perfect matching (Kolmogorov's Blossom V). */
+        EXACT,
+        /** Greedy matching improved by pair swaps, see {@link GreedyMatching}. */
+        FAST
+    }
+
+    /**
+     * Upper bound on travel speed in m/s (140 km/h) used to turn straight-line distances into
+     * lower bounds on travel time. No road leg in the matrix is expected to be faster than this.
+     */
+    private static final double MAX_TRAVEL_SPEED = 140.0 / 3.6;
+
+    /**
+     * Relative and absolute margin added to the radius queries of the candidate prefilter, as the
+     * projected distances of {@link SpatialIndex} differ from haversine by a few percent across a region.
+     */
+    private static final double SPATIAL_INDEX_MARGIN = 0.1;
+    private static final double SPATIAL_INDEX_SLACK_METERS = 1000.0;
+
+    /**
+     * Relative difference of opposite directions below which a cost matrix is treated as symmetric.
+     */
+    private static final double SYMMETRY_TOLERANCE = 1e-6;
+
+    /**
+     * Positions around a changed stop that the local repair of replanRoute may touch.
+     */
+    private static final int REPAIR_RADIUS = 3;
+
+    /**
+     * Improving moves allowed per changed stop in the local repair of replanRoute.
+     */
+    private static final int REPAIR_MOVES_PER_CHANGE = 4;
+
+    /**
+     * Clock deciding "today" for the visit-date filters of addExtraCemeteries.
+     */
+    private static volatile PlannerClock clock = PlannerClock.SYSTEM;
+
+    /**
+     * Replaces the clock used by the visit-date filters, e.g. with a fixed date in tests.
+     *
+     * @param plannerClock The clock.
+     */
+    public static void setClock(PlannerClock plannerClock) {
+        clock = plannerClock;
+    }
+
+    /**
+     * Returns a short path from "start" → … → "end" visiting every MowingPlace exactly once,
+     * minimizing the driven distance.
+     * @param nodes The list of MowingPlace objects to visit.
+     * @return A list of MowingPlace objects representing the route.
+     */
+    public static List<MowingPlace> generateRoute(List<MowingPlace> nodes) {
+        return generateRoute(nodes, CostModel.distance());
+    }
+
+    /**
+     * Returns a cheap path from "start" → … → "end" visiting every MowingPlace exactly once.
+     * On symmetric costs this is the 3/2-approximate Christofides path improved by local search.
+     * Road data is directed, so on asymmetric costs a cheapest-insertion route built on the
+     * directed costs competes with it and the cheaper route after 2-opt/Or-opt is returned.
+     * @param nodes     The list of MowingPlace objects to visit.
+     * @param costModel The objective the route is optimized for.
+     * @return A list of MowingPlace objects representing the route.
+     */
+    public static List<MowingPlace> generateRoute(List<MowingPlace> nodes, CostModel costModel) {
+        return generateRoute(nodes, costModel, MatchingMode.EXACT);
+    }
+
+    /**
+     * Same as {@link #generateRoute(List, CostModel)} with a choice of the matching algorithm
+     * of Christofides, which dominates its running time on larger routes.
+     * @param nodes        The list of MowingPlace objects to visit.
+     * @param costModel    The objective the route is optimized for.
+     * @param matchingMode EXACT for the minimum-weight matching, FAST for the greedy one.
+     * @return A list of MowingPlace objects representing the route.
+     */
+    public static List<MowingPlace> generateRoute(List<MowingPlace> nodes, CostModel costModel,
+                                                  MatchingMode matchingMode) {
+        //if only one intermediate place, return start, intermediate, end
+        if (nodes.size() == 3) {
+            return List.of(nodes.get(0), nodes.get(1), nodes.get(2));
+        }
+
+        // 1) identify start/end
+        MowingPlace start = null, end = null;
+        for (MowingPlace p : nodes) {
+            if ("start".equals(p.getId())) start = p;
+            else if ("end".equals(p.getId())) end = p;
+        }
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("Must include both start and end");
+        }
+
+        long total = PlannerMetrics.start();
+
+        // 2) dense matrix of directed costs, compiled once for the chosen objective
+        DistanceMatrix matrix = new DistanceMatrix(nodes);
+        int n = nodes.size();
+        long t = PlannerMetrics.start();
+        double[] cost = costModel.compile(matrix);
+        PlannerMetrics.stop(PlannerMetrics.Stage.COST_COMPILE, t);
+        boolean symmetric = RouteImprover.isSymmetric(cost, n, SYMMETRY_TOLERANCE);
+
+        // 3) Christofides needs symmetric weights; on directed costs it runs on the mean of
+        //    both directions and its result is only a starting point for the local search
+        double[] weight = cost;
+        if (!symmetric) {
+            weight = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    weight[i * n + j] = 0.5 * (cost[i * n + j] + cost[j * n + i]);
+                }
+            }
+        }
+        int[] route = toIndices(christofides(nodes, start, end, weight, matchingMode), matrix);
+        RouteImprover.improve(route, cost, n, symmetric);
+
+        // 4) on directed costs also build a route with a construction that respects direction
+        //    and keep whichever is cheaper after local search
+        if (!symmetric) {
+            t = PlannerMetrics.start();
+            int[] insertion = cheapestInsertion(cost, n, matrix.indexOf(start.getId()), matrix.indexOf(end.getId()));
+            PlannerMetrics.stop(PlannerMetrics.Stage.INSERTION_ROUTE, t);
+            RouteImprover.improve(insertion, cost, n, false);
+            if (RouteImprover.routeCost(insertion, cost, n) < RouteImprover.routeCost(route, cost, n)) {
+                route = insertion;
+            }
+        }
+
+        List<MowingPlace> result = new ArrayList<>(route.length);
+        for (int i : route) {
+            result.add(matrix.place(i));
+        }
+        PlannerMetrics.stop(PlannerMetrics.Stage.GENERATE_ROUTE, total);
+        return result;
+    }
+
+    /**
+     * Updates a previously planned route after stops were added or removed, instead of planning
+     * it again from scratch. Removed stops are cut out and the neighbours joined, each added stop
+     * is inserted where it adds the least cost (cheapest first), and a local search limited to
+     * {@link #REPAIR_RADIUS} positions around the changes repairs the joints. The order of the
+     * untouched part of the route is kept, so a crew does not see its route reshuffled. The costs
+     * are still compiled between all stops of the route, which is quadratic in its length, but
+     * the insertion grows only with the number of added stops times the route length and the
+     * repair with the number of changes.
+     *
+     * A changed time window does not change the order of the mandatory stops; it only matters
+     * to {@link #addExtraCemeteries}, which can be run again on the result.
+     *
+     * @param previousRoute The previous route from "start" to "end". Its start and end may be
+     *                      replaced by nodes with updated distances, matched by ID.
+     * @param added         Stops to add; stops already on the route are ignored.
+     * @param removedIds    IDs of stops to remove; "start" and "end" are never removed.
+     * @param costModel     The objective the route is optimized for.
+     * @return The updated route.
+     */
+    public static List<MowingPlace> replanRoute(List<MowingPlace> previousRoute,
+                                                List<MowingPlace> added,
+                                                Collection<String> removedIds,
+                                                CostModel costModel) {
+        if (previousRoute.size() < 2
+                || !"start".equals(previousRoute.get(0).getId())
+                || !"end".equals(previousRoute.get(previousRoute.size() - 1).getId())) {
+            throw new IllegalArgumentException("Previous route must go from start to end");
+        }
+        long total = PlannerMetrics.start();
+
+        // 1) stops that stay, in their previous order, and the stops to insert; matrix index i
+        //    is nodes.get(i), so the kept stops are indices 0..kept-1 in route order. The stop
+        //    before a removed one is marked as changed, so the repair also looks at the new joint.
+        List<MowingPlace> nodes = new ArrayList<>(previousRoute.size() + added.size());
+        List<Integer> changed = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < previousRoute.size(); i++) {
+            MowingPlace p = previousRoute.get(i);
+            boolean endpoint = i == 0 || i == previousRoute.size() - 1;
+            if ((endpoint || !removedIds.contains(p.getId())) && ids.add(p.getId())) {
+                nodes.add(p);
+            } else if (changed.isEmpty() || changed.get(changed.size() - 1) != nodes.size() - 1) {
+                changed.add(nodes.size() - 1);
+            }
+        }
+        int kept = nodes.size();
+        for (MowingPlace p : added) {
+            if (ids.add(p.getId())) {
+                nodes.add(p);
+            }
+        }
+
+        // 2) costs between all stops of the route: the insertion reads the legs of the whole
+        //    route, the repair only those near the changes
+        DistanceMatrix matrix = new DistanceMatrix(nodes);
+        int n = nodes.size();
+        long t = PlannerMetrics.start();
+        double[] cost = costModel.compile(matrix);
+        PlannerMetrics.stop(PlannerMetrics.Stage.COST_COMPILE, t);
+        boolean symmetric = RouteImprover.isSymmetric(cost, n, SYMMETRY_TOLERANCE);
+
+        // 3) cheapest insertion of the added stops into the kept route
+        t = PlannerMetrics.start();
+        int[] route = new int[n];
+        boolean[] inRoute = new boolean[n];
+        int len = kept;
+        for (int k = 0; k < kept; k++) {
+            route[k] = k;
+            inRoute[k] = true;
+        }
+        for (int inserted = kept; inserted < n; inserted++) {
+            int pick = -1, pickLeg = -1;
+            double pickCost = Double.POSITIVE_INFINITY;
+            for (int v = kept; v < n; v++) {
+                if (inRoute[v]) continue;
+                for (int k = 0; k < len - 1; k++) {
+                    double c = cost[route[k] * n + v] + cost[v * n + route[k + 1]] - cost[route[k] * n + route[k + 1]];
+                    if (c < pickCost) {
+                        pickCost = c;
+                        pick = v;
+                        pickLeg = k;
+                    }
+                }
+            }
+            System.arraycopy(route, pickLeg + 1, route, pickLeg + 2, len - pickLeg - 1);
+            route[pickLeg + 1] = pick;
+            len++;
+            inRoute[pick] = true;
+            changed.add(pick);
+        }
+        PlannerMetrics.stop(PlannerMetrics.Stage.INSERTION_ROUTE, t);
+
+        // 4) bounded repair around the changes
+        int[] changedNodes = new int[changed.size()];
+        for (int i = 0; i < changedNodes.length; i++) {
+            changedNodes[i] = changed.get(i);
+        }
+        RouteImprover.repair(route, cost, n, symmetric, changedNodes, REPAIR_RADIUS,
+                REPAIR_MOVES_PER_CHANGE * Math.max(1, changedNodes.length));
+
+        List<MowingPlace> result = new ArrayList<>(n);
+        for (int i : route) {
+            result.add(matrix.place(i));
+        }
+        PlannerMetrics.stop(PlannerMetrics.Stage.REPLAN_ROUTE, total);
+        return result;
+    }
+
+    /**
+     * Christofides-style construction of a path from start to end over symmetric weights:
+     * MST, minimum-weight perfect matching of the odd vertices (with start and end flipped),
+     * an Eulerian cycle through an artificial start–end edge and shortcutting.
+     *
+     * @param nodes  The places to visit, in matrix order.
+     * @param start  The start place.
+     * @param end    The end place.
+     * @param weight Symmetric row-major weight matrix indexed like nodes.
+     * @param mode   The matching algorithm.
+     * @return The route from start to end visiting every place exactly once.
+     */
+    private static List<MowingPlace> christofides(List<MowingPlace> nodes, MowingPlace start,
+                                                  MowingPlace end, double[] weight, MatchingMode mode) {
+        // 2) build the complete, metric weighted graph
+        long t = PlannerMetrics.start();
+        Graph<MowingPlace, DefaultWeightedEdge> complete =
+                new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+        for (MowingPlace p : nodes) {
+            complete.addVertex(p);
+        }
+        int n = nodes.size();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                MowingPlace a = nodes.get(i), b = nodes.get(j);
+                DefaultWeightedEdge e = complete.addEdge(a, b);
+                complete.setEdgeWeight(e, weight[i * n + j]);
+            }
+        }
+
+        // edge sets of the algorithms below are hash sets of identity-hashed objects; they are
+        // put in node order so the route does not depend on the run
+        Map<MowingPlace, Integer> order = new IdentityHashMap<>();
+        for (int i = 0; i < n; i++) {
+            order.put(nodes.get(i), i);
+        }
+
+        t = PlannerMetrics.stop(PlannerMetrics.Stage.GRAPH_BUILD, t);
+
+        // 3) compute an MST on that graph
+        KruskalMinimumSpanningTree<MowingPlace, DefaultWeightedEdge> kruskal =
+                new KruskalMinimumSpanningTree<>(complete);
+        List<DefaultWeightedEdge> mstEdges = inNodeOrder(kruskal.getSpanningTree().getEdges(), complete, order);
+        t = PlannerMetrics.stop(PlannerMetrics.Stage.SPANNING_TREE, t);
+
+        // 4) find all odd‐degree vertices in the MST
+        Set<MowingPlace> odd = new LinkedHashSet<>();
+        for (MowingPlace v : nodes) {
+            int deg = 0;
+            for (DefaultWeightedEdge e : mstEdges) {
+                if (complete.getEdgeSource(e).equals(v) ||
+                        complete.getEdgeTarget(e).equals(v)) {
+                    deg++;
+                }
+            }
+            if ((deg & 1) == 1) {
+                odd.add(v);
+            }
+        }
+        // 4b) symmetric‐difference with {start, end}
+        //    this flips membership of start/end in the odd‐set,
+        //    guaranteeing |odd| remains even.
+        if (!odd.remove(start)) {
+            odd.add(start);
+        }
+        if (!odd.remove(end)) {
+            odd.add(end);
+        }
+
+        // 5) + 6) match the odd vertices in pairs, as node pairs in node order
+        List<MowingPlace[]> matchPairs = mode == MatchingMode.FAST
+                ? fastMatching(odd, nodes, order, weight)
+                : exactMatching(odd, complete, order);
+        t = PlannerMetrics.stop(PlannerMetrics.Stage.MATCHING, t);
+
+        // 7) build a multigraph that merges MST + matching edges
+        Multigraph<MowingPlace, DefaultEdge> multi =
+                new Multigraph<>(DefaultEdge.class);
+        // add all vertices
+        for (MowingPlace v : nodes) {
+            multi.addVertex(v);
+        }
+        // add MST edges
+        for (DefaultWeightedEdge e : mstEdges) {
+            MowingPlace u = complete.getEdgeSource(e);
+            MowingPlace v = complete.getEdgeTarget(e);
+            multi.addEdge(u, v);
+        }
+        // add matching edges
+        for (MowingPlace[] pair : matchPairs) {
+            multi.addEdge(pair[0], pair[1]);
+        }
+
+        // 8) add one artificial edge start–end to make the graph Eulerian
+        multi.addEdge(start, end);
+
+        // 9) compute an Eulerian cycle
+        HierholzerEulerianCycle<MowingPlace, DefaultEdge> eulerAlg =
+                new HierholzerEulerianCycle<>();
+        List<MowingPlace> cycle = eulerAlg.getEulerianCycle(multi).getVertexList();
+
+        // 10) trim duplicate last vertex if present
+        int M = cycle.size();
+        if (M > 1 && cycle.get(0).equals(cycle.get(M - 1))) {
+            cycle = cycle.subList(0, M - 1);
+            M = cycle.size();
+        }
+
+        // 11) locate our artificial start–end edge in the cycle
+        int pos = -1;
+        for (int i = 0; i < M; i++) {
+            MowingPlace a = cycle.get(i);
+            MowingPlace b = cycle.get((i + 1) % M);
+            if ((a.equals(start) && b.equals(end)) ||
+                    (a.equals(end) && b.equals(start))) {
+                pos = i;
+                break;
+            }
+        }
+        if (pos < 0) {
+            throw new IllegalStateException("Eulerian cycle never used the artificial start–end edge");
+        }
+
+        // 12) break the cycle at that edge, reversing if needed so we go start→…→end
+        List<MowingPlace> route = new ArrayList<>(M);
+        // walk backwards from pos to include every vertex once
+        for (int k = 0; k < M - 1; k++) {
+            int idx = (pos - k + M) % M;
+            route.add(cycle.get(idx));
+        }
+        // finally include the other endpoint of the artificial edge
+        route.add(cycle.get((pos + 1) % M));
+
+        // if we ended up with end at front, just flip the whole route
+        if (!route.get(0).equals(start) || !route.get(route.size() - 1).equals(end)) {
+            Collections.reverse(route);
+        }
+
+
+        // Remove duplicates: ensure each node visited once with leaving start  at the first position and end at the last
+        Set<String> seen = new HashSet<>();
+        List<MowingPlace> finalRoute = new ArrayList<>();
+        for (MowingPlace place : route) {
+            if (!seen.contains(place.getId())) {
+                seen.add(place.getId());
+                finalRoute.add(place);
+            }
+        }
+        // Ensure start is first and end is last
+        if (!finalRoute.get(0).equals(start)) {
+            finalRoute.remove(start);
+            finalRoute.add(0, start);
+        }
+        if (!finalRoute.get(finalRoute.size() - 1).equals(end)) {
+            finalRoute.remove(end);
+            finalRoute.add(end);
+        }
+        // route now goes: start → … → end, visits every node exactly once,
+        // and has the same 3/2‐approximation guarantee as Christofides.
+        PlannerMetrics.stop(PlannerMetrics.Stage.EULER_TOUR, t);
+        return finalRoute;
+    }
+
+    /**
+     * Returns the edges sorted by the node order of their endpoints.
+     */
+    private static List<DefaultWeightedEdge> inNodeOrder(Set<DefaultWeightedEdge> edges,
+                                                         Graph<MowingPlace, DefaultWeightedEdge> graph,
+                                                         Map<MowingPlace, Integer> order) {
+        List<DefaultWeightedEdge> sorted = new ArrayList<>(edges);
+        sorted.sort((a, b) -> {
+            int a1 = order.get(graph.getEdgeSource(a)), a2 = order.get(graph.getEdgeTarget(a));
+            int b1 = order.get(graph.getEdgeSource(b)), b2 = order.get(graph.getEdgeTarget(b));
+            int c = Integer.compare(Math.min(a1, a2), Math.min(b1, b2));
+            return c != 0 ? c : Integer.compare(Math.max(a1, a2), Math.max(b1, b2));
+        });
+        return sorted;
+    }
+
+    /**
+     * Minimum-weight perfect matching of the odd vertices with Kolmogorov's Blossom V
+     * on their induced complete subgraph.
+     */
+    private static List<MowingPlace[]> exactMatching(Set<MowingPlace> odd,
+                                                     Graph<MowingPlace, DefaultWeightedEdge> complete,
+                                                     Map<MowingPlace, Integer> order) {
+        Graph<MowingPlace, DefaultWeightedEdge> oddComplete =
+                new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+        for (MowingPlace v : odd) {
+            oddComplete.addVertex(v);
+        }
+        List<MowingPlace> oddList = new ArrayList<>(odd);
+        for (int i = 0; i < oddList.size(); i++) {
+            for (int j = i + 1; j < oddList.size(); j++) {
+                MowingPlace a = oddList.get(i), b = oddList.get(j);
+                DefaultWeightedEdge e = oddComplete.addEdge(a, b);
+                double w = complete.getEdgeWeight(complete.getEdge(a, b));
+                oddComplete.setEdgeWeight(e, w);
+            }
+        }
+        KolmogorovMinimumWeightPerfectMatching<MowingPlace, DefaultWeightedEdge> matchingAlg =
+                new KolmogorovMinimumWeightPerfectMatching<>(oddComplete);
+        MatchingAlgorithm.Matching<MowingPlace, DefaultWeightedEdge> matching =
+                matchingAlg.getMatching();
+        List<MowingPlace[]> pairs = new ArrayList<>();
+        for (DefaultWeightedEdge e : inNodeOrder(matching.getEdges(), oddComplete, order)) {
+            pairs.add(new MowingPlace[]{oddComplete.getEdgeSource(e), oddComplete.getEdgeTarget(e)});
+        }
+        return pairs;
+    }
+
+    /**
+     * Approximate matching of the odd vertices on the primitive weight matrix, without building
+     * a graph. Pairs are returned in node order like the exact matching's edges.
+     */
+    private static List<MowingPlace[]> fastMatching(Set<MowingPlace> odd, List<MowingPlace> nodes,
+                                                    Map<MowingPlace, Integer> order, double[] weight) {
+        int n = nodes.size();
+        int[] vertices = new int[odd.size()];
+        int k = 0;
+        for (MowingPlace v : odd) {
+            vertices[k++] = order.get(v);
+        }
+        int[] matching = GreedyMatching.match(weight, n, vertices);
+        long[] sorted = new long[matching.length / 2];
+        for (int i = 0; i < sorted.length; i++) {
+            int a = Math.min(matching[2 * i], matching[2 * i + 1]);
+            int b = Math.max(matching[2 * i], matching[2 * i + 1]);
+            sorted[i] = (long) a * n + b;
+        }
+        Arrays.sort(sorted);
+        List<MowingPlace[]> pairs = new ArrayList<>(sorted.length);
+        for (long pair : sorted) {
+            pairs.add(new MowingPlace[]{nodes.get((int) (pair / n)), nodes.get((int) (pair % n))});
+        }
+        return pairs;
+    }
+
+    /**
+     * Builds a path from start to end by cheapest insertion on directed costs: starting from the
+     * single leg start→end, the stop whose best insertion adds the least cost is inserted next.
+     *
+     * @param cost  Row-major directed cost matrix.
+     * @param n     Matrix dimension.
+     * @param start Index of the start node.
+     * @param end   Index of the end node.
+     * @return Node indices of the route.
+     */
+    static int[] cheapestInsertion(double[] cost, int n, int start, int end) {
+        int[] route = new int[n];
+        route[0] = start;
+        route[1] = end;
+        int len = 2;
+        boolean[] inRoute = new boolean[n];
+        inRoute[start] = true;
+        inRoute[end] = true;
+        // best insertion cost and position (leg index) per node, refreshed after every insertion
+        double[] bestCost = new double[n];
+        int[] bestLeg = new int[n];
+        for (int v = 0; v < n; v++) {
+            bestCost[v] = cost[start * n + v] + cost[v * n + end] - cost[start * n + end];
+            bestLeg[v] = 0;
+        }
+        while (len < n) {
+            int pick = -1;
+            for (int v = 0; v < n; v++) {
+                if (!inRoute[v] && (pick < 0 || bestCost[v] < bestCost[pick])) {
+                    pick = v;
+                }
+            }
+            int leg = bestLeg[pick];
+            System.arraycopy(route, leg + 1, route, leg + 2, len - leg - 1);
+            route[leg + 1] = pick;
+            len++;
+            inRoute[pick] = true;
+            // only the two new legs can offer cheaper positions; old leg `leg` is gone,
+            // so nodes whose best leg was it or came after it need their leg index shifted or rescanned
+            for (int v = 0; v < n; v++) {
+                if (inRoute[v]) continue;
+                if (bestLeg[v] == leg) {
+                    bestCost[v] = Double.POSITIVE_INFINITY;
+                    for (int k = 0; k < len - 1; k++) {
+                        double c = cost[route[k] * n + v] + cost[v * n + route[k + 1]] - cost[route[k] * n + route[k + 1]];
+                        if (c < bestCost[v]) {
+                            bestCost[v] = c;
+                            bestLeg[v] = k;
+                        }
+                    }
+                    continue;
+                }
+                if (bestLeg[v] > leg) {
+                    bestLeg[v]++;
+                }
+                for (int k = leg; k <= leg + 1; k++) {
+                    double c = cost[route[k] * n + v] + cost[v * n + route[k + 1]] - cost[route[k] * n + route[k + 1]];
+                    if (c < bestCost[v]) {
+                        bestCost[v] = c;
+                        bestLeg[v] = k;
+                    }
+                }
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Maps a route of places to matrix indices.
+     */
+    private static int[] toIndices(List<MowingPlace> route, DistanceMatrix matrix) {
+        int[] indices = new int[route.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = matrix.indexOf(route.get(i).getId());
+        }
+        return indices;
+    }
+
+
+    /**
+     * Inserts additional cemeteries into the existing route if time allows, preserving the original
+     * order of the route (except for newly inserted places). The first (start) and last (end) points
+     * of the route remain unchanged. New cemeteries are chosen and inserted one by one at the position
+     * that minimally increases the total route duration, as long as the overall route time stays within
+     * the allowed limit.
+     *
+     * Filtering criteria for candidate cemeteries:
+     *
+     *   If {addVisited} is false, only consider cemeteries that have not already been visited
+     *       the required number of times this year (i.e., visited fewer times than their
+     *       {mowingCountPerYear}).
+     *   Exclude any cemetery that was visited within {timeFromLastVisit} weeks from the
+     *       current date.
+     *
+     *
+     * @param currentRoute       The current ordered route (with "start" at index 0 and "end" at last index).
+     * @param allAvailablePlaces All available MowingPlace objects (potential extra cemeteries to add).
+     * @param endTime            Total allowed route time in minutes (time constraint from start to end).
+     * @param speedMultiplier    Multiplier to adjust mowing speed (affects mowing time only; travel time is unchanged).
+     * @param addVisited         If false, skip cemeteries already visited enough times this year.
+     * @param timeFromLastVisit  Exclude cemeteries visited within this many weeks of today.
+     * @return Updated route with extra cemeteries inserted where possible without exceeding the time limit.
+     */
+    public static List<MowingPlace> addExtraCemeteries(List<MowingPlace> currentRoute,
+                                                       List<MowingPlace> allAvailablePlaces,
+                                                       int endTime,
+                                                       double speedMultiplier,
+                                                       boolean addVisited,
+                                                       int timeFromLastVisit) {
+        return addExtraCemeteries(currentRoute, allAvailablePlaces, endTime, speedMultiplier,
+                addVisited, timeFromLastVisit, CostModel.duration());
+    }
+
+    /**
+     * Same as {@link #addExtraCemeteries(List, List, int, double, boolean, int)}, but the insertion
+     * position and the next cemetery are chosen by the least increase of the given cost model,
+     * so auto-fill optimizes the same objective as {@link #generateRoute(List, CostModel)}.
+     * The time limit is always checked on travel and mowing durations.
+     *
+     * @param currentRoute       The current ordered route (with "start" at index 0 and "end" at last index).
+     * @param allAvailablePlaces All available MowingPlace objects (potential extra cemeteries to add).
+     * @param endTime            Total allowed route time in minutes (time constraint from start to end).
+     * @param speedMultiplier    Multiplier to adjust mowing speed (affects mowing time only; travel time is unchanged).
+     * @param addVisited         If false, skip cemeteries already visited enough times this year.
+     * @param timeFromLastVisit  Exclude cemeteries visited within this many weeks of today.
+     * @param costModel          The objective used to rank insertions.
+     * @return Updated route with extra cemeteries inserted where possible without exceeding the time limit.
+     */
+    public static List<MowingPlace> addExtraCemeteries(List<MowingPlace> currentRoute,
+                                                       List<MowingPlace> allAvailablePlaces,
+                                                       int endTime,
+                                                       double speedMultiplier,
+                                                       boolean addVisited,
+                                                       int timeFromLastVisit,
+                                                       CostModel costModel) {
+        return addExtraCemeteries(currentRoute, allAvailablePlaces, endTime, speedMultiplier,
+                addVisited, timeFromLastVisit, costModel, null);
+    }
+
+    /**
+     * Same as {@link #addExtraCemeteries(List, List, int, double, boolean, int, CostModel)}, but the
+     * visit counts and last visits of the candidates are read from a precomputed status index.
+     *
+     * @param currentRoute       The current ordered route (with "start" at index 0 and "end" at last index).
+     * @param allAvailablePlaces All available MowingPlace objects (potential extra cemeteries to add).
+     * @param endTime            Total allowed route time in minutes (time constraint from start to end).
+     * @param speedMultiplier    Multiplier to adjust mowing speed (affects mowing time only; travel time is unchanged).
+     * @param addVisited         If false, skip cemeteries already visited enough times this year.
+     * @param timeFromLastVisit  Exclude cemeteries visited within this many weeks of today.
+     * @param costModel          The objective used to rank insertions.
+     * @param visitStatus        Status of the places computed for today, or null to compute it
+     *                           from the visit dates of allAvailablePlaces.
+     * @return Updated route with extra cemeteries inserted where possible without exceeding the time limit.
+     */
+    public static List<MowingPlace> addExtraCemeteries(List<MowingPlace> currentRoute,
+                                                       List<MowingPlace> allAvailablePlaces,
+                                                       int endTime,
+                                                       double speedMultiplier,
+                                                       boolean addVisited,
+                                                       int timeFromLastVisit,
+                                                       CostModel costModel,
+                                                       VisitStatusIndex visitStatus) {
+        long total = PlannerMetrics.start();
+        // Ensure valid speedMultiplier to avoid division by zero (just in case)
+        if (speedMultiplier <= 0) {
+            speedMultiplier = 1.0;
+        }
+
+        // Convert the allowed total time from minutes to seconds for comparison
+        double allowedTimeSec = endTime * 60.0;
+
+        // 1. Sum all mowing times of the current route (in hours converted to seconds)
+        double totalMowingHours = 0.0;
+        for (MowingPlace place : currentRoute) {
+            totalMowingHours += place.getTimeRequirement();
+        }
+        // Adjust mowing time for speed (if speedMultiplier > 1, mowing is faster, so effective time is less)
+        double mowingTimeSec = (totalMowingHours / speedMultiplier) * 3600.0;
+
+        // 2. Filter the list of all available places to get eligible extra cemeteries.
+        List<MowingPlace> candidates = new ArrayList<>();
+        // Visit counts and last visits of today, unless the caller computed them already or no filter needs them
+        long today = clock.today();
+        boolean filterVisits = !addVisited || timeFromLastVisit > 0;
+        if (filterVisits && (visitStatus == null || visitStatus.today() != today)) {
+            visitStatus = VisitStatusIndex.build(allAvailablePlaces, today, MowingSchedule.defaults());
+        }
+        // Calculate the cutoff date for recent visits (current date minus timeFromLastVisit weeks)
+        long cutoffDay = today - 7L * timeFromLastVisit;
+        for (MowingPlace place : allAvailablePlaces) {
+            String placeId = place.getId();
+            // Skip places already in the current route (by matching ID)
+            boolean inRoute = false;
+            for (MowingPlace routePlace : currentRoute) {
+                if (routePlace.getId().equals(placeId)) {
+                    inRoute = true;
+                    break;
+                }
+            }
+            if (inRoute) {
+                continue;
+            }
+            // Also ensure we do not add the special start or end markers as "cemeteries"
+            if ("start".equals(placeId) || "end".equals(placeId)) {
+                continue;
+            }
+            int idIndex = PlaceIds.intern(placeId);
+            // If addVisited is false, skip places that have already been visited enough times this year.
+            if (!addVisited && visitStatus.visitsThisYear(idIndex) >= place.getMowingCountPerYear()) {
+                continue;
+            }
+            // If the place was visited within the last `timeFromLastVisit` weeks, skip it.
+            if (timeFromLastVisit > 0) {
+                int lastVisitDay = visitStatus.lastVisit(idIndex);
+                // If last visit is on or after the cutoff date (within the restricted period), skip
+                if (lastVisitDay != VisitStatusIndex.NEVER_VISITED && lastVisitDay >= cutoffDay) {
+                    continue;
+                }
+            }
+            // If we reach here, the place passes all filters and can be considered for insertion
+            candidates.add(place);
+        }
+
+        // 2b. Drop candidates that cannot fit even in the best case, so scoring only touches survivors.
+        long t = PlannerMetrics.start();
+        int pruned = pruneUnreachableCandidates(currentRoute, candidates,
+                allowedTimeSec, mowingTimeSec, speedMultiplier);
+        PlannerMetrics.stop(PlannerMetrics.Stage.PRUNE, t);
+        PlannerMetrics.add(PlannerMetrics.Counter.CANDIDATES_PRUNED, pruned);
+        PlannerMetrics.add(PlannerMetrics.Counter.CANDIDATES_EVALUATED, candidates.size());
+
+        // 3. Build one dense matrix over the route and the surviving candidates:
+        //    route stops get indices 0..r-1, candidate k gets index r+k.
+        int r = currentRoute.size();
+        List<MowingPlace> matrixPlaces = new ArrayList<>(r + candidates.size());
+        matrixPlaces.addAll(currentRoute);
+        matrixPlaces.addAll(candidates);
+        DistanceMatrix matrix = new DistanceMatrix(matrixPlaces);
+        int n = matrixPlaces.size();
+        double[] cost = costModel.compile(matrix);
+        double[] duration = matrix.durations();
+
+        // current route's total duration (travel + mowing) in seconds
+        int[] route = new int[matrixPlaces.size()];
+        int routeLen = r;
+        double currentRouteTimeSec = mowingTimeSec;
+        for (int i = 0; i < r; i++) {
+            route[i] = i;
+            if (i > 0) {
+                currentRouteTimeSec += matrix.duration(i - 1, i);
+            }
+        }
+        int candidateCount = candidates.size();
+        double[] candidateMowSec = new double[candidateCount];
+        boolean[] used = new boolean[candidateCount];
+        for (int k = 0; k < candidateCount; k++) {
+            candidateMowSec[k] = (candidates.get(k).getTimeRequirement() / speedMultiplier) * 3600.0;
+        }
+
+        // 4. Greedily insert extra cemeteries one by one based on minimal increase in route cost.
+        long lookups = 0;
+        while (true) {
+            double bestCostIncrease = Double.POSITIVE_INFINITY;
+            int         bestCandidate        = -1;
+            int         bestInsertIndex      = -1;
+
+            for (int k = 0; k < candidateCount; k++) {
+                if (used[k]) continue;
+                int c = r + k;
+                lookups += 3L * (routeLen - 1);
+                for (int i = 0; i < routeLen - 1; i++) {
+                    int prev = route[i];
+                    int next = route[i + 1];
+                    double costIncrease = cost[prev * n + c] + cost[c * n + next] - cost[prev * n + next];
+                    // pick the best candidate with the least cost increase
+                    if (costIncrease < bestCostIncrease) {
+                        bestCostIncrease = costIncrease;
+                        bestCandidate    = k;
+                        bestInsertIndex  = i + 1;
+                    }
+                }
+            }
+
+            // If no candidate was found, break the loop
+            if (bestCandidate < 0) break;
+            used[bestCandidate] = true;
+
+            // Check if adding this candidate exceeds the allowed time
+            int prev = route[bestInsertIndex - 1];
+            int next = route[bestInsertIndex];
+            int c = r + bestCandidate;
+            double travelIncreaseSec = duration[prev * n + c] + duration[c * n + next] - duration[prev * n + next];
+            double newRouteTimeSec = currentRouteTimeSec
+                    + travelIncreaseSec
+                    + candidateMowSec[bestCandidate];
+            if (newRouteTimeSec > allowedTimeSec) {
+                continue;
+            }
+
+            // Insert the best candidate into the route at the best position
+            System.arraycopy(route, bestInsertIndex, route, bestInsertIndex + 1, routeLen - bestInsertIndex);
+            route[bestInsertIndex] = r + bestCandidate;
+            routeLen++;
+            currentRoute.add(bestInsertIndex, candidates.get(bestCandidate));
+            currentRouteTimeSec = newRouteTimeSec;
+            // Continue to the next iteration to attempt adding another candidate
+        }
+
+        PlannerMetrics.add(PlannerMetrics.Counter.MATRIX_LOOKUPS, lookups);
+        PlannerMetrics.stop(PlannerMetrics.Stage.AUTO_FILL, total);
+
+        // Return the augmented route (currentRoute is now updated in-place)
+        return currentRoute;
+    }
+
+    /**
+     * Removes candidates whose insertion can never fit into the remaining time budget.
+     *
+     * For every candidate a lower bound of the finished route time is computed: the mowing time
+     * of the current route and of the candidate, plus a lower bound of the travel time of a route
+     * that visits the current stops in their current order with the candidate inserted into one
+     * of its legs. Travel lower bounds come from the haversine distance divided by
+     * {@link #MAX_TRAVEL_SPEED}, so a leg u→v is bounded by LB(u,v) and the cheapest insertion
+     * of c adds at least min over legs of LB(u,c) + LB(c,v) - LB(u,v). Places outside of the
+     * resulting corridor around the route (an ellipse around start and end for a route without
+     * stops) can be dropped up front, because the greedy insertion only ever grows the route.
+     *
+     * Candidates far from every leg are found first with one radius query per leg on a
+     * {@link SpatialIndex} of the candidates, which marks the hits without sorting them; once the
+     * circle of a leg covers all candidates, as with a full working day, the queries stop. For the others the first check uses only the start
+     * and end points and is O(1) per candidate; the corridor check is evaluated only for
+     * candidates inside that ellipse.
+     *
+     * @param route           The current ordered route (start first, end last).
+     * @param candidates      Candidate places; pruned places are removed from this list.
+     * @param allowedTimeSec  Total allowed route time in seconds.
+     * @param routeMowingSec  Mowing time of the current route in seconds (already adjusted for speed).
+     * @param speedMultiplier Multiplier applied to the mowing time of the candidates.
+     * @return The number of removed candidates.
+     */
+    public static int pruneUnreachableCandidates(List<MowingPlace> route,
+                                                 List<MowingPlace> candidates,
+                                                 double allowedTimeSec,
+                                                 double routeMowingSec,
+                                                 double speedMultiplier) {
+        if (route.size() < 2 || candidates.isEmpty()) {
+            return 0;
+        }
+        // coordinates of route stops (0..r-1) and candidates (r..) precomputed once
+        int r = route.size();
+        List<MowingPlace> all = new ArrayList<>(r + candidates.size());
+        all.addAll(route);
+        all.addAll(candidates);
+        GeoMath.Points points = new GeoMath.Points(all);
+        int start = 0, end = r - 1;
+
+        // lower bound of the travel time of the current route, leg by leg
+        int legs = r - 1;
+        double[] legLowerBound = new double[legs];
+        double routeLowerBound = 0.0;
+        for (int i = 0; i < legs; i++) {
+            legLowerBound[i] = points.haversine(i, i + 1) / MAX_TRAVEL_SPEED;
+            routeLowerBound += legLowerBound[i];
+        }
+        // what the candidate may spend on its own mowing and detour
+        double slackSec = allowedTimeSec - routeMowingSec - routeLowerBound;
+
+        // candidates that no leg reaches even with the largest budget are found by radius queries:
+        // a point of the ellipse around leg u→v lies within its semi-major axis of the leg's middle
+        double maxBudgetSec = Double.NEGATIVE_INFINITY;
+        for (MowingPlace c : candidates) {
+            maxBudgetSec = Math.max(maxBudgetSec, slackSec - (c.getTimeRequirement() / speedMultiplier) * 3600.0);
+        }
+        boolean[] nearRoute = new boolean[candidates.size()];
+        if (maxBudgetSec >= 0) {
+            SpatialIndex index = new SpatialIndex(candidates);
+            double reach = maxBudgetSec * MAX_TRAVEL_SPEED;
+            for (int i = 0; i < legs; i++) {
+                MowingPlace u = route.get(i), v = route.get(i + 1);
+                double midLat = (u.getLatitude() + v.getLatitude()) / 2;
+                double midLon = (u.getLongitude() + v.getLongitude()) / 2;
+                double radius = (legLowerBound[i] * MAX_TRAVEL_SPEED + reach) / 2
+                        * (1 + SPATIAL_INDEX_MARGIN) + SPATIAL_INDEX_SLACK_METERS;
+                // with a long working day one leg already reaches every candidate
+                if (index.covers(midLat, midLon, radius)) {
+                    Arrays.fill(nearRoute, true);
+                    break;
+                }
+                index.markWithinRadius(midLat, midLon, radius, nearRoute);
+            }
+        }
+
+        // lower bound of the travel time from every point to the candidate, refilled per candidate
+        double[] toCandidate = new double[r];
+        List<MowingPlace> survivors = new ArrayList<>(candidates.size());
+        for (int k = 0; k < candidates.size(); k++) {
+            MowingPlace c = candidates.get(k);
+            int ci = r + k;
+            double candidateMowSec = (c.getTimeRequirement() / speedMultiplier) * 3600.0;
+            double budget = slackSec - candidateMowSec;
+            if (budget < 0 || !nearRoute[k]) {
+                continue;
+            }
+            // ellipse around start and end: no route through c can be shorter than start→c→end
+            double ellipseTravel = (points.haversine(start, ci) + points.haversine(ci, end)) / MAX_TRAVEL_SPEED;
+            if (ellipseTravel - routeLowerBound > budget) {
+                continue;
+            }
+            // corridor around the current route: cheapest possible detour over all legs
+            for (int i = 0; i < r; i++) {
+                toCandidate[i] = points.haversine(i, ci) / MAX_TRAVEL_SPEED;
+            }
+            double minDetour = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < legs; i++) {
+                double detour = toCandidate[i] + toCandidate[i + 1] - legLowerBound[i];
+                if (detour < minDetour) {
+                    minDetour = detour;
+                }
+            }
+            if (minDetour <= budget) {
+                survivors.add(c);
+            }
+        }
+        int pruned = candidates.size() - survivors.size();
+        candidates.clear();
+        candidates.addAll(survivors);
+        return pruned;
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.platform.PlannerLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads map tiles into a tile cache ahead of time, so the maps keep working without
+ * coverage in the field.
+ *
+ * A fixed number of worker threads take the tiles in order from the array given to
+ * {@link #prefetch}, which is the whole queue: nothing else is buffered, so memory use does not
+ * grow with the number of tiles. Tiles the cache already holds are skipped. After
+ * {@link #MAX_CONSECUTIVE_FAILURES} failed downloads in a row the server or the network is taken
+ * as unavailable and the prefetch stops.
+ */
+public final class TilePrefetcher {
+
+    private static final String TAG = "TilePrefetcher";
+
+    /**
+     * Failed downloads in a row after which the prefetch gives up.
+     */
+    public static final int MAX_CONSECUTIVE_FAILURES = 10;
+
+    /**
+     * Source of tile images, e.g. a tile server.
+     */
+    public interface TileSource {
+        /**
+         * Downloads a tile.
+         *
+         * @param tile The packed tile, see {@link TileSet#pack}.
+         * @return The tile image.
+         * @throws IOException if the download fails.
+         */
+        byte[] download(long tile) throws IOException;
+    }
+
+    /**
+     * Cache the tiles are stored in; it bounds its own size. Called from the worker threads.
+     */
+    public interface TileStore {
+        /**
+         * Whether the cache holds the tile.
+         *
+         * @param tile The packed tile.
+         * @return true if the tile need not be downloaded.
+         */
+        boolean contains(long tile);
+
+        /**
+         * Stores a downloaded tile.
+         *
+         * @param tile The packed tile.
+         * @param data The tile image.
+         * @throws IOException if the tile cannot be stored.
+         */
+        void save(long tile, byte[] data) throws IOException;
+    }
+
+    /**
+     * Counts of a finished prefetch.
+     */
+    public static final class Result {
+        public final int downloaded;
+        public final int cached;
+        public final int failed;
+        /**
+         * Whether the prefetch stopped before all tiles were handled, cancelled or offline.
+         */
+        public final boolean stopped;
+
+        Result(int downloaded, int cached, int failed, boolean stopped) {
+            this.downloaded = downloaded;
+            this.cached = cached;
+            this.failed = failed;
+            this.stopped = stopped;
+        }
+
+        @Override
+        public String toString() {
+            return downloaded + " downloaded, " + cached + " cached, " + failed + " failed" + (stopped ? ", stopped" : "");
+        }
+    }
+
+    private final TileSource source;
+    private final TileStore store;
+    private final int threads;
+    private final PlannerLogger logger;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param source  The tile source.
+     * @param store   The tile cache.
+     * @param threads Number of parallel downloads; tile servers usually allow two.
+     * @param logger  Logger for failed downloads.
+     */
+    public TilePrefetcher(TileSource source, TileStore store, int threads, PlannerLogger logger) {
+        this.source = source;
+        this.store = store;
+        this.threads = Math.max(1, threads);
+        this.logger = logger;
+    }
+
+    /**
+     * Downloads the tiles the cache does not hold, blocking until all are handled or the
+     * prefetch stops.
+     *
+     * @param tiles The packed tiles, in the order to download them.
+     * @return The counts.
+     */
+    public Result prefetch(long[] tiles) {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger downloaded = new AtomicInteger();
+        AtomicInteger cached = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger failedInRow = new AtomicInteger();
+        Runnable worker = () -> {
+            int k;
+            while (!cancelled.get() && failedInRow.get() < MAX_CONSECUTIVE_FAILURES
+                    && (k = next.getAndIncrement()) < tiles.length) {
+                long tile = tiles[k];
+                if (store.contains(tile)) {
+                    cached.incrementAndGet();
+                    continue;
+                }
+                try {
+                    store.save(tile, source.download(tile));
+                    downloaded.incrementAndGet();
+                    failedInRow.set(0);
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                    failedInRow.incrementAndGet();
+                    logger.error(TAG, "Tile " + TileSet.zoom(tile) + "/" + TileSet.x(tile) + "/" + TileSet.y(tile)
+                            + " failed: " + e.getMessage(), null);
+                }
+            }
+        };
+
+        Thread[] workers = new Thread[Math.min(threads, Math.max(1, tiles.length))];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(worker, TAG + "-" + t);
+            workers[t].start();
+        }
+        try {
+            for (Thread w : workers) {
+                w.join();
+            }
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+        }
+        Result result = new Result(downloaded.get(), cached.get(), failed.get(), next.get() < tiles.length);
+        logger.debug(TAG, "Prefetched " + tiles.length + " tiles: " + result);
+        return result;
+    }
+
+    /**
+     * Stops a running prefetch after the downloads in progress; later prefetches do nothing.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Returns a source downloading tiles over HTTP from a URL template with the placeholders
+     * {z}, {x} and {y}, e.g. "https://tiles.example.com/{z}/{x}/{y}.png", or a local stand-in
+     * server in tests.
+     *
+     * @param template  The URL template.
+     * @param userAgent The User-Agent header; tile servers require one identifying the app.
+     * @return The tile source.
+     */
+    public static TileSource urlTemplate(String template, String userAgent) {
+        return tile -> {
+            String url = template.replace("{z}", Integer.toString(TileSet.zoom(tile)))
+                    .replace("{x}", Integer.toString(TileSet.x(tile)))
+                    .replace("{y}", Integer.toString(TileSet.y(tile)));
+            return download(url, userAgent);
+        };
+    }
+
+    /**
+     * Downloads a URL with HttpURLConnection, available both on the JVM and on Android.
+     *
+     * @param url       The URL.
+     * @param userAgent The User-Agent header.
+     * @return The response body.
+     * @throws IOException if the request fails or the server does not answer with HTTP 200.
+     */
+    public static byte[] download(String url, String userAgent) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setConnectTimeout(5000);
+            conn.setReadTimeout(10000);
+            conn.setRequestProperty("User-Agent", userAgent);
+            int responseCode = conn.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + responseCode);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            try (InputStream in = conn.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.myapplication.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of map tiles (Web Mercator, the slippy map scheme of OpenStreetMap) to prefetch: the
+ * tiles of bounding boxes and of corridors around routes at chosen zoom levels.
+ *
+ * A tile is packed into a long like osmdroid's MapTileIndex, zoom in the highest bits, so the
+ * sorted tiles of {@link #toArray()} list coarse levels first and can be handed to osmdroid's
+ * tile cache as they are. The number of tiles is bounded; a level that does not fit is not
+ * added at all, so the set never holds a partial level of a box.
+ */
+public final class TileSet {
+
+    /**
+     * Highest zoom level that fits the packing.
+     */
+    public static final int MAX_ZOOM = 29;
+
+    private static final int COORD_BITS = 29;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    private final int maxTiles;
+    private long[] tiles = new long[64];
+    private int size;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param maxTiles Maximal number of distinct tiles.
+     */
+    public TileSet(int maxTiles) {
+        this.maxTiles = maxTiles;
+    }
+
+    /**
+     * Packs tile coordinates like osmdroid's MapTileIndex.getTileIndex.
+     *
+     * @param zoom The zoom level, 0 to {@link #MAX_ZOOM}.
+     * @param x    Column of the tile.
+     * @param y    Row of the tile.
+     * @return The packed tile.
+     */
+    public static long pack(int zoom, int x, int y) {
+        return ((long) zoom << (2 * COORD_BITS)) | ((long) x << COORD_BITS) | y;
+    }
+
+    /**
+     * Returns the zoom level of a packed tile.
+     *
+     * @param tile The packed tile.
+     * @return The zoom level.
+     */
+    public static int zoom(long tile) {
+        return (int) (tile >>> (2 * COORD_BITS));
+    }
+
+    /**
+     * Returns the column of a packed tile.
+     *
+     * @param tile The packed tile.
+     * @return The column.
+     */
+    public static int x(long tile) {
+        return (int) ((tile >>> COORD_BITS) & COORD_MASK);
+    }
+
+    /**
+     * Returns the row of a packed tile.
+     *
+     * @param tile The packed tile.
+     * @return The row.
+     */
+    public static int y(long tile) {
+        return (int) (tile & COORD_MASK);
+    }
+
+    /**
+     * Adds the tiles of a bounding box at a zoom level. A box whose western edge lies east of its
+     * eastern edge crosses the antimeridian and is covered as its two parts on either side of it.
+     *
+     * @param zoom  The zoom level.
+     * @param south Southern edge of the box.
+     * @param west  Western edge of the box.
+     * @param north Northern edge of the box.
+     * @param east  Eastern edge of the box.
+     * @return false if the tiles would exceed the maximal number and none were added.
+     * @throws IllegalArgumentException if the southern edge lies north of the northern edge.
+     */
+    public boolean addBox(int zoom, double south, double west, double north, double east) {
+        if (!(south <= north)) {
+            throw new IllegalArgumentException("South " + south + " is not south of north " + north);
+        }
+        int x0 = tileX(west, zoom), x1 = tileX(east, zoom);
+        int y0 = tileY(north, zoom), y1 = tileY(south, zoom);
+        int last = (1 << zoom) - 1;
+        // across the antimeridian the columns run from x0 to the last one and from 0 to x1,
+        // unless both edges fall into one column and the box spans every column
+        boolean wraps = west > east && x1 < x0;
+        if (west > east && !wraps) {
+            x0 = 0;
+            x1 = last;
+        }
+        long columns = wraps ? (last - x0 + 1) + (x1 + 1) : x1 - x0 + 1;
+        if (size + columns * (y1 - y0 + 1) > maxTiles) {
+            return false;
+        }
+        if (wraps) {
+            addColumns(zoom, x0, last, y0, y1);
+            addColumns(zoom, 0, x1, y0, y1);
+        } else {
+            addColumns(zoom, x0, x1, y0, y1);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the tiles within a distance of a route at a zoom level. The route is followed in steps
+     * of half a tile and a square of tiles around every step is added, so the corridor is at least
+     * as wide as asked on both sides.
+     *
+     * @param zoom          The zoom level.
+     * @param latitudes     Latitudes of the route points.
+     * @param longitudes    Longitudes of the route points.
+     * @param bufferMeters  Width of the corridor on each side of the route.
+     * @return false if the tiles would exceed the maximal number and none were added.
+     */
+    public boolean addCorridor(int zoom, double[] latitudes, double[] longitudes, double bufferMeters) {
+        int start = size;
+        double worldTiles = Math.scalb(1.0, zoom);
+        for (int i = 0; i < latitudes.length; i++) {
+            // 1) steps along the segment from the previous point, or the single first point
+            double x1 = GeoMath.mercatorX(longitudes[i]) * worldTiles, y1 = GeoMath.mercatorY(latitudes[i]) * worldTiles;
+            double x0 = i > 0 ? GeoMath.mercatorX(longitudes[i - 1]) * worldTiles : x1;
+            double y0 = i > 0 ? GeoMath.mercatorY(latitudes[i - 1]) * worldTiles : y1;
+            int steps = Math.max(1, (int) Math.ceil(2 * Math.max(Math.abs(x1 - x0), Math.abs(y1 - y0))));
+            // 2) the buffer in tiles at the latitude of the point, where tiles are narrowest in meters
+            double tileMeters = GeoMath.mercatorTileMeters(latitudes[i], zoom);
+            int radius = (int) Math.ceil(bufferMeters / tileMeters);
+            for (int s = i > 0 ? 1 : 0; s <= steps; s++) {
+                int cx = (int) (x0 + (x1 - x0) * s / steps);
+                int cy = (int) (y0 + (y1 - y0) * s / steps);
+                if (!fits(start, (2L * radius + 1) * (2L * radius + 1))) {
+                    size = start;
+                    return false;
+                }
+                for (int x = cx - radius; x <= cx + radius; x++) {
+                    for (int y = cy - radius; y <= cy + radius; y++) {
+                        if (x >= 0 && y >= 0 && x < worldTiles && y < worldTiles) {
+                            add(pack(zoom, x, y));
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the distinct tiles, coarse levels first.
+     *
+     * @return The sorted packed tiles.
+     */
+    public long[] toArray() {
+        size = unique(0);
+        return Arrays.copyOf(tiles, size);
+    }
+
+    /**
+     * Whether count more tiles fit; neighbouring corridor squares overlap, so the duplicates
+     * added since from are dropped before giving up.
+     */
+    private boolean fits(int from, long count) {
+        if (size + count <= maxTiles) {
+            return true;
+        }
+        size = unique(from);
+        return size + count <= maxTiles;
+    }
+
+    private void addColumns(int zoom, int x0, int x1, int y0, int y1) {
+        for (int x = x0; x <= x1; x++) {
+            for (int y = y0; y <= y1; y++) {
+                add(pack(zoom, x, y));
+            }
+        }
+    }
+
+    private void add(long tile) {
+        if (size == tiles.length) {
+            tiles = Arrays.copyOf(tiles, 2 * size);
+        }
+        tiles[size++] = tile;
+    }
+
+    /**
+     * Sorts tiles[from .. size) and removes its duplicates.
+     *
+     * @return The new size.
+     */
+    private int unique(int from) {
+        Arrays.sort(tiles, from, size);
+        int n = from;
+        for (int k = from; k < size; k++) {
+            if (n == from || tiles[n - 1] != tiles[k]) {
+                tiles[n++] = tiles[k];
+            }
+        }
+        return n;
+    }
+
+    private static int tileX(double longitude, int zoom) {
+        return clamp((int) Math.floor(GeoMath.mercatorX(longitude) * Math.scalb(1.0, zoom)), zoom);
+    }
+
+    private static int tileY(double latitude, int zoom) {
+        return clamp((int) Math.floor(GeoMath.mercatorY(latitude) * Math.scalb(1.0, zoom)), zoom);
+    }
+
+    private static int clamp(int tile, int zoom) {
+        return Math.max(0, Math.min(tile, (1 << zoom) - 1));
+    }
+}
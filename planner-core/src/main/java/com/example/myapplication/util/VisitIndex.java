@@ -0,0 +1,120 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.PlaceIds;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * All visits of all places sorted newest first, for the list of completed visits.
+ *
+ * A visit is packed into a long, its epoch day in the high and the {@link PlaceIds} index of
+ * its place in the low 32 bits, so the visits are ordered by one primitive sort after parsing
+ * every date once, and a visit is found by binary search. Positions count from the newest visit;
+ * the array itself is kept in ascending order.
+ */
+public final class VisitIndex {
+
+    private long[] keys;
+    private int size;
+
+    private VisitIndex(long[] keys, int size) {
+        this.keys = keys;
+        this.size = size;
+    }
+
+    /**
+     * Builds the index of the visits of the places. Dates that cannot be parsed are left out.
+     *
+     * @param places The places with their visit dates.
+     * @return The index.
+     */
+    public static VisitIndex build(List<MowingPlace> places) {
+        int count = 0;
+        for (MowingPlace p : places) {
+            count += p.getVisitDates() == null ? 0 : p.getVisitDates().size();
+        }
+        long[] keys = new long[count];
+        int n = 0;
+        for (MowingPlace p : places) {
+            if (p.getVisitDates() == null) {
+                continue;
+            }
+            int placeIndex = PlaceIds.intern(p.getId());
+            for (String date : p.getVisitDates()) {
+                try {
+                    keys[n++] = pack(PlannerDates.parse(date), placeIndex);
+                } catch (IllegalArgumentException e) {
+                    n--;
+                }
+            }
+        }
+        Arrays.sort(keys, 0, n);
+        return new VisitIndex(keys, n);
+    }
+
+    /**
+     * Returns the number of visits.
+     *
+     * @return The number of visits.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the day of a visit.
+     *
+     * @param position The position of the visit, 0 for the newest.
+     * @return The epoch day of the visit.
+     */
+    public int epochDay(int position) {
+        return (int) (keys[size - 1 - position] >> 32);
+    }
+
+    /**
+     * Returns the place of a visit.
+     *
+     * @param position The position of the visit, 0 for the newest.
+     * @return The {@link PlaceIds} index of the place.
+     */
+    public int placeIndex(int position) {
+        return (int) keys[size - 1 - position];
+    }
+
+    /**
+     * Finds a visit by binary search.
+     *
+     * @param placeIndex The {@link PlaceIds} index of the place.
+     * @param epochDay   The day of the visit.
+     * @return The position of the visit, or -1 if there is no such visit.
+     */
+    public int indexOf(int placeIndex, long epochDay) {
+        int k = Arrays.binarySearch(keys, 0, size, pack(epochDay, placeIndex));
+        return k < 0 ? -1 : size - 1 - k;
+    }
+
+    /**
+     * Removes a visit; the positions of the older visits move up by one.
+     *
+     * @param placeIndex The {@link PlaceIds} index of the place.
+     * @param epochDay   The day of the visit.
+     * @return The position the visit had, or -1 if there was no such visit.
+     */
+    public int remove(int placeIndex, long epochDay) {
+        int k = Arrays.binarySearch(keys, 0, size, pack(epochDay, placeIndex));
+        if (k < 0) {
+            return -1;
+        }
+        int position = size - 1 - k;
+        // the newer visits sit above k, so they are the ones moved
+        System.arraycopy(keys, k + 1, keys, k, size - k - 1);
+        size--;
+        return position;
+    }
+
+    private static long pack(long epochDay, int placeIndex) {
+        return (epochDay << 32) | (placeIndex & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.PlaceIds;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mowing status of every place on one day, computed once from the visit counts and last visits
+ * aggregated by the database (or from the visit dates where there is no database) and kept in
+ * primitive arrays indexed by {@link PlaceIds} index, so the map, the list of visits and the
+ * planner read a status with an array lookup instead of parsing visit dates.
+ *
+ *   DONE      nothing to do now: all mowings of the year are done, or the window of the
+ *             next one has not started yet
+ *   UPCOMING  the window of the next mowing is open
+ *   OVERDUE   the window of the next mowing has ended
+ *
+ * The index is immutable. Build a new one when the visits change, derive one with
+ * {@link #withVisits} when the visits of a single place change, and with {@link #onDay} when the
+ * day changes; see {@link #today()}.
+ */
+public final class VisitStatusIndex {
+
+    public static final byte UNKNOWN = -1;
+    public static final byte DONE = 0;
+    public static final byte UPCOMING = 1;
+    public static final byte OVERDUE = 2;
+
+    /**
+     * Days until due of a place whose mowings of the year are all done.
+     */
+    public static final int NO_DUE = Integer.MAX_VALUE;
+
+    /**
+     * Last visit of a place never visited.
+     */
+    public static final int NEVER_VISITED = Integer.MIN_VALUE;
+
+    private final long today;
+    private final byte[] statuses;
+    private final int[] daysUntilDue;
+    private final int[] visitsThisYear;
+    private final int[] lastVisits;
+
+    private VisitStatusIndex(long today, int size) {
+        this.today = today;
+        statuses = new byte[size];
+        daysUntilDue = new int[size];
+        visitsThisYear = new int[size];
+        lastVisits = new int[size];
+        Arrays.fill(statuses, UNKNOWN);
+        Arrays.fill(daysUntilDue, NO_DUE);
+        Arrays.fill(lastVisits, NEVER_VISITED);
+    }
+
+    /**
+     * Computes the status of the given places from their visit dates. Visit dates that cannot be
+     * parsed are ignored.
+     *
+     * @param places   The places.
+     * @param today    The day of the status, as days since 1970-01-01.
+     * @param schedule The mowing windows.
+     * @return The index.
+     */
+    public static VisitStatusIndex build(List<MowingPlace> places, long today, MowingSchedule schedule) {
+        VisitStatusIndex index = new VisitStatusIndex(today, internAll(places));
+        int year = PlannerDates.yearOf(today);
+        for (MowingPlace place : places) {
+            // 1) visits this year and the last visit
+            int count = 0;
+            long last = NEVER_VISITED;
+            List<String> dates = place.getVisitDates();
+            if (dates != null) {
+                for (String date : dates) {
+                    long day;
+                    try {
+                        day = PlannerDates.parse(date);
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+                    if (PlannerDates.yearOf(day) == year) {
+                        count++;
+                    }
+                    last = Math.max(last, day);
+                }
+            }
+            // 2) window of the next mowing of the year
+            index.set(PlaceIds.intern(place.getId()), place.getMowingCountPerYear(), count, (int) last, schedule);
+        }
+        return index;
+    }
+
+    /**
+     * Computes the status of the given places from their visits as the database aggregates them,
+     * without reading visit dates.
+     *
+     * @param places         The places, for their required number of mowings.
+     * @param visitsThisYear Number of visits in the year of today by place ID; places without
+     *                       visits that year may be missing.
+     * @param lastVisits     Day of the last visit by place ID; places never visited may be missing.
+     * @param today          The day of the status, as days since 1970-01-01.
+     * @param schedule       The mowing windows.
+     * @return The index.
+     */
+    public static VisitStatusIndex fromVisits(List<MowingPlace> places, Map<String, Integer> visitsThisYear,
+                                              Map<String, Long> lastVisits, long today, MowingSchedule schedule) {
+        VisitStatusIndex index = new VisitStatusIndex(today, internAll(places));
+        for (MowingPlace place : places) {
+            Integer count = visitsThisYear.get(place.getId());
+            Long last = lastVisits.get(place.getId());
+            index.set(PlaceIds.intern(place.getId()), place.getMowingCountPerYear(),
+                    count == null ? 0 : count, last == null ? NEVER_VISITED : (int) (long) last, schedule);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the status of the same places on another day. Within the year of {@link #today()}
+     * the counted visits stay valid and only the windows are evaluated again; in another year
+     * the visit dates of the places are counted anew.
+     *
+     * @param today    The new day, as days since 1970-01-01.
+     * @param places   The places this index was computed for, with their visit dates.
+     * @param schedule The mowing windows.
+     * @return The index for the new day.
+     */
+    public VisitStatusIndex onDay(long today, List<MowingPlace> places, MowingSchedule schedule) {
+        if (PlannerDates.yearOf(today) != PlannerDates.yearOf(this.today)) {
+            return build(places, today, schedule);
+        }
+        VisitStatusIndex index = new VisitStatusIndex(today, Math.max(statuses.length, internAll(places)));
+        for (MowingPlace place : places) {
+            int id = PlaceIds.intern(place.getId());
+            index.set(id, place.getMowingCountPerYear(), visitsThisYear(id), lastVisit(id), schedule);
+        }
+        return index;
+    }
+
+    /**
+     * Returns a copy of this index in which one place has the given visits, e.g. after one of its
+     * visits was removed. The other places keep their status.
+     *
+     * @param place          The place.
+     * @param visitsThisYear The number of its visits in the year of {@link #today()}.
+     * @param lastVisit      The day of its last visit, or {@link #NEVER_VISITED}.
+     * @param schedule       The mowing windows.
+     * @return The new index.
+     */
+    public VisitStatusIndex withVisits(MowingPlace place, int visitsThisYear, int lastVisit, MowingSchedule schedule) {
+        int id = PlaceIds.intern(place.getId());
+        VisitStatusIndex index = new VisitStatusIndex(today, Math.max(statuses.length, id + 1));
+        System.arraycopy(statuses, 0, index.statuses, 0, statuses.length);
+        System.arraycopy(daysUntilDue, 0, index.daysUntilDue, 0, daysUntilDue.length);
+        System.arraycopy(this.visitsThisYear, 0, index.visitsThisYear, 0, this.visitsThisYear.length);
+        System.arraycopy(lastVisits, 0, index.lastVisits, 0, lastVisits.length);
+        index.set(id, place.getMowingCountPerYear(), visitsThisYear, lastVisit, schedule);
+        return index;
+    }
+
+    /**
+     * Interns the IDs of the places and returns the size the arrays need for them.
+     */
+    private static int internAll(List<MowingPlace> places) {
+        for (MowingPlace place : places) {
+            PlaceIds.intern(place.getId());
+        }
+        return PlaceIds.size();
+    }
+
+    /**
+     * Stores the visits of a place and derives its status from the window of its next mowing.
+     */
+    private void set(int id, int required, int count, int last, MowingSchedule schedule) {
+        visitsThisYear[id] = count;
+        lastVisits[id] = last;
+        daysUntilDue[id] = NO_DUE;
+        if (count >= required) {
+            statuses[id] = DONE;
+            return;
+        }
+        long[] window = schedule.window(required, count, PlannerDates.yearOf(today));
+        daysUntilDue[id] = (int) (window[1] - today);
+        if (today < window[0]) {
+            statuses[id] = DONE;
+        } else if (today < window[1]) {
+            statuses[id] = UPCOMING;
+        } else {
+            statuses[id] = OVERDUE;
+        }
+    }
+
+    /**
+     * Returns the day the index was computed for; compare it with today to know when to rebuild.
+     *
+     * @return Days since 1970-01-01.
+     */
+    public long today() {
+        return today;
+    }
+
+    /**
+     * Returns the status of a place.
+     *
+     * @param idIndex The place's index in {@link PlaceIds}.
+     * @return {@link #DONE}, {@link #UPCOMING}, {@link #OVERDUE}, or {@link #UNKNOWN} if the
+     *         place was not indexed.
+     */
+    public byte status(int idIndex) {
+        return idIndex < statuses.length ? statuses[idIndex] : UNKNOWN;
+    }
+
+    /**
+     * Returns the number of days until the next mowing of a place is overdue.
+     *
+     * @param idIndex The place's index in {@link PlaceIds}.
+     * @return The days, negative if overdue, or {@link #NO_DUE} if all mowings of the year are
+     *         done or the place was not indexed.
+     */
+    public int daysUntilDue(int idIndex) {
+        return idIndex < daysUntilDue.length ? daysUntilDue[idIndex] : NO_DUE;
+    }
+
+    /**
+     * Returns the number of visits of a place in the year of {@link #today()}.
+     *
+     * @param idIndex The place's index in {@link PlaceIds}.
+     * @return The number of visits.
+     */
+    public int visitsThisYear(int idIndex) {
+        return idIndex < visitsThisYear.length ? visitsThisYear[idIndex] : 0;
+    }
+
+    /**
+     * Returns the last visit of a place.
+     *
+     * @param idIndex The place's index in {@link PlaceIds}.
+     * @return The day of the last visit as days since 1970-01-01, or {@link #NEVER_VISITED}.
+     */
+    public int lastVisit(int idIndex) {
+        return idIndex < lastVisits.length ? lastVisits[idIndex] : NEVER_VISITED;
+    }
+
+    /**
+     * Returns whether a place was indexed.
+     *
+     * @param idIndex The place's index in {@link PlaceIds}.
+     * @return true if the index holds the place.
+     */
+    public boolean contains(int idIndex) {
+        return status(idIndex) != UNKNOWN;
+    }
+}
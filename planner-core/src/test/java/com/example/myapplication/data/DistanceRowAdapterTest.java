@@ -0,0 +1,115 @@
+package com.example.myapplication.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests of {@link DistanceRowAdapter} against the legacy format of distancesToOthers, a plain
+ * list of {@link MowingPlace.DistanceEntry} objects as Gson wrote it before rows existed.
+ */
+public class DistanceRowAdapterTest {
+
+    private static final String ASSET_FILE = "app/src/main/assets/mowing_places.json";
+    private static final Type ENTRY_LIST = new TypeToken<List<MowingPlace.DistanceEntry>>() {}.getType();
+
+    private final DistanceRowAdapter adapter = new DistanceRowAdapter();
+
+    @Test
+    public void writesTheLegacyFormat() {
+        List<MowingPlace.DistanceEntry> entries = new ArrayList<>();
+        entries.add(entry("adapter-test-a", 5400, 420));
+        entries.add(entry("adapter-test-b", -1, -1));
+        entries.add(entry("adapter-test-a", 5600, 430));
+        String legacy = new Gson().toJson(entries, ENTRY_LIST);
+
+        assertEquals(legacy, adapter.toJson(DistanceRow.of(entries)));
+    }
+
+    @Test
+    public void readsTheLegacyFormat() throws IOException {
+        List<MowingPlace.DistanceEntry> entries = new ArrayList<>();
+        entries.add(entry("adapter-test-a", 5400, 420));
+        entries.add(entry("adapter-test-a", 5600, 430));
+        String legacy = new Gson().toJson(entries, ENTRY_LIST);
+
+        DistanceRow row = adapter.fromJson(legacy);
+        // duplicates are kept in file order, so the last entry stays the current one
+        assertEquals(2, row.size());
+        assertEquals("adapter-test-a", row.id(1));
+        assertEquals(5600, row.distance(1));
+        assertEquals(430, row.duration(1));
+        assertEquals(legacy, adapter.toJson(row));
+    }
+
+    @Test
+    public void missingValuesDefaultToZeroAndUnknownFieldsAreSkipped() throws IOException {
+        DistanceRow row = adapter.fromJson("[{\"id\":\"adapter-test-a\",\"note\":{\"x\":[1,2]}},"
+                + "{\"id\":\"adapter-test-b\",\"distance\":null,\"duration\":7},"
+                + "null,{\"distance\":3}]");
+        assertEquals(2, row.size());
+        assertEquals(0, row.distance(0));
+        assertEquals(0, row.duration(0));
+        assertEquals(0, row.distance(1));
+        assertEquals(7, row.duration(1));
+    }
+
+    @Test
+    public void placeWithoutDistancesKeepsNull() {
+        MowingPlace place = new Gson().fromJson("{\"id\":\"adapter-test-a\"}", MowingPlace.class);
+        assertNull(place.getDistanceRow());
+    }
+
+    @Test
+    public void bundledPlacesRoundTrip() throws IOException {
+        JsonArray original;
+        try (Reader reader = Files.newBufferedReader(Paths.get(ASSET_FILE), StandardCharsets.UTF_8)) {
+            original = JsonParser.parseReader(reader).getAsJsonArray();
+        }
+        Gson gson = new Gson();
+        Type placeList = new TypeToken<List<MowingPlace>>() {}.getType();
+        List<MowingPlace> places = gson.fromJson(original, placeList);
+        JsonArray written = gson.toJsonTree(places, placeList).getAsJsonArray();
+
+        assertEquals(original.size(), written.size());
+        for (int i = 0; i < original.size(); i++) {
+            JsonElement expected = original.get(i).getAsJsonObject().get("distancesToOthers");
+            JsonObject place = written.get(i).getAsJsonObject();
+            assertEquals(expected.getAsJsonArray().size(), places.get(i).getDistanceRow().size());
+            assertEquals(legacyEntries(expected), place.get("distancesToOthers"));
+        }
+    }
+
+    /**
+     * Normalizes the numbers of a legacy entry list, as Gson writes the int fields without fraction.
+     */
+    private static JsonElement legacyEntries(JsonElement entries) {
+        Gson gson = new Gson();
+        return gson.toJsonTree(gson.fromJson(entries, ENTRY_LIST), ENTRY_LIST);
+    }
+
+    private static MowingPlace.DistanceEntry entry(String id, int distance, int duration) {
+        MowingPlace.DistanceEntry e = new MowingPlace.DistanceEntry();
+        e.setId(id);
+        e.setDistance(distance);
+        e.setDuration(duration);
+        return e;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.myapplication.data;
+
+import com.example.myapplication.util.DistanceMatrix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link DistanceRow} and its list view.
+ */
+public class DistanceRowTest {
+
+    @Test
+    public void addGrowsAndKeepsTheOrder() {
+        DistanceRow row = new DistanceRow(1);
+        for (int i = 0; i < 100; i++) {
+            row.add("row-test-" + i, i * 10, i);
+        }
+        assertEquals(100, row.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("row-test-" + i, row.id(i));
+            assertEquals(PlaceIds.intern("row-test-" + i), row.idIndex(i));
+            assertEquals(i * 10, row.distance(i));
+            assertEquals(i, row.duration(i));
+        }
+        row.trimToSize();
+        assertEquals(100, row.size());
+        assertEquals(990, row.distance(99));
+    }
+
+    @Test
+    public void removeShiftsTheLaterEntries() {
+        DistanceRow row = row("a", 1, "b", 2, "c", 3);
+        row.remove(1);
+        assertEquals(2, row.size());
+        assertEquals("row-test-a", row.id(0));
+        assertEquals("row-test-c", row.id(1));
+        assertEquals(3, row.distance(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void removeOutsideTheRowThrows() {
+        row("a", 1).remove(1);
+    }
+
+    @Test
+    public void duplicateEntriesAreKeptAndTheLastOneWins() {
+        // savePlaceWithDistances appends fresh entries after stale ones instead of replacing them
+        MowingPlace from = place("row-test-from", row("to", 1000, "other", 50, "to", 2000));
+        MowingPlace to = place("row-test-to", new DistanceRow());
+        DistanceMatrix matrix = new DistanceMatrix(Arrays.asList(from, to));
+        assertEquals(2000, matrix.distance(0, 1), 0);
+        assertEquals(2000, matrix.duration(0, 1), 0);
+        assertEquals(3, from.getDistanceRow().size());
+    }
+
+    @Test
+    public void unknownValuesDoNotOverrideKnownOnes() {
+        MowingPlace from = place("row-test-from", row("to", 1000, "to", -1));
+        MowingPlace to = place("row-test-to", new DistanceRow());
+        DistanceMatrix matrix = new DistanceMatrix(Arrays.asList(from, to));
+        assertEquals(1000, matrix.distance(0, 1), 0);
+    }
+
+    @Test
+    public void removeIdIndexRemovesEveryDuplicate() {
+        DistanceRow row = row("a", 1, "b", 2, "a", 3, "c", 4, "a", 5);
+        assertEquals(3, row.removeIdIndex(PlaceIds.intern("row-test-a")));
+        assertEquals(2, row.size());
+        assertEquals("row-test-b", row.id(0));
+        assertEquals("row-test-c", row.id(1));
+        assertEquals(0, row.removeIdIndex(PlaceIds.intern("row-test-a")));
+    }
+
+    @Test
+    public void copyIsIndependentOfTheRow() {
+        DistanceRow row = row("a", 1, "b", 2);
+        DistanceRow copy = row.copy();
+        row.add("row-test-start", 5, 5);
+        copy.removeIdIndex(PlaceIds.intern("row-test-a"));
+        assertEquals(3, row.size());
+        assertEquals("row-test-a", row.id(0));
+        assertEquals(1, copy.size());
+        assertEquals("row-test-b", copy.id(0));
+        assertEquals(2, copy.distance(0));
+    }
+
+    @Test
+    public void ofAndAsListRoundTrip() {
+        List<MowingPlace.DistanceEntry> entries = new ArrayList<>();
+        entries.add(entry("row-test-a", 10, 1));
+        entries.add(entry("row-test-b", -1, -1));
+        entries.add(entry("row-test-a", 30, 3));
+        List<MowingPlace.DistanceEntry> view = DistanceRow.of(entries).asList();
+        assertEquals(3, view.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(entries.get(i).getId(), view.get(i).getId());
+            assertEquals(entries.get(i).getDistance(), view.get(i).getDistance());
+            assertEquals(entries.get(i).getDuration(), view.get(i).getDuration());
+        }
+    }
+
+    @Test
+    public void asListWritesThroughToTheRow() {
+        DistanceRow row = row("a", 1, "b", 2, "c", 3);
+        List<MowingPlace.DistanceEntry> view = row.asList();
+        view.add(entry("row-test-d", 4, 4));
+        assertEquals(4, row.size());
+        assertEquals("row-test-d", row.id(3));
+
+        assertEquals("row-test-a", view.remove(0).getId());
+        assertEquals(3, row.size());
+
+        assertTrue(view.removeIf(e -> e.getDistance() >= 3));
+        assertEquals(1, row.size());
+        assertEquals("row-test-b", row.id(0));
+    }
+
+    @Test
+    public void modifyingAnEntryOfTheViewDoesNotChangeTheRow() {
+        DistanceRow row = row("a", 1);
+        row.asList().get(0).setDistance(99);
+        assertEquals(1, row.distance(0));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void asListInsertsOnlyAtTheEnd() {
+        row("a", 1, "b", 2).asList().add(0, entry("row-test-c", 3, 3));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void asListDoesNotReplaceEntries() {
+        row("a", 1).asList().set(0, entry("row-test-c", 3, 3));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void asListGetOutsideTheRowThrows() {
+        row("a", 1).asList().get(1);
+    }
+
+    /**
+     * Builds a row from (suffix, distance) pairs; durations equal the distances.
+     */
+    private static DistanceRow row(Object... pairs) {
+        DistanceRow row = new DistanceRow();
+        for (int i = 0; i < pairs.length; i += 2) {
+            int value = (Integer) pairs[i + 1];
+            row.add("row-test-" + pairs[i], value, value);
+        }
+        return row;
+    }
+
+    private static MowingPlace place(String id, DistanceRow row) {
+        MowingPlace p = new MowingPlace();
+        p.setId(id);
+        p.setName(id);
+        p.setLatitude(49.0);
+        p.setLongitude(14.0);
+        p.setDistanceRow(row);
+        return p;
+    }
+
+    private static MowingPlace.DistanceEntry entry(String id, int distance, int duration) {
+        MowingPlace.DistanceEntry e = new MowingPlace.DistanceEntry();
+        e.setId(id);
+        e.setDistance(distance);
+        e.setDuration(duration);
+        return e;
+    }
+}
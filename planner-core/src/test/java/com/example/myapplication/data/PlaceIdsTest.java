@@ -0,0 +1,58 @@
+package com.example.myapplication.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PlaceIds}. The table is process-wide, so every test uses IDs of its own.
+ */
+public class PlaceIdsTest {
+
+    @Test
+    public void internReturnsTheSameIndexForEqualIds() {
+        int index = PlaceIds.intern("place-ids-test-a");
+        assertEquals(index, PlaceIds.intern(new String("place-ids-test-a")));
+        assertNotEquals(index, PlaceIds.intern("place-ids-test-b"));
+    }
+
+    @Test
+    public void idReturnsTheFirstInternedString() {
+        String id = new String("place-ids-test-c");
+        int index = PlaceIds.intern(id);
+        assertSame(id, PlaceIds.id(PlaceIds.intern(new String("place-ids-test-c"))));
+        assertEquals(id, PlaceIds.id(index));
+    }
+
+    @Test
+    public void indicesAreDenseAndBelowSize() {
+        int first = PlaceIds.intern("place-ids-test-dense-0");
+        int second = PlaceIds.intern("place-ids-test-dense-1");
+        assertEquals(first + 1, second);
+        assertTrue(second < PlaceIds.size());
+    }
+
+    @Test
+    public void tableGrowsBeyondItsInitialCapacity() {
+        int[] indices = new int[1000];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = PlaceIds.intern("place-ids-test-grow-" + i);
+        }
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals("place-ids-test-grow-" + i, PlaceIds.id(indices[i]));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void idOfAnUnknownIndexThrows() {
+        PlaceIds.id(PlaceIds.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void idOfANegativeIndexThrows() {
+        PlaceIds.id(-1);
+    }
+}
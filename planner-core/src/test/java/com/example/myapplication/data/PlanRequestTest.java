@@ -0,0 +1,78 @@
+package com.example.myapplication.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the canonical form and the cache key of {@link PlanRequest}: which differences
+ * between two requests give the same key and which do not.
+ */
+public class PlanRequestTest {
+
+    @Test
+    public void coordinatesAreSnappedToFourDecimalPlaces() {
+        assertEquals(request().setStart(50.123_41, 14.0).cacheKey(),
+                request().setStart(50.123_44, 14.0).cacheKey());
+        assertEquals(request().setEnd(49.0, 15.000_049).cacheKey(),
+                request().setEnd(49.0, 15.0).cacheKey());
+        assertNotEquals(request().setStart(50.1234, 14.0).cacheKey(),
+                request().setStart(50.1236, 14.0).cacheKey());
+    }
+
+    @Test
+    public void orderOfTheWaypointsIsIgnored() {
+        assertEquals(request().setWaypointIds(Arrays.asList("a", "b", "c")).cacheKey(),
+                request().setWaypointIds(Arrays.asList("c", "a", "b")).cacheKey());
+        assertNotEquals(request().setWaypointIds(Arrays.asList("a", "b")).cacheKey(),
+                request().setWaypointIds(Arrays.asList("a", "b", "c")).cacheKey());
+    }
+
+    @Test
+    public void autoFillParametersAreIgnoredWhenAutoFillIsOff() {
+        assertEquals(request().setAutoFill(false, true, 3, 20_000).cacheKey(),
+                request().setAutoFill(false, false, 8, 20_001).cacheKey());
+        assertNotEquals(request().setAutoFill(true, true, 3, 20_000).cacheKey(),
+                request().setAutoFill(true, true, 3, 20_001).cacheKey());
+        assertNotEquals(request().setAutoFill(true, true, 3, 20_000).cacheKey(),
+                request().setAutoFill(true, false, 3, 20_000).cacheKey());
+        assertNotEquals(request().setAutoFill(false, true, 3, 20_000).cacheKey(),
+                request().setAutoFill(true, true, 3, 20_000).cacheKey());
+    }
+
+    @Test
+    public void otherInputsChangeTheKey() {
+        String key = request().cacheKey();
+        assertNotEquals(key, request().setTimeWindow(8 * 60, 15 * 60).cacheKey());
+        assertNotEquals(key, request().setSpeedMultiplier(1.2).cacheKey());
+        assertNotEquals(key, request().setObjective("DURATION").cacheKey());
+        assertNotEquals(key, request().setDatasetVersion(43).cacheKey());
+    }
+
+    @Test
+    public void cacheKeyIsTheHexadecimalSha256() {
+        String key = request().cacheKey();
+        assertEquals(64, key.length());
+        assertTrue(key.matches("[0-9a-f]+"));
+        assertEquals(key, request().cacheKey());
+    }
+
+    /**
+     * A request with every input set; the tests change one input at a time.
+     */
+    private static PlanRequest request() {
+        return new PlanRequest()
+                .setStart(50.08, 14.42)
+                .setEnd(49.19, 16.61)
+                .setWaypointIds(Arrays.asList("b", "a"))
+                .setTimeWindow(7 * 60, 15 * 60)
+                .setSpeedMultiplier(1.0)
+                .setObjective("DISTANCE")
+                .setAutoFill(false, false, 0, 0)
+                .setDatasetVersion(42);
+    }
+}
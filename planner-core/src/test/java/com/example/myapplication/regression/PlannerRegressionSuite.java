@@ -0,0 +1,461 @@
+package com.example.myapplication.regression;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.SyntheticPlacesGenerator;
+import com.example.myapplication.platform.PlannerClock;
+import com.example.myapplication.util.CostModel;
+import com.example.myapplication.util.DistanceMatrix;
+import com.example.myapplication.util.PlannerDates;
+import com.example.myapplication.util.TSPPlanner;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded quality and latency regression suite of the planner.
+ *
+ * Every strategy runs on fixed instance sets drawn from the bundled asset and from
+ * SyntheticPlacesGenerator. For every run it records the cost in the strategy's own objective,
+ * the gap to the exact optimum (Held–Karp, up to {@link #EXACT_MAX_STOPS} stops) or to the best
+ * known cost, the median wall time and the allocated bytes. Allocations are the minimum over the
+ * measured runs, so lazy initialization in a single run does not count. Escape analysis of the
+ * JIT removes a varying share of the allocations depending on when the code gets compiled
+ * (about 20 % between otherwise identical runs), so the suite is meant to run with
+ * -XX:-DoEscapeAnalysis, as the Gradle tasks do; allocations are then reproducible to the byte.
+ * Route construction runs once with the exact matching of Christofides ("route/") and once
+ * with the fast greedy matching ("route-fast/"), so both sides of the trade-off are recorded.
+ *
+ *   record FILE           run the suite and write the results
+ *   compare BASELINE FILE run the suite, write the results and exit with 1 if quality or
+ *                         allocations regressed beyond the tolerances against the baseline
+ *
+ * Tolerances (system properties): regression.qualityTolerance (absolute gap, default 0.005) and
+ * regression.allocationTolerance (relative, per strategy, default 0.2). Latency depends on the
+ * machine, so it is only reported; setting regression.latencyTolerance (relative, per strategy)
+ * gates it as well, for a baseline recorded on the machine that runs the comparison.
+ *
+ * The costs are deterministic and are also checked by the unit test PlannerRegressionTest.
+ *
+ * Gradle: ./gradlew :planner-core:regressionRecord, ./gradlew :planner-core:regressionCompare
+ */
+public final class PlannerRegressionSuite {
+
+    private static final long SEED = 42L;
+    private static final int EXACT_MAX_STOPS = 10;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 5;
+    private static final int SYNTHETIC_PLACES = 300;
+    private static final int FILL_BUDGET_MIN = 10 * 60;
+    private static final int[] ASSET_SIZES = {5, 8, 10, 20, 40, 80};
+    private static final int[] SYNTHETIC_SIZES = {5, 10, 20, 50, 100};
+    private static final int INSTANCES_PER_SIZE = 4;
+    private static final int FILL_INSTANCES = 3;
+    private static final String ASSET_FILE = "app/src/main/assets/mowing_places.json";
+
+    /**
+     * One recorded run of a strategy on an instance.
+     */
+    static class Result {
+        String instance;
+        String strategy;
+        int stops;
+        double cost;
+        double reference;
+        boolean exact;
+        double gap;
+        double wallMillis;
+        long allocatedBytes;
+    }
+
+    /**
+     * The results file.
+     */
+    static class Report {
+        String suite = "planner-regression";
+        int version = 1;
+        String javaVersion = System.getProperty("java.version");
+        List<Result> results = new ArrayList<>();
+    }
+
+    /**
+     * A planner instance: the node list (start, stops, end) and, for auto-fill, the places offered.
+     */
+    private static class Instance {
+        final String name;
+        final List<MowingPlace> nodes;
+        final List<MowingPlace> pool;
+
+        Instance(String name, List<MowingPlace> nodes, List<MowingPlace> pool) {
+            this.name = name;
+            this.nodes = nodes;
+            this.pool = pool;
+        }
+    }
+
+    private PlannerRegressionSuite() {
+    }
+
+    /**
+     * Runs the suite.
+     *
+     * @param args "record FILE" or "compare BASELINE FILE".
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (escapeAnalysisEnabled()) {
+            System.err.println("warning: escape analysis is on, allocations vary between runs; use -XX:-DoEscapeAnalysis");
+        }
+        if (args.length == 2 && "record".equals(args[0])) {
+            write(run(), Paths.get(args[1]));
+        } else if (args.length == 3 && "compare".equals(args[0])) {
+            Report baseline = read(Paths.get(args[1]));
+            Report current = run();
+            write(current, Paths.get(args[2]));
+            List<String> failures = compare(baseline, current);
+            for (String f : failures) {
+                System.err.println("REGRESSION: " + f);
+            }
+            if (!failures.isEmpty()) {
+                System.exit(1);
+            }
+            System.out.println("No regressions against " + args[1]);
+        } else {
+            System.err.println("usage: PlannerRegressionSuite record FILE | compare BASELINE FILE");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Runs every strategy on every instance.
+     *
+     * @return The report.
+     * @throws IOException if the asset cannot be read.
+     */
+    static Report run() throws IOException {
+        return run(WARMUP_RUNS, MEASURED_RUNS);
+    }
+
+    /**
+     * Runs every strategy on every instance with the given number of runs per result.
+     *
+     * @param warmupRuns   Runs before measuring.
+     * @param measuredRuns Runs measured for the wall time and allocations, at least 1.
+     * @return The report.
+     * @throws IOException if the asset cannot be read.
+     */
+    static Report run(int warmupRuns, int measuredRuns) throws IOException {
+        // visit-date filters must not depend on the day the suite runs
+        TSPPlanner.setClock(PlannerClock.fixed(PlannerDates.toEpochDay(2025, 6, 1)));
+
+        List<MowingPlace> asset = loadAsset();
+        List<MowingPlace> synthetic = new SyntheticPlacesGenerator(SEED).generate(SYNTHETIC_PLACES);
+
+        List<Instance> routeInstances = new ArrayList<>();
+        addInstances(routeInstances, "asset", asset, ASSET_SIZES);
+        addInstances(routeInstances, "synthetic", synthetic, SYNTHETIC_SIZES);
+        List<Instance> fillInstances = new ArrayList<>();
+        addInstances(fillInstances, "asset-fill", asset, new int[]{1}, FILL_INSTANCES);
+        addInstances(fillInstances, "synthetic-fill", synthetic, new int[]{1}, FILL_INSTANCES);
+
+        Report report = new Report();
+        for (CostModel.Objective objective : CostModel.Objective.values()) {
+            CostModel model = CostModel.of(objective);
+            String name = objective.name().toLowerCase(Locale.ROOT);
+            for (Instance instance : routeInstances) {
+                report.results.add(runRoute("route/" + name, model, TSPPlanner.MatchingMode.EXACT, instance,
+                        warmupRuns, measuredRuns));
+            }
+            for (Instance instance : routeInstances) {
+                report.results.add(runRoute("route-fast/" + name, model, TSPPlanner.MatchingMode.FAST, instance,
+                        warmupRuns, measuredRuns));
+            }
+            for (Instance instance : fillInstances) {
+                report.results.add(runFill("fill/" + name, model, instance, warmupRuns, measuredRuns));
+            }
+        }
+        return report;
+    }
+
+    private static void addInstances(List<Instance> out, String prefix, List<MowingPlace> places, int[] sizes) {
+        addInstances(out, prefix, places, sizes, INSTANCES_PER_SIZE);
+    }
+
+    private static void addInstances(List<Instance> out, String prefix, List<MowingPlace> places,
+                                     int[] sizes, int count) {
+        for (int size : sizes) {
+            for (int k = 0; k < count; k++) {
+                Random random = new Random(SEED * 31 + size * 1000L + k);
+                List<MowingPlace> shuffled = new ArrayList<>(places);
+                Collections.shuffle(shuffled, random);
+                List<MowingPlace> stops = shuffled.subList(0, Math.min(size, shuffled.size()));
+                // depot near a random place of the dataset, as a crew starting from home
+                MowingPlace depot = shuffled.get(shuffled.size() - 1);
+                List<MowingPlace> nodes = new ArrayList<>();
+                nodes.add(endpoint("start", depot));
+                nodes.addAll(stops);
+                nodes.add(endpoint("end", depot));
+                out.add(new Instance(prefix + "-" + size + "#" + k, nodes, places));
+            }
+        }
+    }
+
+    private static MowingPlace endpoint(String id, MowingPlace near) {
+        MowingPlace p = new MowingPlace();
+        p.setId(id);
+        p.setName(id);
+        p.setLatitude(near.getLatitude() + 0.01);
+        p.setLongitude(near.getLongitude() + 0.01);
+        p.setTimeRequirement(0);
+        p.setDistancesToOthers(new ArrayList<>());
+        return p;
+    }
+
+    /**
+     * Route construction: cost of the route in the strategy's objective, gap to the optimum.
+     */
+    private static Result runRoute(String strategy, CostModel model, TSPPlanner.MatchingMode matchingMode,
+                                   Instance instance, int warmupRuns, int measuredRuns) {
+        List<MowingPlace> route = null;
+        double[] wall = new double[measuredRuns];
+        long allocated = Long.MAX_VALUE;
+        for (int run = -warmupRuns; run < measuredRuns; run++) {
+            long bytes = allocatedBytes();
+            long t0 = System.nanoTime();
+            route = TSPPlanner.generateRoute(instance.nodes, model, matchingMode);
+            long elapsed = System.nanoTime() - t0;
+            if (run >= 0) {
+                wall[run] = elapsed / 1e6;
+                allocated = Math.min(allocated, allocatedBytes() - bytes);
+            }
+        }
+
+        DistanceMatrix matrix = new DistanceMatrix(instance.nodes);
+        double[] cost = model.compile(matrix);
+        int n = matrix.size();
+        Result r = new Result();
+        r.instance = instance.name;
+        r.strategy = strategy;
+        r.stops = n - 2;
+        for (int i = 0; i + 1 < route.size(); i++) {
+            r.cost += cost[matrix.indexOf(route.get(i).getId()) * n + matrix.indexOf(route.get(i + 1).getId())];
+        }
+        if (r.stops <= EXACT_MAX_STOPS) {
+            r.reference = heldKarp(cost, n);
+            r.exact = true;
+        } else {
+            r.reference = r.cost;
+        }
+        r.gap = r.reference > 0 ? r.cost / r.reference - 1 : 0;
+        r.wallMillis = median(wall);
+        r.allocatedBytes = allocated;
+        return r;
+    }
+
+    /**
+     * Auto-fill from a route with one mandatory stop: the cost is the idle time left in the
+     * working day in minutes, and the gap is the idle time above the best known as a share of the day.
+     */
+    private static Result runFill(String strategy, CostModel model, Instance instance,
+                                  int warmupRuns, int measuredRuns) {
+        List<MowingPlace> base = TSPPlanner.generateRoute(instance.nodes, model);
+        List<MowingPlace> route = null;
+        double[] wall = new double[measuredRuns];
+        long allocated = Long.MAX_VALUE;
+        for (int run = -warmupRuns; run < measuredRuns; run++) {
+            List<MowingPlace> copy = new ArrayList<>(base);
+            long bytes = allocatedBytes();
+            long t0 = System.nanoTime();
+            route = TSPPlanner.addExtraCemeteries(copy, instance.pool, FILL_BUDGET_MIN, 1.0, true, 0, model);
+            long elapsed = System.nanoTime() - t0;
+            if (run >= 0) {
+                wall[run] = elapsed / 1e6;
+                allocated = Math.min(allocated, allocatedBytes() - bytes);
+            }
+        }
+
+        DistanceMatrix matrix = new DistanceMatrix(route);
+        double minutes = 0;
+        for (int i = 0; i < route.size(); i++) {
+            minutes += route.get(i).getTimeRequirement() * 60;
+            if (i > 0) {
+                minutes += matrix.duration(i - 1, i) / 60;
+            }
+        }
+        Result r = new Result();
+        r.instance = instance.name;
+        r.strategy = strategy;
+        r.stops = route.size() - 2;
+        r.cost = Math.max(0, FILL_BUDGET_MIN - minutes);
+        r.reference = r.cost;
+        r.gap = 0;
+        r.wallMillis = median(wall);
+        r.allocatedBytes = allocated;
+        return r;
+    }
+
+    /**
+     * Exact cost of the cheapest path from node 0 to node n-1 visiting every node (Held–Karp).
+     */
+    static double heldKarp(double[] cost, int n) {
+        int m = n - 2;
+        int full = (1 << m) - 1;
+        // best[mask][last]: cheapest path from the start over the stops in mask ending at stop last
+        double[][] best = new double[1 << m][m];
+        for (double[] row : best) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        for (int s = 0; s < m; s++) {
+            best[1 << s][s] = cost[s + 1];
+        }
+        for (int mask = 1; mask <= full; mask++) {
+            for (int last = 0; last < m; last++) {
+                double c = best[mask][last];
+                if ((mask & (1 << last)) == 0 || c == Double.POSITIVE_INFINITY) continue;
+                for (int next = 0; next < m; next++) {
+                    if ((mask & (1 << next)) != 0) continue;
+                    int nextMask = mask | (1 << next);
+                    double candidate = c + cost[(last + 1) * n + next + 1];
+                    if (candidate < best[nextMask][next]) {
+                        best[nextMask][next] = candidate;
+                    }
+                }
+            }
+        }
+        if (m == 0) {
+            return cost[n - 1];
+        }
+        double result = Double.POSITIVE_INFINITY;
+        for (int last = 0; last < m; last++) {
+            result = Math.min(result, best[full][last] + cost[(last + 1) * n + n - 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Compares a run with the baseline. Best-known references are the better of both runs.
+     *
+     * @param baseline The baseline report.
+     * @param current  The current report; gaps of non-exact results are updated.
+     * @return Descriptions of the regressions, empty if there are none.
+     */
+    static List<String> compare(Report baseline, Report current) {
+        double qualityTolerance = Double.parseDouble(System.getProperty("regression.qualityTolerance", "0.005"));
+        String latencyProperty = System.getProperty("regression.latencyTolerance");
+        double latencyTolerance = latencyProperty == null ? Double.NaN : Double.parseDouble(latencyProperty);
+        double allocationTolerance = Double.parseDouble(System.getProperty("regression.allocationTolerance", "0.2"));
+
+        Map<String, Result> base = new HashMap<>();
+        for (Result r : baseline.results) {
+            base.put(r.strategy + " " + r.instance, r);
+        }
+        List<String> failures = new ArrayList<>();
+        Map<String, double[]> perStrategy = new LinkedHashMap<>();
+        for (Result r : current.results) {
+            Result b = base.get(r.strategy + " " + r.instance);
+            if (b == null) {
+                System.out.println("not in baseline: " + r.strategy + " " + r.instance);
+                continue;
+            }
+            double baseGap = b.gap;
+            if (r.strategy.startsWith("fill/")) {
+                // idle minutes above the best known, as a share of the working day
+                double bestKnown = Math.min(b.reference, r.cost);
+                r.reference = bestKnown;
+                r.gap = (r.cost - bestKnown) / FILL_BUDGET_MIN;
+                baseGap = (b.cost - bestKnown) / FILL_BUDGET_MIN;
+            } else if (!r.exact) {
+                double bestKnown = Math.min(b.reference, r.cost);
+                r.reference = bestKnown;
+                r.gap = r.cost / bestKnown - 1;
+                baseGap = b.cost / bestKnown - 1;
+            }
+            if (r.gap > baseGap + qualityTolerance) {
+                failures.add(String.format(Locale.ROOT, "%s %s: gap %.2f %% (baseline %.2f %%)",
+                        r.strategy, r.instance, r.gap * 100, baseGap * 100));
+            }
+            double[] sums = perStrategy.computeIfAbsent(r.strategy, k -> new double[4]);
+            sums[0] += r.wallMillis;
+            sums[1] += b.wallMillis;
+            sums[2] += r.allocatedBytes;
+            sums[3] += b.allocatedBytes;
+        }
+        for (Map.Entry<String, double[]> e : perStrategy.entrySet()) {
+            double[] s = e.getValue();
+            System.out.printf(Locale.ROOT, "%-16s time %8.2f ms (baseline %8.2f), allocated %8.1f MB (baseline %8.1f)%n",
+                    e.getKey(), s[0], s[1], s[2] / 1e6, s[3] / 1e6);
+            // small absolute slack so sub-millisecond strategies do not fail on timer noise
+            if (!Double.isNaN(latencyTolerance) && s[0] > s[1] * (1 + latencyTolerance) + 5.0) {
+                failures.add(String.format(Locale.ROOT, "%s: total time %.2f ms (baseline %.2f ms)", e.getKey(), s[0], s[1]));
+            }
+            if (s[2] > s[3] * (1 + allocationTolerance) + 65_536) {
+                failures.add(String.format(Locale.ROOT, "%s: allocated %.1f MB (baseline %.1f MB)", e.getKey(), s[2] / 1e6, s[3] / 1e6));
+            }
+        }
+        return failures;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static boolean escapeAnalysisEnabled() {
+        try {
+            return !"false".equals(ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class)
+                    .getVMOption("DoEscapeAnalysis").getValue());
+        } catch (RuntimeException e) {
+            // not a HotSpot VM; nothing known about its allocations
+            return false;
+        }
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static List<MowingPlace> loadAsset() throws IOException {
+        Type listType = new TypeToken<List<MowingPlace>>() {}.getType();
+        try (Reader reader = Files.newBufferedReader(Paths.get(ASSET_FILE), StandardCharsets.UTF_8)) {
+            return new Gson().fromJson(reader, listType);
+        }
+    }
+
+    static Report read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return new Gson().fromJson(reader, Report.class);
+        }
+    }
+
+    private static void write(Report report, Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        }
+    }
+}
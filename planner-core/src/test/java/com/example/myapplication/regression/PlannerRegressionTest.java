@@ -0,0 +1,81 @@
+package com.example.myapplication.regression;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Quality part of the planner regression suite as unit tests: every strategy runs once on the
+ * seeded instances, without timing, and must reproduce the costs of the committed baseline.
+ * The planner is deterministic, so any difference is a change of its results; a deliberate one
+ * is accepted by recording a new baseline with ./gradlew :planner-core:regressionRecord.
+ */
+public class PlannerRegressionTest {
+
+    private static final String BASELINE = "planner-core/regression/baseline.json";
+
+    /**
+     * Relative difference of costs accepted as rounding noise.
+     */
+    private static final double COST_EPSILON = 1e-9;
+
+    private static Map<String, PlannerRegressionSuite.Result> baseline;
+    private static PlannerRegressionSuite.Report current;
+
+    @BeforeClass
+    public static void runSuite() throws IOException {
+        baseline = new HashMap<>();
+        for (PlannerRegressionSuite.Result r : PlannerRegressionSuite.read(Paths.get(BASELINE)).results) {
+            baseline.put(r.strategy + " " + r.instance, r);
+        }
+        current = PlannerRegressionSuite.run(0, 1);
+    }
+
+    @Test
+    public void coversEveryBaselineResult() {
+        assertEquals(baseline.size(), current.results.size());
+        for (PlannerRegressionSuite.Result r : current.results) {
+            assertNotNull("not in baseline: " + r.strategy + " " + r.instance, baseline.get(r.strategy + " " + r.instance));
+        }
+    }
+
+    @Test
+    public void routeCostEqualsBaseline() {
+        for (PlannerRegressionSuite.Result r : current.results) {
+            PlannerRegressionSuite.Result b = baseline.get(r.strategy + " " + r.instance);
+            if (b != null && !r.strategy.startsWith("fill/")) {
+                assertEquals(r.strategy + " " + r.instance, b.cost, r.cost, COST_EPSILON * Math.max(1, b.cost));
+                assertEquals(r.strategy + " " + r.instance, b.stops, r.stops);
+            }
+        }
+    }
+
+    @Test
+    public void fillIdleTimeEqualsBaseline() {
+        for (PlannerRegressionSuite.Result r : current.results) {
+            PlannerRegressionSuite.Result b = baseline.get(r.strategy + " " + r.instance);
+            if (b != null && r.strategy.startsWith("fill/")) {
+                assertEquals(r.strategy + " " + r.instance, b.cost, r.cost, COST_EPSILON * Math.max(1, b.cost));
+                assertEquals(r.strategy + " " + r.instance, b.stops, r.stops);
+            }
+        }
+    }
+
+    @Test
+    public void routeCostIsNotBelowExactOptimum() {
+        for (PlannerRegressionSuite.Result r : current.results) {
+            if (r.exact) {
+                assertTrue(r.strategy + " " + r.instance + ": cost " + r.cost + " below optimum " + r.reference,
+                        r.cost >= r.reference * (1 - COST_EPSILON));
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.myapplication.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the Web Mercator projection of {@link GeoMath} shared by the tiles, the marker
+ * clusters and the route geometry levels.
+ */
+public class GeoMathTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void mercatorMapsTheWorldToTheUnitSquare() {
+        assertEquals(0.0, GeoMath.mercatorX(-180), EPSILON);
+        assertEquals(0.5, GeoMath.mercatorX(0), EPSILON);
+        assertEquals(1.0, GeoMath.mercatorX(180), EPSILON);
+        assertEquals(0.5, GeoMath.mercatorY(0), EPSILON);
+        assertEquals(0.0, GeoMath.mercatorY(GeoMath.MERCATOR_MAX_LATITUDE), 1e-8);
+        assertEquals(1.0, GeoMath.mercatorY(-GeoMath.MERCATOR_MAX_LATITUDE), 1e-8);
+    }
+
+    @Test
+    public void mercatorClampsPolarLatitudes() {
+        assertEquals(GeoMath.mercatorY(GeoMath.MERCATOR_MAX_LATITUDE), GeoMath.mercatorY(90), EPSILON);
+        assertEquals(GeoMath.mercatorY(-GeoMath.MERCATOR_MAX_LATITUDE), GeoMath.mercatorY(-90), EPSILON);
+    }
+
+    @Test
+    public void mercatorInverseRoundTrips() {
+        for (double lat = -85; lat <= 85; lat += 5) {
+            assertEquals(lat, GeoMath.mercatorLatitude(GeoMath.mercatorY(lat)), EPSILON);
+        }
+        for (double lon = -180; lon <= 180; lon += 7.5) {
+            assertEquals(lon, GeoMath.mercatorLongitude(GeoMath.mercatorX(lon)), EPSILON);
+        }
+    }
+
+    @Test
+    public void tileMetersHalveWithEveryZoomLevelAndShrinkWithLatitude() {
+        assertEquals(GeoMath.EARTH_CIRCUMFERENCE, GeoMath.mercatorTileMeters(0, 0), EPSILON);
+        assertEquals(GeoMath.mercatorTileMeters(50, 10) / 2, GeoMath.mercatorTileMeters(50, 11), EPSILON);
+        assertEquals(GeoMath.EARTH_CIRCUMFERENCE / 2, GeoMath.mercatorTileMeters(60, 0), 1e-6);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.myapplication.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link NameSearchIndex}: the folding of case and diacritics, the ranking of matches,
+ * the limit, names outside Latin-1 and duplicate names.
+ */
+public class NameSearchIndexTest {
+
+    private static final NameSearchIndex LHOTY = new NameSearchIndex(Arrays.asList(
+            "Horní Lhota", "Kalhota", "Lhotka", "Dolní Lhota", "Lhota", "Beroun"));
+
+    @Test
+    public void foldRemovesCaseAndDiacritics() {
+        assertEquals("zdar nad sazavou", NameSearchIndex.fold("Žďár nad Sázavou"));
+        assertEquals("plain ascii", NameSearchIndex.fold("Plain ASCII"));
+    }
+
+    @Test
+    public void searchIgnoresCaseAndDiacritics() {
+        NameSearchIndex index = new NameSearchIndex(Arrays.asList("Žďár nad Sázavou", "Beroun"));
+        assertEquals(Collections.singletonList("Žďár nad Sázavou"), index.search("zdar", 10));
+        assertEquals(Collections.singletonList("Žďár nad Sázavou"), index.search("ŽĎÁR", 10));
+        assertEquals(Collections.singletonList("Žďár nad Sázavou"), index.search("  sázav ", 10));
+    }
+
+    @Test
+    public void prefixMatchesComeFirstThenWordStartsThenOtherMatches() {
+        assertEquals(Arrays.asList("Lhota", "Lhotka", "Dolní Lhota", "Horní Lhota", "Kalhota"),
+                LHOTY.search("lhot", 10));
+    }
+
+    @Test
+    public void laterOccurrenceAtAWordStartRanksAsWordStart() {
+        // the first occurrence of "ota" is inside "zota", the second one starts a word
+        NameSearchIndex index = new NameSearchIndex(Arrays.asList("Alota", "Zota Ota"));
+        assertEquals(Arrays.asList("Zota Ota", "Alota"), index.search("ota", 10));
+    }
+
+    @Test
+    public void searchStopsAtTheLimit() {
+        assertEquals(Arrays.asList("Lhota", "Lhotka", "Dolní Lhota"), LHOTY.search("lhot", 3));
+        assertEquals(Collections.singletonList("Lhota"), LHOTY.search("lhot", 1));
+        assertTrue(LHOTY.search("lhot", 0).isEmpty());
+    }
+
+    @Test
+    public void emptyOrUnknownQueryFindsNothing() {
+        assertTrue(LHOTY.search("", 10).isEmpty());
+        assertTrue(LHOTY.search("   ", 10).isEmpty());
+        assertTrue(LHOTY.search("praha", 10).isEmpty());
+        // every pair of the query occurs in some name, but not the whole query
+        assertTrue(LHOTY.search("lhotab", 10).isEmpty());
+    }
+
+    @Test
+    public void namesOutsideLatin1AreFound() {
+        // characters from U+8000 on give negative gram keys, which must still be found
+        NameSearchIndex index = new NameSearchIndex(Arrays.asList("黑山", "東京", "가나다", "나무", "Černá"));
+        assertEquals(Collections.singletonList("黑山"), index.search("黑", 10));
+        assertEquals(Collections.singletonList("黑山"), index.search("黑山", 10));
+        assertEquals(Arrays.asList("나무", "가나다"), index.search("나", 10));
+        assertEquals(Collections.singletonList("가나다"), index.search("나다", 10));
+        assertEquals(Collections.singletonList("東京"), index.search("京", 10));
+        assertEquals(Collections.singletonList("Černá"), index.search("cer", 10));
+        assertTrue(index.search("山黑", 10).isEmpty());
+    }
+
+    @Test
+    public void duplicateAndNullNamesAreDropped() {
+        NameSearchIndex index = new NameSearchIndex(Arrays.asList("Lípa", null, "Lípa", "Lipa"));
+        assertEquals(2, index.size());
+        // names that differ only in diacritics are both kept
+        assertEquals(Arrays.asList("Lipa", "Lípa"), index.search("lipa", 10));
+    }
+}
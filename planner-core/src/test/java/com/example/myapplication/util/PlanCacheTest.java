@@ -0,0 +1,103 @@
+package com.example.myapplication.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PlanCache}: least-recently-used eviction, the cache file written by flush
+ * and read again by a new cache, and a damaged file.
+ */
+public class PlanCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void evictsTheLeastRecentlyUsedPlan() {
+        PlanCache cache = new PlanCache(new File(folder.getRoot(), "plan_cache.json"), 2);
+        cache.put("a", entry("a"));
+        cache.put("b", entry("b"));
+        assertNotNull(cache.get("a"));
+        cache.put("c", entry("c"));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void flushedPlansAreReadByANewCache() {
+        File file = new File(folder.getRoot(), "plan_cache.json");
+        PlanCache cache = new PlanCache(file, 10);
+        cache.put("a", new PlanCache.Entry(Arrays.asList("start", "x", "y", "end"), 12_345, 6.5));
+        assertFalse(file.exists());
+        cache.flush();
+        assertTrue(file.exists());
+
+        PlanCache.Entry entry = new PlanCache(file, 10).get("a");
+        assertEquals(Arrays.asList("start", "x", "y", "end"), entry.getRouteIds());
+        assertEquals(12_345, entry.getLength(), 0);
+        assertEquals(6.5, entry.getDuration(), 0);
+    }
+
+    @Test
+    public void reloadKeepsTheEvictionOrder() {
+        File file = new File(folder.getRoot(), "plan_cache.json");
+        PlanCache cache = new PlanCache(file, 2);
+        cache.put("a", entry("a"));
+        cache.put("b", entry("b"));
+        // using a after the plans were added makes b the least recently used
+        cache.get("a");
+        cache.flush();
+
+        PlanCache reloaded = new PlanCache(file, 2);
+        reloaded.put("c", entry("c"));
+        assertNotNull(reloaded.get("a"));
+        assertNull(reloaded.get("b"));
+    }
+
+    @Test
+    public void removedPlanIsNotWrittenAgain() {
+        File file = new File(folder.getRoot(), "plan_cache.json");
+        PlanCache cache = new PlanCache(file, 10);
+        cache.put("a", entry("a"));
+        cache.put("b", entry("b"));
+        cache.flush();
+        cache.remove("a");
+        cache.flush();
+
+        PlanCache reloaded = new PlanCache(file, 10);
+        assertEquals(1, reloaded.size());
+        assertNull(reloaded.get("a"));
+    }
+
+    @Test
+    public void damagedFileIsDropped() throws IOException {
+        File file = folder.newFile("plan_cache.json");
+        Files.write(file.toPath(), "[{\"key\":\"a\",\"entry\":".getBytes(StandardCharsets.UTF_8));
+        PlanCache cache = new PlanCache(file, 10);
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+        // the next flush replaces the damaged file
+        cache.put("b", entry("b"));
+        cache.flush();
+        assertNotNull(new PlanCache(file, 10).get("b"));
+    }
+
+    private static PlanCache.Entry entry(String id) {
+        return new PlanCache.Entry(Arrays.asList("start", id, "end"), 1_000, 1.0);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.myapplication.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link PolylineCodec}: the encoding against the reference example of the format,
+ * round trips of small, negative and large differences, and the Douglas–Peucker simplification.
+ */
+public class PolylineCodecTest {
+
+    /**
+     * Example of Google's description of the encoded polyline format.
+     */
+    private static final String GOOGLE_EXAMPLE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+    private static final double[] GOOGLE_LATITUDES = {38.5, 40.7, 43.252};
+    private static final double[] GOOGLE_LONGITUDES = {-120.2, -120.95, -126.453};
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void decodesTheReferenceExample() {
+        double[][] decoded = PolylineCodec.decode(GOOGLE_EXAMPLE);
+        assertArrayEquals(GOOGLE_LATITUDES, decoded[0], EPSILON);
+        assertArrayEquals(GOOGLE_LONGITUDES, decoded[1], EPSILON);
+    }
+
+    @Test
+    public void encodesTheReferenceExample() {
+        assertEquals(GOOGLE_EXAMPLE, PolylineCodec.encode(GOOGLE_LATITUDES, GOOGLE_LONGITUDES));
+    }
+
+    @Test
+    public void emptyLineRoundTrips() {
+        assertEquals("", PolylineCodec.encode(new double[0], new double[0]));
+        double[][] decoded = PolylineCodec.decode("");
+        assertEquals(0, decoded[0].length);
+        assertEquals(0, decoded[1].length);
+    }
+
+    @Test
+    public void negativeAndLargeDifferencesRoundTrip() {
+        // jumps across the whole range of coordinates in both directions, and single units
+        double[] lat = {0, -90, 90, 0.00001, -0.00001, 89.99999, -89.99999, 0};
+        double[] lon = {0, 180, -180, -0.00001, 0.00001, -179.99999, 179.99999, 0};
+        double[][] decoded = PolylineCodec.decode(PolylineCodec.encode(lat, lon));
+        assertArrayEquals(lat, decoded[0], EPSILON);
+        assertArrayEquals(lon, decoded[1], EPSILON);
+    }
+
+    @Test
+    public void randomLinesRoundTripToThePrecision() {
+        Random random = new Random(42);
+        for (int line = 0; line < 100; line++) {
+            int n = 1 + random.nextInt(200);
+            double[] lat = new double[n];
+            double[] lon = new double[n];
+            for (int i = 0; i < n; i++) {
+                lat[i] = random.nextDouble() * 180 - 90;
+                lon[i] = random.nextDouble() * 360 - 180;
+            }
+            double[][] decoded = PolylineCodec.decode(PolylineCodec.encode(lat, lon));
+            // coordinates are rounded to 1e-5 degrees
+            assertArrayEquals(lat, decoded[0], 0.5e-5 + EPSILON);
+            assertArrayEquals(lon, decoded[1], 0.5e-5 + EPSILON);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedPolylineIsRejected() {
+        PolylineCodec.decode(GOOGLE_EXAMPLE.substring(0, GOOGLE_EXAMPLE.length() - 1));
+    }
+
+    @Test
+    public void simplifyKeepsTheEndpoints() {
+        // a straight line along a meridian: every inner point is on the line
+        int n = 50;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 50 + i * 0.001;
+            lon[i] = 14;
+        }
+        double[][] simplified = PolylineCodec.simplify(lat, lon, 1.0);
+        assertArrayEquals(new double[]{lat[0], lat[n - 1]}, simplified[0], 0);
+        assertArrayEquals(new double[]{lon[0], lon[n - 1]}, simplified[1], 0);
+    }
+
+    @Test
+    public void simplifyKeepsShortLinesAsTheyAre() {
+        double[] lat = {50.0, 50.1};
+        double[] lon = {14.0, 14.1};
+        double[][] simplified = PolylineCodec.simplify(lat, lon, 1_000);
+        assertArrayEquals(lat, simplified[0], 0);
+        assertArrayEquals(lon, simplified[1], 0);
+    }
+
+    @Test
+    public void simplifyDropsOnlyPointsWithinTheTolerance() {
+        // a bump of about 111 m in the middle of a 1.4 km line
+        double[] lat = {50.0, 50.0, 50.001, 50.0, 50.0};
+        double[] lon = {14.0, 14.005, 14.01, 14.015, 14.02};
+        double[][] kept = PolylineCodec.simplify(lat, lon, 200);
+        assertArrayEquals(new double[]{50.0, 50.0}, kept[0], 0);
+        // the neighbours of the bump are about 55 m from the lines to its top
+        double[][] bump = PolylineCodec.simplify(lat, lon, 80);
+        assertArrayEquals(new double[]{50.0, 50.001, 50.0}, bump[0], 0);
+        assertArrayEquals(new double[]{14.0, 14.01, 14.02}, bump[1], 0);
+    }
+
+    @Test
+    public void simplifiedLineStaysWithinTheTolerance() {
+        Random random = new Random(7);
+        int n = 2_000;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        lat[0] = 50;
+        lon[0] = 14;
+        for (int i = 1; i < n; i++) {
+            lat[i] = lat[i - 1] + (random.nextDouble() - 0.3) * 0.0005;
+            lon[i] = lon[i - 1] + (random.nextDouble() - 0.3) * 0.0005;
+        }
+        double tolerance = 10;
+        double[][] simplified = PolylineCodec.simplify(lat, lon, tolerance);
+        assertTrue(simplified[0].length < n);
+        assertEquals(lat[0], simplified[0][0], 0);
+        assertEquals(lat[n - 1], simplified[0][simplified[0].length - 1], 0);
+        // every original point lies within the tolerance of some segment of the simplified line
+        double cosLat = Math.cos(Math.toRadians(lat[0]));
+        for (int i = 0; i < n; i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int k = 1; k < simplified[0].length; k++) {
+                best = Math.min(best, segmentDistance(lat[i], lon[i],
+                        simplified[0][k - 1], simplified[1][k - 1], simplified[0][k], simplified[1][k], cosLat));
+            }
+            assertTrue("point " + i + " is " + best + " m away", best <= tolerance + 1e-6);
+        }
+    }
+
+    /**
+     * Distance of a point from a segment in the local equirectangular projection used by the
+     * simplification.
+     */
+    private static double segmentDistance(double lat, double lon, double lat1, double lon1,
+                                          double lat2, double lon2, double cosLat) {
+        double px = Math.toRadians(lon) * cosLat * GeoMath.EARTH_RADIUS, py = Math.toRadians(lat) * GeoMath.EARTH_RADIUS;
+        double ax = Math.toRadians(lon1) * cosLat * GeoMath.EARTH_RADIUS, ay = Math.toRadians(lat1) * GeoMath.EARTH_RADIUS;
+        double bx = Math.toRadians(lon2) * cosLat * GeoMath.EARTH_RADIUS, by = Math.toRadians(lat2) * GeoMath.EARTH_RADIUS;
+        double dx = bx - ax, dy = by - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / len2));
+        double ex = ax + t * dx - px, ey = ay + t * dy - py;
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+}
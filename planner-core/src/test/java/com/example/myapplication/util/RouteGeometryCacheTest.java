@@ -0,0 +1,144 @@
+package com.example.myapplication.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link RouteGeometryCache}: the levels of a leg, least-recently-used eviction and
+ * the cache file written by flush and read again by a new cache.
+ */
+public class RouteGeometryCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keyRoundsToTheEncodingPrecision() {
+        assertEquals(RouteGeometryCache.key(50.000001, 14.0, 49.0, 15.0),
+                RouteGeometryCache.key(50.000004, 14.0, 49.0, 15.0));
+        assertFalse(RouteGeometryCache.key(50.0, 14.0, 49.0, 15.0)
+                .equals(RouteGeometryCache.key(49.0, 15.0, 50.0, 14.0)));
+    }
+
+    @Test
+    public void levelsGetFinerWithZoomAndKeepTheEndpoints() {
+        RouteGeometryCache cache = new RouteGeometryCache(null, 10);
+        double[][] leg = leg(1_000);
+        cache.put("leg", leg[0], leg[1]);
+        String[] levels = cache.get("leg");
+        assertEquals(RouteGeometryCache.LEVEL_ZOOMS.length, levels.length);
+        int previous = 0;
+        for (int k = 0; k < levels.length; k++) {
+            double[][] decoded = RouteGeometryCache.decode(levels, k);
+            assertTrue(decoded[0].length >= previous);
+            previous = decoded[0].length;
+            assertEquals(leg[0][0], decoded[0][0], 1e-5);
+            assertEquals(leg[1][leg[1].length - 1], decoded[1][decoded[1].length - 1], 1e-5);
+        }
+        assertTrue(RouteGeometryCache.decode(levels, 0)[0].length < leg[0].length);
+    }
+
+    @Test
+    public void levelIndexPicksTheCoarsestSufficientLevel() {
+        assertEquals(0, RouteGeometryCache.levelIndex(3));
+        assertEquals(0, RouteGeometryCache.levelIndex(8));
+        assertEquals(1, RouteGeometryCache.levelIndex(8.5));
+        assertEquals(RouteGeometryCache.LEVEL_ZOOMS.length - 1, RouteGeometryCache.levelIndex(19));
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedLeg() {
+        RouteGeometryCache cache = new RouteGeometryCache(null, 2);
+        double[][] leg = leg(10);
+        cache.put("a", leg[0], leg[1]);
+        cache.put("b", leg[0], leg[1]);
+        // reading a makes b the least recently used; contains does not change the order
+        assertNotNull(cache.get("a"));
+        assertTrue(cache.contains("b"));
+        cache.put("c", leg[0], leg[1]);
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+    }
+
+    @Test
+    public void flushedLegsAreReadByANewCache() throws IOException {
+        File file = new File(folder.getRoot(), "route_geometry.json");
+        RouteGeometryCache cache = new RouteGeometryCache(file, 10);
+        double[][] leg = leg(200);
+        cache.put("leg", leg[0], leg[1]);
+        assertFalse(file.exists());
+        cache.flush();
+        assertTrue(file.exists());
+
+        RouteGeometryCache reloaded = new RouteGeometryCache(file, 10);
+        assertEquals(1, reloaded.size());
+        assertArrayEquals(cache.get("leg"), reloaded.get("leg"));
+    }
+
+    @Test
+    public void flushWithoutChangesDoesNotWrite() throws IOException {
+        File file = new File(folder.getRoot(), "route_geometry.json");
+        RouteGeometryCache cache = new RouteGeometryCache(file, 10);
+        cache.flush();
+        assertFalse(file.exists());
+        double[][] leg = leg(10);
+        cache.put("leg", leg[0], leg[1]);
+        cache.flush();
+        assertTrue(file.delete());
+        cache.flush();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void reloadKeepsTheEvictionOrder() {
+        File file = new File(folder.getRoot(), "route_geometry.json");
+        RouteGeometryCache cache = new RouteGeometryCache(file, 2);
+        double[][] leg = leg(10);
+        cache.put("a", leg[0], leg[1]);
+        cache.put("b", leg[0], leg[1]);
+        cache.get("a");
+        cache.flush();
+
+        RouteGeometryCache reloaded = new RouteGeometryCache(file, 2);
+        reloaded.put("c", leg[0], leg[1]);
+        assertTrue(reloaded.contains("a"));
+        assertFalse(reloaded.contains("b"));
+    }
+
+    @Test
+    public void damagedFileIsDropped() throws IOException {
+        File file = folder.newFile("route_geometry.json");
+        Files.write(file.toPath(), "[{\"key\":".getBytes(StandardCharsets.UTF_8));
+        RouteGeometryCache cache = new RouteGeometryCache(file, 10);
+        assertEquals(0, cache.size());
+        assertNull(cache.get("leg"));
+    }
+
+    /**
+     * A winding road of n points going north-east from Prague, about 10 m apart.
+     */
+    private static double[][] leg(int n) {
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 50.08 + i * 0.00007 + 0.0005 * Math.sin(i / 15.0);
+            lon[i] = 14.42 + i * 0.0001;
+        }
+        return new double[][]{lat, lon};
+    }
+}
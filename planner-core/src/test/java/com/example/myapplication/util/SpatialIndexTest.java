@@ -0,0 +1,98 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the radius queries of {@link SpatialIndex} against a scan of all places with the
+ * distances of the index.
+ */
+public class SpatialIndexTest {
+
+    private static final double LAT = 49.8;
+    private static final double LON = 15.5;
+
+    @Test
+    public void withinRadiusReturnsEveryPlaceInsideClosestFirst() {
+        List<MowingPlace> places = places(500, 3);
+        SpatialIndex index = new SpatialIndex(places);
+        Random random = new Random(4);
+        for (int q = 0; q < 50; q++) {
+            double lat = LAT + (random.nextDouble() - 0.5) * 2;
+            double lon = LON + (random.nextDouble() - 0.5) * 4;
+            double radius = random.nextDouble() * 60_000;
+            int[] found = index.withinRadiusIndices(lat, lon, radius);
+            int expected = 0;
+            for (int i = 0; i < places.size(); i++) {
+                expected += index.distanceTo(lat, lon, i) <= radius ? 1 : 0;
+            }
+            assertEquals(expected, found.length);
+            for (int h = 0; h < found.length; h++) {
+                assertTrue(index.distanceTo(lat, lon, found[h]) <= radius);
+                if (h > 0) {
+                    // ordered up to the float precision of the packed distances
+                    assertTrue(index.distanceTo(lat, lon, found[h - 1])
+                            <= index.distanceTo(lat, lon, found[h]) * (1 + 1e-6));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void markWithinRadiusMarksTheSamePlaces() {
+        List<MowingPlace> places = places(500, 5);
+        SpatialIndex index = new SpatialIndex(places);
+        boolean[] marks = new boolean[places.size()];
+        int count = index.markWithinRadius(LAT, LON, 40_000, marks);
+        int[] found = index.withinRadiusIndices(LAT, LON, 40_000);
+        assertEquals(found.length, count);
+        boolean[] expected = new boolean[places.size()];
+        for (int i : found) {
+            expected[i] = true;
+        }
+        assertArrayEquals(expected, marks);
+    }
+
+    @Test
+    public void coversOnlyWhenEveryPlaceIsInside() {
+        List<MowingPlace> places = places(200, 6);
+        SpatialIndex index = new SpatialIndex(places);
+        assertTrue(index.covers(LAT, LON, 1_000_000));
+        assertEquals(places.size(), index.withinRadiusIndices(LAT, LON, 1_000_000).length);
+        assertFalse(index.covers(LAT, LON, 50_000));
+    }
+
+    @Test
+    public void emptyIndexFindsNothing() {
+        SpatialIndex index = new SpatialIndex(new ArrayList<>());
+        assertEquals(0, index.withinRadiusIndices(LAT, LON, 1_000).length);
+        assertEquals(0, index.markWithinRadius(LAT, LON, 1_000, new boolean[0]));
+        assertEquals(0, index.nearestIndices(LAT, LON, 3, -1).length);
+    }
+
+    /**
+     * Places spread over about the extent of the Czech Republic.
+     */
+    private static List<MowingPlace> places(int count, long seed) {
+        Random random = new Random(seed);
+        List<MowingPlace> places = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MowingPlace p = new MowingPlace();
+            p.setId("spatial-test-" + seed + "-" + i);
+            p.setLatitude(LAT + (random.nextDouble() - 0.5) * 2);
+            p.setLongitude(LON + (random.nextDouble() - 0.5) * 4);
+            places.add(p);
+        }
+        return places;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link TSPPlanner#replanRoute}: the stops that stay on the route keep their relative
+ * order when stops are added or removed, and every stop is visited once from start to end.
+ */
+public class TSPPlannerTest {
+
+    @Test
+    public void keptStopsKeepTheirOrderWhenStopsAreAdded() {
+        // stops along a meridian, planned in that order, so the repair has nothing to improve
+        List<MowingPlace> previous = lineRoute(10);
+        MowingPlace between = place("between", 50.045, 14.0);
+        MowingPlace beyond = place("beyond", 50.095, 14.0);
+
+        List<MowingPlace> route = TSPPlanner.replanRoute(previous, Arrays.asList(beyond, between),
+                Collections.emptySet(), CostModel.distance());
+
+        assertEquals(Arrays.asList("start", "line-0", "line-1", "line-2", "line-3", "line-4", "between",
+                "line-5", "line-6", "line-7", "line-8", "line-9", "beyond", "end"), ids(route));
+    }
+
+    @Test
+    public void keptStopsKeepTheirOrderWhenStopsAreRemoved() {
+        List<MowingPlace> previous = lineRoute(10);
+
+        List<MowingPlace> route = TSPPlanner.replanRoute(previous, Collections.emptyList(),
+                new HashSet<>(Arrays.asList("line-0", "line-4", "line-5", "start", "end")), CostModel.distance());
+
+        assertEquals(Arrays.asList("start", "line-1", "line-2", "line-3", "line-6", "line-7", "line-8",
+                "line-9", "end"), ids(route));
+    }
+
+    @Test
+    public void keptStopsFarFromTheChangesKeepTheirOrder() {
+        Random random = new Random(11);
+        List<MowingPlace> previous = new ArrayList<>();
+        previous.add(place("start", 49.5, 14.0));
+        for (int i = 0; i < 60; i++) {
+            previous.add(place("random-" + i, 49.5 + random.nextDouble(), 14.0 + random.nextDouble()));
+        }
+        previous.add(place("end", 49.5, 14.0));
+        List<MowingPlace> added = Collections.singletonList(place("added", 49.9, 14.5));
+
+        List<MowingPlace> route = TSPPlanner.replanRoute(previous, added,
+                Collections.singleton("random-45"), CostModel.distance());
+
+        // every stop once, from start to end
+        assertEquals(previous.size(), route.size());
+        assertEquals(previous.size(), new HashSet<>(ids(route)).size());
+        assertEquals("start", route.get(0).getId());
+        assertEquals("end", route.get(route.size() - 1).getId());
+        assertTrue(ids(route).contains("added"));
+        // the kept stops in the order of the new route, with those the repair may have moved
+        // (near the removed and the added stop) left out, are in their previous order
+        List<String> kept = ids(route);
+        kept.remove("added");
+        int addedAt = ids(route).indexOf("added");
+        Set<String> near = new HashSet<>();
+        for (int i = Math.max(0, addedAt - 8); i <= Math.min(route.size() - 1, addedAt + 8); i++) {
+            near.add(route.get(i).getId());
+        }
+        for (int i = 45 - 8; i <= 45 + 8; i++) {
+            near.add("random-" + i);
+        }
+        kept.removeAll(near);
+        List<String> expected = ids(previous);
+        expected.removeAll(near);
+        expected.remove("random-45");
+        assertEquals(expected, kept);
+    }
+
+    /**
+     * A route from start through count stops 0.01° apart going north to end.
+     */
+    private static List<MowingPlace> lineRoute(int count) {
+        List<MowingPlace> route = new ArrayList<>();
+        route.add(place("start", 49.99, 14.0));
+        for (int i = 0; i < count; i++) {
+            route.add(place("line-" + i, 50.0 + i * 0.01, 14.0));
+        }
+        route.add(place("end", 50.0 + count * 0.01, 14.0));
+        return route;
+    }
+
+    private static MowingPlace place(String id, double lat, double lon) {
+        MowingPlace p = new MowingPlace();
+        p.setId(id);
+        p.setName(id);
+        p.setLatitude(lat);
+        p.setLongitude(lon);
+        return p;
+    }
+
+    private static List<String> ids(List<MowingPlace> route) {
+        List<String> ids = new ArrayList<>(route.size());
+        for (MowingPlace p : route) {
+            ids.add(p.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.myapplication.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link TileSet}: the packing, the tiles of boxes including boxes across the
+ * antimeridian, the corridors around routes and the bound on the number of tiles.
+ */
+public class TileSetTest {
+
+    @Test
+    public void packRoundTrips() {
+        long tile = TileSet.pack(TileSet.MAX_ZOOM, (1 << 29) - 1, 12345);
+        assertEquals(TileSet.MAX_ZOOM, TileSet.zoom(tile));
+        assertEquals((1 << 29) - 1, TileSet.x(tile));
+        assertEquals(12345, TileSet.y(tile));
+    }
+
+    @Test
+    public void pointIsItsSlippyMapTile() {
+        // Prague, tile 10/553/346 of OpenStreetMap
+        TileSet set = new TileSet(10);
+        assertTrue(set.addBox(10, 50.08, 14.42, 50.08, 14.42));
+        assertArrayEquals(new long[]{TileSet.pack(10, 553, 346)}, set.toArray());
+    }
+
+    @Test
+    public void boxHasEveryTileOfItsRange() {
+        TileSet set = new TileSet(1000);
+        assertTrue(set.addBox(8, 48.5, 12.0, 51.1, 18.9));
+        long[] tiles = set.toArray();
+        int x0 = TileSet.x(tiles[0]), y0 = TileSet.y(tiles[0]);
+        int x1 = TileSet.x(tiles[tiles.length - 1]), y1 = TileSet.y(tiles[tiles.length - 1]);
+        assertEquals((x1 - x0 + 1) * (y1 - y0 + 1), tiles.length);
+        assertEquals(tileX(12.0, 8), x0);
+        assertEquals(tileX(18.9, 8), x1);
+    }
+
+    @Test
+    public void levelsAreSortedCoarseFirstWithoutDuplicates() {
+        TileSet set = new TileSet(1000);
+        for (int zoom = 10; zoom >= 6; zoom--) {
+            assertTrue(set.addBox(zoom, 49.0, 14.0, 50.0, 15.0));
+            assertTrue(set.addBox(zoom, 49.0, 14.0, 50.0, 15.0));
+        }
+        long[] tiles = set.toArray();
+        for (int i = 1; i < tiles.length; i++) {
+            assertTrue(tiles[i - 1] < tiles[i]);
+        }
+        assertEquals(6, TileSet.zoom(tiles[0]));
+        assertEquals(10, TileSet.zoom(tiles[tiles.length - 1]));
+    }
+
+    @Test
+    public void boxAcrossAntimeridianCoversBothSides() {
+        TileSet set = new TileSet(100);
+        assertTrue(set.addBox(3, -10.0, 170.0, 10.0, -170.0));
+        long[] tiles = set.toArray();
+        // columns 7 and 0 of the 8 columns at zoom 3, rows 3 and 4 around the equator
+        assertArrayEquals(new long[]{
+                TileSet.pack(3, 0, 3), TileSet.pack(3, 0, 4),
+                TileSet.pack(3, 7, 3), TileSet.pack(3, 7, 4)}, tiles);
+    }
+
+    @Test
+    public void boxAcrossAntimeridianWithinOneColumnSpansTheWorld() {
+        TileSet set = new TileSet(100);
+        assertTrue(set.addBox(2, 1.0, 10.0, 2.0, 9.0));
+        assertEquals(4, set.toArray().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boxWithSouthAboveNorthIsRejected() {
+        new TileSet(100).addBox(5, 51.0, 14.0, 49.0, 15.0);
+    }
+
+    @Test
+    public void boxOverTheLimitAddsNothing() {
+        TileSet set = new TileSet(50);
+        assertTrue(set.addBox(8, 50.0, 14.0, 50.0, 14.0));
+        assertFalse(set.addBox(14, 48.5, 12.0, 51.1, 18.9));
+        assertEquals(1, set.toArray().length);
+    }
+
+    @Test
+    public void corridorContainsEveryRoutePointAndItsNeighbours() {
+        double[] lat = {50.08, 49.95, 49.19};
+        double[] lon = {14.42, 15.27, 16.61};
+        int zoom = 12;
+        TileSet set = new TileSet(100_000);
+        assertTrue(set.addCorridor(zoom, lat, lon, 1_000));
+        long[] tiles = set.toArray();
+        for (int i = 0; i < lat.length; i++) {
+            int x = tileX(lon[i], zoom), y = tileY(lat[i], zoom);
+            // a tile at zoom 12 is about 6 km wide here, so 1 km reaches one tile around
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    assertTrue("tile " + (x + dx) + "/" + (y + dy),
+                            Arrays.binarySearch(tiles, TileSet.pack(zoom, x + dx, y + dy)) >= 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void corridorOverTheLimitAddsNothing() {
+        TileSet set = new TileSet(40);
+        assertTrue(set.addBox(8, 50.0, 14.0, 50.0, 14.0));
+        assertFalse(set.addCorridor(14, new double[]{50.08, 49.19}, new double[]{14.42, 16.61}, 2_000));
+        assertEquals(1, set.toArray().length);
+    }
+
+    private static int tileX(double longitude, int zoom) {
+        return (int) Math.floor(GeoMath.mercatorX(longitude) * (1 << zoom));
+    }
+
+    private static int tileY(double latitude, int zoom) {
+        return (int) Math.floor(GeoMath.mercatorY(latitude) * (1 << zoom));
+    }
+}
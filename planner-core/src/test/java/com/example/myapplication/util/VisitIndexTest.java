@@ -0,0 +1,130 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.PlaceIds;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of {@link VisitIndex}: the order of the packed visits, finding and removing a visit
+ * and the dates left out of the index.
+ */
+public class VisitIndexTest {
+
+    @Test
+    public void visitsAreOrderedNewestFirst() {
+        MowingPlace a = place("visit-test-a", "2025-03-01", "2025-06-15");
+        MowingPlace b = place("visit-test-b", "2025-06-15", "2024-12-31");
+        VisitIndex index = VisitIndex.build(Arrays.asList(a, b));
+        assertEquals(4, index.size());
+        assertEquals((int) PlannerDates.toEpochDay(2025, 6, 15), index.epochDay(0));
+        assertEquals((int) PlannerDates.toEpochDay(2025, 6, 15), index.epochDay(1));
+        assertEquals((int) PlannerDates.toEpochDay(2025, 3, 1), index.epochDay(2));
+        assertEquals((int) PlannerDates.toEpochDay(2024, 12, 31), index.epochDay(3));
+        // on the same day the place with the higher ID index comes first
+        int ia = PlaceIds.intern(a.getId()), ib = PlaceIds.intern(b.getId());
+        assertEquals(Math.max(ia, ib), index.placeIndex(0));
+        assertEquals(Math.min(ia, ib), index.placeIndex(1));
+        assertEquals(ia, index.placeIndex(2));
+        assertEquals(ib, index.placeIndex(3));
+    }
+
+    @Test
+    public void randomVisitsAreOrderedNewestFirst() {
+        List<MowingPlace> places = places(100, 1);
+        VisitIndex index = VisitIndex.build(places);
+        int total = 0;
+        for (MowingPlace p : places) {
+            total += p.getVisitDates().size();
+        }
+        assertEquals(total, index.size());
+        for (int k = 1; k < index.size(); k++) {
+            assertTrue(index.epochDay(k - 1) > index.epochDay(k)
+                    || index.epochDay(k - 1) == index.epochDay(k) && index.placeIndex(k - 1) > index.placeIndex(k));
+        }
+    }
+
+    @Test
+    public void indexOfFindsEveryVisit() {
+        List<MowingPlace> places = places(50, 2);
+        VisitIndex index = VisitIndex.build(places);
+        for (MowingPlace p : places) {
+            int id = PlaceIds.intern(p.getId());
+            for (String date : p.getVisitDates()) {
+                int position = index.indexOf(id, PlannerDates.parse(date));
+                assertTrue(position >= 0);
+                assertEquals(id, index.placeIndex(position));
+                assertEquals((int) PlannerDates.parse(date), index.epochDay(position));
+            }
+        }
+        assertEquals(-1, index.indexOf(PlaceIds.intern("visit-test-none"), PlannerDates.toEpochDay(2025, 1, 1)));
+    }
+
+    @Test
+    public void removeReturnsThePositionAndShiftsTheOlderVisits() {
+        MowingPlace a = place("visit-test-c", "2025-01-01", "2025-02-01", "2025-03-01", "2025-04-01");
+        VisitIndex index = VisitIndex.build(Arrays.asList(a));
+        int id = PlaceIds.intern(a.getId());
+        // positions: April 0, March 1, February 2, January 3
+        assertEquals(1, index.remove(id, PlannerDates.toEpochDay(2025, 3, 1)));
+        assertEquals(3, index.size());
+        assertEquals((int) PlannerDates.toEpochDay(2025, 4, 1), index.epochDay(0));
+        assertEquals((int) PlannerDates.toEpochDay(2025, 2, 1), index.epochDay(1));
+        assertEquals((int) PlannerDates.toEpochDay(2025, 1, 1), index.epochDay(2));
+        assertEquals(2, index.indexOf(id, PlannerDates.toEpochDay(2025, 1, 1)));
+
+        assertEquals(-1, index.remove(id, PlannerDates.toEpochDay(2025, 3, 1)));
+        assertEquals(3, index.size());
+        assertEquals(0, index.remove(id, PlannerDates.toEpochDay(2025, 4, 1)));
+        assertEquals(2, index.size());
+        assertEquals((int) PlannerDates.toEpochDay(2025, 2, 1), index.epochDay(0));
+    }
+
+    @Test
+    public void unparseableDatesAreLeftOut() {
+        MowingPlace a = place("visit-test-d", "2025-05-01", "yesterday", "2025-02-30", "2025-5-1");
+        MowingPlace b = new MowingPlace();
+        b.setId("visit-test-e");
+        VisitIndex index = VisitIndex.build(Arrays.asList(a, b));
+        assertEquals(1, index.size());
+        assertEquals((int) PlannerDates.toEpochDay(2025, 5, 1), index.epochDay(0));
+        assertEquals(PlaceIds.intern(a.getId()), index.placeIndex(0));
+    }
+
+    private static MowingPlace place(String id, String... dates) {
+        MowingPlace p = new MowingPlace();
+        p.setId(id);
+        p.setName(id);
+        p.setVisitDates(new ArrayList<>(Arrays.asList(dates)));
+        return p;
+    }
+
+    /**
+     * Places with up to five distinct visits each in 2024 and 2025.
+     */
+    private static List<MowingPlace> places(int count, long seed) {
+        Random random = new Random(seed);
+        List<MowingPlace> places = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MowingPlace p = place("visit-test-" + seed + "-" + i);
+            int visits = random.nextInt(6);
+            for (int v = 0; v < visits; v++) {
+                String date = String.format("%04d-%02d-%02d", 2024 + random.nextInt(2),
+                        1 + random.nextInt(12), 1 + random.nextInt(28));
+                if (!p.getVisitDates().contains(date)) {
+                    p.getVisitDates().add(date);
+                }
+            }
+            places.add(p);
+        }
+        return places;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.myapplication.util;
+
+import com.example.myapplication.data.MowingPlace;
+import com.example.myapplication.data.PlaceIds;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests of {@link VisitStatusIndex}: the index computed from database aggregates, the index for
+ * another day and the copy with the visits of one place changed must all equal the index
+ * computed from the visit dates.
+ */
+public class VisitStatusIndexTest {
+
+    private static final MowingSchedule SCHEDULE = MowingSchedule.defaults();
+    private static final long TODAY = PlannerDates.toEpochDay(2025, 6, 15);
+
+    @Test
+    public void fromVisitsEqualsBuild() {
+        List<MowingPlace> places = places(200, 1);
+        assertSameStatus(places, VisitStatusIndex.build(places, TODAY, SCHEDULE),
+                fromVisits(places, TODAY));
+    }
+
+    @Test
+    public void placesWithoutVisitsAreDueAndNeverVisited() {
+        MowingPlace place = place("status-test-new", 2);
+        VisitStatusIndex index = VisitStatusIndex.fromVisits(Arrays.asList(place), new HashMap<>(), new HashMap<>(),
+                TODAY, SCHEDULE);
+        int id = PlaceIds.intern(place.getId());
+        assertEquals(0, index.visitsThisYear(id));
+        assertEquals(VisitStatusIndex.NEVER_VISITED, index.lastVisit(id));
+        assertEquals(VisitStatusIndex.build(Arrays.asList(place), TODAY, SCHEDULE).status(id), index.status(id));
+    }
+
+    @Test
+    public void allMowingsDoneIsDone() {
+        MowingPlace place = place("status-test-done", 1);
+        place.getVisitDates().add("2025-05-01");
+        VisitStatusIndex index = VisitStatusIndex.build(Arrays.asList(place), TODAY, SCHEDULE);
+        int id = PlaceIds.intern(place.getId());
+        assertEquals(VisitStatusIndex.DONE, index.status(id));
+        assertEquals(VisitStatusIndex.NO_DUE, index.daysUntilDue(id));
+        assertEquals((int) PlannerDates.toEpochDay(2025, 5, 1), index.lastVisit(id));
+    }
+
+    @Test
+    public void onDayEqualsBuildOnThatDay() {
+        List<MowingPlace> places = places(200, 2);
+        VisitStatusIndex index = VisitStatusIndex.build(places, TODAY, SCHEDULE);
+        for (long day : new long[]{TODAY + 1, TODAY + 60, PlannerDates.toEpochDay(2025, 12, 31),
+                PlannerDates.toEpochDay(2026, 1, 1)}) {
+            assertSameStatus(places, VisitStatusIndex.build(places, day, SCHEDULE), index.onDay(day, places, SCHEDULE));
+        }
+    }
+
+    @Test
+    public void withVisitsChangesOnlyThatPlace() {
+        List<MowingPlace> places = places(50, 3);
+        VisitStatusIndex index = VisitStatusIndex.build(places, TODAY, SCHEDULE);
+        MowingPlace changed = places.get(7);
+        changed.getVisitDates().clear();
+        changed.getVisitDates().add("2024-09-01");
+
+        VisitStatusIndex updated = index.withVisits(changed, 0, (int) PlannerDates.toEpochDay(2024, 9, 1), SCHEDULE);
+        assertSameStatus(places, VisitStatusIndex.build(places, TODAY, SCHEDULE), updated);
+        // the original index is not modified
+        assertEquals(index.today(), updated.today());
+        assertFalse(index.lastVisit(PlaceIds.intern(changed.getId())) == updated.lastVisit(PlaceIds.intern(changed.getId())));
+    }
+
+    @Test
+    public void withVisitsAddsAPlaceInternedLater() {
+        VisitStatusIndex index = VisitStatusIndex.build(new ArrayList<>(), TODAY, SCHEDULE);
+        MowingPlace place = place("status-test-later-" + PlaceIds.size(), 1);
+        VisitStatusIndex updated = index.withVisits(place, 1, (int) TODAY, SCHEDULE);
+        assertEquals(VisitStatusIndex.DONE, updated.status(PlaceIds.intern(place.getId())));
+        assertEquals(VisitStatusIndex.UNKNOWN, index.status(PlaceIds.intern(place.getId())));
+    }
+
+    /**
+     * Aggregates the visit dates the way MowingPlacesRepository queries them.
+     */
+    private static VisitStatusIndex fromVisits(List<MowingPlace> places, long today) {
+        int year = PlannerDates.yearOf(today);
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, Long> last = new HashMap<>();
+        for (MowingPlace p : places) {
+            for (String date : p.getVisitDates()) {
+                long day = PlannerDates.parse(date);
+                if (PlannerDates.yearOf(day) == year) {
+                    counts.merge(p.getId(), 1, Integer::sum);
+                }
+                last.merge(p.getId(), day, Math::max);
+            }
+        }
+        return VisitStatusIndex.fromVisits(places, counts, last, today, SCHEDULE);
+    }
+
+    private static void assertSameStatus(List<MowingPlace> places, VisitStatusIndex expected, VisitStatusIndex actual) {
+        assertEquals(expected.today(), actual.today());
+        for (MowingPlace p : places) {
+            int id = PlaceIds.intern(p.getId());
+            assertEquals(p.getId(), expected.status(id), actual.status(id));
+            assertEquals(p.getId(), expected.daysUntilDue(id), actual.daysUntilDue(id));
+            assertEquals(p.getId(), expected.visitsThisYear(id), actual.visitsThisYear(id));
+            assertEquals(p.getId(), expected.lastVisit(id), actual.lastVisit(id));
+        }
+    }
+
+    /**
+     * Places with 1 to 3 required mowings and up to 4 seeded visits in 2024 and 2025.
+     */
+    private static List<MowingPlace> places(int count, long seed) {
+        Random random = new Random(seed);
+        List<MowingPlace> places = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MowingPlace p = place("status-test-" + seed + "-" + i, 1 + random.nextInt(3));
+            int visits = random.nextInt(5);
+            for (int v = 0; v < visits; v++) {
+                String date = PlannerDates.format(PlannerDates.toEpochDay(2024, 6, 1) + random.nextInt(380));
+                if (!p.getVisitDates().contains(date)) {
+                    p.getVisitDates().add(date);
+                }
+            }
+            places.add(p);
+        }
+        return places;
+    }
+
+    private static MowingPlace place(String id, int mowingCountPerYear) {
+        MowingPlace p = new MowingPlace();
+        p.setId(id);
+        p.setName(id);
+        p.setMowingCountPerYear(mowingCountPerYear);
+        p.setVisitDates(new ArrayList<>());
+        return p;
+    }
+}
@@ -21,3 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "My Application"
 include(":app")
+include(":planner-core")
+include(":benchmark")
+include(":macrobenchmark")